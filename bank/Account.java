@@ -1,28 +1,74 @@
 package bank;
 
-import java.util.ArrayList;
+import bank.dto.Page;
+import bank.dto.PageRequest;
+import bank.ledger.Ledger;
+import bank.ledger.PostingType;
+import bank.ledger.StatementLine;
+import bank.money.Money;
+
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
+/**
+ * Base account. The balance is held as long cents in an atomic: credits and
+ * debits are lock-free CAS updates (debits enforce the overdraft limit), and
+ * the ledger posting follows the balance change rather than being atomic
+ * with it. Two-account transfers lock both accounts in a global order, so
+ * transfers never interleave with each other and concurrent opposite
+ * transfers cannot deadlock; a single-account credit or debit does not take
+ * the monitor and may land between a transfer's two legs.
+ */
 public abstract class Account {
+    // taken before both account monitors when two accounts tie in lock order
+    private static final Object TIE_LOCK = new Object();
+
     protected final String id;
     protected final Customer customer;
-    protected final List<Transaction> transactions;
-    protected double balance;
+    protected final Ledger ledger;
+    private final AtomicLong balanceCents;
 
     public Account(Customer customer) {
         this(UUID.randomUUID().toString(), customer, 0.0);
     }
 
+    /**
+     * An account with a ledger of its own.
+     */
     public Account(String id, Customer customer, double balance) {
+        this(id, customer, balance, new Ledger());
+    }
+
+    /**
+     * Opens the account in the given ledger with the balance as its opening
+     * balance, so ledger balances and statements start from it.
+     *
+     * @throws IllegalStateException when the ledger already holds an account with this id
+     */
+    public Account(String id, Customer customer, double balance, Ledger ledger) {
         this.id = id;
         this.customer = customer;
-        this.balance = balance;
-        this.transactions = new ArrayList<>();
+        this.balanceCents = new AtomicLong(Money.toCents(balance));
+        this.ledger = ledger;
+        ledger.open(id, balanceCents.get());
     }
 
+    /**
+     * Applies the transaction to the balance and records it in the ledger;
+     * its type gives the direction (a PAYMENT of 500 takes 500 out).
+     *
+     * @throws IllegalArgumentException when the amount is not positive or the
+     *                                  type has no direction (opening balance, adjustment)
+     */
     public void addTransaction(Transaction transaction) {
-        transactions.add(transaction);
+        PostingType type = transaction.getType();
+        if (type.direction() == 0) {
+            throw new IllegalArgumentException(type + " cannot be added as a transaction");
+        }
+        requirePositive(transaction.getAmountCents());
+        record(type, type.direction() * transaction.getAmountCents());
     }
 
     public String getId() {
@@ -33,16 +79,166 @@ public abstract class Account {
         return customer;
     }
 
+    /**
+     * Ledger history of this account, oldest first.
+     */
     public List<Transaction> getTransactions() {
-        return transactions;
+        return ledger.history(id).stream()
+                .map(Transaction::fromPosting)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Paginated statement of postings with from <= timestamp < to (epoch millis).
+     */
+    public Page<StatementLine> statement(long fromMillis, long toMillis, PageRequest page) {
+        return ledger.statement(id, fromMillis, toMillis, page);
+    }
+
+    public Ledger getLedger() {
+        return ledger;
     }
 
     public double getBalance() {
-        return balance;
+        return Money.toDouble(balanceCents.get());
     }
 
+    public long getBalanceCents() {
+        return balanceCents.get();
+    }
+
+    /**
+     * Resets the balance and posts the difference as an ADJUSTMENT, so the
+     * ledger still agrees with the balance.
+     */
     public void setBalance(double balance) {
-        this.balance = balance;
+        long target = Money.toCents(balance);
+        long delta = target - balanceCents.getAndSet(target);
+        if (delta != 0) {
+            ledger.append(id, PostingType.ADJUSTMENT, delta);
+        }
+    }
+
+    /**
+     * How far below zero this account may go; no overdraft by default.
+     */
+    protected long overdraftLimitCents() {
+        return 0;
+    }
+
+    public void credit(long amountCents) {
+        requirePositive(amountCents);
+        balanceCents.addAndGet(amountCents);
+    }
+
+    /**
+     * Debits the amount unless that would exceed the overdraft limit.
+     *
+     * @return false (and no change) when funds are insufficient
+     */
+    public boolean tryDebit(long amountCents) {
+        requirePositive(amountCents);
+        long floor = -overdraftLimitCents();
+        while (true) {
+            long current = balanceCents.get();
+            long next = current - amountCents;
+            if (next < floor) {
+                return false;
+            }
+            if (balanceCents.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @throws IllegalStateException when funds are insufficient
+     */
+    public void debit(long amountCents) {
+        if (!tryDebit(amountCents)) {
+            throw new IllegalStateException("Insufficient funds in account " + id);
+        }
+    }
+
+    /**
+     * Moves money to another account and records both legs in the ledger.
+     * Both accounts stay locked until both legs are applied and posted, so
+     * transfers touching either account run one at a time. The locks are
+     * taken in id order (identity hash, then a global tie lock, for equal
+     * ids), so A->B and B->A transfers running at the same time cannot
+     * deadlock.
+     *
+     * @throws IllegalStateException when funds are insufficient
+     */
+    public void transferTo(Account target, long amountCents) {
+        if (target == null || target == this) {
+            throw new IllegalArgumentException("Transfer needs a different target account");
+        }
+        requirePositive(amountCents);
+        int order = lockOrder(this, target);
+        if (order == 0) {
+            // same id and identity hash: only one such transfer may pick an order at a time
+            synchronized (TIE_LOCK) {
+                transferLocked(this, target, target, amountCents);
+            }
+            return;
+        }
+        transferLocked(order < 0 ? this : target, order < 0 ? target : this, target, amountCents);
+    }
+
+    private void transferLocked(Account first, Account second, Account target, long amountCents) {
+        synchronized (first) {
+            synchronized (second) {
+                debit(amountCents);
+                target.credit(amountCents);
+                ledger.append(id, PostingType.TRANSFER_OUT, -amountCents);
+                target.ledger.append(target.id, PostingType.TRANSFER_IN, amountCents);
+            }
+        }
+    }
+
+    /**
+     * Posts a payment of the given amount out of this account, then prints the payment.
+     */
+    public Transaction pay(long amountCents) {
+        requirePositive(amountCents);
+        Transaction transaction = record(PostingType.PAYMENT, -amountCents);
+        pay();
+        return transaction;
+    }
+
+    /**
+     * Posts money received into this account, then prints the receipt.
+     */
+    public Transaction receipt(long amountCents) {
+        requirePositive(amountCents);
+        Transaction transaction = record(PostingType.RECEIPT, amountCents);
+        receipt();
+        return transaction;
+    }
+
+    /**
+     * Applies the signed amount to the balance, then appends the posting.
+     */
+    protected Transaction record(PostingType type, long signedAmountCents) {
+        if (signedAmountCents < 0) {
+            debit(-signedAmountCents);
+        } else if (signedAmountCents > 0) {
+            credit(signedAmountCents);
+        }
+        long offset = ledger.append(id, type, signedAmountCents);
+        return Transaction.fromPosting(ledger.get(offset));
+    }
+
+    private static int lockOrder(Account a, Account b) {
+        int byId = a.id.compareTo(b.id);
+        return byId != 0 ? byId : Integer.compare(System.identityHashCode(a), System.identityHashCode(b));
+    }
+
+    private static void requirePositive(long amountCents) {
+        if (amountCents <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
     }
 
     public abstract void pay();
@@ -7,18 +7,73 @@ import bank.contracts.RoleRepository;
 import bank.controller.AccountViewController;
 import bank.controller.RoleAdminController;
 import bank.controller.SearchController;
+import bank.dto.ImportReport;
+import bank.repository.AccountCsvImporter;
+import bank.repository.AccountNumbers;
 import bank.repository.ConsoleAuditLogRepository;
+import bank.repository.AccountStoreFile;
+import bank.repository.DurableStore;
 import bank.repository.InMemoryAccountRepository;
 import bank.repository.InMemoryRoleRepository;
+import bank.repository.MappedAccountRepository;
+import bank.repository.OffHeapAccountRepository;
 import bank.service.AccountQueryService;
 import bank.service.DefaultAuthzService;
 import bank.service.RoleAdminService;
 import bank.service.SearchService;
+import bank.wal.Durability;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Central wiring for controllers/services/repositories.
  */
 public class AppConfig {
+    /**
+     * System property naming an account store file (see AccountStoreFile).
+     * When set, accounts are mapped from that file instead of being seeded
+     * on every start; a missing file is created from the default seed.
+     */
+    public static final String ACCOUNT_STORE_PROPERTY = "bank.accountStore";
+    /**
+     * System property; "true" keeps the seeded accounts in off-heap records
+     * (OffHeapAccountRepository) instead of heap objects.
+     */
+    public static final String OFF_HEAP_PROPERTY = "bank.offHeap";
+    /**
+     * System property naming a CSV file of accounts (see AccountCsvImporter)
+     * bulk-loaded on start on top of the seed; used with the in-memory and
+     * off-heap repositories. An account store is read-only and a data
+     * directory already keeps its accounts, so with either of those the file
+     * is ignored and a warning is printed.
+     */
+    public static final String IMPORT_CSV_PROPERTY = "bank.importCsv";
+    /**
+     * System property naming a data directory. When set, accounts and roles
+     * are kept in memory with every write logged to a write-ahead log there
+     * and replayed on the next start; takes precedence over the account store.
+     */
+    public static final String DATA_DIR_PROPERTY = "bank.dataDir";
+    /**
+     * Durability mode of the write-ahead log (PER_OP, BATCHED or ASYNC; default BATCHED).
+     */
+    public static final String DURABILITY_PROPERTY = "bank.durability";
+    /**
+     * How often the data directory is checkpointed (and its log truncated),
+     * in milliseconds; 0 disables checkpoints. Default one minute.
+     */
+    public static final String CHECKPOINT_MILLIS_PROPERTY = "bank.checkpointMillis";
+    // fewer logged writes than this since the last checkpoint are left to replay
+    private static final long CHECKPOINT_MIN_RECORDS = 10_000;
+
     private final AccountRepository accountRepository;
     private final RoleRepository roleRepository;
     private final AuditLogRepository auditLogRepository;
@@ -33,8 +88,21 @@ public class AppConfig {
     private final RoleAdminController roleAdminController;
 
     public AppConfig() {
-        this.accountRepository = new InMemoryAccountRepository();
-        this.roleRepository = new InMemoryRoleRepository();
+        String dataDir = System.getProperty(DATA_DIR_PROPERTY);
+        warnIfImportIgnored(dataDir);
+        if (dataDir != null && !dataDir.isBlank()) {
+            DurableStore store = openDurableStore(Paths.get(dataDir),
+                    Durability.valueOf(System.getProperty(DURABILITY_PROPERTY, Durability.BATCHED.name())));
+            long checkpointMillis = Long.parseLong(System.getProperty(CHECKPOINT_MILLIS_PROPERTY, "60000"));
+            if (checkpointMillis > 0) {
+                store.scheduleCheckpoints(checkpointMillis, CHECKPOINT_MIN_RECORDS);
+            }
+            this.accountRepository = store.accounts();
+            this.roleRepository = store.roles();
+        } else {
+            this.accountRepository = createAccountRepository(System.getProperty(ACCOUNT_STORE_PROPERTY));
+            this.roleRepository = new InMemoryRoleRepository();
+        }
         this.auditLogRepository = new ConsoleAuditLogRepository();
 
         this.authzService = new DefaultAuthzService(roleRepository, auditLogRepository, accountRepository);
@@ -47,6 +115,87 @@ public class AppConfig {
         this.roleAdminController = new RoleAdminController(authzService, roleAdminService);
     }
 
+    private static AccountRepository createAccountRepository(String storeFile) {
+        if (storeFile == null || storeFile.isBlank()) {
+            String importFile = System.getProperty(IMPORT_CSV_PROPERTY);
+            if (Boolean.getBoolean(OFF_HEAP_PROPERTY)) {
+                OffHeapAccountRepository repository = new OffHeapAccountRepository(InMemoryAccountRepository.defaultAccounts());
+                importAccounts(importFile, id -> repository.findById(id) != null,
+                        rows -> repository.addAll(packedNumbersOnly(importFile, rows)));
+                return repository;
+            }
+            InMemoryAccountRepository repository = new InMemoryAccountRepository();
+            importAccounts(importFile, id -> repository.findById(id) != null, repository::addAll);
+            return repository;
+        }
+        Path file = Paths.get(storeFile);
+        try {
+            if (!Files.exists(file)) {
+                AccountStoreFile.write(file, InMemoryAccountRepository.defaultAccounts());
+            }
+            return new MappedAccountRepository(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open account store " + file, e);
+        }
+    }
+
+    private static void warnIfImportIgnored(String dataDir) {
+        String importFile = System.getProperty(IMPORT_CSV_PROPERTY);
+        if (importFile == null || importFile.isBlank()) {
+            return;
+        }
+        String store = System.getProperty(ACCOUNT_STORE_PROPERTY);
+        String target = dataDir != null && !dataDir.isBlank() ? DATA_DIR_PROPERTY
+                : store != null && !store.isBlank() ? ACCOUNT_STORE_PROPERTY : null;
+        if (target != null) {
+            System.err.printf("[WARNING] %s=%s is ignored: it only loads into the in-memory and off-heap repositories, not with %s%n",
+                    IMPORT_CSV_PROPERTY, importFile, target);
+        }
+    }
+
+    /**
+     * Off-heap records hold packed 16-digit numbers only; other rows are
+     * reported and left out instead of failing the whole batch.
+     */
+    private static List<InMemoryAccountRepository.SimpleAccountProjection> packedNumbersOnly(
+            String csvFile, List<InMemoryAccountRepository.SimpleAccountProjection> rows) {
+        List<InMemoryAccountRepository.SimpleAccountProjection> kept = new ArrayList<>(rows.size());
+        for (InMemoryAccountRepository.SimpleAccountProjection row : rows) {
+            if (AccountNumbers.tryPack(row.getAccountNumber()) == AccountNumbers.INVALID) {
+                System.err.printf("[WARNING] Rejected %s account %s: off-heap accounts need a %d-digit account number, not '%s'%n",
+                        csvFile, row.getAccountId(), AccountNumbers.DIGITS, row.getAccountNumber());
+            } else {
+                kept.add(row);
+            }
+        }
+        return kept;
+    }
+
+    private static void importAccounts(String csvFile, Predicate<String> existing,
+                                       Consumer<List<InMemoryAccountRepository.SimpleAccountProjection>> publish) {
+        if (csvFile == null || csvFile.isBlank()) {
+            return;
+        }
+        Path file = Paths.get(csvFile);
+        try {
+            ImportReport report = new AccountCsvImporter().importFile(file, existing, publish);
+            System.out.printf("[IMPORT] %s: %s%n", file, report);
+            for (ImportReport.LineError error : report.getErrors()) {
+                System.err.printf("[WARNING] Rejected %s %s%n", file, error);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot import accounts from " + file, e);
+        }
+    }
+
+    private static DurableStore openDurableStore(Path directory, Durability durability) {
+        try {
+            return DurableStore.open(directory, durability);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open data directory " + directory, e);
+        }
+    }
+
     public AccountViewController getAccountViewController() {
         return accountViewController;
     }
@@ -1,5 +1,7 @@
 package bank;
 
+import bank.ledger.Ledger;
+
 public class Card extends Account {
     public Card(Customer customer) {
         super(customer);
@@ -9,6 +11,10 @@ public class Card extends Account {
         super(id, customer, balance);
     }
 
+    public Card(String id, Customer customer, double balance, Ledger ledger) {
+        super(id, customer, balance, ledger);
+    }
+
     @Override
     public void pay() {
         System.out.println("Card payment for: " + customer.getName());
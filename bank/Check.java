@@ -1,5 +1,7 @@
 package bank;
 
+import bank.ledger.Ledger;
+
 public class Check extends Account {
     public Check(Customer customer) {
         super(customer);
@@ -10,6 +12,10 @@ public class Check extends Account {
         super(id, customer, balance);
     }
 
+    public Check(String id, Customer customer, double balance, Ledger ledger) {
+        super(id, customer, balance, ledger);
+    }
+
     public void title(){
         System.out.println("**Check Title**");
     }
@@ -1,5 +1,7 @@
 package bank;
 
+import bank.ledger.Ledger;
+
 public class Saving extends Account {
     public Saving(Customer customer) {
         super(customer);
@@ -8,6 +10,10 @@ public class Saving extends Account {
     public Saving(String id, Customer customer, double balance) {
         super(id, customer, balance);
     }
+
+    public Saving(String id, Customer customer, double balance, Ledger ledger) {
+        super(id, customer, balance, ledger);
+    }
     public void title(){
         System.out.println("**Payments**");
     };
@@ -1,6 +1,59 @@
 package bank;
 
+import bank.ledger.Posting;
+import bank.ledger.PostingType;
+
 public class Transaction {
+    private final long id;
+    private final String accountId;
+    private final PostingType type;
+    private final long amountCents;
+    private final long timestamp;
+
+    public Transaction() {
+        this(-1, null, PostingType.PAYMENT, 0, System.currentTimeMillis());
+    }
+
+    public Transaction(PostingType type, long amountCents) {
+        this(-1, null, type, amountCents, System.currentTimeMillis());
+    }
+
+    public Transaction(long id, String accountId, PostingType type, long amountCents, long timestamp) {
+        this.id = id;
+        this.accountId = accountId;
+        this.type = type;
+        this.amountCents = amountCents;
+        this.timestamp = timestamp;
+    }
+
+    // ledger postings are signed; a transaction carries the amount and lets its type give the direction
+    static Transaction fromPosting(Posting posting) {
+        return new Transaction(posting.getOffset(), posting.getAccountId(), posting.getType(),
+                Math.abs(posting.getAmountCents()), posting.getTimestamp());
+    }
+
+    // ledger offset, or -1 while the transaction has not been recorded yet
+    public long getId() {
+        return id;
+    }
+
+    public String getAccountId() {
+        return accountId;
+    }
+
+    public PostingType getType() {
+        return type;
+    }
+
+    // amount moved, never negative; getType() says whether it went in or out
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
     public void pay() {
         System.out.println("Payment transaction is done.");
     }
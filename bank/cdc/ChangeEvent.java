@@ -0,0 +1,71 @@
+package bank.cdc;
+
+/**
+ * One entry of a {@link ChangeFeed}. Versions are assigned by the feed,
+ * start at 1 and have no gaps. Account events carry the row before and/or
+ * after the change; role events carry the role name (after for an
+ * assignment, before for a removal) keyed by user id.
+ */
+public final class ChangeEvent<T> {
+    public enum Kind {
+        INSERT,
+        UPDATE,
+        DELETE,
+        ROLE_ASSIGNED,
+        ROLE_REMOVED
+    }
+
+    private final long version;
+    private final Kind kind;
+    private final String key;
+    private final T before;
+    private final T after;
+    private final long timestampMillis;
+
+    ChangeEvent(long version, Kind kind, String key, T before, T after, long timestampMillis) {
+        this.version = version;
+        this.kind = kind;
+        this.key = key;
+        this.before = before;
+        this.after = after;
+        this.timestampMillis = timestampMillis;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Account id, or user id for role events.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Value before the change (null for INSERT and ROLE_ASSIGNED).
+     */
+    public T getBefore() {
+        return before;
+    }
+
+    /**
+     * Value after the change (null for DELETE and ROLE_REMOVED).
+     */
+    public T getAfter() {
+        return after;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "v" + version + " " + kind + " " + key;
+    }
+}
@@ -0,0 +1,148 @@
+package bank.cdc;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Ordered, versioned change stream of one repository.
+ *
+ * Events live in a bounded append-only retention ring. Publishing takes no
+ * lock: a publisher reserves its version from an atomic counter, writes its
+ * slot and then advances the volatile latest version once every earlier
+ * version is written, so shards publishing into one feed only wait for
+ * each other for those few stores. Publishers never touch subscriber
+ * state; each subscription copies events from the ring into its own
+ * bounded buffer when the consumer drains it, and is lost only when it
+ * falls further behind than the retention.
+ */
+public final class ChangeFeed<T> {
+    public static final int DEFAULT_RETENTION = 65_536;
+
+    private final AtomicReferenceArray<ChangeEvent<T>> retained;
+    private final List<ChangeSubscription<T>> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicLong nextVersion = new AtomicLong();
+    // every version up to this one is written to the ring
+    private volatile long latestVersion;
+
+    public ChangeFeed() {
+        this(DEFAULT_RETENTION);
+    }
+
+    public ChangeFeed(int retention) {
+        if (retention < 1) {
+            throw new IllegalArgumentException("retention must be >= 1");
+        }
+        this.retained = new AtomicReferenceArray<>(retention);
+    }
+
+    /**
+     * Appends an event; callers publish while still holding their own write
+     * lock so events of one entity appear in the order they were applied.
+     */
+    public ChangeEvent<T> publish(ChangeEvent.Kind kind, String key, T before, T after) {
+        long version = nextVersion.incrementAndGet();
+        ChangeEvent<T> event = new ChangeEvent<>(version, kind, key, before, after, System.currentTimeMillis());
+        retained.set(slot(version), event);
+        advanceTo(version);
+        for (ChangeSubscription<T> subscriber : subscribers) {
+            subscriber.wake();
+        }
+        return event;
+    }
+
+    /**
+     * Moves the latest version to this one once the previous version is
+     * visible; publishers that reserved a lower version are at most a few
+     * stores from advancing it.
+     */
+    private void advanceTo(long version) {
+        for (int spins = 0; latestVersion != version - 1; spins++) {
+            if (spins < 100) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        latestVersion = version;
+    }
+
+    /**
+     * Version of the newest event, 0 before the first one.
+     */
+    public long latestVersion() {
+        return latestVersion;
+    }
+
+    /**
+     * Oldest version a new subscription can still start from.
+     */
+    public long oldestRetainedVersion() {
+        return Math.max(1, latestVersion - retained.length() + 1);
+    }
+
+    /**
+     * Subscribes to events with a version >= fromVersion; older retained
+     * events are never delivered to it.
+     *
+     * @throws IllegalArgumentException when fromVersion is no longer retained
+     */
+    public ChangeSubscription<T> subscribe(String name, long fromVersion, int bufferCapacity) {
+        long oldest = oldestRetainedVersion();
+        if (fromVersion < oldest) {
+            throw new IllegalArgumentException("Version " + fromVersion + " is no longer retained (oldest " + oldest + ")");
+        }
+        ChangeSubscription<T> subscription = new ChangeSubscription<>(this, name, bufferCapacity, fromVersion - 1);
+        subscribers.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Subscribes to events published from now on.
+     */
+    public ChangeSubscription<T> subscribe(String name, int bufferCapacity) {
+        return subscribe(name, latestVersion + 1, bufferCapacity);
+    }
+
+    /**
+     * Events each open subscription has not consumed yet, by subscription name.
+     */
+    public Map<String, Long> subscriberLags() {
+        Map<String, Long> lags = new LinkedHashMap<>();
+        for (ChangeSubscription<T> subscriber : subscribers) {
+            lags.put(subscriber.getName(), subscriber.lag());
+        }
+        return lags;
+    }
+
+    /**
+     * Copies published events after the subscription's last buffered version
+     * into its buffer until it is full or caught up. Called by the
+     * subscription's consumer only.
+     */
+    void refill(ChangeSubscription<T> subscription) {
+        long latest = latestVersion;
+        long next = subscription.lastBuffered + 1;
+        while (next <= latest && subscription.buffer.size() < subscription.capacity) {
+            ChangeEvent<T> event = retained.get(slot(next));
+            // a newer version in the slot means the ring wrapped past this consumer
+            if (event == null || event.getVersion() != next) {
+                subscription.lost = true;
+                return;
+            }
+            subscription.buffer.add(event);
+            subscription.lastBuffered = next++;
+        }
+    }
+
+    void unsubscribe(ChangeSubscription<T> subscription) {
+        subscribers.remove(subscription);
+    }
+
+    private int slot(long version) {
+        return (int) (version % retained.length());
+    }
+}
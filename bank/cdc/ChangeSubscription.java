@@ -0,0 +1,129 @@
+package bank.cdc;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One consumer's position in a {@link ChangeFeed}, with a bounded buffer.
+ * Meant for a single consuming thread: the consumer refills the buffer from
+ * the feed's retention ring and publishers only wake it up.
+ */
+public final class ChangeSubscription<T> implements AutoCloseable {
+    private final ChangeFeed<T> feed;
+    private final String name;
+    final int capacity;
+    // touched by the consuming thread only
+    final ArrayDeque<ChangeEvent<T>> buffer;
+    long lastBuffered;
+    // the consumer fell further behind than the retention and must resynchronize
+    boolean lost;
+    // consumer parked in poll(timeout), unparked by publishers
+    private volatile Thread waiter;
+    private volatile long lastDelivered;
+
+    ChangeSubscription(ChangeFeed<T> feed, String name, int bufferCapacity, long lastBuffered) {
+        if (bufferCapacity < 1) {
+            throw new IllegalArgumentException("bufferCapacity must be >= 1");
+        }
+        this.feed = feed;
+        this.name = name;
+        this.capacity = bufferCapacity;
+        this.buffer = new ArrayDeque<>(bufferCapacity);
+        this.lastBuffered = lastBuffered;
+        this.lastDelivered = lastBuffered;
+    }
+
+    /**
+     * Called by publishers after a new version is visible; never blocks.
+     */
+    void wake() {
+        Thread parked = waiter;
+        if (parked != null) {
+            LockSupport.unpark(parked);
+        }
+    }
+
+    /**
+     * Next event, or null when there is none right now.
+     *
+     * @throws IllegalStateException when the subscription fell behind the
+     *                               feed's retention and must resynchronize
+     */
+    public ChangeEvent<T> poll() {
+        ChangeEvent<T> event = buffer.poll();
+        if (event == null) {
+            feed.refill(this);
+            if (lost) {
+                throw new IllegalStateException("Subscription " + name + " fell behind the feed retention after version "
+                        + lastDelivered);
+            }
+            event = buffer.poll();
+        }
+        if (event != null) {
+            lastDelivered = event.getVersion();
+        }
+        return event;
+    }
+
+    /**
+     * Next event, waiting up to the timeout for one to be published.
+     */
+    public ChangeEvent<T> poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        ChangeEvent<T> event;
+        while ((event = poll()) == null) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            waiter = Thread.currentThread();
+            // re-check after announcing the wait, so a publish in between is not missed
+            if (feed.latestVersion() == lastBuffered) {
+                LockSupport.parkNanos(this, remaining);
+            }
+            waiter = null;
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return event;
+    }
+
+    /**
+     * Up to max events that are available without waiting.
+     */
+    public List<ChangeEvent<T>> drain(int max) {
+        List<ChangeEvent<T>> events = new ArrayList<>(Math.min(max, 256));
+        ChangeEvent<T> event;
+        while (events.size() < max && (event = poll()) != null) {
+            events.add(event);
+        }
+        return events;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Version of the last event handed to the consumer.
+     */
+    public long lastDeliveredVersion() {
+        return lastDelivered;
+    }
+
+    /**
+     * Published events this consumer has not received yet.
+     */
+    public long lag() {
+        return Math.max(0, feed.latestVersion() - lastDelivered);
+    }
+
+    @Override
+    public void close() {
+        feed.unsubscribe(this);
+    }
+}
@@ -1,6 +1,8 @@
 package bank.contracts;
 
 import bank.dto.AccountType;
+import bank.dto.UserId;
+import bank.money.Money;
 
 /**
  * Account projection used by search/list operations.
@@ -10,7 +12,14 @@ public interface AccountProjection {
 
     String getAccountNumber();
 
-    double getBalance();
+    /**
+     * Balance in cents (fixed point).
+     */
+    long getBalanceCents();
+
+    default double getBalance() {
+        return Money.toDouble(getBalanceCents());
+    }
 
     AccountType getAccountType();
 
@@ -21,6 +30,15 @@ public interface AccountProjection {
      */
     String getOwnerUserId();
 
+    /**
+     * Registry handle of the owner (see UserId#getHandle), for int ownership
+     * checks; UNREGISTERED when the owner id was never registered. Reading it
+     * never registers anything.
+     */
+    default int getOwnerHandle() {
+        return UserId.of(getOwnerUserId()).getHandle();
+    }
+
     /**
      * Optional place of birth filter support.
      */
@@ -1,10 +1,16 @@
 package bank.contracts;
 
+import bank.cdc.ChangeFeed;
 import bank.dto.AccountSearchFilters;
+import bank.dto.AggregateGroup;
 import bank.dto.Page;
 import bank.dto.PageRequest;
+import bank.dto.SuggestField;
+import bank.dto.Suggestion;
 import bank.dto.UserId;
 
+import java.util.List;
+
 /**
  * Account repository interface.
  */
@@ -13,6 +19,27 @@ public interface AccountRepository {
 
     AccountProjection findById(String accountId);
 
+    /**
+     * Top-k accounts by balance (highest first) among those matching the filters.
+     */
+    List<AccountProjection> topByBalance(UserId requester, AccountSearchFilters filters, OwnershipScope scope, int k);
+
+    /**
+     * Prefix completions over the distinct values of a field, most frequent first.
+     */
+    List<Suggestion> suggest(SuggestField field, String prefix, int limit);
+
+    /**
+     * Insert/update/delete events of this repository, in commit order.
+     */
+    ChangeFeed<AccountProjection> changes();
+
+    /**
+     * Registers a count/sum-of-balance view grouped by the given column.
+     * Building it scans once; afterwards each write updates it in O(1).
+     */
+    AggregateView registerView(String name, AggregateGroup groupBy);
+
     enum OwnershipScope {
         OWNED_ONLY,
         ANY
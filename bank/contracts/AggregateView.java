@@ -0,0 +1,27 @@
+package bank.contracts;
+
+import bank.dto.Aggregate;
+import bank.dto.AggregateGroup;
+
+import java.util.Map;
+
+/**
+ * Count and balance sum per group, kept up to date by the repository on
+ * every write so reads never scan accounts.
+ */
+public interface AggregateView {
+    String getName();
+
+    AggregateGroup getGroupBy();
+
+    /**
+     * Totals of one group (owner ids are matched case-insensitively);
+     * Aggregate.EMPTY when the group has no accounts.
+     */
+    Aggregate get(String group);
+
+    /**
+     * Copy of every non-empty group.
+     */
+    Map<String, Aggregate> snapshot();
+}
@@ -1,5 +1,6 @@
 package bank.contracts;
 
+import bank.cdc.ChangeFeed;
 import bank.dto.UserId;
 
 import java.util.Set;
@@ -12,4 +13,9 @@ public interface RoleRepository {
     boolean hasRole(UserId userId, String role);
 
     Set<String> rolesFor(UserId userId);
+
+    /**
+     * ROLE_ASSIGNED/ROLE_REMOVED events keyed by user id, in commit order.
+     */
+    ChangeFeed<String> changes();
 }
@@ -4,6 +4,8 @@ import bank.contracts.AuthzService;
 import bank.dto.*;
 import bank.service.SearchService;
 
+import java.util.List;
+
 /*
  * Search Controller implementing FR-3 entry point
  * 
@@ -64,6 +66,52 @@ public class SearchController {
         return searchService.searchAccounts(requester, filters, page);
     }
 
+    /*
+     * Top-k accounts by balance for risk reporting
+     * 
+     * Same authorization and filter sanitizing as search().
+     * 
+     * @param requester -> user performing the query
+     * @param filters -> search criteria
+     * @param k -> number of accounts to return (must be positive)
+     * @return up to k account rows, highest balance first
+     * @throws SecurityException if the user is not authorized to search
+     * @throws IllegalArgumentException if the requester is null or k is not positive
+     */
+    public List<AccountRow> topByBalance(UserId requester, AccountSearchFilters filters, int k) {
+        if (requester == null) {
+            throw new IllegalArgumentException("Requester cannot be null");
+        }
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        if (!authzService.canSearch(requester)) {
+            throw new SecurityException("User not authorized to search: " + requester);
+        }
+        return searchService.topAccountsByBalance(requester, sanitizeFilters(filters), k);
+    }
+
+    /*
+     * Autocomplete for customer names and places
+     * 
+     * @param requester -> user typing in the search bar
+     * @param field -> field to complete
+     * @param prefix -> text typed so far (blank returns the most frequent values)
+     * @param limit -> maximum number of suggestions (capped at 20)
+     * @return suggestions with their account counts, most frequent first
+     * @throws SecurityException if the user is not authorized to search
+     * @throws IllegalArgumentException if the requester or field is null
+     */
+    public List<Suggestion> suggest(UserId requester, SuggestField field, String prefix, int limit) {
+        if (requester == null || field == null) {
+            throw new IllegalArgumentException("Requester and field are required");
+        }
+        if (!authzService.canSearch(requester)) {
+            throw new SecurityException("User not authorized to search: " + requester);
+        }
+        return searchService.suggest(field, prefix, Math.min(20, Math.max(1, limit)));
+    }
+
     /*
      * Sanitize filters -> convert null to empty filters object
      * 
@@ -0,0 +1,14 @@
+package bank.dto;
+
+/*
+ * How the account number filter is matched against stored account numbers.
+ * CONTAINS keeps the original substring behaviour (also over the account id);
+ * the other modes compare digits only and are served from numeric indexes.
+ */
+
+public enum AccountNumberMatch {
+    CONTAINS,
+    EXACT,
+    PREFIX,
+    SUFFIX
+}
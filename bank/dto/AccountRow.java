@@ -1,18 +1,30 @@
 package bank.dto;
 
+import bank.money.Money;
+
 public class AccountRow {
     private final String accountId;
     private final String maskedAccountNumber;
     private final AccountType accountType;
     private final String customerName;
-    private final double balance;
+    private final long balanceCents;
 
+    // The following builds a row from a balance in dollars; use ofCents for a balance already held in cents
     public AccountRow(String accountId, String maskedAccountNumber, AccountType accountType, String customerName, double balance) {
+        this(accountId, maskedAccountNumber, accountType, customerName, Money.toCents(balance));
+    }
+
+    private AccountRow(String accountId, String maskedAccountNumber, AccountType accountType, String customerName, long balanceCents) {
         this.accountId = accountId;
         this.maskedAccountNumber = maskedAccountNumber;
         this.accountType = accountType;
         this.customerName = customerName;
-        this.balance = balance;
+        this.balanceCents = balanceCents;
+    }
+
+    // The following builds a row from a balance in cents, the unit projections carry
+    public static AccountRow ofCents(String accountId, String maskedAccountNumber, AccountType accountType, String customerName, long balanceCents) {
+        return new AccountRow(accountId, maskedAccountNumber, accountType, customerName, balanceCents);
     }
 
     public String getAccountId() {
@@ -31,7 +43,11 @@ public class AccountRow {
         return customerName;
     }
 
+    public long getBalanceCents() {
+        return balanceCents;
+    }
+
     public double getBalance() {
-        return balance;
+        return Money.toDouble(balanceCents);
     }
 }
@@ -2,9 +2,14 @@ package bank.dto;
 
 public class AccountSearchFilters {
     private String accountNumber;
+    private AccountNumberMatch accountNumberMatch = AccountNumberMatch.CONTAINS;
     private String customerName;
     private AccountType accountType;
     private String placeOfBirth;
+    private int customerNameMaxEdits;
+    private String query;
+    private Long minBalanceCents;
+    private Long maxBalanceCents;
 
     // The follwing checks if the account number filter is provided
     public boolean hasAccountNumber() {
@@ -21,10 +26,25 @@ public class AccountSearchFilters {
         return accountType != null;
     }
 
+    // The following checks if the customer name should be matched with typo tolerance
+    public boolean isCustomerNameFuzzy() {
+        return hasCustomerName() && customerNameMaxEdits > 0;
+    }
+
     public boolean hasPlaceOfBirth() {
         return placeOfBirth != null && !placeOfBirth.isBlank();
     }
 
+    // The following checks if a free-text query is provided (results are then ranked by relevance)
+    public boolean hasQuery() {
+        return query != null && !query.isBlank();
+    }
+
+    // The following checks if a balance range (in cents, bounds inclusive) is provided
+    public boolean hasBalanceRange() {
+        return minBalanceCents != null || maxBalanceCents != null;
+    }
+
     public String getAccountNumber() {
         return accountNumber;
     }
@@ -33,6 +53,15 @@ public class AccountSearchFilters {
         this.accountNumber = accountNumber;
     }
 
+    public AccountNumberMatch getAccountNumberMatch() {
+        return accountNumberMatch;
+    }
+
+    // EXACT, PREFIX and SUFFIX ("last 4") ignore spaces and dashes; null falls back to CONTAINS
+    public void setAccountNumberMatch(AccountNumberMatch accountNumberMatch) {
+        this.accountNumberMatch = accountNumberMatch == null ? AccountNumberMatch.CONTAINS : accountNumberMatch;
+    }
+
     public String getCustomerName() {
         return customerName;
     }
@@ -41,6 +70,15 @@ public class AccountSearchFilters {
         this.customerName = customerName;
     }
 
+    public int getCustomerNameMaxEdits() {
+        return customerNameMaxEdits;
+    }
+
+    // 0 keeps the plain "contains" behaviour; 1-3 allows that many edits per name word
+    public void setCustomerNameMaxEdits(int customerNameMaxEdits) {
+        this.customerNameMaxEdits = Math.max(0, Math.min(3, customerNameMaxEdits));
+    }
+
     public AccountType getAccountType() {
         return accountType;
     }
@@ -56,4 +94,31 @@ public class AccountSearchFilters {
     public void setPlaceOfBirth(String placeOfBirth) {
         this.placeOfBirth = placeOfBirth;
     }
+
+    public String getQuery() {
+        return query;
+    }
+
+    // Free text such as "smith toronto 3333"; every word must match the account number, name or place
+    public void setQuery(String query) {
+        this.query = query;
+    }
+
+    public Long getMinBalanceCents() {
+        return minBalanceCents;
+    }
+
+    // null means no lower bound
+    public void setMinBalanceCents(Long minBalanceCents) {
+        this.minBalanceCents = minBalanceCents;
+    }
+
+    public Long getMaxBalanceCents() {
+        return maxBalanceCents;
+    }
+
+    // null means no upper bound
+    public void setMaxBalanceCents(Long maxBalanceCents) {
+        this.maxBalanceCents = maxBalanceCents;
+    }
 }
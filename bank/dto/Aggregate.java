@@ -0,0 +1,34 @@
+package bank.dto;
+
+/*
+ * Number of accounts and their total balance (in cents) for one group of a view
+ */
+public class Aggregate {
+    public static final Aggregate EMPTY = new Aggregate(0, 0);
+
+    private final long count;
+    private final long sumCents;
+
+    public Aggregate(long count, long sumCents) {
+        this.count = count;
+        this.sumCents = sumCents;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSumCents() {
+        return sumCents;
+    }
+
+    // The following returns the component-wise sum (used to apply deltas and combine shards)
+    public Aggregate plus(Aggregate other) {
+        return new Aggregate(count + other.count, sumCents + other.sumCents);
+    }
+
+    @Override
+    public String toString() {
+        return count + " accounts, " + sumCents + " cents";
+    }
+}
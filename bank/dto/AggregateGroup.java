@@ -0,0 +1,11 @@
+package bank.dto;
+
+/*
+ * Columns a materialized aggregate view can be grouped by
+ */
+
+public enum AggregateGroup {
+    OWNER,
+    ACCOUNT_TYPE,
+    PLACE_OF_BIRTH
+}
@@ -0,0 +1,25 @@
+package bank.dto;
+
+import java.util.Map;
+
+/*
+ * Facet counts for a search: number of matching accounts per account type
+ * and per place of birth (most frequent place first)
+ */
+public class Facets {
+    private final Map<AccountType, Long> accountTypeCounts;
+    private final Map<String, Long> placeOfBirthCounts;
+
+    public Facets(Map<AccountType, Long> accountTypeCounts, Map<String, Long> placeOfBirthCounts) {
+        this.accountTypeCounts = accountTypeCounts;
+        this.placeOfBirthCounts = placeOfBirthCounts;
+    }
+
+    public Map<AccountType, Long> getAccountTypeCounts() {
+        return accountTypeCounts;
+    }
+
+    public Map<String, Long> getPlaceOfBirthCounts() {
+        return placeOfBirthCounts;
+    }
+}
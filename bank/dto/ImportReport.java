@@ -0,0 +1,80 @@
+package bank.dto;
+
+import java.util.List;
+
+/*
+ * Outcome of one bulk import: rows added, lines rejected (with the first
+ * rejections and their 1-based line numbers) and throughput
+ */
+public class ImportReport {
+    private final long rowsImported;
+    private final long linesRejected;
+    private final List<LineError> errors;
+    private final long elapsedNanos;
+    private final int workers;
+
+    public ImportReport(long rowsImported, long linesRejected, List<LineError> errors, long elapsedNanos, int workers) {
+        this.rowsImported = rowsImported;
+        this.linesRejected = linesRejected;
+        this.errors = errors;
+        this.elapsedNanos = elapsedNanos;
+        this.workers = workers;
+    }
+
+    public long getRowsImported() {
+        return rowsImported;
+    }
+
+    public long getLinesRejected() {
+        return linesRejected;
+    }
+
+    // The following returns the first rejected lines in line order (capped, see getLinesRejected for the count)
+    public List<LineError> getErrors() {
+        return errors;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rowsImported * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d rows imported, %,d lines rejected in %.1f ms (%,.0f rows/s, %d workers)",
+                rowsImported, linesRejected, elapsedNanos / 1e6, getRowsPerSecond(), workers);
+    }
+
+    /*
+     * One rejected input line
+     */
+    public static class LineError {
+        private final long lineNumber;
+        private final String message;
+
+        public LineError(long lineNumber, String message) {
+            this.lineNumber = lineNumber;
+            this.message = message;
+        }
+
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + lineNumber + ": " + message;
+        }
+    }
+}
@@ -11,12 +11,18 @@ public class Page<T> {
     private final int page;
     private final int size;
     private final long totalItems;
+    private final Facets facets;
 
     public Page(List<T> items, int page, int size, long totalItems) {
+        this(items, page, size, totalItems, null);
+    }
+
+    public Page(List<T> items, int page, int size, long totalItems, Facets facets) {
         this.items = items;
         this.page = page;
         this.size = size;
         this.totalItems = totalItems;
+        this.facets = facets;
     }
 
     public boolean isEmpty() {
@@ -38,4 +44,13 @@ public class Page<T> {
     public long getTotalItems() {
         return totalItems;
     }
+
+    // Only present when the PageRequest asked for facets
+    public Facets getFacets() {
+        return facets;
+    }
+
+    public boolean hasFacets() {
+        return facets != null;
+    }
 }
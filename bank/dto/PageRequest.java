@@ -3,10 +3,29 @@ package bank.dto;
 public class PageRequest {
     private final int page;
     private final int size;
+    private final SortKey sortKey;
+    private final SortDirection direction;
+    private final boolean facets;
 
     public PageRequest(int page, int size) {
+        this(page, size, null, SortDirection.ASC);
+    }
+
+    public PageRequest(int page, int size, SortKey sortKey, SortDirection direction) {
+        this(page, size, sortKey, direction, false);
+    }
+
+    public PageRequest(int page, int size, SortKey sortKey, SortDirection direction, boolean facets) {
         this.page = Math.max(0, page);
         this.size = Math.min(50, Math.max(1, size));
+        this.sortKey = sortKey;
+        this.direction = direction == null ? SortDirection.ASC : direction;
+        this.facets = facets;
+    }
+
+    // Same page, additionally asking for type/place facet counts
+    public PageRequest withFacets() {
+        return new PageRequest(page, size, sortKey, direction, true);
     }
 
     public int getPage() {
@@ -16,4 +35,26 @@ public class PageRequest {
     public int getSize() {
         return size;
     }
+
+    // null means insertion order
+    public SortKey getSortKey() {
+        return sortKey;
+    }
+
+    public SortDirection getDirection() {
+        return direction;
+    }
+
+    public boolean isSorted() {
+        return sortKey != null;
+    }
+
+    public boolean includesFacets() {
+        return facets;
+    }
+
+    // Index of the page's first item; a long, since page * size can exceed an int
+    public long getOffset() {
+        return (long) page * size;
+    }
 }
@@ -0,0 +1,10 @@
+package bank.dto;
+
+/*
+ * Sort direction used together with SortKey
+ */
+
+public enum SortDirection {
+    ASC,
+    DESC
+}
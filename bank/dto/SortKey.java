@@ -0,0 +1,11 @@
+package bank.dto;
+
+/*
+ * Sort keys supported by paginated account searches
+ */
+
+public enum SortKey {
+    BALANCE,
+    CUSTOMER_NAME,
+    ACCOUNT_ID
+}
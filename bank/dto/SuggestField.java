@@ -0,0 +1,10 @@
+package bank.dto;
+
+/*
+ * Fields that support prefix autocomplete
+ */
+
+public enum SuggestField {
+    CUSTOMER_NAME,
+    PLACE_OF_BIRTH
+}
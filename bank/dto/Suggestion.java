@@ -0,0 +1,27 @@
+package bank.dto;
+
+/*
+ * One autocomplete suggestion and the number of accounts carrying that value
+ */
+public class Suggestion {
+    private final String value;
+    private final long count;
+
+    public Suggestion(String value, long count) {
+        this.value = value;
+        this.count = count;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return value + " (" + count + ")";
+    }
+}
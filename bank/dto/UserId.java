@@ -1,16 +1,70 @@
 package bank.dto;
 
+/*
+ * User ids are compared case-insensitively: every instance carries the normalized
+ * value (trimmed, lower-case) and the dense int handle assigned by UserIdRegistry,
+ * so equality and hashing are int operations. Ids that were never registered (they
+ * own no account and hold no role) carry UserIdRegistry.UNREGISTERED and compare
+ * by value.
+ */
+
 public class UserId {
     private final String value;
+    private final int handle;
 
     public UserId(String value) {
-        this.value = value;
+        UserId canonical = UserIdRegistry.global().canonical(value);
+        this.value = canonical.value;
+        this.handle = canonical.handle;
+    }
+
+    UserId(String normalized, int handle) {
+        this.value = normalized;
+        this.handle = handle;
+    }
+
+    // The following returns the shared canonical instance of a registered id; unknown ids are not registered
+    public static UserId of(String value) {
+        return UserIdRegistry.global().canonical(value);
     }
 
+    // The following returns the canonical instance for an account owner or role holder, registering it if needed
+    public static UserId register(String value) {
+        return UserIdRegistry.global().register(value);
+    }
+
+    // The following returns the normalized (trimmed, lower-case) id
     public String getValue() {
         return value;
     }
 
+    // The following returns the dense registry handle, stable for the life of the process (UNREGISTERED if none)
+    public int getHandle() {
+        return handle;
+    }
+
+    // The following returns the handle of the id as registered now, so an instance created before its registration still resolves (UNREGISTERED if it never was)
+    public int resolvedHandle() {
+        return isRegistered() ? handle : UserIdRegistry.global().canonical(value).getHandle();
+    }
+
+    public boolean isRegistered() {
+        return handle != UserIdRegistry.UNREGISTERED;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof UserId) || ((UserId) other).handle != handle) {
+            return false;
+        }
+        return isRegistered() || ((UserId) other).value.equals(value);
+    }
+
+    @Override
+    public int hashCode() {
+        return isRegistered() ? handle : value.hashCode();
+    }
+
     @Override
     public String toString() {
         return value;
@@ -0,0 +1,99 @@
+package bank.dto;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * The following keeps one canonical UserId per normalized id (trimmed, lower-case)
+ * and hands out dense int handles (0, 1, 2, ...) in registration order.
+ * Handles let role lookups and owner checks compare ints instead of folding case
+ * and hashing Strings on every call. Registered ids are never removed, so only ids
+ * that own accounts or hold roles are registered; looking up any other id (a login
+ * name, a search requester) normalizes it without keeping anything.
+ */
+
+public final class UserIdRegistry {
+    // handle of ids that were looked up but never registered (they own nothing)
+    public static final int UNREGISTERED = -1;
+
+    private static final UserIdRegistry GLOBAL = new UserIdRegistry();
+
+    // exact spellings of registered ids, so repeated lookups skip case folding
+    private final ConcurrentHashMap<String, UserId> bySpelling = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, UserId> byNormalized = new ConcurrentHashMap<>();
+    private volatile UserId[] byHandle = new UserId[64];
+    private int size;
+
+    // The following returns the process-wide registry used by UserId
+    public static UserIdRegistry global() {
+        return GLOBAL;
+    }
+
+    /*
+     * The following returns the canonical UserId for any spelling of a registered id,
+     * or a fresh UNREGISTERED one for an unknown id; nothing is added to the registry
+     *
+     * @param value -> raw user id (null is treated as "")
+     * @return the shared instance, or an unregistered instance for an unknown id
+     */
+    public UserId canonical(String value) {
+        String spelling = value == null ? "" : value;
+        UserId known = bySpelling.get(spelling);
+        if (known != null) {
+            return known;
+        }
+        String normalized = normalize(spelling);
+        UserId canonical = byNormalized.get(normalized);
+        return canonical != null ? canonical : new UserId(normalized, UNREGISTERED);
+    }
+
+    /*
+     * The following returns the canonical UserId for an id that owns an account or
+     * holds a role, registering it first when needed
+     *
+     * @param value -> raw user id (null is treated as "")
+     * @return the shared instance for the normalized id
+     */
+    public UserId register(String value) {
+        String spelling = value == null ? "" : value;
+        UserId known = bySpelling.get(spelling);
+        if (known != null) {
+            return known;
+        }
+        UserId canonical = registerNormalized(normalize(spelling));
+        bySpelling.putIfAbsent(spelling, canonical);
+        return canonical;
+    }
+
+    // The following returns the UserId registered under a handle, or null for an unknown handle
+    public UserId byHandle(int handle) {
+        UserId[] snapshot = byHandle;
+        return handle >= 0 && handle < snapshot.length ? snapshot[handle] : null;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized UserId registerNormalized(String normalized) {
+        UserId existing = byNormalized.get(normalized);
+        if (existing != null) {
+            return existing;
+        }
+        UserId created = new UserId(normalized, size);
+        UserId[] next = byHandle;
+        if (size == next.length) {
+            next = Arrays.copyOf(next, next.length * 2);
+        }
+        next[size++] = created;
+        // publish the array before the map entry so a found id always resolves by handle
+        byHandle = next;
+        byNormalized.put(normalized, created);
+        return created;
+    }
+
+    static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,208 @@
+package bank.ledger;
+
+import bank.dto.Page;
+import bank.dto.PageRequest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Time index over one account's postings.
+ *
+ * Offsets are grouped into blocks of BLOCK_SIZE with a summary per block
+ * (min/max timestamp, posting count, balance before the block, sum of the
+ * block). The first block starts from the account's opening balance and
+ * every later one from where the previous one ended, so running balances
+ * are account balances, not sums since the first posting. Timestamps never
+ * decrease within an account, so blocks are sorted: a range query
+ * binary-searches the first block, counts fully covered blocks from their
+ * summaries and only reads postings from the blocks holding the range edges
+ * or the requested page. Blocks outside the range are never read.
+ *
+ * A block's offset array starts small and grows as postings arrive, so an
+ * account with a handful of postings costs a few longs rather than a full
+ * block. Once a block is full it is sealed like a cold ledger chunk: the
+ * offsets become varint deltas (they only increase within an account) and
+ * are decoded again only when a read touches that block.
+ *
+ * Callers hold the owning account chain's monitor.
+ */
+final class AccountHistory {
+    static final int BLOCK_SIZE = 128;
+
+    private Block[] blocks = new Block[4];
+    private int blockCount;
+    private long openingBalance;
+
+    /**
+     * Balance before the first posting; set before any posting is added.
+     */
+    void open(long openingBalanceCents) {
+        this.openingBalance = openingBalanceCents;
+    }
+
+    void add(long offset, long timestamp, long amountCents) {
+        Block last = blockCount == 0 ? null : blocks[blockCount - 1];
+        if (last == null || last.count == BLOCK_SIZE) {
+            long start = last == null ? openingBalance : last.startBalance + last.sum;
+            last = new Block(start, timestamp);
+            if (blockCount == blocks.length) {
+                blocks = Arrays.copyOf(blocks, blocks.length * 2);
+            }
+            blocks[blockCount++] = last;
+        }
+        last.add(offset);
+        last.maxTimestamp = timestamp;
+        last.sum += amountCents;
+        if (last.count == BLOCK_SIZE) {
+            last.seal();
+        }
+    }
+
+    long balance() {
+        if (blockCount == 0) {
+            return openingBalance;
+        }
+        Block last = blocks[blockCount - 1];
+        return last.startBalance + last.sum;
+    }
+
+    /**
+     * Opening balance plus the postings strictly before the given time.
+     */
+    long balanceBefore(long timestamp, Ledger ledger) {
+        int b = firstBlockEndingAtOrAfter(timestamp);
+        if (b == blockCount) {
+            return balance();
+        }
+        Block block = blocks[b];
+        long[] offsets = block.offsets();
+        long balance = block.startBalance;
+        for (int i = 0; i < block.count; i++) {
+            long offset = offsets[i];
+            if (ledger.timestampAt(offset) >= timestamp) {
+                break;
+            }
+            balance += ledger.amountAt(offset);
+        }
+        return balance;
+    }
+
+    /**
+     * Postings with from <= timestamp < to, oldest first, paginated.
+     */
+    Page<StatementLine> statement(long from, long to, PageRequest page, Ledger ledger) {
+        List<StatementLine> items = new ArrayList<>(page.getSize());
+        long skip = page.getOffset();
+        long total = 0;
+        for (int b = firstBlockEndingAtOrAfter(from); b < blockCount && blocks[b].minTimestamp < to; b++) {
+            Block block = blocks[b];
+            boolean covered = block.minTimestamp >= from && block.maxTimestamp < to;
+            boolean needsRows = items.size() < page.getSize() && total + (covered ? block.count : BLOCK_SIZE) > skip;
+            if (covered && !needsRows) {
+                // summary only: the whole block is inside the range but off-page
+                total += block.count;
+                continue;
+            }
+            long[] offsets = block.offsets();
+            long running = block.startBalance;
+            for (int i = 0; i < block.count; i++) {
+                long offset = offsets[i];
+                long timestamp = ledger.timestampAt(offset);
+                running += ledger.amountAt(offset);
+                if (timestamp < from) {
+                    continue;
+                }
+                if (timestamp >= to) {
+                    break;
+                }
+                if (total >= skip && items.size() < page.getSize()) {
+                    items.add(new StatementLine(ledger.postingAt(offset), running));
+                }
+                total++;
+            }
+        }
+        return new Page<>(items, page.getPage(), page.getSize(), total);
+    }
+
+    private int firstBlockEndingAtOrAfter(long timestamp) {
+        int lo = 0;
+        int hi = blockCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (blocks[mid].maxTimestamp < timestamp) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static final class Block {
+        private static final int INITIAL_CAPACITY = 4;
+
+        // raw offsets while the block fills, null once sealed
+        private long[] offsets = new long[INITIAL_CAPACITY];
+        // varint deltas of a sealed block, the first one from 0
+        private byte[] sealed;
+        private final long startBalance;
+        private final long minTimestamp;
+        private long maxTimestamp;
+        private long sum;
+        private int count;
+
+        private Block(long startBalance, long minTimestamp) {
+            this.startBalance = startBalance;
+            this.minTimestamp = minTimestamp;
+            this.maxTimestamp = minTimestamp;
+        }
+
+        private void add(long offset) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, Math.min(BLOCK_SIZE, offsets.length * 2));
+            }
+            offsets[count++] = offset;
+        }
+
+        private long[] offsets() {
+            if (sealed == null) {
+                return offsets;
+            }
+            long[] decoded = new long[count];
+            long offset = 0;
+            int position = 0;
+            for (int i = 0; i < count; i++) {
+                long delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = sealed[position++];
+                    delta |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                offset += delta;
+                decoded[i] = offset;
+            }
+            return decoded;
+        }
+
+        private void seal() {
+            byte[] out = new byte[count * 10];
+            int position = 0;
+            long previous = 0;
+            for (int i = 0; i < count; i++) {
+                long delta = offsets[i] - previous;
+                previous = offsets[i];
+                while ((delta & ~0x7FL) != 0) {
+                    out[position++] = (byte) ((delta & 0x7F) | 0x80);
+                    delta >>>= 7;
+                }
+                out[position++] = (byte) delta;
+            }
+            sealed = Arrays.copyOf(out, position);
+            offsets = null;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package bank.ledger;
+
+/**
+ * Primitive column arrays of one ledger chunk.
+ */
+final class ChunkColumns {
+    final long[] amounts;
+    final long[] timestamps;
+    final int[] accounts;
+    final byte[] types;
+    final long[] previous;
+
+    ChunkColumns(int size) {
+        this.amounts = new long[size];
+        this.timestamps = new long[size];
+        this.accounts = new int[size];
+        this.types = new byte[size];
+        this.previous = new long[size];
+    }
+
+    /**
+     * On-heap bytes of the column payload, for compression reporting.
+     */
+    static long rawBytes(int size) {
+        return (long) size * (Long.BYTES * 3 + Integer.BYTES + Byte.BYTES);
+    }
+}
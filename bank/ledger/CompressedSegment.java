@@ -0,0 +1,173 @@
+package bank.ledger;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.CRC32;
+
+/**
+ * Compressed form of a sealed (full, no longer hot) ledger chunk.
+ *
+ * Layout, one column after the other:
+ * <pre>
+ *   magic "LSEG" | version | count (varint) | first timestamp (zig-zag varint)
+ *   timestamps : zig-zag varint delta from the previous posting
+ *   amounts    : zig-zag varint
+ *   accounts   : zig-zag varint delta from the previous posting's ordinal
+ *   types      : one byte each
+ *   previous   : varint distance back to the previous posting of the account (0 = none)
+ *   CRC32 of everything above (4 bytes, big-endian)
+ * </pre>
+ * Segments are decoded lazily, only when a read touches the chunk, and the
+ * checksum is verified on every decode.
+ */
+final class CompressedSegment {
+    static final int MAGIC = 0x4C534547; // "LSEG"
+    static final byte VERSION = 1;
+
+    private final byte[] data;
+    private final long baseOffset;
+
+    private CompressedSegment(byte[] data, long baseOffset) {
+        this.data = data;
+        this.baseOffset = baseOffset;
+    }
+
+    static CompressedSegment encode(ChunkColumns columns, int count, long baseOffset) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(count * 8);
+        writeInt(out, MAGIC);
+        out.write(VERSION);
+        writeVarLong(out, count);
+        writeVarLong(out, zigZag(count == 0 ? 0 : columns.timestamps[0]));
+
+        long previousTimestamp = count == 0 ? 0 : columns.timestamps[0];
+        for (int i = 0; i < count; i++) {
+            writeVarLong(out, zigZag(columns.timestamps[i] - previousTimestamp));
+            previousTimestamp = columns.timestamps[i];
+        }
+        for (int i = 0; i < count; i++) {
+            writeVarLong(out, zigZag(columns.amounts[i]));
+        }
+        int previousAccount = 0;
+        for (int i = 0; i < count; i++) {
+            writeVarLong(out, zigZag(columns.accounts[i] - previousAccount));
+            previousAccount = columns.accounts[i];
+        }
+        for (int i = 0; i < count; i++) {
+            out.write(columns.types[i]);
+        }
+        for (int i = 0; i < count; i++) {
+            long previous = columns.previous[i];
+            writeVarLong(out, previous < 0 ? 0 : baseOffset + i - previous);
+        }
+
+        byte[] body = out.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, body.length);
+        writeInt(out, (int) crc.getValue());
+        return new CompressedSegment(out.toByteArray(), baseOffset);
+    }
+
+    /**
+     * @throws IllegalStateException when the checksum or header does not match
+     */
+    ChunkColumns decode(int capacity) {
+        int bodyLength = data.length - Integer.BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, bodyLength);
+        Reader in = new Reader(data);
+        if ((int) crc.getValue() != readInt(data, bodyLength) || in.readInt() != MAGIC) {
+            throw new IllegalStateException("Corrupt ledger segment at offset " + baseOffset);
+        }
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported ledger segment version " + version);
+        }
+        int count = (int) in.readVarLong();
+        long timestamp = unZigZag(in.readVarLong());
+
+        ChunkColumns columns = new ChunkColumns(capacity);
+        for (int i = 0; i < count; i++) {
+            timestamp += unZigZag(in.readVarLong());
+            columns.timestamps[i] = timestamp;
+        }
+        for (int i = 0; i < count; i++) {
+            columns.amounts[i] = unZigZag(in.readVarLong());
+        }
+        int account = 0;
+        for (int i = 0; i < count; i++) {
+            account += (int) unZigZag(in.readVarLong());
+            columns.accounts[i] = account;
+        }
+        for (int i = 0; i < count; i++) {
+            columns.types[i] = (byte) in.readByte();
+        }
+        for (int i = 0; i < count; i++) {
+            long distance = in.readVarLong();
+            columns.previous[i] = distance == 0 ? -1 : baseOffset + i - distance;
+        }
+        return columns;
+    }
+
+    int encodedBytes() {
+        return data.length;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static int readInt(byte[] bytes, int at) {
+        return ((bytes[at] & 0xFF) << 24) | ((bytes[at + 1] & 0xFF) << 16)
+                | ((bytes[at + 2] & 0xFF) << 8) | (bytes[at + 3] & 0xFF);
+    }
+
+    private static final class Reader {
+        private final byte[] bytes;
+        private int position;
+
+        private Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private int readByte() {
+            return bytes[position++];
+        }
+
+        private int readInt() {
+            int value = CompressedSegment.readInt(bytes, position);
+            position += Integer.BYTES;
+            return value;
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            while (true) {
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+                shift += 7;
+            }
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package bank.ledger;
+
+import bank.dto.Page;
+import bank.dto.PageRequest;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Append-only posting ledger.
+ *
+ * Postings are stored column-wise in fixed-size primitive chunks (amount,
+ * timestamp, account ordinal, type, previous offset) instead of one object
+ * per posting. Appenders on different accounts run concurrently: the global
+ * offset comes from an atomic counter and only the per-account chain head is
+ * updated under that account's monitor. Offsets are reserved before their
+ * slot is written, so a separate committed mark advances in offset order
+ * once the slots below it are written; {@link #get} and {@link #size} only
+ * see postings below that mark. Each posting links to the previous
+ * posting of the same account, so an account's history is walked without
+ * scanning other accounts' postings. A per-account {@link AccountHistory}
+ * adds a time index with block summaries for statements and balances.
+ *
+ * Only the newest HOT_CHUNKS chunks stay as plain arrays. Older, fully
+ * written chunks are sealed into a {@link CompressedSegment}
+ * (delta/zig-zag varint, CRC-checked) and decoded again only when a read
+ * touches them; the decoded copy is cached behind a soft reference.
+ */
+public final class Ledger {
+    static final int CHUNK_SHIFT = 12;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    static final int HOT_CHUNKS = 4;
+
+    private final AtomicLong nextOffset = new AtomicLong();
+    // every offset below this one is fully written
+    private final AtomicLong committed = new AtomicLong();
+    private final ConcurrentHashMap<String, AccountChain> chains = new ConcurrentHashMap<>();
+    private final AtomicInteger nextAccountOrdinal = new AtomicInteger();
+    private final LongSupplier clock;
+    private volatile Chunk[] chunks = new Chunk[16];
+    private volatile String[] accountIds = new String[64];
+
+    public Ledger() {
+        this(System::currentTimeMillis);
+    }
+
+    public Ledger(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Opens an account with the balance it has before its first posting;
+     * ledger balances start from it.
+     *
+     * @throws IllegalStateException when the account is already open or already has postings
+     */
+    public void open(String accountId, long openingBalanceCents) {
+        AccountChain chain = chainFor(accountId);
+        synchronized (chain) {
+            if (chain.opened || chain.count > 0) {
+                throw new IllegalStateException("Account " + accountId + " is already open in this ledger");
+            }
+            chain.opened = true;
+            chain.history.open(openingBalanceCents);
+        }
+    }
+
+    /**
+     * Appends a posting and returns its offset.
+     */
+    public long append(String accountId, PostingType type, long amountCents) {
+        AccountChain chain = chainFor(accountId);
+        long offset;
+        synchronized (chain) {
+            offset = nextOffset.getAndIncrement();
+            Chunk chunk = chunkFor(offset);
+            ChunkColumns columns = chunk.hot;
+            int slot = slotOf(offset);
+            // per-account time never goes backwards, which keeps the history blocks sorted
+            long timestamp = Math.max(clock.getAsLong(), chain.lastTimestamp);
+            columns.amounts[slot] = amountCents;
+            columns.timestamps[slot] = timestamp;
+            columns.accounts[slot] = chain.ordinal;
+            columns.types[slot] = (byte) type.ordinal();
+            columns.previous[slot] = chain.head;
+            chunk.written.incrementAndGet();
+            chain.history.add(offset, timestamp, amountCents);
+            chain.lastTimestamp = timestamp;
+            // volatile write publishes the slot to readers walking the chain
+            chain.head = offset;
+            chain.count++;
+        }
+        publish(offset);
+        if (slotOf(offset) == 0 && (offset >>> CHUNK_SHIFT) >= HOT_CHUNKS) {
+            // once per chunk: try to seal the chunk that just left the hot window
+            seal((int) (offset >>> CHUNK_SHIFT) - HOT_CHUNKS);
+        }
+        return offset;
+    }
+
+    /**
+     * Moves the committed mark past this offset once every earlier offset is
+     * written; appenders that reserved a lower offset are at most a few
+     * stores from publishing it.
+     */
+    private void publish(long offset) {
+        for (int spins = 0; committed.get() != offset; spins++) {
+            if (spins < 100) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        committed.set(offset + 1);
+    }
+
+    /**
+     * Seals every full chunk outside the hot window; returns how many were sealed.
+     */
+    public int sealColdChunks() {
+        int hotFrom = (int) (nextOffset.get() >>> CHUNK_SHIFT) - HOT_CHUNKS + 1;
+        int sealed = 0;
+        for (int index = 0; index < hotFrom; index++) {
+            if (seal(index)) {
+                sealed++;
+            }
+        }
+        return sealed;
+    }
+
+    public LedgerStorageStats storageStats() {
+        Chunk[] current = chunks;
+        int hot = 0;
+        int sealed = 0;
+        long compressed = 0;
+        for (Chunk chunk : current) {
+            if (chunk == null) {
+                continue;
+            }
+            CompressedSegment segment = chunk.cold;
+            if (segment != null) {
+                sealed++;
+                compressed += segment.encodedBytes();
+            } else {
+                hot++;
+            }
+        }
+        return new LedgerStorageStats(hot, sealed, ChunkColumns.rawBytes(CHUNK_SIZE) * sealed, compressed);
+    }
+
+    /**
+     * Decodes and checksums every sealed segment (bypassing the cache).
+     *
+     * @return number of postings decoded
+     * @throws IllegalStateException on the first corrupt segment
+     */
+    public long verifySealedSegments() {
+        long postings = 0;
+        for (Chunk chunk : chunks) {
+            CompressedSegment segment = chunk == null ? null : chunk.cold;
+            if (segment != null) {
+                segment.decode(CHUNK_SIZE);
+                postings += CHUNK_SIZE;
+            }
+        }
+        return postings;
+    }
+
+    /**
+     * Opening balance plus the account's postings.
+     */
+    public long balanceOf(String accountId) {
+        AccountChain chain = chains.get(accountId);
+        if (chain == null) {
+            return 0;
+        }
+        synchronized (chain) {
+            return chain.history.balance();
+        }
+    }
+
+    /**
+     * Opening balance plus the account's postings made before the given time (epoch millis).
+     */
+    public long balanceAt(String accountId, long timestamp) {
+        AccountChain chain = chains.get(accountId);
+        if (chain == null) {
+            return 0;
+        }
+        synchronized (chain) {
+            return chain.history.balanceBefore(timestamp, this);
+        }
+    }
+
+    /**
+     * Statement for postings with from <= timestamp < to (epoch millis), oldest
+     * first, each line carrying the account balance after it (opening balance
+     * included).
+     */
+    public Page<StatementLine> statement(String accountId, long from, long to, PageRequest page) {
+        AccountChain chain = chains.get(accountId);
+        if (chain == null) {
+            return new Page<>(Collections.emptyList(), page.getPage(), page.getSize(), 0);
+        }
+        synchronized (chain) {
+            return chain.history.statement(from, to, page, this);
+        }
+    }
+
+    /**
+     * Full history of an account, oldest first.
+     */
+    public List<Posting> history(String accountId) {
+        return recent(accountId, Integer.MAX_VALUE, true);
+    }
+
+    /**
+     * The newest postings of an account, newest first.
+     */
+    public List<Posting> recent(String accountId, int limit) {
+        return recent(accountId, limit, false);
+    }
+
+    public Posting get(long offset) {
+        if (offset < 0 || offset >= committed.get()) {
+            throw new IllegalArgumentException("No posting at offset " + offset);
+        }
+        return postingAt(offset);
+    }
+
+    /**
+     * Reads a slot known to be written (reached through a chain head).
+     */
+    Posting postingAt(long offset) {
+        ChunkColumns columns = columnsAt(offset);
+        int slot = slotOf(offset);
+        return new Posting(offset,
+                accountIds[columns.accounts[slot]],
+                PostingType.values()[columns.types[slot]],
+                columns.amounts[slot],
+                columns.timestamps[slot]);
+    }
+
+    public int postingCount(String accountId) {
+        AccountChain chain = chains.get(accountId);
+        return chain == null ? 0 : chain.count;
+    }
+
+    /**
+     * Number of postings appended so far.
+     */
+    public long size() {
+        return committed.get();
+    }
+
+    private List<Posting> recent(String accountId, int limit, boolean oldestFirst) {
+        AccountChain chain = chains.get(accountId);
+        if (chain == null) {
+            return Collections.emptyList();
+        }
+        List<Posting> result = new ArrayList<>(Math.min(limit, chain.count));
+        for (long offset = chain.head; offset >= 0 && result.size() < limit; offset = previousOf(offset)) {
+            result.add(postingAt(offset));
+        }
+        if (oldestFirst) {
+            Collections.reverse(result);
+        }
+        return result;
+    }
+
+    long timestampAt(long offset) {
+        return columnsAt(offset).timestamps[slotOf(offset)];
+    }
+
+    long amountAt(long offset) {
+        return columnsAt(offset).amounts[slotOf(offset)];
+    }
+
+    private long previousOf(long offset) {
+        return columnsAt(offset).previous[slotOf(offset)];
+    }
+
+    private ChunkColumns columnsAt(long offset) {
+        return chunks[(int) (offset >>> CHUNK_SHIFT)].columns();
+    }
+
+    private static int slotOf(long offset) {
+        return (int) (offset & CHUNK_MASK);
+    }
+
+    private boolean seal(int index) {
+        Chunk[] current = chunks;
+        Chunk chunk = index < current.length ? current[index] : null;
+        if (chunk == null || chunk.written.get() < CHUNK_SIZE) {
+            return false;
+        }
+        synchronized (chunk) {
+            ChunkColumns columns = chunk.hot;
+            if (columns == null) {
+                return false;
+            }
+            chunk.cold = CompressedSegment.encode(columns, CHUNK_SIZE, (long) index << CHUNK_SHIFT);
+            // readers that already hold the arrays keep using them; new readers decode
+            chunk.hot = null;
+            return true;
+        }
+    }
+
+    private Chunk chunkFor(long offset) {
+        int index = (int) (offset >>> CHUNK_SHIFT);
+        Chunk[] current = chunks;
+        if (index < current.length && current[index] != null) {
+            return current[index];
+        }
+        synchronized (this) {
+            current = chunks;
+            if (index >= current.length) {
+                current = Arrays.copyOf(current, Math.max(index + 1, current.length * 2));
+            }
+            if (current[index] == null) {
+                current[index] = new Chunk();
+            }
+            chunks = current;
+            return current[index];
+        }
+    }
+
+    private AccountChain chainFor(String accountId) {
+        AccountChain chain = chains.get(accountId);
+        if (chain != null) {
+            return chain;
+        }
+        return chains.computeIfAbsent(accountId, id -> {
+            int ordinal = nextAccountOrdinal.getAndIncrement();
+            registerAccountId(ordinal, id);
+            return new AccountChain(ordinal);
+        });
+    }
+
+    private synchronized void registerAccountId(int ordinal, String accountId) {
+        String[] ids = accountIds;
+        if (ordinal >= ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(ordinal + 1, ids.length * 2));
+        }
+        ids[ordinal] = accountId;
+        accountIds = ids;
+    }
+
+    private static final class AccountChain {
+        private final int ordinal;
+        private final AccountHistory history = new AccountHistory();
+        private long lastTimestamp = Long.MIN_VALUE;
+        private boolean opened;
+        private volatile long head = -1;
+        private volatile int count;
+
+        private AccountChain(int ordinal) {
+            this.ordinal = ordinal;
+        }
+    }
+
+    private static final class Chunk {
+        private volatile ChunkColumns hot = new ChunkColumns(CHUNK_SIZE);
+        private volatile CompressedSegment cold;
+        private volatile SoftReference<ChunkColumns> decoded;
+        private final AtomicInteger written = new AtomicInteger();
+
+        private ChunkColumns columns() {
+            ChunkColumns columns = hot;
+            if (columns != null) {
+                return columns;
+            }
+            SoftReference<ChunkColumns> cached = decoded;
+            columns = cached == null ? null : cached.get();
+            if (columns == null) {
+                columns = cold.decode(CHUNK_SIZE);
+                decoded = new SoftReference<>(columns);
+            }
+            return columns;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package bank.ledger;
+
+/**
+ * Hot vs sealed (compressed) storage of a ledger.
+ */
+public class LedgerStorageStats {
+    private final int hotChunks;
+    private final int sealedChunks;
+    private final long sealedRawBytes;
+    private final long sealedCompressedBytes;
+
+    public LedgerStorageStats(int hotChunks, int sealedChunks, long sealedRawBytes, long sealedCompressedBytes) {
+        this.hotChunks = hotChunks;
+        this.sealedChunks = sealedChunks;
+        this.sealedRawBytes = sealedRawBytes;
+        this.sealedCompressedBytes = sealedCompressedBytes;
+    }
+
+    public int getHotChunks() {
+        return hotChunks;
+    }
+
+    public int getSealedChunks() {
+        return sealedChunks;
+    }
+
+    /**
+     * Column bytes the sealed chunks would take uncompressed.
+     */
+    public long getSealedRawBytes() {
+        return sealedRawBytes;
+    }
+
+    public long getSealedCompressedBytes() {
+        return sealedCompressedBytes;
+    }
+
+    public double getCompressionRatio() {
+        return sealedCompressedBytes == 0 ? 0 : (double) sealedRawBytes / sealedCompressedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hot chunks=%d sealed chunks=%d sealed raw=%,d B compressed=%,d B ratio=%.2fx",
+                hotChunks, sealedChunks, sealedRawBytes, sealedCompressedBytes, getCompressionRatio());
+    }
+}
@@ -0,0 +1,49 @@
+package bank.ledger;
+
+/**
+ * Immutable view of one ledger entry.
+ */
+public class Posting {
+    private final long offset;
+    private final String accountId;
+    private final PostingType type;
+    private final long amountCents;
+    private final long timestamp;
+
+    public Posting(long offset, String accountId, PostingType type, long amountCents, long timestamp) {
+        this.offset = offset;
+        this.accountId = accountId;
+        this.type = type;
+        this.amountCents = amountCents;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Position in the ledger; unique and used as the posting id.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    public String getAccountId() {
+        return accountId;
+    }
+
+    public PostingType getType() {
+        return type;
+    }
+
+    /**
+     * Signed amount in cents (negative for money leaving the account).
+     */
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    /**
+     * Epoch milliseconds.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
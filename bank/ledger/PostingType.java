@@ -0,0 +1,29 @@
+package bank.ledger;
+
+/*
+ * Kind of ledger posting; the sign of the amount says whether money left or entered the account.
+ * Payments, withdrawals and outgoing transfers take money out, receipts, deposits and incoming
+ * transfers put it in; an opening balance or a balance adjustment may go either way.
+ */
+
+public enum PostingType {
+    PAYMENT(-1),
+    RECEIPT(1),
+    DEPOSIT(1),
+    WITHDRAWAL(-1),
+    TRANSFER_IN(1),
+    TRANSFER_OUT(-1),
+    OPENING_BALANCE(0),
+    ADJUSTMENT(0);
+
+    private final int direction;
+
+    PostingType(int direction) {
+        this.direction = direction;
+    }
+
+    // The following returns 1 for types that put money in, -1 for types that take it out, 0 when the sign decides
+    public int direction() {
+        return direction;
+    }
+}
@@ -0,0 +1,23 @@
+package bank.ledger;
+
+/**
+ * One statement row: a posting plus the account balance right after it
+ * (derived from the ledger).
+ */
+public class StatementLine {
+    private final Posting posting;
+    private final long runningBalanceCents;
+
+    public StatementLine(Posting posting, long runningBalanceCents) {
+        this.posting = posting;
+        this.runningBalanceCents = runningBalanceCents;
+    }
+
+    public Posting getPosting() {
+        return posting;
+    }
+
+    public long getRunningBalanceCents() {
+        return runningBalanceCents;
+    }
+}
@@ -0,0 +1,71 @@
+package bank.money;
+
+/**
+ * Fixed-point money helpers. Amounts travel as long cents from storage to
+ * rendering; doubles only appear at the edges (legacy constructors, getters).
+ *
+ * The formatter writes digits straight into a caller-supplied StringBuilder,
+ * so rendering a table column can reuse one builder instead of going through
+ * String.format per cell. Output matches String.format("%.2f") for cents,
+ * e.g. 123456 -> "1234.56", -500 -> "-5.00".
+ */
+public final class Money {
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(32));
+
+    private Money() {
+    }
+
+    public static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    public static double toDouble(long cents) {
+        return cents / 100.0;
+    }
+
+    /**
+     * Appends the amount as plain decimal ("1234.56") without allocating.
+     */
+    public static StringBuilder appendAmount(StringBuilder out, long cents) {
+        if (cents < 0) {
+            out.append('-');
+            if (cents == Long.MIN_VALUE) {
+                // cannot be negated; its unsigned form is the magnitude
+                String digits = Long.toUnsignedString(cents);
+                int split = digits.length() - 2;
+                return out.append(digits, 0, split).append('.').append(digits, split, digits.length());
+            }
+            cents = -cents;
+        }
+        out.append(cents / 100).append('.');
+        int fraction = (int) (cents % 100);
+        out.append((char) ('0' + fraction / 10)).append((char) ('0' + fraction % 10));
+        return out;
+    }
+
+    /**
+     * Appends the amount with a dollar sign ("$1234.56", "$-5.00"), matching
+     * the previous String.format("$%.2f") output.
+     */
+    public static StringBuilder appendDollars(StringBuilder out, long cents) {
+        return appendAmount(out.append('$'), cents);
+    }
+
+    /**
+     * "1234.56"; the only allocation is the returned String.
+     */
+    public static String format(long cents) {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        return appendAmount(buffer, cents).toString();
+    }
+
+    /**
+     * "$1234.56"; the only allocation is the returned String.
+     */
+    public static String formatDollars(long cents) {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        return appendDollars(buffer, cents).toString();
+    }
+}
@@ -0,0 +1,116 @@
+package bank.perf;
+
+import bank.Account;
+import bank.Customer;
+import bank.Saving;
+import bank.ledger.Ledger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput of concurrent balance updates as the thread count grows.
+ *
+ * Scenarios: every thread hammering one hot account (CAS contention),
+ * threads spread over many accounts, and random transfers within a small
+ * pool of accounts (ordered two-account locking).
+ *
+ * Run with: java -cp target/classes bank.perf.AccountContentionBenchmark
+ */
+public class AccountContentionBenchmark {
+    private static final long DURATION_MS = 1_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%-18s %8s %16s%n", "scenario", "threads", "ops/sec");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            report("hot-account", threads, run(threads, accounts(1), AccountContentionBenchmark::creditDebit));
+            report("spread-accounts", threads, run(threads, accounts(1024), AccountContentionBenchmark::creditDebit));
+            report("transfers-16", threads, run(threads, accounts(16), AccountContentionBenchmark::transfer));
+        }
+    }
+
+    private interface Operation {
+        void apply(List<Account> pool, ThreadLocalRandom random);
+    }
+
+    private static void creditDebit(List<Account> pool, ThreadLocalRandom random) {
+        Account account = pool.get(random.nextInt(pool.size()));
+        account.credit(100);
+        account.tryDebit(100);
+    }
+
+    private static void transfer(List<Account> pool, ThreadLocalRandom random) {
+        Account from = pool.get(random.nextInt(pool.size()));
+        Account to = pool.get(random.nextInt(pool.size()));
+        if (from != to && from.getBalanceCents() >= 100) {
+            try {
+                from.transferTo(to, 100);
+            } catch (IllegalStateException insufficient) {
+                // lost a race for the last cents; counts as an attempt
+            }
+        }
+    }
+
+    private static List<Account> accounts(int count) {
+        // a private ledger per run keeps postings from piling up across scenarios
+        Ledger ledger = new Ledger();
+        Customer customer = new Customer("bench", "Benchmark Customer");
+        List<Account> pool = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            pool.add(new Saving("BENCH-" + i, customer, 1_000_000, ledger));
+        }
+        return pool;
+    }
+
+    private static double run(int threads, List<Account> pool, Operation operation) throws InterruptedException {
+        long totalBefore = total(pool);
+        LongAdder ops = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>(threads);
+        long deadline = System.nanoTime() + DURATION_MS * 1_000_000;
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long local = 0;
+                while (System.nanoTime() < deadline) {
+                    operation.apply(pool, random);
+                    local++;
+                }
+                ops.add(local);
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double seconds = (System.nanoTime() - began) / 1e9;
+        if (total(pool) != totalBefore) {
+            throw new IllegalStateException("Money was created or lost under contention");
+        }
+        return ops.sum() / seconds;
+    }
+
+    private static long total(List<Account> pool) {
+        long sum = 0;
+        for (Account account : pool) {
+            sum += account.getBalanceCents();
+        }
+        return sum;
+    }
+
+    private static void report(String scenario, int threads, double opsPerSecond) {
+        System.out.printf("%-18s %8d %,16.0f%n", scenario, threads, opsPerSecond);
+    }
+}
@@ -0,0 +1,78 @@
+package bank.perf;
+
+import bank.contracts.AccountRepository.OwnershipScope;
+import bank.dto.AccountSearchFilters;
+import bank.dto.AccountType;
+import bank.dto.PageRequest;
+import bank.dto.SortDirection;
+import bank.dto.SortKey;
+import bank.repository.AccountStoreFile;
+import bank.repository.InMemoryAccountRepository;
+import bank.repository.MappedAccountRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Startup cost of building the in-memory repository from rows against
+ * mapping an account store file of the same rows, plus one sorted search
+ * on each.
+ *
+ * Run with: java -cp target/classes bank.perf.AccountStoreStartupBenchmark [rows]
+ */
+public class AccountStoreStartupBenchmark {
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        List<InMemoryAccountRepository.SimpleAccountProjection> rows = rows(count);
+        Path file = Files.createTempFile("accounts", ".store");
+        try {
+            long started = System.nanoTime();
+            AccountStoreFile.write(file, rows);
+            System.out.printf("write store      %8.1f ms  (%,d bytes)%n", millisSince(started), Files.size(file));
+
+            started = System.nanoTime();
+            InMemoryAccountRepository heap = new InMemoryAccountRepository(rows);
+            System.out.printf("build in-memory  %8.1f ms%n", millisSince(started));
+
+            started = System.nanoTime();
+            MappedAccountRepository mapped = new MappedAccountRepository(file);
+            System.out.printf("open mapped      %8.1f ms%n", millisSince(started));
+
+            AccountSearchFilters filters = new AccountSearchFilters();
+            filters.setAccountType(AccountType.SAVING);
+            PageRequest page = new PageRequest(0, 20, SortKey.BALANCE, SortDirection.DESC);
+            started = System.nanoTime();
+            heap.search(null, filters, OwnershipScope.ANY, page);
+            System.out.printf("search in-memory %8.1f ms%n", millisSince(started));
+            started = System.nanoTime();
+            mapped.search(null, filters, OwnershipScope.ANY, page);
+            System.out.printf("search mapped    %8.1f ms%n", millisSince(started));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static double millisSince(long started) {
+        return (System.nanoTime() - started) / 1_000_000.0;
+    }
+
+    private static List<InMemoryAccountRepository.SimpleAccountProjection> rows(int count) {
+        String[] names = {"Alice Smith", "Bob Jones", "Carol Brown", "David Miller", "Eve Davis", "Frank Garcia"};
+        String[] places = {"Toronto", "Ottawa", "Calgary", "Halifax"};
+        Random random = new Random(354L);
+        List<InMemoryAccountRepository.SimpleAccountProjection> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String number = String.format("4500 %04d %04d %04d", random.nextInt(10_000), random.nextInt(10_000), random.nextInt(10_000));
+            rows.add(InMemoryAccountRepository.SimpleAccountProjection.ofCents(
+                    "STORE-" + i, number,
+                    AccountType.values()[random.nextInt(AccountType.values().length)],
+                    names[random.nextInt(names.length)], "user" + random.nextInt(20_000),
+                    places[random.nextInt(places.length)], 1_000 + random.nextInt(10_000_000)));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,73 @@
+package bank.perf;
+
+import bank.dto.AccountType;
+import bank.dto.ImportReport;
+import bank.repository.AccountCsvImporter;
+import bank.repository.InMemoryAccountRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Bulk import of a generated account CSV (one line in a thousand malformed)
+ * into an empty in-memory repository, with 1 worker and with one per core.
+ * Parse and publish are timed separately: publish is the repository's
+ * parallel index build.
+ *
+ * Run with: java -Xmx4g -cp target/classes bank.perf.CsvImportBenchmark [rows]
+ */
+public class CsvImportBenchmark {
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path file = Files.createTempFile("accounts", ".csv");
+        try {
+            write(file, rows);
+            System.out.printf("%,d rows, %,d bytes%n", rows, Files.size(file));
+            int cores = Runtime.getRuntime().availableProcessors();
+            run(file, 1);
+            if (cores > 1) {
+                run(file, cores);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void run(Path file, int workers) throws IOException {
+        InMemoryAccountRepository repository = new InMemoryAccountRepository(List.of());
+        long[] publishNanos = new long[1];
+        ImportReport report = new AccountCsvImporter(workers).importFile(file, batch -> {
+            long started = System.nanoTime();
+            repository.addAll(batch);
+            publishNanos[0] = System.nanoTime() - started;
+        });
+        System.out.printf("%2d workers: parse %8.1f ms, publish %8.1f ms | %s%n", workers,
+                (report.getElapsedNanos() - publishNanos[0]) / 1e6, publishNanos[0] / 1e6, report);
+        if (!report.getErrors().isEmpty()) {
+            System.out.printf("            first rejected %s%n", report.getErrors().get(0));
+        }
+    }
+
+    private static void write(Path file, int rows) throws IOException {
+        String[] names = {"Alice Smith", "Bob Jones", "\"Brown, Carol\"", "David Miller", "Eve Davis", "Frank Garcia"};
+        String[] places = {"Toronto", "Ottawa", "Calgary", "Halifax", ""};
+        Random random = new Random(42);
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write(AccountCsvImporter.HEADER);
+            writer.newLine();
+            for (int i = 0; i < rows; i++) {
+                AccountType type = AccountType.values()[random.nextInt(AccountType.values().length)];
+                String number = String.format("4500 %04d %04d %04d", random.nextInt(10_000), random.nextInt(10_000), random.nextInt(10_000));
+                long cents = 1_000 + random.nextInt(10_000_000);
+                String balance = random.nextInt(1000) == 0 ? "n/a" : (cents / 100) + "." + String.format("%02d", cents % 100);
+                writer.write("CSV-" + i + "," + number + "," + type + "," + names[random.nextInt(names.length)]
+                        + ",user" + random.nextInt(20_000) + "," + places[random.nextInt(places.length)] + "," + balance);
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package bank.perf;
+
+import bank.contracts.AccountProjection;
+import bank.contracts.AccountRepository.OwnershipScope;
+import bank.dto.AccountSearchFilters;
+import bank.dto.Page;
+import bank.dto.PageRequest;
+import bank.dto.UserIdRegistry;
+import bank.repository.AccountDictionaries;
+import bank.repository.InMemoryAccountRepository;
+import bank.repository.StringDictionary;
+
+/**
+ * Compares the estimated heap cost of the customer name, place of birth and
+ * owner columns stored as one String per row against 4-byte dictionary ids
+ * (registry handles for owners) plus the shared dictionaries, for the
+ * seeded repository.
+ *
+ * Run with: java -cp target/classes bank.perf.DictionaryFootprintReport
+ */
+public class DictionaryFootprintReport {
+    private static final int PAGE_SIZE = 50;
+
+    public static void main(String[] args) {
+        InMemoryAccountRepository repository = new InMemoryAccountRepository();
+        long names = 0;
+        long places = 0;
+        long owners = 0;
+        int rows = 0;
+        for (int pageNo = 0; ; pageNo++) {
+            Page<AccountProjection> page = repository.search(null, new AccountSearchFilters(),
+                    OwnershipScope.ANY, new PageRequest(pageNo, PAGE_SIZE));
+            for (AccountProjection acc : page.getItems()) {
+                // a fresh String per row is what the column cost before encoding
+                names += StringDictionary.estimatedStringBytes(acc.getCustomerName());
+                places += StringDictionary.estimatedStringBytes(acc.getPlaceOfBirth());
+                owners += StringDictionary.estimatedStringBytes(acc.getOwnerUserId());
+                rows++;
+            }
+            if (page.getItems().size() < PAGE_SIZE) {
+                break;
+            }
+        }
+
+        System.out.printf("rows: %d%n", rows);
+        report("customerName", rows, names, AccountDictionaries.customerNames());
+        report("placeOfBirth", rows, places, AccountDictionaries.places());
+        UserIdRegistry registry = UserIdRegistry.global();
+        long registryBytes = 0;
+        for (int handle = 0; handle < registry.size(); handle++) {
+            // one String plus a 24-byte UserId per registered user
+            registryBytes += 24 + StringDictionary.estimatedStringBytes(registry.byHandle(handle).getValue());
+        }
+        report("ownerUserId", rows, owners, registry.size(), registryBytes);
+    }
+
+    private static void report(String column, int rows, long perRowBytes, StringDictionary dictionary) {
+        report(column, rows, perRowBytes, dictionary.size(), dictionary.estimatedBytes());
+    }
+
+    private static void report(String column, int rows, long perRowBytes, int distinct, long dictionaryBytes) {
+        // a String reference costs the same 4 bytes (compressed oops) as an int id
+        long encodedBytes = (long) rows * 4 + dictionaryBytes;
+        long plainBytes = (long) rows * 4 + perRowBytes;
+        System.out.printf("%-13s distinct=%6d  per-row strings=%,10d B  dictionary=%,10d B  saved=%.1f%%%n",
+                column, distinct, plainBytes, encodedBytes,
+                100.0 * (plainBytes - encodedBytes) / plainBytes);
+    }
+}
@@ -0,0 +1,54 @@
+package bank.perf;
+
+import bank.dto.PageRequest;
+import bank.ledger.Ledger;
+import bank.ledger.LedgerStorageStats;
+import bank.ledger.PostingType;
+
+import java.util.Random;
+
+/**
+ * Fills a ledger with realistic postings, seals the cold chunks and reports
+ * the compression ratio of the sealed segments and their decode throughput.
+ *
+ * Run with: java -cp target/classes bank.perf.LedgerCompressionBenchmark
+ */
+public class LedgerCompressionBenchmark {
+    private static final int POSTINGS = 2_000_000;
+    private static final int ACCOUNTS = 10_000;
+    private static final int DECODE_ROUNDS = 5;
+
+    public static void main(String[] args) {
+        Random random = new Random(354L);
+        // roughly one posting every 50ms, like a busy branch
+        long[] clock = {1_700_000_000_000L};
+        Ledger ledger = new Ledger(() -> clock[0] += random.nextInt(100));
+        PostingType[] types = PostingType.values();
+        for (int i = 0; i < POSTINGS; i++) {
+            long amount = 100 + random.nextInt(200_000);
+            PostingType type = types[random.nextInt(types.length)];
+            boolean outgoing = type == PostingType.PAYMENT || type == PostingType.WITHDRAWAL || type == PostingType.TRANSFER_OUT;
+            ledger.append("ACC-" + random.nextInt(ACCOUNTS), type, outgoing ? -amount : amount);
+        }
+        ledger.sealColdChunks();
+        LedgerStorageStats stats = ledger.storageStats();
+        System.out.println(stats);
+
+        long decoded = 0;
+        long started = System.nanoTime();
+        for (int round = 0; round < DECODE_ROUNDS; round++) {
+            decoded += ledger.verifySealedSegments();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf("decode: %,.0f postings/s, %,.1f MB/s compressed input%n",
+                decoded / seconds, stats.getSealedCompressedBytes() * DECODE_ROUNDS / seconds / 1e6);
+
+        started = System.nanoTime();
+        long lines = 0;
+        for (int i = 0; i < 1_000; i++) {
+            lines += ledger.statement("ACC-" + i, 0, Long.MAX_VALUE, new PageRequest(0, 50)).getItems().size();
+        }
+        System.out.printf("1000 statements over sealed history: %d lines in %.1f ms%n",
+                lines, (System.nanoTime() - started) / 1e6);
+    }
+}
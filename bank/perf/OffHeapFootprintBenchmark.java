@@ -0,0 +1,103 @@
+package bank.perf;
+
+import bank.contracts.AccountRepository;
+import bank.contracts.AccountRepository.OwnershipScope;
+import bank.dto.AccountSearchFilters;
+import bank.dto.AccountType;
+import bank.dto.PageRequest;
+import bank.dto.SortDirection;
+import bank.dto.SortKey;
+import bank.repository.InMemoryAccountRepository;
+import bank.repository.OffHeapAccountRepository;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Heap footprint and full-GC pause with the same accounts held by the
+ * in-memory repository and by the off-heap repository (loaded in batches),
+ * plus one sorted search on each. The pause is a System.gc() with the
+ * repository live, which has to trace every object it holds.
+ *
+ * Run with: java -Xmx8g -XX:MaxDirectMemorySize=2g -cp target/classes bank.perf.OffHeapFootprintBenchmark [rows]
+ */
+public class OffHeapFootprintBenchmark {
+    private static final int BATCH = 100_000;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.printf("%-9s %10s %10s %12s %12s %10s%n", "store", "build ms", "heap MB", "off-heap MB", "full gc ms", "search ms");
+
+        long heapBefore = usedHeapAfterGc();
+        long started = System.nanoTime();
+        InMemoryAccountRepository heap = new InMemoryAccountRepository(rows(0, count));
+        double buildMillis = millisSince(started);
+        report("in-memory", heap, buildMillis, heapBefore, 0);
+        heap = null;
+
+        heapBefore = usedHeapAfterGc();
+        started = System.nanoTime();
+        OffHeapAccountRepository offHeap = new OffHeapAccountRepository();
+        for (int from = 0; from < count; from += BATCH) {
+            offHeap.addAll(rows(from, Math.min(count, from + BATCH)));
+        }
+        buildMillis = millisSince(started);
+        report("off-heap", offHeap, buildMillis, heapBefore, offHeap.offHeapBytes());
+    }
+
+    private static void report(String name, AccountRepository repository, double buildMillis, long heapBefore, long offHeapBytes) {
+        long heapBytes = usedHeapAfterGc() - heapBefore;
+        long gcBefore = gcMillis();
+        long started = System.nanoTime();
+        System.gc();
+        double pauseMillis = Math.max(gcMillis() - gcBefore, millisSince(started));
+
+        AccountSearchFilters filters = new AccountSearchFilters();
+        filters.setAccountType(AccountType.SAVING);
+        started = System.nanoTime();
+        repository.search(null, filters, OwnershipScope.ANY, new PageRequest(0, 20, SortKey.BALANCE, SortDirection.DESC));
+        double searchMillis = millisSince(started);
+        System.out.printf("%-9s %10.0f %10.1f %12.1f %12.1f %10.1f%n", name, buildMillis,
+                heapBytes / 1e6, offHeapBytes / 1e6, pauseMillis, searchMillis);
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static double millisSince(long started) {
+        return (System.nanoTime() - started) / 1_000_000.0;
+    }
+
+    /**
+     * Rows [from, to) of a deterministic data set (each row from its own seed).
+     */
+    private static List<InMemoryAccountRepository.SimpleAccountProjection> rows(int from, int to) {
+        String[] names = {"Alice Smith", "Bob Jones", "Carol Brown", "David Miller", "Eve Davis", "Frank Garcia"};
+        String[] places = {"Toronto", "Ottawa", "Calgary", "Halifax"};
+        List<InMemoryAccountRepository.SimpleAccountProjection> rows = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            Random random = new Random(i);
+            String number = String.format("4500 %04d %04d %04d", random.nextInt(10_000), random.nextInt(10_000), random.nextInt(10_000));
+            rows.add(InMemoryAccountRepository.SimpleAccountProjection.ofCents(
+                    "OFF-" + i, number,
+                    AccountType.values()[random.nextInt(AccountType.values().length)],
+                    names[random.nextInt(names.length)], "user" + random.nextInt(20_000),
+                    places[random.nextInt(places.length)], 1_000 + random.nextInt(10_000_000)));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,52 @@
+package bank.perf;
+
+import bank.Account;
+import bank.Customer;
+import bank.Saving;
+import bank.ledger.Ledger;
+import bank.pipeline.PaymentKind;
+import bank.pipeline.PaymentPipeline;
+import bank.pipeline.PipelineStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pushes bursts of payments/receipts through the ring-buffer pipeline and
+ * prints sustained postings per second and end-to-end latency percentiles.
+ *
+ * Run with: java -cp target/classes bank.perf.PaymentPipelineBenchmark
+ */
+public class PaymentPipelineBenchmark {
+    private static final int ACCOUNTS = 1_024;
+    private static final int BURST = 5_000;
+    private static final int BURSTS = 400;
+
+    public static void main(String[] args) {
+        Ledger ledger = new Ledger();
+        Customer customer = new Customer("bench", "Benchmark Customer");
+        List<Account> accounts = new ArrayList<>(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts.add(new Saving("PIPE-" + i, customer, 10_000, ledger));
+        }
+
+        LongAdder auditLines = new LongAdder();
+        Random random = new Random(354L);
+        try (PaymentPipeline pipeline = new PaymentPipeline(8_192, message -> auditLines.increment())) {
+            for (int burst = 0; burst < BURSTS; burst++) {
+                for (int i = 0; i < BURST; i++) {
+                    Account account = accounts.get(random.nextInt(ACCOUNTS));
+                    PaymentKind kind = random.nextBoolean() ? PaymentKind.PAYMENT : PaymentKind.RECEIPT;
+                    pipeline.publish(account, kind, 1 + random.nextInt(5_000));
+                }
+            }
+            pipeline.drain();
+            PipelineStats stats = pipeline.stats();
+            System.out.println(stats);
+            System.out.printf("audit lines: %d (avg batch %.1f events), ledger postings: %d%n",
+                    auditLines.sum(), (double) stats.getPublished() / Math.max(1, auditLines.sum()), ledger.size());
+        }
+    }
+}
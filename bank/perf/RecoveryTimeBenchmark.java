@@ -0,0 +1,86 @@
+package bank.perf;
+
+import bank.repository.DurableStore;
+import bank.repository.InMemoryAccountRepository;
+import bank.wal.Durability;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Restart time of a data directory after a long write history: replaying
+ * the whole log from the seed rows, against loading a checkpoint taken
+ * near the end and replaying only the short tail after it.
+ *
+ * Run with: java -cp target/classes bank.perf.RecoveryTimeBenchmark [updates]
+ */
+public class RecoveryTimeBenchmark {
+    private static final int TAIL_UPDATES = 1_000;
+
+    public static void main(String[] args) throws IOException {
+        int updates = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        List<InMemoryAccountRepository.SimpleAccountProjection> base = InMemoryAccountRepository.defaultAccounts();
+        Path directory = Files.createTempDirectory("recovery-bench");
+        try {
+            long started = System.nanoTime();
+            try (DurableStore store = DurableStore.open(directory, Durability.ASYNC, base)) {
+                write(store, base.size(), updates, 1);
+            }
+            System.out.printf("write history    %8.1f ms  (%,d updates, %,d log bytes)%n",
+                    millisSince(started), updates, size(directory.resolve("wal")));
+
+            started = System.nanoTime();
+            try (DurableStore store = DurableStore.open(directory, Durability.ASYNC, base)) {
+                System.out.printf("full replay      %8.1f ms  (up to LSN %,d)%n", millisSince(started), store.log().lastLsn());
+                started = System.nanoTime();
+                long lsn = store.checkpoint();
+                System.out.printf("checkpoint       %8.1f ms  (LSN %,d, %,d log bytes left)%n",
+                        millisSince(started), lsn, size(directory.resolve("wal")));
+                write(store, base.size(), TAIL_UPDATES, 2);
+            }
+
+            started = System.nanoTime();
+            try (DurableStore store = DurableStore.open(directory, Durability.ASYNC, base)) {
+                System.out.printf("checkpoint+tail  %8.1f ms  (%,d records replayed)%n",
+                        millisSince(started), store.log().lastLsn() - store.getCheckpointLsn());
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static void write(DurableStore store, int accounts, int updates, long seed) {
+        Random random = new Random(seed);
+        for (int i = 0; i < updates; i++) {
+            store.accounts().updateBalance("ACC-" + (1 + random.nextInt(accounts - 1)), random.nextInt(10_000_000));
+        }
+        store.log().awaitDurable(store.log().lastLsn());
+    }
+
+    private static long size(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            long bytes = 0;
+            for (Path file : (Iterable<Path>) files::iterator) {
+                bytes += Files.size(file);
+            }
+            return bytes;
+        }
+    }
+
+    private static double millisSince(long started) {
+        return (System.nanoTime() - started) / 1_000_000.0;
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
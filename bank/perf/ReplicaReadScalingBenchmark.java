@@ -0,0 +1,92 @@
+package bank.perf;
+
+import bank.contracts.AccountRepository.OwnershipScope;
+import bank.dto.AccountSearchFilters;
+import bank.dto.AccountType;
+import bank.dto.PageRequest;
+import bank.dto.SortDirection;
+import bank.dto.SortKey;
+import bank.dto.UserId;
+import bank.repository.ReplicatedAccountRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read throughput against the replica count: reader threads search flat
+ * out while one writer keeps updating balances through the primary, with a
+ * 50ms staleness bound. Replica count 0 means every read hits the primary.
+ *
+ * Run with: java -cp target/classes bank.perf.ReplicaReadScalingBenchmark
+ */
+public class ReplicaReadScalingBenchmark {
+    private static final long DURATION_MS = 2_000;
+    private static final long MAX_STALENESS_MS = 50;
+
+    public static void main(String[] args) throws Exception {
+        int readers = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        System.out.printf("%-9s %8s %14s %14s %10s%n", "replicas", "readers", "reads/sec", "writes/sec", "max lag");
+        for (int replicas : new int[]{0, 1, 2, 4}) {
+            try (ReplicatedAccountRepository repository = new ReplicatedAccountRepository(replicas, MAX_STALENESS_MS)) {
+                run(repository, readers);
+            }
+        }
+    }
+
+    private static void run(ReplicatedAccountRepository repository, int readers) throws InterruptedException {
+        LongAdder reads = new LongAdder();
+        LongAdder writes = new LongAdder();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        long[] maxLag = new long[1];
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < readers; t++) {
+            threads.add(new Thread(() -> {
+                AccountSearchFilters filters = new AccountSearchFilters();
+                filters.setAccountType(AccountType.SAVING);
+                PageRequest page = new PageRequest(0, 20, SortKey.BALANCE, SortDirection.DESC);
+                await(start);
+                while (running.get()) {
+                    repository.search(null, filters, OwnershipScope.ANY, page);
+                    reads.increment();
+                }
+            }));
+        }
+        threads.add(new Thread(() -> {
+            UserId teller = UserId.of("teller");
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            await(start);
+            while (running.get()) {
+                repository.updateBalance(teller, "ACC-" + (1 + random.nextInt(10_000)), random.nextInt(10_000_000));
+                writes.increment();
+                for (long lag : repository.replicaLag()) {
+                    maxLag[0] = Math.max(maxLag[0], lag);
+                }
+                // let readers in on small machines
+                Thread.yield();
+            }
+        }));
+        threads.forEach(Thread::start);
+        start.countDown();
+        Thread.sleep(DURATION_MS);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = DURATION_MS / 1_000.0;
+        System.out.printf("%-9d %8d %14.0f %14.0f %10d%n", repository.replicaCount(), readers,
+                reads.sum() / seconds, writes.sum() / seconds, maxLag[0]);
+    }
+
+    private static void await(CountDownLatch start) {
+        try {
+            start.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package bank.perf;
+
+import bank.contracts.AccountRepository;
+import bank.contracts.AccountRepository.OwnershipScope;
+import bank.dto.AccountSearchFilters;
+import bank.dto.AccountType;
+import bank.dto.PageRequest;
+import bank.dto.SortDirection;
+import bank.dto.SortKey;
+import bank.dto.UserId;
+import bank.repository.InMemoryAccountRepository;
+import bank.repository.ShardedAccountRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Search latency of the flat repository against owner-hash shards, on a
+ * 200k-row table, idle and while a writer keeps inserting accounts.
+ *
+ * Run with: java -cp target/classes bank.perf.ShardedSearchBenchmark
+ */
+public class ShardedSearchBenchmark {
+    private static final int ROWS = 200_000;
+    private static final int SEARCHES = 400;
+
+    public static void main(String[] args) throws InterruptedException {
+        List<InMemoryAccountRepository.SimpleAccountProjection> rows = rows(ROWS, 354L);
+        InMemoryAccountRepository flat = new InMemoryAccountRepository(rows);
+        ShardedAccountRepository sharded = new ShardedAccountRepository(
+                Math.max(2, Runtime.getRuntime().availableProcessors()), rows);
+
+        System.out.printf("%-10s %-8s %12s%n", "repo", "writer", "avg us/search");
+        for (int round = 0; round < 2; round++) {
+            // first round warms up the JIT
+            boolean print = round == 1;
+            measure("flat", flat, flat::add, print);
+            measure("sharded", sharded, sharded::add, print);
+        }
+    }
+
+    private interface Writer {
+        void add(InMemoryAccountRepository.SimpleAccountProjection row);
+    }
+
+    private static void measure(String name, AccountRepository repository, Writer writer, boolean print) throws InterruptedException {
+        double idle = searchLatencyMicros(repository);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread background = new Thread(() -> {
+            List<InMemoryAccountRepository.SimpleAccountProjection> extra = rows(50_000, 7L);
+            for (int i = 0; running.get() && i < extra.size(); i++) {
+                writer.add(extra.get(i));
+            }
+        });
+        background.start();
+        double busy = searchLatencyMicros(repository);
+        running.set(false);
+        background.join();
+        if (print) {
+            System.out.printf("%-10s %-8s %12.1f%n", name, "idle", idle);
+            System.out.printf("%-10s %-8s %12.1f%n", name, "writing", busy);
+        }
+    }
+
+    private static double searchLatencyMicros(AccountRepository repository) {
+        AccountSearchFilters byType = new AccountSearchFilters();
+        byType.setAccountType(AccountType.SAVING);
+        byType.setPlaceOfBirth("ottawa");
+        AccountSearchFilters byName = new AccountSearchFilters();
+        byName.setCustomerName("smith");
+        PageRequest sorted = new PageRequest(2, 20, SortKey.BALANCE, SortDirection.DESC);
+
+        long started = System.nanoTime();
+        for (int i = 0; i < SEARCHES; i++) {
+            switch (i % 3) {
+                case 0:
+                    repository.search(null, byType, OwnershipScope.ANY, sorted);
+                    break;
+                case 1:
+                    repository.search(null, byName, OwnershipScope.ANY, new PageRequest(0, 20).withFacets());
+                    break;
+                default:
+                    repository.search(UserId.of("user" + i), null, OwnershipScope.OWNED_ONLY, new PageRequest(0, 20));
+                    break;
+            }
+        }
+        return (System.nanoTime() - started) / 1_000.0 / SEARCHES;
+    }
+
+    private static List<InMemoryAccountRepository.SimpleAccountProjection> rows(int count, long seed) {
+        String[] names = {"Alice Smith", "Bob Jones", "Carol Brown", "David Miller", "Eve Davis", "Frank Garcia"};
+        String[] places = {"Toronto", "Ottawa", "Calgary", "Halifax"};
+        Random random = new Random(seed);
+        List<InMemoryAccountRepository.SimpleAccountProjection> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String number = String.format("4500 %04d %04d %04d", random.nextInt(10_000), random.nextInt(10_000), random.nextInt(10_000));
+            rows.add(InMemoryAccountRepository.SimpleAccountProjection.ofCents(
+                    "BENCH-" + seed + "-" + i, number,
+                    AccountType.values()[random.nextInt(AccountType.values().length)],
+                    names[random.nextInt(names.length)], "user" + random.nextInt(20_000),
+                    places[random.nextInt(places.length)], 1_000 + random.nextInt(10_000_000)));
+        }
+        return rows;
+    }
+}
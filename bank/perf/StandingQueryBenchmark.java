@@ -0,0 +1,96 @@
+package bank.perf;
+
+import bank.dto.AccountSearchFilters;
+import bank.dto.AccountType;
+import bank.repository.InMemoryAccountRepository;
+import bank.repository.StandingQueryRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Filter evaluations of the standing-query index against a naive registry
+ * that runs every query on the row before and after each change, plus the
+ * dispatcher's throughput, for random type/place/balance-range queries over
+ * a 100k-row table.
+ *
+ * Run with: java -cp target/classes bank.perf.StandingQueryBenchmark [queries] [changes]
+ */
+public class StandingQueryBenchmark {
+    private static final int ROWS = 100_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        int queryCount = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int changeCount = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+        String[] places = {"Toronto", "Ottawa", "Calgary", "Halifax", "Montreal", "Regina"};
+        Random random = new Random(451L);
+
+        List<InMemoryAccountRepository.SimpleAccountProjection> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(row("BENCH-" + i, places, random));
+        }
+        InMemoryAccountRepository repository = new InMemoryAccountRepository(rows);
+        LongAdder matches = new LongAdder();
+        try (StandingQueryRegistry registry = new StandingQueryRegistry(repository)) {
+            for (int i = 0; i < queryCount; i++) {
+                registry.register("q" + i, query(places, random), match -> matches.increment());
+            }
+
+            // a naive registry evaluates every query once per row image (before and/or after)
+            long rowImages = 0;
+            long started = System.nanoTime();
+            for (int i = 0; i < changeCount; i++) {
+                int op = random.nextInt(10);
+                String id = "BENCH-" + random.nextInt(ROWS);
+                if (op < 7) {
+                    rowImages += repository.updateBalance(id, random.nextInt(10_000_000)) ? 2 : 0;
+                } else if (op < 9) {
+                    rowImages += repository.remove(id) ? 1 : 0;
+                } else {
+                    repository.add(row("NEW-" + i, places, random));
+                    rowImages++;
+                }
+            }
+            if (!registry.awaitProcessed(120_000)) {
+                throw new IllegalStateException("Standing queries did not catch up with the change feed");
+            }
+            double seconds = (System.nanoTime() - started) / 1e9;
+            long naive = rowImages * queryCount;
+
+            System.out.printf("queries            %,d%n", queryCount);
+            System.out.printf("changes            %,d%n", changeCount);
+            System.out.printf("evaluations        %,d%n", registry.evaluations());
+            System.out.printf("naive evaluations  %,d%n", naive);
+            System.out.printf("evaluated          %.1f%% of naive%n", 100.0 * registry.evaluations() / naive);
+            System.out.printf("changes/s          %,.0f (writes plus evaluation)%n", changeCount / seconds);
+            System.out.printf("resyncs            %d%n", registry.resyncs());
+        }
+    }
+
+    private static AccountSearchFilters query(String[] places, Random random) {
+        AccountSearchFilters filters = new AccountSearchFilters();
+        if (random.nextBoolean()) {
+            filters.setAccountType(AccountType.values()[random.nextInt(AccountType.values().length)]);
+        }
+        if (random.nextInt(5) > 0) {
+            filters.setPlaceOfBirth(places[random.nextInt(places.length)]);
+        }
+        if (random.nextInt(3) > 0) {
+            filters.setMinBalanceCents((long) random.nextInt(9_000_000));
+        }
+        if (random.nextInt(4) == 0) {
+            filters.setMaxBalanceCents((long) random.nextInt(10_000_000));
+        }
+        return filters;
+    }
+
+    private static InMemoryAccountRepository.SimpleAccountProjection row(String id, String[] places, Random random) {
+        String number = String.format("4500 %04d %04d %04d", random.nextInt(10_000), random.nextInt(10_000), random.nextInt(10_000));
+        return InMemoryAccountRepository.SimpleAccountProjection.ofCents(id, number,
+                AccountType.values()[random.nextInt(AccountType.values().length)],
+                "Bench Customer", "user" + random.nextInt(20_000),
+                places[random.nextInt(places.length)], random.nextInt(10_000_000));
+    }
+}
@@ -0,0 +1,75 @@
+package bank.perf;
+
+import bank.wal.Durability;
+import bank.wal.WriteAheadLog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Append throughput, mean append latency and records per fsync of the
+ * write-ahead log in each durability mode, for 1 and 8 writer threads
+ * appending 64-byte records to a log in a temporary directory.
+ *
+ * Run with: java -cp target/classes bank.perf.WalDurabilityBenchmark
+ */
+public class WalDurabilityBenchmark {
+    private static final int APPENDS_PER_WRITER = 500;
+    private static final byte[] PAYLOAD = new byte[64];
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%-8s %7s %12s %14s %12s%n", "mode", "writers", "appends/s", "avg latency us", "records/sync");
+        for (Durability durability : Durability.values()) {
+            for (int writers : new int[]{1, 8}) {
+                run(durability, writers);
+            }
+        }
+    }
+
+    private static void run(Durability durability, int writers) throws Exception {
+        Path directory = Files.createTempDirectory("wal-bench");
+        AtomicLong latencyNanos = new AtomicLong();
+        long started;
+        long elapsed;
+        long syncs;
+        try (WriteAheadLog log = new WriteAheadLog(directory, durability, 0, null)) {
+            Thread[] threads = new Thread[writers];
+            for (int i = 0; i < writers; i++) {
+                threads[i] = new Thread(() -> {
+                    for (int n = 0; n < APPENDS_PER_WRITER; n++) {
+                        long t0 = System.nanoTime();
+                        log.append((byte) 1, PAYLOAD);
+                        latencyNanos.addAndGet(System.nanoTime() - t0);
+                    }
+                });
+            }
+            started = System.nanoTime();
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            elapsed = System.nanoTime() - started;
+            log.awaitDurable(log.lastLsn());
+            syncs = log.syncCount();
+        } finally {
+            delete(directory);
+        }
+        long appends = (long) writers * APPENDS_PER_WRITER;
+        System.out.printf("%-8s %7d %12.0f %14.1f %12.1f%n", durability, writers,
+                appends * 1e9 / elapsed, latencyNanos.get() / 1_000.0 / appends, (double) appends / Math.max(1, syncs));
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
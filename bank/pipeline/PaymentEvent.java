@@ -0,0 +1,23 @@
+package bank.pipeline;
+
+import bank.Account;
+
+/**
+ * Pre-allocated ring-buffer slot. Slots are reused; each stage only touches
+ * a slot after the previous stage has published past its sequence.
+ */
+final class PaymentEvent {
+    Account account;
+    PaymentKind kind;
+    long amountCents;
+    long publishedNanos;
+    String rejectReason;
+
+    void set(Account account, PaymentKind kind, long amountCents, long publishedNanos) {
+        this.account = account;
+        this.kind = kind;
+        this.amountCents = amountCents;
+        this.publishedNanos = publishedNanos;
+        this.rejectReason = null;
+    }
+}
@@ -0,0 +1,10 @@
+package bank.pipeline;
+
+/*
+ * Direction of a pipelined posting: PAYMENT debits the account, RECEIPT credits it
+ */
+
+public enum PaymentKind {
+    PAYMENT,
+    RECEIPT
+}
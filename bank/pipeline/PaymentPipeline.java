@@ -0,0 +1,263 @@
+package bank.pipeline;
+
+import bank.Account;
+import bank.contracts.AuditLogRepository;
+import bank.ledger.PostingType;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Disruptor-style payment posting pipeline.
+ *
+ * One producer thread claims slots in a pre-allocated ring buffer. Three
+ * stage threads follow it in order (validate, post to the account and the
+ * ledger, audit), and each stage is gated by the sequence of the stage
+ * before it. A stage consumes everything that is available as one batch,
+ * so under load it catches up many events per wake-up, and the audit stage
+ * writes a single log line per batch. The producer cannot wrap past the
+ * audit stage, which gives natural backpressure: publish() waits, and
+ * tryPublish() reports failure, while the ring is full.
+ *
+ * publish()/tryPublish() must be called from a single thread, and not after
+ * close().
+ */
+public class PaymentPipeline implements AutoCloseable {
+    private static final long INITIAL = -1;
+
+    private final PaymentEvent[] ring;
+    private final int mask;
+    private final AuditLogRepository auditLog;
+
+    private final AtomicLong cursor = new AtomicLong(INITIAL);
+    private final AtomicLong validated = new AtomicLong(INITIAL);
+    private final AtomicLong posted = new AtomicLong(INITIAL);
+    private final AtomicLong audited = new AtomicLong(INITIAL);
+
+    // producer-local; other threads read the cursor instead
+    private long nextSequence = 0;
+    private long cachedGate = INITIAL;
+
+    // written by the audit stage only, read via stats()
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private volatile long postedCount;
+    private volatile long rejectedCount;
+    private volatile long firstPublishNanos;
+    private volatile long lastAuditNanos;
+
+    private final Thread[] stages;
+    private volatile boolean running = true;
+
+    /**
+     * @param capacity ring size, rounded up to a power of two
+     */
+    public PaymentPipeline(int capacity, AuditLogRepository auditLog) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.ring = new PaymentEvent[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new PaymentEvent();
+        }
+        this.mask = size - 1;
+        this.auditLog = auditLog;
+        this.stages = new Thread[] {
+                stage("payment-validate", cursor, validated, this::validate),
+                stage("payment-post", validated, posted, this::post),
+                stage("payment-audit", posted, audited, this::audit)
+        };
+        for (Thread stage : stages) {
+            stage.start();
+        }
+    }
+
+    /**
+     * Publishes one posting, waiting while the ring is full.
+     *
+     * @throws IllegalStateException when the pipeline is closed
+     */
+    public void publish(Account account, PaymentKind kind, long amountCents) {
+        while (!tryPublish(account, kind, amountCents)) {
+            LockSupport.parkNanos(1_000);
+        }
+    }
+
+    /**
+     * Publishes one posting unless the ring is full.
+     *
+     * @throws IllegalStateException when the pipeline is closed (the stages are
+     *                               gone, so the event would never be posted)
+     */
+    public boolean tryPublish(Account account, PaymentKind kind, long amountCents) {
+        if (!running) {
+            throw new IllegalStateException("Pipeline is closed");
+        }
+        long sequence = nextSequence;
+        long wrapPoint = sequence - ring.length;
+        if (wrapPoint > cachedGate) {
+            cachedGate = audited.get();
+            if (wrapPoint > cachedGate) {
+                return false;
+            }
+        }
+        long now = System.nanoTime();
+        if (sequence == 0) {
+            firstPublishNanos = now;
+        }
+        ring[(int) (sequence & mask)].set(account, kind, amountCents, now);
+        nextSequence = sequence + 1;
+        cursor.lazySet(sequence);
+        return true;
+    }
+
+    /**
+     * Waits until everything published so far has been audited.
+     */
+    public void drain() {
+        long target = nextSequence - 1;
+        while (audited.get() < target) {
+            LockSupport.parkNanos(10_000);
+        }
+    }
+
+    public PipelineStats stats() {
+        long done = postedCount;
+        long elapsed = lastAuditNanos - firstPublishNanos;
+        double perSecond = elapsed > 0 ? done * 1e9 / elapsed : 0;
+        synchronized (latency) {
+            // the producer's nextSequence is not published to other threads
+            return new PipelineStats(cursor.get() + 1, done, rejectedCount, perSecond,
+                    latency.percentile(50) / 1e3,
+                    latency.percentile(99) / 1e3,
+                    latency.percentile(99.9) / 1e3,
+                    latency.max() / 1e3);
+        }
+    }
+
+    /**
+     * Drains outstanding events and stops the stage threads.
+     */
+    @Override
+    public void close() {
+        drain();
+        running = false;
+        for (Thread stage : stages) {
+            LockSupport.unpark(stage);
+            try {
+                stage.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private interface BatchHandler {
+        void onBatch(long from, long to);
+    }
+
+    private Thread stage(String name, AtomicLong gate, AtomicLong own, BatchHandler handler) {
+        Thread thread = new Thread(() -> {
+            long next = own.get() + 1;
+            int idle = 0;
+            while (running || gate.get() >= next) {
+                long available = gate.get();
+                if (available < next) {
+                    // spin briefly, then back off to parking
+                    if (++idle < 100) {
+                        Thread.onSpinWait();
+                    } else {
+                        LockSupport.parkNanos(1_000);
+                    }
+                    continue;
+                }
+                idle = 0;
+                handler.onBatch(next, available);
+                own.lazySet(available);
+                next = available + 1;
+            }
+        }, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private void validate(long from, long to) {
+        for (long seq = from; seq <= to; seq++) {
+            PaymentEvent event = ring[(int) (seq & mask)];
+            if (event.account == null) {
+                event.rejectReason = "missing account";
+            } else if (event.account.getId() == null) {
+                event.rejectReason = "missing account id";
+            } else if (event.kind == null) {
+                event.rejectReason = "missing kind";
+            } else if (event.amountCents <= 0) {
+                event.rejectReason = "non-positive amount";
+            }
+        }
+    }
+
+    private void post(long from, long to) {
+        for (long seq = from; seq <= to; seq++) {
+            PaymentEvent event = ring[(int) (seq & mask)];
+            if (event.rejectReason != null) {
+                continue;
+            }
+            try {
+                postOne(event);
+            } catch (RuntimeException e) {
+                // one bad event must not stop the stage thread
+                event.rejectReason = "posting failed: " + e.getMessage();
+            }
+        }
+    }
+
+    private void postOne(PaymentEvent event) {
+        Account account = event.account;
+        if (event.kind == PaymentKind.PAYMENT) {
+            if (!account.tryDebit(event.amountCents)) {
+                event.rejectReason = "insufficient funds";
+                return;
+            }
+            try {
+                account.getLedger().append(account.getId(), PostingType.PAYMENT, -event.amountCents);
+            } catch (RuntimeException e) {
+                account.credit(event.amountCents);
+                throw e;
+            }
+        } else {
+            account.credit(event.amountCents);
+            try {
+                account.getLedger().append(account.getId(), PostingType.RECEIPT, event.amountCents);
+            } catch (RuntimeException e) {
+                account.debit(event.amountCents);
+                throw e;
+            }
+        }
+    }
+
+    private void audit(long from, long to) {
+        long ok = 0;
+        long rejected = 0;
+        long now = System.nanoTime();
+        synchronized (latency) {
+            for (long seq = from; seq <= to; seq++) {
+                PaymentEvent event = ring[(int) (seq & mask)];
+                if (event.rejectReason == null) {
+                    ok++;
+                } else {
+                    rejected++;
+                }
+                latency.record(now - event.publishedNanos);
+                event.account = null;
+            }
+        }
+        postedCount += ok;
+        rejectedCount += rejected;
+        lastAuditNanos = now;
+        if (auditLog != null) {
+            try {
+                auditLog.record("Payment pipeline batch seq " + from + "-" + to + ": posted " + ok + ", rejected " + rejected);
+            } catch (RuntimeException e) {
+                System.err.printf("[WARNING] Payment pipeline audit of seq %d-%d failed: %s%n", from, to, e.getMessage());
+            }
+        }
+    }
+}
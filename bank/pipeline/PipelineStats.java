@@ -0,0 +1,66 @@
+package bank.pipeline;
+
+/**
+ * Snapshot of pipeline throughput and end-to-end latency
+ * (publish to audit, in microseconds).
+ */
+public class PipelineStats {
+    private final long published;
+    private final long posted;
+    private final long rejected;
+    private final double postingsPerSecond;
+    private final double p50Micros;
+    private final double p99Micros;
+    private final double p999Micros;
+    private final double maxMicros;
+
+    public PipelineStats(long published, long posted, long rejected, double postingsPerSecond,
+                         double p50Micros, double p99Micros, double p999Micros, double maxMicros) {
+        this.published = published;
+        this.posted = posted;
+        this.rejected = rejected;
+        this.postingsPerSecond = postingsPerSecond;
+        this.p50Micros = p50Micros;
+        this.p99Micros = p99Micros;
+        this.p999Micros = p999Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    public long getPublished() {
+        return published;
+    }
+
+    public long getPosted() {
+        return posted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public double getPostingsPerSecond() {
+        return postingsPerSecond;
+    }
+
+    public double getP50Micros() {
+        return p50Micros;
+    }
+
+    public double getP99Micros() {
+        return p99Micros;
+    }
+
+    public double getP999Micros() {
+        return p999Micros;
+    }
+
+    public double getMaxMicros() {
+        return maxMicros;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("published=%d posted=%d rejected=%d throughput=%,.0f/s latency p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+                published, posted, rejected, postingsPerSecond, p50Micros, p99Micros, p999Micros, maxMicros);
+    }
+}
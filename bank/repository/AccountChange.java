@@ -0,0 +1,96 @@
+package bank.repository;
+
+/**
+ * One committed account mutation, in the order the primary applied it.
+ * Sequences start at 1 and have no gaps.
+ */
+public final class AccountChange {
+    public enum Kind {
+        OPENED,
+        BALANCE_CHANGED,
+        REMOVED
+    }
+
+    private final long sequence;
+    private final Kind kind;
+    private final String accountId;
+    private final InMemoryAccountRepository.SimpleAccountProjection account;
+    private final long balanceCents;
+    private final long appendedNanos;
+    // the change appended right after this one, null while this is the newest
+    private volatile AccountChange next;
+
+    AccountChange(long sequence, Kind kind, String accountId,
+                  InMemoryAccountRepository.SimpleAccountProjection account,
+                  long balanceCents, long appendedNanos) {
+        this.sequence = sequence;
+        this.kind = kind;
+        this.accountId = accountId;
+        this.account = account;
+        this.balanceCents = balanceCents;
+        this.appendedNanos = appendedNanos;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getAccountId() {
+        return accountId;
+    }
+
+    /**
+     * The opened account (OPENED only, null otherwise).
+     */
+    public InMemoryAccountRepository.SimpleAccountProjection getAccount() {
+        return account;
+    }
+
+    /**
+     * New balance (BALANCE_CHANGED only).
+     */
+    public long getBalanceCents() {
+        return balanceCents;
+    }
+
+    /**
+     * System.nanoTime() when the change was appended, for lag measurements.
+     */
+    public long getAppendedNanos() {
+        return appendedNanos;
+    }
+
+    AccountChange next() {
+        return next;
+    }
+
+    void link(AccountChange following) {
+        next = following;
+    }
+
+    /**
+     * Applies this change to a repository that has applied every earlier one.
+     */
+    void applyTo(InMemoryAccountRepository repository) {
+        switch (kind) {
+            case OPENED:
+                repository.add(account);
+                break;
+            case BALANCE_CHANGED:
+                repository.updateBalance(accountId, balanceCents);
+                break;
+            default:
+                repository.remove(accountId);
+                break;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + kind + " " + accountId;
+    }
+}
@@ -0,0 +1,103 @@
+package bank.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ordered, append-only log of account mutations. Writers append under the
+ * log's monitor; readers pull batches after the last sequence they applied
+ * and may block until something new arrives. Each change also links to the
+ * next one, so a reader holding the last change it applied can see whether
+ * it is behind without taking the monitor. Changes that every reader has
+ * applied are dropped with {@link #dropThrough}.
+ */
+public final class AccountChangeLog {
+    // dropped changes are only removed from the list once there are this many
+    private static final int DROP_BATCH = 1024;
+
+    private final List<AccountChange> changes = new ArrayList<>();
+    // starts as a sequence 0 marker that readAfter never returns
+    private AccountChange newest = new AccountChange(0, null, null, null, 0, System.nanoTime());
+    // changes with a sequence up to this one are no longer in the list
+    private long dropped;
+    private long droppable;
+
+    synchronized AccountChange append(AccountChange.Kind kind, String accountId,
+                                      InMemoryAccountRepository.SimpleAccountProjection account, long balanceCents) {
+        AccountChange change = new AccountChange(newest.getSequence() + 1, kind, accountId, account, balanceCents, System.nanoTime());
+        changes.add(change);
+        newest.link(change);
+        newest = change;
+        notifyAll();
+        return change;
+    }
+
+    /**
+     * The newest change (the sequence 0 marker while the log is empty);
+     * following its links leads to every later change.
+     */
+    synchronized AccountChange newest() {
+        return newest;
+    }
+
+    /**
+     * Sequence of the newest change, 0 when the log is empty.
+     */
+    public synchronized long lastSequence() {
+        return newest.getSequence();
+    }
+
+    /**
+     * Up to max changes with a sequence greater than the given one, oldest first.
+     *
+     * @throws IllegalStateException when some of those changes were already dropped
+     */
+    public synchronized List<AccountChange> readAfter(long sequence, int max) {
+        if (sequence < dropped) {
+            throw new IllegalStateException("Changes up to #" + dropped + " were already dropped, cannot read after #" + sequence);
+        }
+        int from = (int) (sequence - dropped);
+        int to = (int) Math.min(changes.size(), from + (long) max);
+        return from >= to ? List.of() : new ArrayList<>(changes.subList(from, to));
+    }
+
+    /**
+     * Append time of the given change, or -1 when it does not exist (yet) or was dropped.
+     */
+    public synchronized long appendedNanosOf(long sequence) {
+        return sequence > dropped && sequence <= newest.getSequence()
+                ? changes.get((int) (sequence - dropped - 1)).getAppendedNanos() : -1;
+    }
+
+    /**
+     * Releases changes up to the given sequence, once every reader has
+     * applied them. The list is compacted in batches, so most calls only
+     * record the new mark.
+     */
+    public synchronized void dropThrough(long sequence) {
+        droppable = Math.max(droppable, Math.min(sequence, newest.getSequence()));
+        int count = (int) (droppable - dropped);
+        if (count >= DROP_BATCH && count * 2 >= changes.size()) {
+            changes.subList(0, count).clear();
+            dropped = droppable;
+        }
+    }
+
+    /**
+     * Waits until a change after the given sequence exists.
+     *
+     * @return false on timeout
+     */
+    public synchronized boolean awaitAfter(long sequence, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (newest.getSequence() <= sequence) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+}
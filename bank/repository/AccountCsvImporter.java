@@ -0,0 +1,550 @@
+package bank.repository;
+
+import bank.dto.AccountType;
+import bank.dto.ImportReport;
+import bank.dto.UserId;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Parallel bulk loader for account CSV files, one account per line:
+ * <pre>
+ * accountId,accountNumber,accountType,customerName,ownerUserId,placeOfBirth,balance
+ * ACC-1,5200 1111 2222 3333,SAVING,"Smith, Alice",alice,Toronto,1234.56
+ * </pre>
+ * The header line is optional. Fields may be double-quoted (with "" for a
+ * quote) but may not span lines. The balance is a decimal amount with at
+ * most two fraction digits. Account numbers are taken as
+ * {@link InMemoryAccountRepository.SimpleAccountProjection} takes them:
+ * 16 digits (spaces and dashes ignored) are packed, anything else is kept
+ * as written, which the persisted and off-heap stores then refuse.
+ * <p>
+ * The file is split into segments at line boundaries, each segment is
+ * memory-mapped and parsed by one of the worker threads straight from the
+ * mapping: numbers, types and balances are decoded from the bytes, and
+ * names, owners and places go through a per-worker cache from raw bytes to
+ * dictionary id, so a String is only created once per distinct value (and
+ * once per row for the account id). Lines that do not parse are rejected
+ * with their line number; so are lines repeating an account id of an
+ * earlier line or of an account the target already holds. The valid rows
+ * are handed over in file order in a single call, e.g. to
+ * {@link InMemoryAccountRepository#addAll}, which builds its indexes in
+ * parallel and makes the whole file visible at once.
+ */
+public final class AccountCsvImporter {
+    public static final String HEADER = "accountId,accountNumber,accountType,customerName,ownerUserId,placeOfBirth,balance";
+    static final int FIELDS = 7;
+    static final int MAX_REPORTED_ERRORS = 1000;
+    private static final long MIN_SEGMENT_BYTES = 1L << 20;
+    private static final long MAX_SEGMENT_BYTES = 64L << 20;
+    private static final long INVALID_CENTS = Long.MIN_VALUE;
+    private static final AccountType[] TYPES = AccountType.values();
+    private static final byte[] HEADER_FIELD = "accountid".getBytes(StandardCharsets.US_ASCII);
+
+    private final int workers;
+
+    public AccountCsvImporter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public AccountCsvImporter(int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be positive");
+        }
+        this.workers = workers;
+    }
+
+    /**
+     * Imports into a target that holds no accounts yet.
+     *
+     * @see #importFile(Path, Predicate, Consumer)
+     */
+    public ImportReport importFile(Path file,
+                                   Consumer<List<InMemoryAccountRepository.SimpleAccountProjection>> publish) throws IOException {
+        return importFile(file, accountId -> false, publish);
+    }
+
+    /**
+     * Parses the file and passes every valid row to publish in one call (not
+     * at all when no line is valid). A line whose account id already exists
+     * in the target, or appeared on an earlier line, is rejected; the first
+     * occurrence in the file is kept.
+     *
+     * @param existing whether the target already holds an account id, asked once per parsed row
+     * @throws IOException when the file cannot be read; nothing is published then
+     */
+    public ImportReport importFile(Path file, Predicate<String> existing,
+                                   Consumer<List<InMemoryAccountRepository.SimpleAccountProjection>> publish) throws IOException {
+        long started = System.nanoTime();
+        List<Segment> segments = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long target = Math.max(MIN_SEGMENT_BYTES, Math.min(MAX_SEGMENT_BYTES, size / (workers * 4L) + 1));
+            for (long start = 0; start < size; ) {
+                long end = start + target >= size ? size : nextLineStart(channel, start + target, size);
+                if (end - start > Integer.MAX_VALUE) {
+                    throw new IOException("Line longer than 2 GB at byte " + start + " of " + file);
+                }
+                // the mapping stays valid after the channel is closed
+                segments.add(new Segment(start == 0, channel.map(FileChannel.MapMode.READ_ONLY, start, end - start)));
+                start = end;
+            }
+        }
+
+        int threads = Math.max(1, Math.min(workers, segments.size()));
+        ExecutorService pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "csv-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> parsed = new ArrayList<>();
+            for (Segment segment : segments) {
+                parsed.add(pool.submit(segment::parse));
+            }
+            for (Future<?> future : parsed) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while importing " + file);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException("Import of " + file + " failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // segment-local line indexes become file line numbers; ids are checked in file order
+        int rowCount = 0;
+        for (Segment segment : segments) {
+            rowCount += segment.rows.size();
+        }
+        List<InMemoryAccountRepository.SimpleAccountProjection> rows = new ArrayList<>(rowCount);
+        Set<String> seen = new HashSet<>(Math.max(16, (int) (rowCount / 0.75f) + 1));
+        List<ImportReport.LineError> errors = new ArrayList<>();
+        long rejected = 0;
+        long firstLine = 1;
+        for (Segment segment : segments) {
+            // parse errors and duplicate rows are both in line order, so merging keeps errors in line order
+            int nextError = 0;
+            for (int i = 0; i < segment.rows.size(); i++) {
+                InMemoryAccountRepository.SimpleAccountProjection row = segment.rows.get(i);
+                String duplicate = existing.test(row.getAccountId()) ? "account id '" + row.getAccountId() + "' already exists"
+                        : !seen.add(row.getAccountId()) ? "duplicate account id '" + row.getAccountId() + "' of an earlier line"
+                        : null;
+                if (duplicate == null) {
+                    rows.add(row);
+                    continue;
+                }
+                rejected++;
+                int line = segment.rowLines.get(i);
+                for (; nextError < segment.errors.size() && segment.errors.get(nextError).getLineNumber() < line; nextError++) {
+                    report(errors, firstLine, segment.errors.get(nextError));
+                }
+                report(errors, firstLine, new ImportReport.LineError(line, duplicate));
+            }
+            for (; nextError < segment.errors.size(); nextError++) {
+                report(errors, firstLine, segment.errors.get(nextError));
+            }
+            rejected += segment.rejected;
+            firstLine += segment.lines;
+        }
+        if (!rows.isEmpty()) {
+            publish.accept(rows);
+        }
+        return new ImportReport(rows.size(), rejected, errors, System.nanoTime() - started, threads);
+    }
+
+    /**
+     * Adds a segment-local error with its file line number, up to MAX_REPORTED_ERRORS.
+     */
+    private static void report(List<ImportReport.LineError> errors, long firstLine, ImportReport.LineError error) {
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new ImportReport.LineError(firstLine + error.getLineNumber(), error.getMessage()));
+        }
+    }
+
+    /**
+     * Position right after the first newline at or after from - 1, so a
+     * boundary that already is a line start stays where it is.
+     */
+    private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long position = from - 1;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * One mapped range of whole lines and what its worker parsed from it.
+     */
+    private static final class Segment {
+        private final boolean first;
+        private final ByteBuffer data;
+        // field bounds of the current line; quoting: 0 none, 1 quoted, 2 quoted with "" escapes
+        private final int[] starts = new int[FIELDS];
+        private final int[] ends = new int[FIELDS];
+        private final byte[] quoting = new byte[FIELDS];
+        private final ValueCache names = new ValueCache(AccountDictionaries.customerNames()::intern);
+        private final ValueCache owners = new ValueCache(value -> UserId.register(value).getHandle());
+        private final ValueCache places = new ValueCache(AccountDictionaries.places()::intern);
+        private final List<InMemoryAccountRepository.SimpleAccountProjection> rows = new ArrayList<>();
+        // segment line index of each row, for rejecting duplicate ids at the merge
+        private final IntList rowLines = new IntList();
+        // line numbers relative to the segment (0-based) until the merge
+        private final List<ImportReport.LineError> errors = new ArrayList<>();
+        private long rejected;
+        private long lines;
+
+        private Segment(boolean first, ByteBuffer data) {
+            this.first = first;
+            this.data = data;
+        }
+
+        private void parse() {
+            int limit = data.limit();
+            int position = 0;
+            if (first && limit >= 3 && data.get(0) == (byte) 0xEF && data.get(1) == (byte) 0xBB && data.get(2) == (byte) 0xBF) {
+                position = 3;
+            }
+            while (position < limit) {
+                int newline = position;
+                while (newline < limit && data.get(newline) != '\n') {
+                    newline++;
+                }
+                int end = newline > position && data.get(newline - 1) == '\r' ? newline - 1 : newline;
+                long line = lines++;
+                if (!isBlank(position, end) && !(first && line == 0 && isHeader(position, end))) {
+                    String error = parseLine(position, end);
+                    if (error == null) {
+                        rowLines.add((int) line);
+                    } else {
+                        rejected++;
+                        if (errors.size() < MAX_REPORTED_ERRORS) {
+                            errors.add(new ImportReport.LineError(line, error));
+                        }
+                    }
+                }
+                position = newline + 1;
+            }
+        }
+
+        /**
+         * Adds the row, or returns why the line was rejected.
+         */
+        private String parseLine(int start, int end) {
+            int count = 0;
+            int p = start;
+            while (true) {
+                int fieldStart;
+                int fieldEnd;
+                byte quote = 0;
+                while (p < end && (data.get(p) == ' ' || data.get(p) == '\t')) {
+                    p++;
+                }
+                if (p < end && data.get(p) == '"') {
+                    quote = 1;
+                    fieldStart = ++p;
+                    while (true) {
+                        if (p >= end) {
+                            return "unterminated quoted field " + (count + 1);
+                        }
+                        if (data.get(p) == '"') {
+                            if (p + 1 < end && data.get(p + 1) == '"') {
+                                quote = 2;
+                                p += 2;
+                                continue;
+                            }
+                            break;
+                        }
+                        p++;
+                    }
+                    fieldEnd = p++;
+                    while (p < end && (data.get(p) == ' ' || data.get(p) == '\t')) {
+                        p++;
+                    }
+                    if (p < end && data.get(p) != ',') {
+                        return "unexpected text after quoted field " + (count + 1);
+                    }
+                } else {
+                    fieldStart = p;
+                    while (p < end && data.get(p) != ',') {
+                        p++;
+                    }
+                    fieldEnd = p;
+                    while (fieldEnd > fieldStart && (data.get(fieldEnd - 1) == ' ' || data.get(fieldEnd - 1) == '\t')) {
+                        fieldEnd--;
+                    }
+                }
+                if (count < FIELDS) {
+                    starts[count] = fieldStart;
+                    ends[count] = fieldEnd;
+                    quoting[count] = quote;
+                }
+                count++;
+                if (p >= end) {
+                    break;
+                }
+                p++;
+            }
+            if (count != FIELDS) {
+                return "expected " + FIELDS + " fields but found " + count;
+            }
+
+            if (starts[0] == ends[0]) {
+                return "account id is required";
+            }
+            if (starts[1] == ends[1]) {
+                return "account number is required";
+            }
+            long number = parseAccountNumber(starts[1], ends[1]);
+            AccountType type = parseType(starts[2], ends[2]);
+            if (type == null) {
+                return "unknown account type '" + text(2) + "'";
+            }
+            if (starts[4] == ends[4]) {
+                return "owner user id is required";
+            }
+            long cents = parseCents(starts[6], ends[6]);
+            if (cents == INVALID_CENTS) {
+                return "invalid balance '" + text(6) + "'";
+            }
+            rows.add(new InMemoryAccountRepository.SimpleAccountProjection(text(0), number,
+                    number == AccountNumbers.INVALID ? text(1) : null, type,
+                    names.id(data, starts[3], ends[3], quoting[3] == 2),
+                    owners.id(data, starts[4], ends[4], quoting[4] == 2),
+                    places.id(data, starts[5], ends[5], quoting[5] == 2),
+                    cents));
+            return null;
+        }
+
+        private String text(int field) {
+            return decode(data, starts[field], ends[field], quoting[field] == 2);
+        }
+
+        /**
+         * Exactly 16 digits, spaces and dashes ignored, packed as AccountNumbers
+         * does; INVALID for anything else (the row keeps the text then).
+         */
+        private long parseAccountNumber(int start, int end) {
+            long packed = 0;
+            int digits = 0;
+            for (int p = start; p < end; p++) {
+                byte b = data.get(p);
+                if (b >= '0' && b <= '9') {
+                    if (++digits > AccountNumbers.DIGITS) {
+                        return AccountNumbers.INVALID;
+                    }
+                    packed = packed * 10 + (b - '0');
+                } else if (b != ' ' && b != '-') {
+                    return AccountNumbers.INVALID;
+                }
+            }
+            return digits == AccountNumbers.DIGITS ? packed : AccountNumbers.INVALID;
+        }
+
+        private AccountType parseType(int start, int end) {
+            for (AccountType type : TYPES) {
+                String name = type.name();
+                if (name.length() == end - start && matchesIgnoreCase(start, name)) {
+                    return type;
+                }
+            }
+            return null;
+        }
+
+        private boolean matchesIgnoreCase(int start, String upperAscii) {
+            for (int i = 0; i < upperAscii.length(); i++) {
+                int b = data.get(start + i);
+                if (b >= 'a' && b <= 'z') {
+                    b -= 'a' - 'A';
+                }
+                if (b != upperAscii.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Optional sign, digits, optional fraction of one or two digits.
+         */
+        private long parseCents(int start, int end) {
+            int p = start;
+            boolean negative = false;
+            if (p < end && (data.get(p) == '-' || data.get(p) == '+')) {
+                negative = data.get(p) == '-';
+                p++;
+            }
+            long units = 0;
+            int digits = 0;
+            for (; p < end && data.get(p) >= '0' && data.get(p) <= '9'; p++) {
+                if (++digits > 15) {
+                    return INVALID_CENTS;
+                }
+                units = units * 10 + (data.get(p) - '0');
+            }
+            long fraction = 0;
+            int fractionDigits = 0;
+            if (p < end && data.get(p) == '.') {
+                for (p++; p < end && data.get(p) >= '0' && data.get(p) <= '9'; p++) {
+                    if (++fractionDigits > 2) {
+                        return INVALID_CENTS;
+                    }
+                    fraction = fraction * 10 + (data.get(p) - '0');
+                }
+            }
+            if (p != end || digits + fractionDigits == 0) {
+                return INVALID_CENTS;
+            }
+            long cents = units * 100 + (fractionDigits == 1 ? fraction * 10 : fraction);
+            return negative ? -cents : cents;
+        }
+
+        private boolean isBlank(int start, int end) {
+            for (int p = start; p < end; p++) {
+                if (data.get(p) != ' ' && data.get(p) != '\t') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isHeader(int start, int end) {
+            if (end - start <= HEADER_FIELD.length || data.get(start + HEADER_FIELD.length) != ',') {
+                return false;
+            }
+            for (int i = 0; i < HEADER_FIELD.length; i++) {
+                int b = data.get(start + i);
+                if ((b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b) != HEADER_FIELD[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static String decode(ByteBuffer data, int start, int end, boolean escapedQuotes) {
+        byte[] bytes = new byte[end - start];
+        data.get(start, bytes);
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        return escapedQuotes ? value.replace("\"\"", "\"") : value;
+    }
+
+    /**
+     * Raw field bytes to id, for one worker. Misses decode the value once
+     * and resolve it through the shared dictionary or registry.
+     */
+    private static final class ValueCache {
+        private final ToIntFunction<String> resolve;
+        // open addressing: entry index + 1, 0 is empty
+        private int[] slots = new int[256];
+        private int[] hashes = new int[64];
+        private int[] offsets = new int[64];
+        private int[] lengths = new int[64];
+        private int[] ids = new int[64];
+        private byte[] pool = new byte[4096];
+        private int poolSize;
+        private int size;
+
+        private ValueCache(ToIntFunction<String> resolve) {
+            this.resolve = resolve;
+        }
+
+        private int id(ByteBuffer data, int start, int end, boolean escapedQuotes) {
+            int hash = 0;
+            for (int p = start; p < end; p++) {
+                hash = 31 * hash + data.get(p);
+            }
+            hash ^= hash >>> 16;
+            int mask = slots.length - 1;
+            int slot = hash & mask;
+            for (; slots[slot] != 0; slot = (slot + 1) & mask) {
+                int entry = slots[slot] - 1;
+                if (hashes[entry] == hash && matches(entry, data, start, end)) {
+                    return ids[entry];
+                }
+            }
+            int id = resolve.applyAsInt(decode(data, start, end, escapedQuotes));
+            int length = end - start;
+            if (size == ids.length) {
+                hashes = Arrays.copyOf(hashes, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            if (poolSize + length > pool.length) {
+                pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + length));
+            }
+            data.get(start, pool, poolSize, length);
+            hashes[size] = hash;
+            offsets[size] = poolSize;
+            lengths[size] = length;
+            ids[size] = id;
+            poolSize += length;
+            slots[slot] = ++size;
+            if (size * 2 > slots.length) {
+                rehash();
+            }
+            return id;
+        }
+
+        private boolean matches(int entry, ByteBuffer data, int start, int end) {
+            if (lengths[entry] != end - start) {
+                return false;
+            }
+            int offset = offsets[entry];
+            for (int i = 0; i < end - start; i++) {
+                if (pool[offset + i] != data.get(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void rehash() {
+            slots = new int[slots.length * 2];
+            int mask = slots.length - 1;
+            for (int entry = 0; entry < size; entry++) {
+                int slot = hashes[entry] & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = entry + 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package bank.repository;
+
+/**
+ * Process-wide dictionaries for the repetitive account string columns
+ * (customer name, place of birth). Shared like String.intern so every
+ * repository instance encodes to the same ids. Owner ids are encoded as
+ * UserIdRegistry handles instead.
+ */
+public final class AccountDictionaries {
+    private static final StringDictionary CUSTOMER_NAMES = new StringDictionary();
+    private static final StringDictionary PLACES = new StringDictionary();
+
+    private AccountDictionaries() {
+    }
+
+    public static StringDictionary customerNames() {
+        return CUSTOMER_NAMES;
+    }
+
+    public static StringDictionary places() {
+        return PLACES;
+    }
+}
@@ -0,0 +1,172 @@
+package bank.repository;
+
+import bank.contracts.AccountRepository.OwnershipScope;
+import bank.dto.AccountNumberMatch;
+import bank.dto.AccountSearchFilters;
+import bank.dto.AccountType;
+import bank.dto.UserId;
+
+import java.util.Locale;
+import java.util.function.Predicate;
+
+/**
+ * Compiled form of {@link AccountSearchFilters} plus ownership scope.
+ * Query strings are lower-cased once here instead of once per row, and the
+ * filters on dictionary-encoded columns (name, place) are evaluated once per
+ * distinct value and memoized by dictionary id. Ownership is one int compare
+ * against the requester's UserIdRegistry handle, resolved once here so a
+ * requester built before its id was registered still matches its accounts.
+ */
+final class AccountFilter {
+    static final int NO_OWNER = -1;
+
+    private final String accountNumber;
+    private final AccountNumberMatch numberMatch;
+    private final long numberDigits;
+    private final int numberDigitCount;
+    private final String customerName;
+    private final String placeOfBirth;
+    private final AccountType accountType;
+    private final long minBalanceCents;
+    private final long maxBalanceCents;
+    private final int ownerHandle;
+    private final boolean ownedOnly;
+    private final DistinctMatch nameMatch;
+    private final DistinctMatch placeMatch;
+
+    private AccountFilter(AccountSearchFilters f, UserId requester, OwnershipScope scope) {
+        this.accountNumber = f.hasAccountNumber() ? lower(f.getAccountNumber()) : null;
+        this.numberMatch = f.getAccountNumberMatch();
+        // numeric modes compare packed digits instead of formatting every row
+        this.numberDigits = accountNumber == null ? AccountNumbers.INVALID : AccountNumbers.parseDigits(accountNumber);
+        this.numberDigitCount = accountNumber == null ? 0 : AccountNumbers.digitCount(accountNumber);
+        // fuzzy names are resolved through the name index before the scan
+        this.customerName = f.hasCustomerName() && !f.isCustomerNameFuzzy() ? lower(f.getCustomerName()) : null;
+        this.placeOfBirth = f.hasPlaceOfBirth() ? lower(f.getPlaceOfBirth()) : null;
+        this.accountType = f.getAccountType();
+        this.minBalanceCents = f.getMinBalanceCents() == null ? Long.MIN_VALUE : f.getMinBalanceCents();
+        this.maxBalanceCents = f.getMaxBalanceCents() == null ? Long.MAX_VALUE : f.getMaxBalanceCents();
+        this.ownedOnly = scope == OwnershipScope.OWNED_ONLY;
+        this.ownerHandle = requester == null ? NO_OWNER : requester.resolvedHandle();
+        this.nameMatch = customerName == null ? null
+                : new DistinctMatch(AccountDictionaries.customerNames(), name -> contains(name, customerName));
+        this.placeMatch = placeOfBirth == null ? null
+                : new DistinctMatch(AccountDictionaries.places(), place -> contains(place, placeOfBirth));
+    }
+
+    static AccountFilter of(AccountSearchFilters filters, UserId requester, OwnershipScope scope) {
+        return new AccountFilter(filters == null ? new AccountSearchFilters() : filters, requester, scope);
+    }
+
+    boolean isOwnedOnly() {
+        return ownedOnly;
+    }
+
+    /**
+     * Requester's handle, or NO_OWNER without a requester or for an id that
+     * was never registered (either way it owns nothing).
+     */
+    int ownerHandle() {
+        return ownerHandle;
+    }
+
+    /**
+     * True when every row matches, so totals are known without scanning.
+     */
+    boolean isEmpty() {
+        return hasOnlyAccountType() && accountType == null;
+    }
+
+    boolean hasOnlyAccountType() {
+        return !ownedOnly && accountNumber == null && customerName == null && placeOfBirth == null
+                && minBalanceCents == Long.MIN_VALUE && maxBalanceCents == Long.MAX_VALUE;
+    }
+
+    /**
+     * Lowest balance a matching row can have (Long.MIN_VALUE when unbounded).
+     */
+    long minBalanceCents() {
+        return minBalanceCents;
+    }
+
+    boolean test(StoredAccount acc) {
+        if (ownedOnly && acc.getOwnerHandle() != ownerHandle) {
+            return false;
+        }
+        if (accountType != null && acc.getAccountType() != accountType) {
+            return false;
+        }
+        long balance = acc.getBalanceCents();
+        if (balance < minBalanceCents || balance > maxBalanceCents) {
+            return false;
+        }
+        if (accountNumber != null && !matchesAccountNumber(acc)) {
+            return false;
+        }
+        if (nameMatch != null && !nameMatch.test(acc.customerNameId())) {
+            return false;
+        }
+        return placeMatch == null || placeMatch.test(acc.placeOfBirthId());
+    }
+
+    private boolean matchesAccountNumber(StoredAccount acc) {
+        if (numberMatch == AccountNumberMatch.CONTAINS) {
+            return contains(acc.getAccountNumber(), accountNumber) || contains(acc.getAccountId(), accountNumber);
+        }
+        if (numberDigits == AccountNumbers.INVALID) {
+            return false;
+        }
+        long packed = acc.packedAccountNumber();
+        if (packed == AccountNumbers.INVALID) {
+            // a number that is not 16 digits only matches CONTAINS
+            return false;
+        }
+        switch (numberMatch) {
+            case EXACT:
+                return numberDigitCount == AccountNumbers.DIGITS && packed == numberDigits;
+            case PREFIX:
+                return packed >= AccountNumbers.rangeStart(numberDigits, numberDigitCount)
+                        && packed < AccountNumbers.rangeEnd(numberDigits, numberDigitCount);
+            default:
+                return AccountNumbers.endsWith(packed, numberDigits, numberDigitCount);
+        }
+    }
+
+    private static boolean contains(String source, String lowerQuery) {
+        return source != null && source.toLowerCase(Locale.ROOT).contains(lowerQuery);
+    }
+
+    private static String lower(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Predicate memoized per dictionary id: 0 = not evaluated, 1 = match, 2 = no match.
+     * Concurrent scanners may race on a slot, but they always write the same answer.
+     */
+    private static final class DistinctMatch {
+        private final StringDictionary dictionary;
+        private final Predicate<String> predicate;
+        private final byte[] memo;
+
+        private DistinctMatch(StringDictionary dictionary, Predicate<String> predicate) {
+            this.dictionary = dictionary;
+            this.predicate = predicate;
+            this.memo = new byte[dictionary.size()];
+        }
+
+        private boolean test(int id) {
+            if (id < 0 || id >= memo.length) {
+                // null column, or a value interned after this filter was compiled
+                String value = dictionary.value(id);
+                return value != null && predicate.test(value);
+            }
+            byte known = memo[id];
+            if (known == 0) {
+                known = predicate.test(dictionary.value(id)) ? (byte) 1 : (byte) 2;
+                memo[id] = known;
+            }
+            return known == 1;
+        }
+    }
+}
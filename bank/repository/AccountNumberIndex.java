@@ -0,0 +1,138 @@
+package bank.repository;
+
+import bank.dto.AccountNumberMatch;
+
+import java.util.BitSet;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Numeric indexes over packed account numbers: row ordinals sorted by
+ * number (exact and prefix lookups are one binary-searched range) and one
+ * posting list per last-4 value (suffix lookups). Rows without a valid
+ * 16-digit number (packed as INVALID) sort before every range and are left
+ * out of the suffix lists, so numeric lookups never match them.
+ */
+final class AccountNumberIndex {
+    private static final int SUFFIX_BUCKETS = 10_000;
+
+    private final IntToLongFunction numberOf;
+    private final SortedPermutation byNumber;
+    private final IntList[] bySuffix = new IntList[SUFFIX_BUCKETS];
+
+    AccountNumberIndex(IntToLongFunction numberOf) {
+        this.numberOf = numberOf;
+        this.byNumber = new SortedPermutation(
+                (a, b) -> {
+                    int cmp = Long.compare(numberOf.applyAsLong(a), numberOf.applyAsLong(b));
+                    return cmp != 0 ? cmp : Integer.compare(a, b);
+                });
+    }
+
+    void add(int ordinal) {
+        addSuffix(ordinal);
+        byNumber.insert(ordinal);
+    }
+
+    /**
+     * Indexes ordinals [from, to) after a bulk load, sorting only the new
+     * ordinals and merging them into the sorted permutation.
+     */
+    void addAll(int from, int to) {
+        for (int ordinal = from; ordinal < to; ordinal++) {
+            addSuffix(ordinal);
+        }
+        byNumber.addAll(from, to);
+    }
+
+    /**
+     * Rows whose account number matches the query digits; never null for the
+     * numeric modes (an unparseable query matches nothing).
+     */
+    BitSet rows(AccountNumberMatch mode, String query, int rowCount) {
+        BitSet rows = new BitSet(rowCount);
+        long digits = AccountNumbers.parseDigits(query);
+        if (digits == AccountNumbers.INVALID) {
+            return rows;
+        }
+        int digitCount = AccountNumbers.digitCount(query);
+        switch (mode) {
+            case EXACT:
+                if (digitCount == AccountNumbers.DIGITS) {
+                    collectRange(digits, digits + 1, rows);
+                }
+                break;
+            case PREFIX:
+                collectRange(AccountNumbers.rangeStart(digits, digitCount), AccountNumbers.rangeEnd(digits, digitCount), rows);
+                break;
+            case SUFFIX:
+                collectSuffix(digits, digitCount, rows);
+                break;
+            default:
+                throw new IllegalArgumentException("Not an indexed account number match: " + mode);
+        }
+        return rows;
+    }
+
+    private void collectRange(long from, long to, BitSet rows) {
+        for (int pos = lowerBound(from); pos < byNumber.size(); pos++) {
+            int ordinal = byNumber.get(pos);
+            if (numberOf.applyAsLong(ordinal) >= to) {
+                break;
+            }
+            rows.set(ordinal);
+        }
+    }
+
+    private void collectSuffix(long suffix, int digitCount, BitSet rows) {
+        if (digitCount >= 4) {
+            // the last four digits pick one bucket; longer suffixes are checked per row
+            IntList bucket = bySuffix[(int) (suffix % SUFFIX_BUCKETS)];
+            for (int i = 0; bucket != null && i < bucket.size(); i++) {
+                int ordinal = bucket.get(i);
+                if (AccountNumbers.endsWith(numberOf.applyAsLong(ordinal), suffix, digitCount)) {
+                    rows.set(ordinal);
+                }
+            }
+            return;
+        }
+        // shorter suffixes cover every bucket ending with them
+        int step = digitCount == 1 ? 10 : digitCount == 2 ? 100 : 1000;
+        for (int value = (int) suffix; value < SUFFIX_BUCKETS; value += step) {
+            IntList bucket = bySuffix[value];
+            for (int i = 0; bucket != null && i < bucket.size(); i++) {
+                rows.set(bucket.get(i));
+            }
+        }
+    }
+
+    /**
+     * First position whose number is >= the given packed value.
+     */
+    private int lowerBound(long number) {
+        int lo = 0;
+        int hi = byNumber.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (numberOf.applyAsLong(byNumber.get(mid)) < number) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private void addSuffix(int ordinal) {
+        long number = numberOf.applyAsLong(ordinal);
+        if (number == AccountNumbers.INVALID) {
+            return;
+        }
+        int suffix = AccountNumbers.lastFour(number);
+        IntList bucket = bySuffix[suffix];
+        if (bucket == null) {
+            bucket = new IntList();
+            bySuffix[suffix] = bucket;
+        }
+        bucket.add(ordinal);
+    }
+}
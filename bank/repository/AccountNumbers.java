@@ -0,0 +1,123 @@
+package bank.repository;
+
+/**
+ * Packs 16-digit account numbers into a long and formats them back as
+ * "dddd dddd dddd dddd". Packed numbers keep numeric order, so every
+ * account number starting with a given digit prefix is one contiguous
+ * range [lo, hi).
+ */
+public final class AccountNumbers {
+    public static final int DIGITS = 16;
+    public static final long INVALID = -1L;
+
+    private static final long[] POW10 = new long[DIGITS + 1];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i <= DIGITS; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private AccountNumbers() {
+    }
+
+    /**
+     * Packed form of a 16-digit account number; spaces and dashes are ignored.
+     *
+     * @throws IllegalArgumentException when the value is not exactly 16 digits
+     */
+    public static long pack(String accountNumber) {
+        long packed = tryPack(accountNumber);
+        if (packed == INVALID) {
+            throw new IllegalArgumentException("Account number must have " + DIGITS + " digits: " + accountNumber);
+        }
+        return packed;
+    }
+
+    /**
+     * Packed form of a 16-digit account number, or INVALID for null or any
+     * value that is not exactly 16 digits (spaces and dashes ignored).
+     */
+    public static long tryPack(String accountNumber) {
+        long packed = parseDigits(accountNumber);
+        return packed == INVALID || digitCount(accountNumber) != DIGITS ? INVALID : packed;
+    }
+
+    /**
+     * Digits of a (partial) account number as a long, or INVALID when it has
+     * no digits, more than 16 or any character other than digits, spaces and dashes.
+     */
+    public static long parseDigits(String value) {
+        if (value == null) {
+            return INVALID;
+        }
+        long result = 0;
+        int digits = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > DIGITS) {
+                    return INVALID;
+                }
+                result = result * 10 + (c - '0');
+            } else if (c != ' ' && c != '-') {
+                return INVALID;
+            }
+        }
+        return digits == 0 ? INVALID : result;
+    }
+
+    /**
+     * Number of digits in the value, ignoring every other character.
+     */
+    public static int digitCount(String value) {
+        int digits = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+            }
+        }
+        return digits;
+    }
+
+    /**
+     * Smallest packed number starting with the given digits (prefixDigits long).
+     */
+    static long rangeStart(long prefix, int prefixDigits) {
+        return prefix * POW10[DIGITS - prefixDigits];
+    }
+
+    /**
+     * Exclusive end of the packed range starting with the given digits.
+     */
+    static long rangeEnd(long prefix, int prefixDigits) {
+        return (prefix + 1) * POW10[DIGITS - prefixDigits];
+    }
+
+    /**
+     * True when the packed number ends with the given suffixDigits digits.
+     */
+    static boolean endsWith(long packed, long suffix, int suffixDigits) {
+        return packed % POW10[suffixDigits] == suffix;
+    }
+
+    static int lastFour(long packed) {
+        return (int) (packed % 10_000);
+    }
+
+    public static String format(long packed) {
+        char[] out = new char[DIGITS + 3];
+        long rest = packed;
+        for (int i = out.length - 1; i >= 0; i--) {
+            if (i % 5 == 4) {
+                out[i] = ' ';
+                continue;
+            }
+            out[i] = (char) ('0' + rest % 10);
+            rest /= 10;
+        }
+        return new String(out);
+    }
+}
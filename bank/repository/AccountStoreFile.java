@@ -0,0 +1,359 @@
+package bank.repository;
+
+import bank.contracts.AccountProjection;
+import bank.dto.SortKey;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary account store read by {@link MappedAccountRepository}. Little-endian
+ * layout:
+ * <pre>
+ * header (64 B)   magic, format version, row count, record size, section
+ *                 offsets, file length, CRC32 of the body, CRC32 of the header
+ * records         fixed 40-byte rows: packed account number, balance in cents,
+ *                 heap offset of the account id, name/owner/place table
+ *                 indexes, account type ordinal
+ * strings         name, owner and place tables (heap offset + row count per
+ *                 distinct value), then the string heap (u16 length + UTF-8)
+ * permutations    row ordinals sorted by each SortKey, in enum order, then
+ *                 grouped by owner table index (each owner's rows are one
+ *                 range; the ranges follow from the owner row counts)
+ * </pre>
+ * Files are written to a temporary sibling, forced, moved into place and
+ * then the directory is forced, so a reader never sees a half-written store
+ * and a completed write survives a crash.
+ *
+ * Section offsets and heap references are 32-bit and the reader maps the
+ * whole file as one buffer, so a store is capped at MAX_FILE_BYTES (2 GB).
+ * {@link #write} rejects a larger store before writing anything and
+ * {@link MappedAccountRepository} refuses to open one; bigger tables belong
+ * in an {@link OffHeapAccountRepository} or in several store files.
+ */
+public final class AccountStoreFile {
+    public static final int MAGIC = 0x53414B42; // "BKAS"
+    public static final int FORMAT_VERSION = 1;
+    public static final long MAX_FILE_BYTES = Integer.MAX_VALUE;
+    static final int HEADER_BYTES = 64;
+    static final int RECORD_BYTES = 40;
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    // one per SortKey plus the owner grouping
+    static final int PERMUTATIONS = SortKey.values().length + 1;
+    static final int OWNER_PERMUTATION = SortKey.values().length;
+
+    // header fields
+    static final int H_MAGIC = 0;
+    static final int H_VERSION = 4;
+    static final int H_ROWS = 8;
+    static final int H_RECORD_BYTES = 12;
+    static final int H_STRINGS = 16;
+    static final int H_PERMUTATIONS = 24;
+    static final int H_FILE_LENGTH = 32;
+    static final int H_BODY_CRC = 40;
+    static final int H_HEADER_CRC = 60;
+
+    // record fields
+    static final int R_NUMBER = 0;
+    static final int R_BALANCE = 8;
+    static final int R_ID = 16;
+    static final int R_NAME = 20;
+    static final int R_OWNER = 24;
+    static final int R_PLACE = 28;
+    static final int R_TYPE = 32;
+
+    private AccountStoreFile() {
+    }
+
+    /**
+     * Writes the rows (in order; ordinals follow list positions) as a store file.
+     *
+     * @throws IllegalArgumentException when a row's account number is not exactly 16 digits
+     *                                  or the store would exceed MAX_FILE_BYTES
+     */
+    public static void write(Path file, List<? extends AccountProjection> rows) throws IOException {
+        int rowCount = rows.size();
+        StringTable names = new StringTable();
+        StringTable owners = new StringTable();
+        StringTable places = new StringTable();
+        int[] nameRefs = new int[rowCount];
+        int[] ownerRefs = new int[rowCount];
+        int[] placeRefs = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            AccountProjection row = rows.get(i);
+            nameRefs[i] = names.add(row.getCustomerName());
+            ownerRefs[i] = owners.add(row.getOwnerUserId());
+            placeRefs[i] = places.add(row.getPlaceOfBirth());
+        }
+
+        // heap: distinct table values first, then one account id per row
+        long heapBytes = names.assignOffsets(0);
+        heapBytes = owners.assignOffsets(heapBytes);
+        heapBytes = places.assignOffsets(heapBytes);
+        int[] idRefs = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            idRefs[i] = (int) heapBytes;
+            heapBytes += 2 + utf8(rows.get(i).getAccountId()).length;
+        }
+        long recordsBytes = (long) rowCount * RECORD_BYTES;
+        long tablesBytes = names.tableBytes() + owners.tableBytes() + places.tableBytes();
+        long stringsOffset = HEADER_BYTES + recordsBytes;
+        long permutationsOffset = stringsOffset + tablesBytes + 4 + heapBytes;
+        long fileLength = permutationsOffset + (long) PERMUTATIONS * rowCount * 4;
+        if (fileLength > MAX_FILE_BYTES) {
+            throw new IllegalArgumentException("Account store above 2 GB is not supported: " + fileLength + " bytes");
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        CRC32 bodyCrc = new CRC32();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER_BYTES);
+            Body body = new Body(Channels.newOutputStream(channel), bodyCrc);
+            for (int i = 0; i < rowCount; i++) {
+                AccountProjection row = rows.get(i);
+                body.putLong(packedNumber(row));
+                body.putLong(row.getBalanceCents());
+                body.putInt(idRefs[i]);
+                body.putInt(nameRefs[i]);
+                body.putInt(ownerRefs[i]);
+                body.putInt(placeRefs[i]);
+                body.putInt(row.getAccountType().ordinal());
+                body.putInt(0); // padding to RECORD_BYTES
+            }
+            names.writeTable(body);
+            owners.writeTable(body);
+            places.writeTable(body);
+            body.putInt((int) heapBytes);
+            names.writeStrings(body);
+            owners.writeStrings(body);
+            places.writeStrings(body);
+            for (int i = 0; i < rowCount; i++) {
+                body.putString(utf8(rows.get(i).getAccountId()));
+            }
+            for (SortKey key : SortKey.values()) {
+                for (int ordinal : sortedOrdinals(rows, key)) {
+                    body.putInt(ordinal);
+                }
+            }
+            for (int ordinal : groupedByOwner(ownerRefs, owners.size())) {
+                body.putInt(ordinal);
+            }
+            body.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ORDER);
+            header.putInt(H_MAGIC, MAGIC);
+            header.putInt(H_VERSION, FORMAT_VERSION);
+            header.putInt(H_ROWS, rowCount);
+            header.putInt(H_RECORD_BYTES, RECORD_BYTES);
+            header.putLong(H_STRINGS, stringsOffset);
+            header.putLong(H_PERMUTATIONS, permutationsOffset);
+            header.putLong(H_FILE_LENGTH, fileLength);
+            header.putInt(H_BODY_CRC, (int) bodyCrc.getValue());
+            header.putInt(H_HEADER_CRC, headerCrc(header));
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        moveIntoPlace(temp, file);
+    }
+
+    /**
+     * Renames a finished (already forced) temporary file over the target and
+     * forces the directory, so the rename is durable as well.
+     */
+    static void moveIntoPlace(Path temp, Path file) throws IOException {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        FileChannel directory;
+        try {
+            directory = FileChannel.open(file.toAbsolutePath().getParent(), StandardOpenOption.READ);
+        } catch (IOException e) {
+            // some platforms (Windows) cannot open a directory; the rename is all they offer
+            return;
+        }
+        try (directory) {
+            directory.force(true);
+        }
+    }
+
+    /**
+     * CRC32 of the header bytes before the header checksum field.
+     */
+    static int headerCrc(ByteBuffer header) {
+        CRC32 crc = new CRC32();
+        ByteBuffer fields = header.duplicate();
+        fields.position(0).limit(H_HEADER_CRC);
+        crc.update(fields);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Row ordinals in the order the in-memory sort indexes keep them.
+     */
+    private static int[] sortedOrdinals(List<? extends AccountProjection> rows, SortKey key) {
+        SortedPermutation.OrdinalComparator comparator;
+        switch (key) {
+            case BALANCE:
+                comparator = (a, b) -> Long.compare(rows.get(a).getBalanceCents(), rows.get(b).getBalanceCents());
+                break;
+            case CUSTOMER_NAME:
+                comparator = (a, b) -> String.CASE_INSENSITIVE_ORDER.compare(rows.get(a).getCustomerName(), rows.get(b).getCustomerName());
+                break;
+            default:
+                comparator = (a, b) -> String.CASE_INSENSITIVE_ORDER.compare(rows.get(a).getAccountId(), rows.get(b).getAccountId());
+                break;
+        }
+        SortedPermutation permutation = new SortedPermutation(
+                (a, b) -> {
+                    int cmp = comparator.compare(a, b);
+                    return cmp != 0 ? cmp : Integer.compare(a, b);
+                });
+        permutation.rebuild(rows.size());
+        int[] ordinals = new int[rows.size()];
+        for (int i = 0; i < ordinals.length; i++) {
+            ordinals[i] = permutation.get(i);
+        }
+        return ordinals;
+    }
+
+    private static long packedNumber(AccountProjection row) {
+        return row instanceof StoredAccount ? ((StoredAccount) row).persistedAccountNumber() : AccountNumbers.pack(row.getAccountNumber());
+    }
+
+    /**
+     * Counting sort of the ordinals by owner table index, stable by ordinal.
+     */
+    private static int[] groupedByOwner(int[] ownerRefs, int owners) {
+        int[] starts = new int[owners + 1];
+        for (int owner : ownerRefs) {
+            starts[owner + 1]++;
+        }
+        for (int i = 1; i <= owners; i++) {
+            starts[i] += starts[i - 1];
+        }
+        int[] ordinals = new int[ownerRefs.length];
+        for (int ordinal = 0; ordinal < ownerRefs.length; ordinal++) {
+            ordinals[starts[ownerRefs[ordinal]]++] = ordinal;
+        }
+        return ordinals;
+    }
+
+    static byte[] utf8(String value) {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("String too long for the account store: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    /**
+     * Distinct values of one string column with their row counts.
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<byte[]> values = new ArrayList<>();
+        private final List<Integer> rowCounts = new ArrayList<>();
+        private int[] heapOffsets;
+
+        private int add(String value) {
+            String key = value == null ? "" : value;
+            Integer index = indexes.get(key);
+            if (index == null) {
+                index = values.size();
+                indexes.put(key, index);
+                values.add(utf8(key));
+                rowCounts.add(0);
+            }
+            rowCounts.set(index, rowCounts.get(index) + 1);
+            return index;
+        }
+
+        private long assignOffsets(long heapStart) {
+            heapOffsets = new int[values.size()];
+            long offset = heapStart;
+            for (int i = 0; i < values.size(); i++) {
+                heapOffsets[i] = (int) offset;
+                offset += 2 + values.get(i).length;
+            }
+            return offset;
+        }
+
+        private int size() {
+            return values.size();
+        }
+
+        private long tableBytes() {
+            return 4 + (long) values.size() * 8;
+        }
+
+        private void writeTable(Body body) throws IOException {
+            body.putInt(values.size());
+            for (int i = 0; i < values.size(); i++) {
+                body.putInt(heapOffsets[i]);
+                body.putInt(rowCounts.get(i));
+            }
+        }
+
+        private void writeStrings(Body body) throws IOException {
+            for (byte[] value : values) {
+                body.putString(value);
+            }
+        }
+    }
+
+    /**
+     * Buffered little-endian writer that checksums everything it writes.
+     */
+    private static final class Body {
+        private final OutputStream out;
+        private final CRC32 crc;
+        private final ByteBuffer scratch = ByteBuffer.allocate(8).order(ORDER);
+
+        private Body(OutputStream channelStream, CRC32 crc) {
+            this.out = new BufferedOutputStream(channelStream, 1 << 16);
+            this.crc = crc;
+        }
+
+        private void putInt(int value) throws IOException {
+            scratch.clear();
+            scratch.putInt(value);
+            write(scratch.array(), 4);
+        }
+
+        private void putLong(long value) throws IOException {
+            scratch.clear();
+            scratch.putLong(value);
+            write(scratch.array(), 8);
+        }
+
+        private void putString(byte[] utf8) throws IOException {
+            scratch.clear();
+            scratch.putShort((short) utf8.length);
+            write(scratch.array(), 2);
+            write(utf8, utf8.length);
+        }
+
+        private void write(byte[] bytes, int length) throws IOException {
+            out.write(bytes, 0, length);
+            crc.update(bytes, 0, length);
+        }
+
+        private void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package bank.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Burkhard-Keller tree over distinct terms under Levenshtein distance.
+ * A lookup only descends into children whose edge distance lies within
+ * [d - maxEdits, d + maxEdits] of the query, so most terms are never compared.
+ */
+final class BkTree {
+    private Node root;
+    private int size;
+
+    /**
+     * Adds a term; duplicates are ignored.
+     */
+    void add(String term) {
+        if (root == null) {
+            root = new Node(term);
+            size++;
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int distance = distance(node.term, term, Integer.MAX_VALUE);
+            if (distance == 0) {
+                return;
+            }
+            Node child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, new Node(term));
+                size++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * All terms within maxEdits of the query.
+     */
+    List<String> search(String query, int maxEdits) {
+        List<String> matches = new ArrayList<>();
+        if (root == null) {
+            return matches;
+        }
+        List<Node> pending = new ArrayList<>();
+        pending.add(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.remove(pending.size() - 1);
+            int distance = distance(node.term, query, Integer.MAX_VALUE);
+            if (distance <= maxEdits) {
+                matches.add(node.term);
+            }
+            for (Map.Entry<Integer, Node> edge : node.children.entrySet()) {
+                if (Math.abs(edge.getKey() - distance) <= maxEdits) {
+                    pending.add(edge.getValue());
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Levenshtein distance; stops early and returns limit + 1 once every cell
+     * of a row exceeds the limit.
+     */
+    static int distance(String a, String b, int limit) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > limit) {
+            return limit + 1;
+        }
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[m];
+    }
+
+    private static final class Node {
+        private final String term;
+        private final Map<Integer, Node> children = new HashMap<>();
+
+        private Node(String term) {
+            this.term = term;
+        }
+    }
+}
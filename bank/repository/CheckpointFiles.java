@@ -0,0 +1,165 @@
+package bank.repository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Files of a checkpoint in a data directory:
+ * <pre>
+ * snapshot-&lt;lsn&gt;.accounts   live accounts in {@link AccountStoreFile} format
+ *                            (rows, string tables and sort orders)
+ * snapshot-&lt;lsn&gt;.roles      role assignments: magic, version, user count,
+ *                            per user the id and its roles, CRC32 trailer
+ * checkpoint                 manifest: magic, version, LSN, CRC32
+ * </pre>
+ * The snapshot files are complete and fsynced before the manifest is
+ * replaced (through a temporary file and an atomic move), so the manifest
+ * always names a whole checkpoint; a crash in between leaves the previous
+ * one in effect. The directory is forced after each move, so once the log
+ * is truncated behind a checkpoint the manifest naming it is durable too.
+ */
+final class CheckpointFiles {
+    static final int ROLES_MAGIC = 0x4C4F524B; // "KROL"
+    static final int MANIFEST_MAGIC = 0x50484B43; // "CKHP"
+    static final int FORMAT_VERSION = 1;
+    static final String MANIFEST = "checkpoint";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+
+    private CheckpointFiles() {
+    }
+
+    static Path accountsFile(Path directory, long lsn) {
+        return directory.resolve(String.format("%s%020d.accounts", SNAPSHOT_PREFIX, lsn));
+    }
+
+    static Path rolesFile(Path directory, long lsn) {
+        return directory.resolve(String.format("%s%020d.roles", SNAPSHOT_PREFIX, lsn));
+    }
+
+    static void writeRoles(Path file, Map<String, Set<String>> roles) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel)), crc));
+            out.writeInt(ROLES_MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(roles.size());
+            for (Map.Entry<String, Set<String>> user : roles.entrySet()) {
+                out.writeUTF(user.getKey());
+                out.writeInt(user.getValue().size());
+                for (String role : user.getValue()) {
+                    out.writeUTF(role);
+                }
+            }
+            out.flush();
+            // the trailer is not part of its own checksum
+            ByteBuffer trailer = ByteBuffer.allocate(4).putInt((int) crc.getValue());
+            trailer.flip();
+            channel.write(trailer);
+            channel.force(true);
+        }
+        AccountStoreFile.moveIntoPlace(temp, file);
+    }
+
+    static Map<String, Set<String>> readRoles(Path file) throws IOException {
+        try (CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file)), new CRC32());
+             DataInputStream in = new DataInputStream(checked)) {
+            if (in.readInt() != ROLES_MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Not a role snapshot: " + file);
+            }
+            int users = in.readInt();
+            Map<String, Set<String>> roles = new HashMap<>();
+            for (int i = 0; i < users; i++) {
+                String userId = in.readUTF();
+                int count = in.readInt();
+                Set<String> userRoles = new HashSet<>();
+                for (int j = 0; j < count; j++) {
+                    userRoles.add(in.readUTF());
+                }
+                roles.put(userId, userRoles);
+            }
+            int expected = (int) checked.getChecksum().getValue();
+            if (in.readInt() != expected) {
+                throw new IOException("Role snapshot checksum mismatch: " + file);
+            }
+            return roles;
+        }
+    }
+
+    /**
+     * Points the manifest at the checkpoint taken at this LSN.
+     */
+    static void writeManifest(Path directory, long lsn) throws IOException {
+        ByteBuffer manifest = ByteBuffer.allocate(20);
+        manifest.putInt(MANIFEST_MAGIC).putInt(FORMAT_VERSION).putLong(lsn);
+        manifest.putInt(manifestCrc(manifest.array()));
+        manifest.flip();
+        Path file = directory.resolve(MANIFEST);
+        Path temp = directory.resolve(MANIFEST + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(manifest);
+            channel.force(true);
+        }
+        AccountStoreFile.moveIntoPlace(temp, file);
+    }
+
+    /**
+     * LSN of the installed checkpoint, or -1 when there is none.
+     */
+    static long readManifest(Path directory) throws IOException {
+        Path file = directory.resolve(MANIFEST);
+        if (!Files.exists(file)) {
+            return -1;
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer manifest = ByteBuffer.wrap(bytes);
+        if (bytes.length != 20 || manifest.getInt(0) != MANIFEST_MAGIC || manifest.getInt(4) != FORMAT_VERSION
+                || manifest.getInt(16) != manifestCrc(bytes)) {
+            throw new IOException("Corrupt checkpoint manifest: " + file);
+        }
+        return manifest.getLong(8);
+    }
+
+    /**
+     * Deletes snapshot files of every checkpoint except the one at this LSN,
+     * along with temporary files an interrupted checkpoint left behind.
+     */
+    static void deleteOtherSnapshots(Path directory, long keepLsn) throws IOException {
+        Path keepAccounts = accountsFile(directory, keepLsn).getFileName();
+        Path keepRoles = rolesFile(directory, keepLsn).getFileName();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SNAPSHOT_PREFIX + "*")) {
+            for (Path file : files) {
+                if (!file.getFileName().equals(keepAccounts) && !file.getFileName().equals(keepRoles)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private static int manifestCrc(byte[] manifest) {
+        CRC32 crc = new CRC32();
+        crc.update(manifest, 0, 16);
+        return (int) crc.getValue();
+    }
+}
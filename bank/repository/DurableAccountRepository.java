@@ -0,0 +1,120 @@
+package bank.repository;
+
+import bank.cdc.ChangeFeed;
+import bank.contracts.AccountProjection;
+import bank.contracts.AccountRepository;
+import bank.contracts.AggregateView;
+import bank.dto.AccountSearchFilters;
+import bank.dto.AggregateGroup;
+import bank.dto.Page;
+import bank.dto.PageRequest;
+import bank.dto.SuggestField;
+import bank.dto.Suggestion;
+import bank.dto.UserId;
+import bank.wal.WriteAheadLog;
+
+import java.util.List;
+
+/**
+ * In-memory accounts whose writes go through a {@link WriteAheadLog}. A
+ * write is queued to the log and then applied under one lock, so log order
+ * is apply order, and the caller then waits outside the lock as the log's
+ * durability mode requires; concurrent writers therefore share fsyncs.
+ * Queuing first means a write the log refuses (closed or failed log,
+ * oversized record) never reaches memory, the change feed or the views.
+ * Readers may see a write shortly before it is durable. Only effective
+ * writes are logged. Built by {@link DurableStore}, which replays the log.
+ */
+public class DurableAccountRepository implements AccountRepository {
+    private final InMemoryAccountRepository accounts;
+    private final WriteAheadLog log;
+    // shared with the store's role repository so a checkpoint can stop both
+    private final Object writeLock;
+
+    DurableAccountRepository(InMemoryAccountRepository accounts, WriteAheadLog log, Object writeLock) {
+        this.accounts = accounts;
+        this.log = log;
+        this.writeLock = writeLock;
+    }
+
+    @Override
+    public Page<AccountProjection> search(UserId requester, AccountSearchFilters filters, OwnershipScope scope, PageRequest page) {
+        return accounts.search(requester, filters, scope, page);
+    }
+
+    @Override
+    public AccountProjection findById(String accountId) {
+        return accounts.findById(accountId);
+    }
+
+    @Override
+    public List<AccountProjection> topByBalance(UserId requester, AccountSearchFilters filters, OwnershipScope scope, int k) {
+        return accounts.topByBalance(requester, filters, scope, k);
+    }
+
+    @Override
+    public List<Suggestion> suggest(SuggestField field, String prefix, int limit) {
+        return accounts.suggest(field, prefix, limit);
+    }
+
+    @Override
+    public ChangeFeed<AccountProjection> changes() {
+        return accounts.changes();
+    }
+
+    @Override
+    public AggregateView registerView(String name, AggregateGroup groupBy) {
+        return accounts.registerView(name, groupBy);
+    }
+
+    public void add(InMemoryAccountRepository.SimpleAccountProjection account) {
+        long lsn;
+        byte[] record = MutationRecords.accountOpened(account);
+        synchronized (writeLock) {
+            // checked before logging, so a rejected add never reaches the WAL
+            if (accounts.findById(account.getAccountId()) != null) {
+                throw new IllegalArgumentException("Account id already exists: " + account.getAccountId());
+            }
+            lsn = log.enqueue(MutationRecords.ACCOUNT_OPENED, record);
+            accounts.add(account);
+        }
+        log.commit(lsn);
+    }
+
+    /**
+     * @return false when the account does not exist or was removed (nothing is logged)
+     */
+    public boolean updateBalance(String accountId, long balanceCents) {
+        long lsn;
+        synchronized (writeLock) {
+            // every writer holds writeLock, so the account cannot go away before the apply
+            if (accounts.findById(accountId) == null) {
+                return false;
+            }
+            lsn = log.enqueue(MutationRecords.BALANCE_CHANGED, MutationRecords.balanceChanged(accountId, balanceCents));
+            accounts.updateBalance(accountId, balanceCents);
+        }
+        log.commit(lsn);
+        return true;
+    }
+
+    /**
+     * @return false when the account does not exist or was already removed
+     */
+    public boolean remove(String accountId) {
+        long lsn;
+        synchronized (writeLock) {
+            if (accounts.findById(accountId) == null) {
+                return false;
+            }
+            lsn = log.enqueue(MutationRecords.ACCOUNT_REMOVED, MutationRecords.accountRemoved(accountId));
+            accounts.remove(accountId);
+        }
+        log.commit(lsn);
+        return true;
+    }
+
+    public int size() {
+        return accounts.size();
+    }
+}
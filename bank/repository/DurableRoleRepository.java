@@ -0,0 +1,78 @@
+package bank.repository;
+
+import bank.cdc.ChangeFeed;
+import bank.contracts.RoleRepository;
+import bank.dto.UserId;
+import bank.wal.WriteAheadLog;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Role assignments logged through a {@link WriteAheadLog} before the caller
+ * returns; the record is queued before the change is applied (see
+ * {@link DurableAccountRepository} for the ordering rules).
+ * Assigning a role the user already has, or removing one they do not, is
+ * not logged.
+ */
+public class DurableRoleRepository implements RoleRepository {
+    private final InMemoryRoleRepository roles;
+    private final WriteAheadLog log;
+    private final Object writeLock;
+
+    DurableRoleRepository(InMemoryRoleRepository roles, WriteAheadLog log, Object writeLock) {
+        this.roles = roles;
+        this.log = log;
+        this.writeLock = writeLock;
+    }
+
+    @Override
+    public void assignRole(UserId userId, String role) {
+        long lsn;
+        byte[] record = MutationRecords.role(userId, role);
+        synchronized (writeLock) {
+            if (roles.hasRole(userId, role)) {
+                return;
+            }
+            lsn = log.enqueue(MutationRecords.ROLE_ASSIGNED, record);
+            roles.assignRole(userId, role);
+        }
+        log.commit(lsn);
+    }
+
+    @Override
+    public void removeRole(UserId userId, String role) {
+        long lsn;
+        byte[] record = MutationRecords.role(userId, role);
+        synchronized (writeLock) {
+            if (!roles.hasRole(userId, role)) {
+                return;
+            }
+            lsn = log.enqueue(MutationRecords.ROLE_REMOVED, record);
+            roles.removeRole(userId, role);
+        }
+        log.commit(lsn);
+    }
+
+    @Override
+    public boolean hasRole(UserId userId, String role) {
+        synchronized (writeLock) {
+            return roles.hasRole(userId, role);
+        }
+    }
+
+    /**
+     * A copy, since the underlying set changes under concurrent writers.
+     */
+    @Override
+    public Set<String> rolesFor(UserId userId) {
+        synchronized (writeLock) {
+            return new HashSet<>(roles.rolesFor(userId));
+        }
+    }
+
+    @Override
+    public ChangeFeed<String> changes() {
+        return roles.changes();
+    }
+}
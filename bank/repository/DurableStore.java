@@ -0,0 +1,214 @@
+package bank.repository;
+
+import bank.dto.SortKey;
+import bank.wal.Durability;
+import bank.wal.WriteAheadLog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Account and role repositories that share one write-ahead log in a data
+ * directory.
+ * <p>
+ * Without a checkpoint, opening starts from the given base rows (the default
+ * seed) and the seeded roles and replays the whole log. {@link #checkpoint}
+ * writes the live accounts (with their sort orders) and the roles as a
+ * snapshot tagged with the last LSN they contain, then deletes the log
+ * segments that snapshot covers; opening then loads the snapshot and
+ * replays only the log tail after it, so restart time follows the state
+ * size and the checkpoint interval rather than the whole history.
+ */
+public final class DurableStore implements AutoCloseable {
+    private final Path directory;
+    private final WriteAheadLog log;
+    private final InMemoryAccountRepository accountRows;
+    private final InMemoryRoleRepository roleRows;
+    private final DurableAccountRepository accounts;
+    private final DurableRoleRepository roles;
+    // held by every logged write, and briefly by a checkpoint to capture a consistent cut
+    private final Object writeLock = new Object();
+    // one checkpoint at a time
+    private final Object checkpointLock = new Object();
+    private volatile long checkpointLsn;
+    private volatile IOException checkpointFailure;
+    private ScheduledExecutorService checkpointer;
+
+    private DurableStore(Path directory, WriteAheadLog log, long checkpointLsn,
+                         InMemoryAccountRepository accounts, InMemoryRoleRepository roles) {
+        this.directory = directory;
+        this.log = log;
+        this.checkpointLsn = checkpointLsn;
+        this.accountRows = accounts;
+        this.roleRows = roles;
+        this.accounts = new DurableAccountRepository(accounts, log, writeLock);
+        this.roles = new DurableRoleRepository(roles, log, writeLock);
+    }
+
+    public static DurableStore open(Path directory, Durability durability) throws IOException {
+        return open(directory, durability, InMemoryAccountRepository.defaultAccounts());
+    }
+
+    /**
+     * @param baseAccounts initial rows when the directory has no checkpoint yet
+     * @throws IOException when the checkpoint is corrupt or the log no longer
+     *                     reaches back to it
+     */
+    public static DurableStore open(Path directory, Durability durability,
+                                    List<InMemoryAccountRepository.SimpleAccountProjection> baseAccounts) throws IOException {
+        Files.createDirectories(directory);
+        long checkpointLsn = CheckpointFiles.readManifest(directory);
+        InMemoryAccountRepository accounts;
+        InMemoryRoleRepository roles;
+        if (checkpointLsn < 0) {
+            checkpointLsn = 0;
+            accounts = new InMemoryAccountRepository(baseAccounts);
+            roles = new InMemoryRoleRepository();
+        } else {
+            accounts = loadAccounts(CheckpointFiles.accountsFile(directory, checkpointLsn));
+            roles = new InMemoryRoleRepository(CheckpointFiles.readRoles(CheckpointFiles.rolesFile(directory, checkpointLsn)));
+        }
+        WriteAheadLog log = new WriteAheadLog(directory.resolve("wal"), durability, checkpointLsn,
+                record -> MutationRecords.apply(record, accounts, roles));
+        if (log.oldestLsn() > checkpointLsn + 1) {
+            long oldest = log.oldestLsn();
+            log.close();
+            throw new IOException("Write-ahead log starts at LSN " + oldest + " but the checkpoint only covers "
+                    + checkpointLsn + ": " + directory);
+        }
+        DurableStore store = new DurableStore(directory, log, checkpointLsn, accounts, roles);
+        CheckpointFiles.deleteOtherSnapshots(directory, checkpointLsn);
+        return store;
+    }
+
+    private static InMemoryAccountRepository loadAccounts(Path file) throws IOException {
+        MappedAccountRepository snapshot = new MappedAccountRepository(file);
+        if (!snapshot.verifyChecksum()) {
+            throw new IOException("Checkpoint snapshot checksum mismatch: " + file);
+        }
+        Map<SortKey, int[]> sortOrders = new EnumMap<>(SortKey.class);
+        for (SortKey key : SortKey.values()) {
+            sortOrders.put(key, snapshot.sortOrder(key));
+        }
+        return InMemoryAccountRepository.restore(snapshot.heapRows(), sortOrders);
+    }
+
+    /**
+     * Writes a checkpoint of the current state and truncates the log behind
+     * it. Writers are held only while the row and role references are
+     * copied (rows are immutable, so the copy is the snapshot); encoding and
+     * fsyncing the files happen outside the write lock.
+     *
+     * @return LSN the checkpoint covers (unchanged when nothing was logged since the last one)
+     */
+    public long checkpoint() throws IOException {
+        synchronized (checkpointLock) {
+            long lsn;
+            List<InMemoryAccountRepository.SimpleAccountProjection> rows;
+            Map<String, Set<String>> roleMap;
+            synchronized (writeLock) {
+                lsn = log.lastLsn();
+                if (lsn == checkpointLsn) {
+                    return lsn;
+                }
+                rows = accountRows.liveRows();
+                roleMap = roleRows.snapshot();
+            }
+            // the snapshot must not get ahead of what the log can prove
+            log.awaitDurable(lsn);
+            AccountStoreFile.write(CheckpointFiles.accountsFile(directory, lsn), rows);
+            CheckpointFiles.writeRoles(CheckpointFiles.rolesFile(directory, lsn), roleMap);
+            CheckpointFiles.writeManifest(directory, lsn);
+            checkpointLsn = lsn;
+            CheckpointFiles.deleteOtherSnapshots(directory, lsn);
+            log.rollover();
+            log.truncateBefore(lsn);
+            return lsn;
+        }
+    }
+
+    /**
+     * Checkpoints in the background every interval once at least minRecords
+     * were logged since the last checkpoint. A failed checkpoint leaves the
+     * previous one and the log intact; it is reported by
+     * {@link #getCheckpointFailure} and retried on the next run.
+     */
+    public synchronized void scheduleCheckpoints(long intervalMillis, long minRecords) {
+        if (intervalMillis <= 0 || minRecords < 1) {
+            throw new IllegalArgumentException("intervalMillis and minRecords must be positive");
+        }
+        if (checkpointer != null) {
+            throw new IllegalStateException("Checkpoints are already scheduled");
+        }
+        checkpointer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointer.scheduleWithFixedDelay(() -> {
+            if (log.lastLsn() - checkpointLsn < minRecords) {
+                return;
+            }
+            try {
+                checkpoint();
+                checkpointFailure = null;
+            } catch (IOException e) {
+                checkpointFailure = e;
+                System.err.printf("[WARNING] Checkpoint of %s failed: %s%n", directory, e.getMessage());
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * LSN covered by the installed checkpoint (0 when there is none).
+     */
+    public long getCheckpointLsn() {
+        return checkpointLsn;
+    }
+
+    /**
+     * Failure of the last scheduled checkpoint, or null when it succeeded.
+     */
+    public IOException getCheckpointFailure() {
+        return checkpointFailure;
+    }
+
+    public DurableAccountRepository accounts() {
+        return accounts;
+    }
+
+    public DurableRoleRepository roles() {
+        return roles;
+    }
+
+    public WriteAheadLog log() {
+        return log;
+    }
+
+    /**
+     * Stops scheduled checkpoints, then flushes and fsyncs the log; the
+     * repositories must not be written afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (checkpointer != null) {
+                checkpointer.shutdown();
+                try {
+                    checkpointer.awaitTermination(1, TimeUnit.MINUTES);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        log.close();
+    }
+}
@@ -0,0 +1,69 @@
+package bank.repository;
+
+import bank.dto.AccountType;
+import bank.dto.Facets;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Per-type and per-place match counts, filled during the same scan that
+ * builds the page. Places are counted by dictionary id and only turned
+ * back into strings when the facets are built.
+ */
+final class FacetCounter {
+    private final long[] typeCounts = new long[AccountType.values().length];
+    private long[] placeCounts = new long[Math.max(16, AccountDictionaries.places().size())];
+
+    void count(AccountType type, int placeOfBirthId) {
+        typeCounts[type.ordinal()]++;
+        placeSlot(placeOfBirthId);
+        placeCounts[placeOfBirthId]++;
+    }
+
+    /**
+     * Applies a +1/-1 delta (used for the running whole-table counts).
+     */
+    void adjust(AccountType type, int placeOfBirthId, int delta) {
+        typeCounts[type.ordinal()] += delta;
+        placeSlot(placeOfBirthId);
+        placeCounts[placeOfBirthId] += delta;
+    }
+
+    /**
+     * Adds another counter's counts into this one (whole-table snapshots, shard gathers).
+     */
+    void addAll(FacetCounter other) {
+        for (int i = 0; i < typeCounts.length; i++) {
+            typeCounts[i] += other.typeCounts[i];
+        }
+        placeSlot(other.placeCounts.length - 1);
+        for (int id = 0; id < other.placeCounts.length; id++) {
+            placeCounts[id] += other.placeCounts[id];
+        }
+    }
+
+    Facets toFacets() {
+        Map<AccountType, Long> types = new EnumMap<>(AccountType.class);
+        for (AccountType type : AccountType.values()) {
+            types.put(type, typeCounts[type.ordinal()]);
+        }
+        Map<String, Long> places = new LinkedHashMap<>();
+        StringDictionary dictionary = AccountDictionaries.places();
+        IntStream.range(0, placeCounts.length)
+                .filter(id -> placeCounts[id] > 0)
+                .boxed()
+                .sorted((a, b) -> Long.compare(placeCounts[b], placeCounts[a]))
+                .forEach(id -> places.put(dictionary.value(id), placeCounts[id]));
+        return new Facets(types, places);
+    }
+
+    private void placeSlot(int placeOfBirthId) {
+        if (placeOfBirthId >= placeCounts.length) {
+            placeCounts = Arrays.copyOf(placeCounts, Math.max(placeOfBirthId + 1, placeCounts.length * 2));
+        }
+    }
+}
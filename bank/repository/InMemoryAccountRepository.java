@@ -1,86 +1,726 @@
 package bank.repository;
 
+import bank.cdc.ChangeEvent;
+import bank.cdc.ChangeFeed;
 import bank.contracts.AccountProjection;
 import bank.contracts.AccountRepository;
+import bank.contracts.AggregateView;
+import bank.dto.AccountNumberMatch;
 import bank.dto.AccountSearchFilters;
+import bank.dto.AggregateGroup;
 import bank.dto.AccountType;
 import bank.dto.Page;
 import bank.dto.PageRequest;
+import bank.dto.SortDirection;
+import bank.dto.SortKey;
+import bank.dto.SuggestField;
+import bank.dto.Suggestion;
 import bank.dto.UserId;
+import bank.dto.UserIdRegistry;
+import bank.money.Money;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Random;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * In-memory account repository with filtering and pagination.
+ * Sorted pages are served from per-key permutation indexes that are
+ * maintained on every insert. Facet counts, when requested, are gathered in
+ * the same pass that fills the page. Account numbers are stored packed in a
+ * long; exact, prefix and suffix matches go through a numeric index.
+ * Owners are UserIdRegistry handles, and OWNED_ONLY searches start from
+ * the requester's rows in the owner index. Removed accounts stay in the
+ * indexes as tombstones and are masked out of every scan. Every write is
+ * published to the change feed and applied to the registered aggregate
+ * views while the write lock is still held.
  */
-public class InMemoryAccountRepository implements AccountRepository {
+public final class InMemoryAccountRepository implements AccountRepository {
+    private static final int TOP_K_CHUNK = 16_384;
+
     private final List<SimpleAccountProjection> accounts = new ArrayList<>();
+    private final Map<SortKey, SortedPermutation> sortIndexes = new EnumMap<>(SortKey.class);
+    private final NameIndex nameIndex = new NameIndex();
+    private final TokenIndex tokenIndex = new TokenIndex();
+    private final AccountNumberIndex numberIndex = new AccountNumberIndex(ordinal -> accounts.get(ordinal).accountNumber);
+    private IntList[] rowsByOwner = new IntList[64];
+    private final Map<String, Integer> ordinalsById = new HashMap<>();
+    private final BitSet removed = new BitSet();
+    private final FacetCounter tableFacets = new FacetCounter();
+    private final Map<SuggestField, PrefixTrie> suggestIndexes = new EnumMap<>(SuggestField.class);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ChangeFeed<AccountProjection> changes;
+    private final List<MaterializedView> views = new CopyOnWriteArrayList<>();
 
     public InMemoryAccountRepository() {
-        seedDefaults();
+        this(defaultAccounts());
+    }
+
+    /**
+     * Repository holding exactly the given rows (no demo seed), e.g. one shard.
+     */
+    public InMemoryAccountRepository(List<SimpleAccountProjection> initial) {
+        this(initial, new ChangeFeed<>());
+    }
+
+    /**
+     * Publishes into the given feed, which shards of one repository share.
+     */
+    InMemoryAccountRepository(List<SimpleAccountProjection> initial, ChangeFeed<AccountProjection> changes) {
+        this.changes = changes;
+        suggestIndexes.put(SuggestField.CUSTOMER_NAME, new PrefixTrie());
+        suggestIndexes.put(SuggestField.PLACE_OF_BIRTH, new PrefixTrie());
+        sortIndexes.put(SortKey.BALANCE, new SortedPermutation(balanceComparator()));
+        sortIndexes.put(SortKey.CUSTOMER_NAME, new SortedPermutation(
+                (a, b) -> tieBreak(String.CASE_INSENSITIVE_ORDER.compare(accounts.get(a).getCustomerName(), accounts.get(b).getCustomerName()), a, b)));
+        sortIndexes.put(SortKey.ACCOUNT_ID, new SortedPermutation(
+                (a, b) -> tieBreak(String.CASE_INSENSITIVE_ORDER.compare(accounts.get(a).accountId, accounts.get(b).accountId), a, b)));
+        if (!initial.isEmpty()) {
+            addAll(initial);
+        }
     }
 
     @Override
     public Page<AccountProjection> search(UserId requester, AccountSearchFilters filters, OwnershipScope scope, PageRequest page) {
-        final AccountSearchFilters f = filters == null ? new AccountSearchFilters() : filters;
-        final UserId req = requester;
-        final OwnershipScope sc = scope;
+        return window(requester, filters, scope, page, page.getOffset(), page.getSize()).toPage(page);
+    }
 
-        List<SimpleAccountProjection> filtered = accounts.stream()
-                .filter(acc -> sc != OwnershipScope.OWNED_ONLY || acc.ownerUserId.equalsIgnoreCase(req.getValue()))
-                .filter(acc -> !f.hasAccountNumber() || contains(acc.accountNumber, f.getAccountNumber()) || contains(acc.accountId, f.getAccountNumber()))
-                .filter(acc -> !f.hasCustomerName() || contains(acc.customerName, f.getCustomerName()))
-                .filter(acc -> !f.hasPlaceOfBirth() || contains(acc.placeOfBirth, f.getPlaceOfBirth()))
-                .filter(acc -> !f.hasAccountType() || acc.accountType == f.getAccountType())
-                .collect(Collectors.toList());
+    /**
+     * Matching rows [offset, offset + limit) in the order the page asks for,
+     * plus the total match count and facets when requested. Sharded searches
+     * gather windows starting at 0 from every shard and merge them.
+     */
+    PageWindow window(UserId requester, AccountSearchFilters filters, OwnershipScope scope, PageRequest page, long offset, int limit) {
+        AccountFilter filter = AccountFilter.of(filters, requester, scope);
+        lock.readLock().lock();
+        try {
+            int size = accounts.size();
+            PageWindow window = new PageWindow(offset, limit, page.includesFacets());
+            if (filters != null && filters.hasQuery()) {
+                rankedSearch(filters, filter, window);
+                return window;
+            }
+            BitSet candidates = withoutRemoved(candidatesFor(filters, filter));
+            SortedPermutation order = page.isSorted() ? sortIndexes.get(page.getSortKey()) : null;
+            boolean descending = page.getDirection() == SortDirection.DESC;
+
+            if (candidates == null && filter.isEmpty()) {
+                // every row matches: jump straight to the page window
+                for (long pos = offset; pos < size && !window.isFull(); pos++) {
+                    window.items.add(accounts.get(ordinalAt(order, (int) pos, size, descending)));
+                }
+                window.total = size;
+                // whole-table facets are maintained on insert, no scan needed
+                if (window.facets != null) {
+                    window.facets.addAll(tableFacets);
+                }
+                return window;
+            }
+
+            if (order == null && candidates != null) {
+                // index-driven: visit only the candidate rows
+                int ordinal = descending ? candidates.previousSetBit(size - 1) : candidates.nextSetBit(0);
+                while (ordinal >= 0) {
+                    SimpleAccountProjection acc = accounts.get(ordinal);
+                    if (filter.test(acc)) {
+                        window.offer(acc);
+                    }
+                    ordinal = descending ? candidates.previousSetBit(ordinal - 1) : candidates.nextSetBit(ordinal + 1);
+                }
+                return window;
+            }
+
+            // walk in sort order; once the page is filled only matches are counted
+            for (int pos = 0; pos < size; pos++) {
+                int ordinal = ordinalAt(order, pos, size, descending);
+                if (candidates != null && !candidates.get(ordinal)) {
+                    continue;
+                }
+                SimpleAccountProjection acc = accounts.get(ordinal);
+                if (filter.test(acc)) {
+                    window.offer(acc);
+                }
+            }
+            return window;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Free-text search: matches every query token through the token index,
+     * then keeps only the best offset + size rows by score with a bounded heap.
+     * Ties keep insertion order; the page's sort key is ignored. Scores of the
+     * window rows are kept so shard windows can be merged by relevance.
+     */
+    private void rankedSearch(AccountSearchFilters filters, AccountFilter filter, PageWindow window) {
+        int[] scores = new int[accounts.size()];
+        IntList matched = match(filters.getQuery(), scores);
+        BitSet fuzzy = filters.isCustomerNameFuzzy() ? fuzzyNameRows(filters) : null;
 
-        int from = page.getPage() * page.getSize();
-        int to = Math.min(from + page.getSize(), filtered.size());
-        List<AccountProjection> pageItems = from >= filtered.size()
-                ? Collections.emptyList()
-                : new ArrayList<>(filtered.subList(from, to));
+        TopKSelector top = new TopKSelector(window.selectionSize(matched.size()),
+                (a, b) -> scores[a] != scores[b] ? Integer.compare(scores[a], scores[b]) : Integer.compare(b, a));
+        for (int i = 0; i < matched.size(); i++) {
+            int ordinal = matched.get(i);
+            SimpleAccountProjection acc = accounts.get(ordinal);
+            if (!removed.get(ordinal) && (fuzzy == null || fuzzy.get(ordinal)) && filter.test(acc)) {
+                top.offer(ordinal);
+                window.total++;
+                if (window.facets != null) {
+                    window.facets.count(acc.accountType, acc.placeOfBirthId);
+                }
+            }
+        }
+        int[] best = top.drainDescending();
+        window.scores = new IntList((int) Math.max(0, best.length - window.offset));
+        for (int i = (int) Math.min(window.offset, best.length); i < best.length; i++) {
+            window.items.add(accounts.get(best[i]));
+            window.scores.add(scores[best[i]]);
+        }
+    }
 
-        return new Page<>(pageItems, page.getPage(), page.getSize(), filtered.size());
+    /**
+     * Rows matching every token of the query; their summed scores are written
+     * into scores (indexed by ordinal).
+     */
+    private IntList match(String query, int[] scores) {
+        String[] tokens = TokenIndex.split(query);
+        int[] tokenScores = new int[accounts.size()];
+        IntList matched = null;
+        for (String token : tokens) {
+            IntList touched = new IntList();
+            tokenIndex.score(token, tokenScores, touched);
+            IntList next = new IntList(matched == null ? touched.size() : matched.size());
+            IntList source = matched == null ? touched : matched;
+            for (int i = 0; i < source.size(); i++) {
+                int ordinal = source.get(i);
+                if (tokenScores[ordinal] > 0) {
+                    scores[ordinal] += tokenScores[ordinal];
+                    next.add(ordinal);
+                }
+            }
+            for (int i = 0; i < touched.size(); i++) {
+                tokenScores[touched.get(i)] = 0;
+            }
+            matched = next;
+        }
+        return matched == null ? new IntList() : matched;
     }
 
     @Override
     public AccountProjection findById(String accountId) {
-        return accounts.stream()
-                .filter(acc -> acc.accountId.equalsIgnoreCase(accountId))
-                .findFirst()
-                .orElse(null);
+        lock.readLock().lock();
+        try {
+            int ordinal = ordinalOf(accountId);
+            return ordinal < 0 ? null : accounts.get(ordinal);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Bounded-heap selection: O(n log k) time, O(k) memory per chunk, chunks
+     * scanned in parallel and merged. Type-only filters walk the balance index
+     * from the top and stop after k matches.
+     */
+    @Override
+    public List<AccountProjection> topByBalance(UserId requester, AccountSearchFilters filters, OwnershipScope scope, int k) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        AccountFilter filter = AccountFilter.of(filters, requester, scope);
+        lock.readLock().lock();
+        try {
+            int size = accounts.size();
+            List<AccountProjection> result = new ArrayList<>(Math.min(k, size));
+            BitSet candidates = withoutRemoved(candidatesFor(filters, filter));
+            if (candidates == null && filter.hasOnlyAccountType()) {
+                SortedPermutation byBalance = sortIndexes.get(SortKey.BALANCE);
+                for (int pos = size - 1; pos >= 0 && result.size() < k; pos--) {
+                    SimpleAccountProjection acc = accounts.get(byBalance.get(pos));
+                    if (filter.test(acc)) {
+                        result.add(acc);
+                    }
+                }
+                return result;
+            }
+
+            SortedPermutation.OrdinalComparator byBalance = balanceComparator();
+            int chunks = (size + TOP_K_CHUNK - 1) / TOP_K_CHUNK;
+            IntStream chunkIds = IntStream.range(0, chunks);
+            TopKSelector top = (chunks > 1 ? chunkIds.parallel() : chunkIds)
+                    .mapToObj(chunk -> {
+                        TopKSelector local = new TopKSelector(k, byBalance);
+                        int end = Math.min(size, (chunk + 1) * TOP_K_CHUNK);
+                        for (int ordinal = chunk * TOP_K_CHUNK; ordinal < end; ordinal++) {
+                            if ((candidates == null || candidates.get(ordinal)) && filter.test(accounts.get(ordinal))) {
+                                local.offer(ordinal);
+                            }
+                        }
+                        return local;
+                    })
+                    .reduce(TopKSelector::merge)
+                    .orElseGet(() -> new TopKSelector(k, byBalance));
+            for (int ordinal : top.drainDescending()) {
+                result.add(accounts.get(ordinal));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Suggestion> suggest(SuggestField field, String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            return suggestIndexes.get(field).complete(prefix, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds one account and slots it into every sort index.
+     *
+     * @throws IllegalArgumentException when a live account already has this id
+     */
+    public void add(SimpleAccountProjection account) {
+        lock.writeLock().lock();
+        try {
+            requireDistinctIds(List.of(account), id -> ordinalOf(id) >= 0);
+            int ordinal = accounts.size();
+            accounts.add(account);
+            indexRow(ordinal, account);
+            numberIndex.add(ordinal);
+            for (SortedPermutation index : sortIndexes.values()) {
+                index.insert(ordinal);
+            }
+            committed(ChangeEvent.Kind.INSERT, account.accountId, null, account);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds many accounts. The indexes are independent of each other, so they
+     * are built concurrently, each over the whole batch (the sort indexes
+     * sort only the batch and merge it in); the write lock keeps readers out
+     * until every index is complete, so the batch becomes visible at once.
+     *
+     * @throws IllegalArgumentException when an id repeats within the batch or
+     *                                  belongs to a live account; nothing is added then
+     */
+    public void addAll(List<SimpleAccountProjection> batch) {
+        lock.writeLock().lock();
+        try {
+            requireDistinctIds(batch, id -> ordinalOf(id) >= 0);
+            int first = accounts.size();
+            accounts.addAll(batch);
+            int size = accounts.size();
+            List<Runnable> builds = new ArrayList<>();
+            builds.add(() -> {
+                for (int ordinal = first; ordinal < size; ordinal++) {
+                    ordinalsById.put(accounts.get(ordinal).accountId.toLowerCase(Locale.ROOT), ordinal);
+                }
+            });
+            builds.add(() -> {
+                for (int ordinal = first; ordinal < size; ordinal++) {
+                    nameIndex.add(accounts.get(ordinal).getCustomerName(), ordinal);
+                }
+            });
+            builds.add(() -> {
+                for (int ordinal = first; ordinal < size; ordinal++) {
+                    SimpleAccountProjection account = accounts.get(ordinal);
+                    tokenIndex.add(ordinal, account.accountId, account.getAccountNumber(),
+                            account.getCustomerName(), account.getPlaceOfBirth());
+                }
+            });
+            builds.add(() -> {
+                for (int ordinal = first; ordinal < size; ordinal++) {
+                    indexOwnerAndCounts(ordinal, accounts.get(ordinal));
+                }
+            });
+            builds.add(() -> numberIndex.addAll(first, size));
+            for (SortedPermutation index : sortIndexes.values()) {
+                builds.add(() -> index.addAll(first, size));
+            }
+            builds.parallelStream().forEach(Runnable::run);
+            for (SimpleAccountProjection account : batch) {
+                committed(ChangeEvent.Kind.INSERT, account.accountId, null, account);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Loads rows whose sort orders were persisted with them (a checkpoint),
+     * instead of sorting them again.
+     */
+    static InMemoryAccountRepository restore(List<SimpleAccountProjection> rows, Map<SortKey, int[]> sortOrders) {
+        InMemoryAccountRepository repository = new InMemoryAccountRepository(new ArrayList<>());
+        repository.lock.writeLock().lock();
+        try {
+            for (SimpleAccountProjection account : rows) {
+                repository.indexRow(repository.accounts.size(), account);
+                repository.accounts.add(account);
+            }
+            repository.numberIndex.addAll(0, rows.size());
+            for (Map.Entry<SortKey, SortedPermutation> index : repository.sortIndexes.entrySet()) {
+                index.getValue().load(sortOrders.get(index.getKey()));
+            }
+        } finally {
+            repository.lock.writeLock().unlock();
+        }
+        return repository;
+    }
+
+    /**
+     * The live rows in ordinal order. Rows are immutable (a balance update
+     * swaps in a new object), so copying the references under the read lock
+     * is a consistent snapshot that later writes cannot change.
+     */
+    List<SimpleAccountProjection> liveRows() {
+        lock.readLock().lock();
+        try {
+            List<SimpleAccountProjection> rows = new ArrayList<>(accounts.size() - removed.cardinality());
+            for (int ordinal = 0; ordinal < accounts.size(); ordinal++) {
+                if (!removed.get(ordinal)) {
+                    rows.add(accounts.get(ordinal));
+                }
+            }
+            return rows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the balance of a live account and moves it in the balance index.
+     *
+     * @return false when the account does not exist or was removed
+     */
+    public boolean updateBalance(String accountId, long balanceCents) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinalOf(accountId);
+            if (ordinal < 0) {
+                return false;
+            }
+            SortedPermutation byBalance = sortIndexes.get(SortKey.BALANCE);
+            SimpleAccountProjection before = accounts.get(ordinal);
+            SimpleAccountProjection after = before.withBalanceCents(balanceCents);
+            // take the row out while it still sorts by its old balance
+            byBalance.remove(ordinal);
+            accounts.set(ordinal, after);
+            byBalance.insert(ordinal);
+            committed(ChangeEvent.Kind.UPDATE, after.accountId, before, after);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes (closes) an account. Its ordinal is tombstoned rather than
+     * compacted so the other rows keep their positions in every index.
+     *
+     * @return false when the account does not exist or was already removed
+     */
+    public boolean remove(String accountId) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinalOf(accountId);
+            if (ordinal < 0) {
+                return false;
+            }
+            SimpleAccountProjection account = accounts.get(ordinal);
+            removed.set(ordinal);
+            tableFacets.adjust(account.accountType, account.placeOfBirthId, -1);
+            suggestIndexes.get(SuggestField.CUSTOMER_NAME).remove(account.getCustomerName());
+            suggestIndexes.get(SuggestField.PLACE_OF_BIRTH).remove(account.getPlaceOfBirth());
+            committed(ChangeEvent.Kind.DELETE, account.accountId, account, null);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public ChangeFeed<AccountProjection> changes() {
+        return changes;
+    }
+
+    @Override
+    public AggregateView registerView(String name, AggregateGroup groupBy) {
+        lock.writeLock().lock();
+        try {
+            MaterializedView view = new MaterializedView(name, groupBy);
+            for (int ordinal = 0; ordinal < accounts.size(); ordinal++) {
+                if (!removed.get(ordinal)) {
+                    view.apply(null, accounts.get(ordinal));
+                }
+            }
+            views.add(view);
+            return view;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Number of live (not removed) accounts.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return accounts.size() - removed.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Publishes a write and folds it into every view; caller holds the write lock.
+     */
+    private void committed(ChangeEvent.Kind kind, String accountId, SimpleAccountProjection before, SimpleAccountProjection after) {
+        changes.publish(kind, accountId, before, after);
+        for (MaterializedView view : views) {
+            view.apply(before, after);
+        }
+    }
+
+    /**
+     * Rejects a batch whose ids (compared case-insensitively, like lookups)
+     * repeat within it or already exist.
+     *
+     * @throws IllegalArgumentException naming the first duplicate id
+     */
+    static void requireDistinctIds(List<SimpleAccountProjection> batch, Predicate<String> exists) {
+        Set<String> seen = batch.size() > 1 ? new HashSet<>(batch.size() * 2) : null;
+        for (SimpleAccountProjection account : batch) {
+            if (exists.test(account.accountId)
+                    || (seen != null && !seen.add(account.accountId.toLowerCase(Locale.ROOT)))) {
+                throw new IllegalArgumentException("Account id already exists: " + account.accountId);
+            }
+        }
+    }
+
+    /**
+     * Ordinal of a live account, or -1.
+     */
+    private int ordinalOf(String accountId) {
+        Integer ordinal = accountId == null ? null : ordinalsById.get(accountId.toLowerCase(Locale.ROOT));
+        return ordinal == null || removed.get(ordinal) ? -1 : ordinal;
+    }
+
+    private void indexRow(int ordinal, SimpleAccountProjection account) {
+        String customerName = account.getCustomerName();
+        nameIndex.add(customerName, ordinal);
+        ordinalsById.put(account.accountId.toLowerCase(Locale.ROOT), ordinal);
+        tokenIndex.add(ordinal, account.accountId, account.getAccountNumber(), customerName, account.getPlaceOfBirth());
+        indexOwnerAndCounts(ordinal, account);
+    }
+
+    /**
+     * Owner postings, whole-table facets and suggest counts of one row.
+     */
+    private void indexOwnerAndCounts(int ordinal, SimpleAccountProjection account) {
+        int owner = account.ownerUserId;
+        if (owner >= rowsByOwner.length) {
+            rowsByOwner = Arrays.copyOf(rowsByOwner, Math.max(owner + 1, rowsByOwner.length * 2));
+        }
+        if (rowsByOwner[owner] == null) {
+            rowsByOwner[owner] = new IntList();
+        }
+        rowsByOwner[owner].add(ordinal);
+        tableFacets.adjust(account.accountType, account.placeOfBirthId, 1);
+        suggestIndexes.get(SuggestField.CUSTOMER_NAME).add(account.getCustomerName());
+        suggestIndexes.get(SuggestField.PLACE_OF_BIRTH).add(account.getPlaceOfBirth());
+    }
+
+    /**
+     * Rows pre-selected through secondary indexes, or null when the filters
+     * have no index-driven part and every row is a candidate.
+     */
+    private BitSet candidatesFor(AccountSearchFilters filters, AccountFilter filter) {
+        BitSet candidates = filter.isOwnedOnly() ? ownedRows(filter.ownerHandle()) : null;
+        if (filters == null) {
+            return candidates;
+        }
+        if (filters.isCustomerNameFuzzy()) {
+            BitSet fuzzy = fuzzyNameRows(filters);
+            if (candidates == null) {
+                candidates = fuzzy;
+            } else {
+                candidates.and(fuzzy);
+            }
+        }
+        if (filters.hasAccountNumber() && filters.getAccountNumberMatch() != AccountNumberMatch.CONTAINS) {
+            BitSet numberRows = numberIndex.rows(filters.getAccountNumberMatch(), filters.getAccountNumber(), accounts.size());
+            if (candidates == null) {
+                candidates = numberRows;
+            } else {
+                candidates.and(numberRows);
+            }
+        }
+        if (filters.hasQuery()) {
+            IntList matched = match(filters.getQuery(), new int[accounts.size()]);
+            BitSet queryRows = new BitSet(accounts.size());
+            for (int i = 0; i < matched.size(); i++) {
+                queryRows.set(matched.get(i));
+            }
+            if (candidates == null) {
+                candidates = queryRows;
+            } else {
+                candidates.and(queryRows);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Masks removed rows out of the candidates; with tombstones present every
+     * scan needs a candidate set, so null becomes "all live rows".
+     */
+    private BitSet withoutRemoved(BitSet candidates) {
+        if (removed.isEmpty()) {
+            return candidates;
+        }
+        if (candidates == null) {
+            candidates = new BitSet(accounts.size());
+            candidates.set(0, accounts.size());
+        }
+        candidates.andNot(removed);
+        return candidates;
+    }
+
+    private BitSet ownedRows(int ownerHandle) {
+        BitSet rows = new BitSet(accounts.size());
+        IntList owned = ownerHandle >= 0 && ownerHandle < rowsByOwner.length ? rowsByOwner[ownerHandle] : null;
+        for (int i = 0; owned != null && i < owned.size(); i++) {
+            rows.set(owned.get(i));
+        }
+        return rows;
+    }
+
+    private BitSet fuzzyNameRows(AccountSearchFilters filters) {
+        BitSet rows = new BitSet(accounts.size());
+        for (String name : nameIndex.fuzzyNames(filters.getCustomerName(), filters.getCustomerNameMaxEdits())) {
+            IntList postings = nameIndex.rows(name);
+            for (int i = 0; i < postings.size(); i++) {
+                rows.set(postings.get(i));
+            }
+        }
+        return rows;
+    }
+
+    private static int ordinalAt(SortedPermutation order, int position, int size, boolean descending) {
+        if (order == null) {
+            return descending ? size - 1 - position : position;
+        }
+        return order.get(descending ? size - 1 - position : position);
+    }
+
+    private SortedPermutation.OrdinalComparator balanceComparator() {
+        return (a, b) -> tieBreak(Long.compare(accounts.get(a).balanceCents, accounts.get(b).balanceCents), a, b);
     }
 
-    private boolean contains(String source, String query) {
-        return source != null && query != null && source.toLowerCase(Locale.ROOT).contains(query.toLowerCase(Locale.ROOT));
+    private static int tieBreak(int cmp, int a, int b) {
+        return cmp != 0 ? cmp : Integer.compare(a, b);
     }
 
-    private void seedDefaults() {
+    /**
+     * The demo rows plus ~10k generated accounts every default repository starts with.
+     */
+    public static List<SimpleAccountProjection> defaultAccounts() {
+        List<SimpleAccountProjection> seed = new ArrayList<>();
         // a handful of predictable records for demos/tests
-        accounts.add(new SimpleAccountProjection("ACC-DEMO-1", "5200 1111 2222 3333", AccountType.CARD, "Demo Customer", "customer", "Toronto", 1234.56));
-        accounts.add(new SimpleAccountProjection("ACC-DEMO-2", "5200 4444 5555 6666", AccountType.SAVING, "Demo Customer", "customer", "Montreal", 9876.54));
-        accounts.add(new SimpleAccountProjection("ACC-DEMO-3", "5200 7777 8888 9999", AccountType.CHECK, "Demo Customer", "customer", "Vancouver", 250.00));
+        seed.add(new SimpleAccountProjection("ACC-DEMO-1", "5200 1111 2222 3333", AccountType.CARD, "Demo Customer", "customer", "Toronto", 1234.56));
+        seed.add(new SimpleAccountProjection("ACC-DEMO-2", "5200 4444 5555 6666", AccountType.SAVING, "Demo Customer", "customer", "Montreal", 9876.54));
+        seed.add(new SimpleAccountProjection("ACC-DEMO-3", "5200 7777 8888 9999", AccountType.CHECK, "Demo Customer", "customer", "Vancouver", 250.00));
 
         AccountSeeder seeder = new AccountSeeder();
-        accounts.addAll(seeder.generate(10_000));
+        seed.addAll(seeder.generate(10_000));
+        return seed;
+    }
+
+    /**
+     * Collects a window of matching rows while counting every match.
+     */
+    static final class PageWindow {
+        final long offset;
+        final int limit;
+        final List<AccountProjection> items;
+        final FacetCounter facets;
+        // relevance of each item, only for ranked (free-text) searches
+        IntList scores;
+        long total;
+
+        PageWindow(long offset, int limit, boolean withFacets) {
+            this.offset = offset;
+            this.limit = limit;
+            this.items = new ArrayList<>(Math.min(limit, 64));
+            this.facets = withFacets ? new FacetCounter() : null;
+        }
+
+        void offer(StoredAccount acc) {
+            if (total >= offset && !isFull()) {
+                items.add(acc);
+            }
+            total++;
+            if (facets != null) {
+                facets.count(acc.getAccountType(), acc.placeOfBirthId());
+            }
+        }
+
+        boolean isFull() {
+            return items.size() >= limit;
+        }
+
+        /**
+         * Heap capacity for selecting this window out of at most the given
+         * number of candidates: bounded by the candidates however deep the
+         * page is, and 0 for a page past the end (only the total is counted).
+         */
+        int selectionSize(int candidates) {
+            return (int) Math.min(candidates, offset + limit);
+        }
+
+        Page<AccountProjection> toPage(PageRequest page) {
+            return new Page<>(items, page.getPage(), page.getSize(), total, facets == null ? null : facets.toFacets());
+        }
     }
 
     /**
      * Internal projection backing.
      */
-    public static class SimpleAccountProjection implements AccountProjection {
+    public static class SimpleAccountProjection extends StoredAccount {
         private final String accountId;
-        private final String accountNumber;
+        // packed digits, see AccountNumbers
+        private final long accountNumber;
+        // the number as given when it is not 16 digits (accountNumber is INVALID then), else null
+        private final String unpackedAccountNumber;
         private final AccountType accountType;
-        private final String customerName;
-        private final String ownerUserId;
-        private final String placeOfBirth;
-        private final double balance;
+        // dictionary ids, see AccountDictionaries; the owner is a UserIdRegistry handle
+        private final int customerNameId;
+        private final int ownerUserId;
+        private final int placeOfBirthId;
+        private final long balanceCents;
 
         public SimpleAccountProjection(String accountId,
                                        String accountNumber,
@@ -89,13 +729,91 @@ public class InMemoryAccountRepository implements AccountRepository {
                                        String ownerUserId,
                                        String placeOfBirth,
                                        double balance) {
+            this(accountId, accountNumber, accountType, customerName, ownerUserId, placeOfBirth, Money.toCents(balance));
+        }
+
+        private SimpleAccountProjection(String accountId,
+                                        String accountNumber,
+                                        AccountType accountType,
+                                        String customerName,
+                                        String ownerUserId,
+                                        String placeOfBirth,
+                                        long balanceCents) {
+            this.accountId = accountId;
+            this.accountNumber = AccountNumbers.tryPack(accountNumber);
+            this.unpackedAccountNumber = this.accountNumber == AccountNumbers.INVALID ? accountNumber : null;
+            this.accountType = accountType;
+            this.customerNameId = AccountDictionaries.customerNames().intern(customerName);
+            this.ownerUserId = UserId.register(ownerUserId).getHandle();
+            this.placeOfBirthId = AccountDictionaries.places().intern(placeOfBirth == null ? "" : placeOfBirth);
+            this.balanceCents = balanceCents;
+        }
+
+        /**
+         * Row from already encoded columns (loaded from a store file).
+         */
+        SimpleAccountProjection(String accountId, long accountNumber, AccountType accountType,
+                                int customerNameId, int ownerUserId, int placeOfBirthId, long balanceCents) {
+            this(accountId, accountNumber, null, accountType, customerNameId, ownerUserId, placeOfBirthId, balanceCents);
+        }
+
+        /**
+         * Row from encoded columns whose account number may not be 16 digits;
+         * unpackedAccountNumber is the number as given when accountNumber is INVALID.
+         */
+        SimpleAccountProjection(String accountId, long accountNumber, String unpackedAccountNumber, AccountType accountType,
+                                int customerNameId, int ownerUserId, int placeOfBirthId, long balanceCents) {
             this.accountId = accountId;
             this.accountNumber = accountNumber;
+            this.unpackedAccountNumber = accountNumber == AccountNumbers.INVALID ? unpackedAccountNumber : null;
             this.accountType = accountType;
-            this.customerName = customerName;
-            this.ownerUserId = ownerUserId == null ? "" : ownerUserId;
-            this.placeOfBirth = placeOfBirth == null ? "" : placeOfBirth;
-            this.balance = balance;
+            this.customerNameId = customerNameId;
+            this.ownerUserId = ownerUserId;
+            this.placeOfBirthId = placeOfBirthId;
+            this.balanceCents = balanceCents;
+        }
+
+        private SimpleAccountProjection(SimpleAccountProjection source, long balanceCents) {
+            this.accountId = source.accountId;
+            this.accountNumber = source.accountNumber;
+            this.unpackedAccountNumber = source.unpackedAccountNumber;
+            this.accountType = source.accountType;
+            this.customerNameId = source.customerNameId;
+            this.ownerUserId = source.ownerUserId;
+            this.placeOfBirthId = source.placeOfBirthId;
+            this.balanceCents = balanceCents;
+        }
+
+        SimpleAccountProjection withBalanceCents(long balanceCents) {
+            return new SimpleAccountProjection(this, balanceCents);
+        }
+
+        @Override
+        long packedAccountNumber() {
+            return accountNumber;
+        }
+
+        @Override
+        int customerNameId() {
+            return customerNameId;
+        }
+
+        @Override
+        int placeOfBirthId() {
+            return placeOfBirthId;
+        }
+
+        /**
+         * Fixed-point variant of the public constructor.
+         */
+        public static SimpleAccountProjection ofCents(String accountId,
+                                                      String accountNumber,
+                                                      AccountType accountType,
+                                                      String customerName,
+                                                      String ownerUserId,
+                                                      String placeOfBirth,
+                                                      long balanceCents) {
+            return new SimpleAccountProjection(accountId, accountNumber, accountType, customerName, ownerUserId, placeOfBirth, balanceCents);
         }
 
         @Override
@@ -105,7 +823,7 @@ public class InMemoryAccountRepository implements AccountRepository {
 
         @Override
         public String getAccountNumber() {
-            return accountNumber;
+            return accountNumber == AccountNumbers.INVALID ? unpackedAccountNumber : AccountNumbers.format(accountNumber);
         }
 
         @Override
@@ -115,22 +833,27 @@ public class InMemoryAccountRepository implements AccountRepository {
 
         @Override
         public String getCustomerName() {
-            return customerName;
+            return AccountDictionaries.customerNames().value(customerNameId);
         }
 
         @Override
         public String getOwnerUserId() {
+            return UserIdRegistry.global().byHandle(ownerUserId).getValue();
+        }
+
+        @Override
+        public int getOwnerHandle() {
             return ownerUserId;
         }
 
         @Override
         public String getPlaceOfBirth() {
-            return placeOfBirth;
+            return AccountDictionaries.places().value(placeOfBirthId);
         }
 
         @Override
-        public double getBalance() {
-            return balance;
+        public long getBalanceCents() {
+            return balanceCents;
         }
     }
 
@@ -174,8 +897,8 @@ public class InMemoryAccountRepository implements AccountRepository {
             String customerName = randomName(random);
             String ownerUserId = randomOwnerId(random);
             String place = PLACES[random.nextInt(PLACES.length)];
-            double balance = randomBalance(random);
-            return new SimpleAccountProjection(accountId, accountNumber, type, customerName, ownerUserId, place, balance);
+            long balanceCents = randomBalanceCents(random);
+            return SimpleAccountProjection.ofCents(accountId, accountNumber, type, customerName, ownerUserId, place, balanceCents);
         }
 
         private String randomOwnerId(Random random) {
@@ -189,10 +912,10 @@ public class InMemoryAccountRepository implements AccountRepository {
             return first + " " + last;
         }
 
-        private double randomBalance(Random random) {
+        private long randomBalanceCents(Random random) {
             double min = 10.0;
             double max = 100000.0;
-            return min + random.nextDouble() * (max - min);
+            return Money.toCents(min + random.nextDouble() * (max - min));
         }
     }
 }
@@ -1,16 +1,27 @@
 package bank.repository;
 
+import bank.cdc.ChangeEvent;
+import bank.cdc.ChangeFeed;
 import bank.contracts.RoleRepository;
 import bank.dto.UserId;
+import bank.dto.UserIdRegistry;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+/**
+ * Roles indexed by UserIdRegistry handle, so a lookup is an array read
+ * instead of hashing the id string. Effective changes are published to
+ * the role change feed.
+ */
 public class InMemoryRoleRepository implements RoleRepository {
-    private final Map<String, Set<String>> rolesByUser = new HashMap<>();
+    private final List<Set<String>> rolesByHandle = new ArrayList<>();
+    private final ChangeFeed<String> changes = new ChangeFeed<>();
 
     public InMemoryRoleRepository() {
         // seed a few defaults
@@ -19,19 +30,57 @@ public class InMemoryRoleRepository implements RoleRepository {
         assignRole(new UserId("customer"), "CUSTOMER");
     }
 
+    /**
+     * Exactly the given roles per user id, without the default seed (checkpoint restore).
+     */
+    InMemoryRoleRepository(Map<String, Set<String>> roles) {
+        for (Map.Entry<String, Set<String>> user : roles.entrySet()) {
+            for (String role : user.getValue()) {
+                assignRole(new UserId(user.getKey()), role);
+            }
+        }
+    }
+
+    /**
+     * Copy of every user's roles keyed by normalized user id.
+     */
+    Map<String, Set<String>> snapshot() {
+        Map<String, Set<String>> copy = new HashMap<>();
+        for (int handle = 0; handle < rolesByHandle.size(); handle++) {
+            Set<String> roles = rolesByHandle.get(handle);
+            if (roles != null) {
+                copy.put(UserIdRegistry.global().byHandle(handle).getValue(), new HashSet<>(roles));
+            }
+        }
+        return copy;
+    }
+
     @Override
     public void assignRole(UserId userId, String role) {
-        rolesByUser.computeIfAbsent(userId.getValue(), k -> new HashSet<>())
-                .add(role.toUpperCase());
+        // holding a role is what registers an id that owns no account
+        int handle = UserId.register(userId.getValue()).getHandle();
+        while (rolesByHandle.size() <= handle) {
+            rolesByHandle.add(null);
+        }
+        Set<String> roles = rolesByHandle.get(handle);
+        if (roles == null) {
+            roles = new HashSet<>();
+            rolesByHandle.set(handle, roles);
+        }
+        String normalizedRole = role.toUpperCase();
+        if (roles.add(normalizedRole)) {
+            changes.publish(ChangeEvent.Kind.ROLE_ASSIGNED, userId.getValue(), null, normalizedRole);
+        }
     }
 
     @Override
     public void removeRole(UserId userId, String role) {
-        Set<String> roles = rolesByUser.get(userId.getValue());
-        if (roles != null) {
-            roles.remove(role.toUpperCase());
+        Set<String> roles = roles(userId);
+        String normalizedRole = role.toUpperCase();
+        if (roles != null && roles.remove(normalizedRole)) {
+            changes.publish(ChangeEvent.Kind.ROLE_REMOVED, userId.getValue(), normalizedRole, null);
             if (roles.isEmpty()) {
-                rolesByUser.remove(userId.getValue());
+                rolesByHandle.set(UserId.of(userId.getValue()).getHandle(), null);
             }
         }
     }
@@ -43,6 +92,18 @@ public class InMemoryRoleRepository implements RoleRepository {
 
     @Override
     public Set<String> rolesFor(UserId userId) {
-        return rolesByUser.getOrDefault(userId.getValue(), Collections.emptySet());
+        Set<String> roles = roles(userId);
+        return roles == null ? Collections.emptySet() : roles;
+    }
+
+    @Override
+    public ChangeFeed<String> changes() {
+        return changes;
+    }
+
+    private Set<String> roles(UserId userId) {
+        // an instance looked up before the id was registered still finds its roles
+        int handle = userId.resolvedHandle();
+        return handle >= 0 && handle < rolesByHandle.size() ? rolesByHandle.get(handle) : null;
     }
 }
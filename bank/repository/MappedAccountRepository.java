@@ -0,0 +1,479 @@
+package bank.repository;
+
+import bank.cdc.ChangeFeed;
+import bank.contracts.AccountProjection;
+import bank.contracts.AccountRepository;
+import bank.contracts.AggregateView;
+import bank.dto.AccountSearchFilters;
+import bank.dto.AccountType;
+import bank.dto.AggregateGroup;
+import bank.dto.Page;
+import bank.dto.PageRequest;
+import bank.dto.SortDirection;
+import bank.dto.SortKey;
+import bank.dto.SuggestField;
+import bank.dto.Suggestion;
+import bank.dto.UserId;
+import bank.dto.UserIdRegistry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Read-only repository over an {@link AccountStoreFile}, mapped with
+ * FileChannel.map. Opening checks the header and resolves only the
+ * distinct name, owner and place values to dictionary ids, so it costs
+ * O(distinct values) whatever the row count; rows are never copied onto the
+ * heap. Projections are flyweights that read their fields from the mapped
+ * region. Sorted pages walk the persisted sort permutations, OWNED_ONLY
+ * searches read the owner's range of the owner grouping, and everything
+ * else (including free text, which has no token index here) is a scan.
+ */
+public class MappedAccountRepository implements AccountRepository {
+    private static final AccountType[] TYPES = AccountType.values();
+
+    private final Path file;
+    private final ByteBuffer data;
+    private final int rowCount;
+    private final int stringsOffset;
+    private final int heapOffset;
+    private final int permutationsOffset;
+    // per table index: dictionary id / registry handle of the distinct value
+    private final int[] nameIds;
+    private final int[] ownerHandles;
+    private final int[] placeIds;
+    // start of each owner's range in the owner grouping (length owners + 1)
+    private final int[] ownerStarts;
+    private final Map<Integer, Integer> ownerByHandle = new HashMap<>();
+    private final Map<SuggestField, PrefixTrie> suggestIndexes = new EnumMap<>(SuggestField.class);
+    private final ChangeFeed<AccountProjection> changes = new ChangeFeed<>();
+    private NameIndex nameIndex;
+
+    /**
+     * Maps the file and checks its header; the body checksum is only checked
+     * by {@link #verifyChecksum()}, which has to read every page.
+     *
+     * @throws IOException when the file is not an account store of this format
+     *                     version or is larger than AccountStoreFile.MAX_FILE_BYTES
+     */
+    public MappedAccountRepository(Path file) throws IOException {
+        this.file = file;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < AccountStoreFile.HEADER_BYTES) {
+                throw new IOException("Not an account store: " + file);
+            }
+            if (length > AccountStoreFile.MAX_FILE_BYTES) {
+                // one MappedByteBuffer cannot span more, and the format's offsets are 32-bit
+                throw new IOException("Account store above 2 GB is not supported: " + file + " (" + length + " bytes)");
+            }
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            this.data = mapped.order(AccountStoreFile.ORDER);
+            checkHeader(length);
+        }
+        this.rowCount = data.getInt(AccountStoreFile.H_ROWS);
+        this.stringsOffset = (int) data.getLong(AccountStoreFile.H_STRINGS);
+        this.permutationsOffset = (int) data.getLong(AccountStoreFile.H_PERMUTATIONS);
+
+        int position = stringsOffset;
+        int names = data.getInt(position);
+        int owners = data.getInt(position + 4 + names * 8);
+        int places = data.getInt(position + 8 + (names + owners) * 8);
+        this.heapOffset = position + 12 + (names + owners + places) * 8 + 4;
+        this.nameIds = new int[names];
+        this.ownerHandles = new int[owners];
+        this.placeIds = new int[places];
+        this.ownerStarts = new int[owners + 1];
+
+        PrefixTrie nameTrie = new PrefixTrie();
+        PrefixTrie placeTrie = new PrefixTrie();
+        position += 4;
+        for (int i = 0; i < names; i++, position += 8) {
+            String name = heapString(data.getInt(position));
+            nameIds[i] = AccountDictionaries.customerNames().intern(name);
+            nameTrie.add(name, data.getInt(position + 4));
+        }
+        position += 4;
+        for (int i = 0; i < owners; i++, position += 8) {
+            ownerHandles[i] = UserId.register(heapString(data.getInt(position))).getHandle();
+            ownerByHandle.put(ownerHandles[i], i);
+            ownerStarts[i + 1] = ownerStarts[i] + data.getInt(position + 4);
+        }
+        position += 4;
+        for (int i = 0; i < places; i++, position += 8) {
+            String place = heapString(data.getInt(position));
+            placeIds[i] = AccountDictionaries.places().intern(place);
+            placeTrie.add(place, data.getInt(position + 4));
+        }
+        suggestIndexes.put(SuggestField.CUSTOMER_NAME, nameTrie);
+        suggestIndexes.put(SuggestField.PLACE_OF_BIRTH, placeTrie);
+    }
+
+    @Override
+    public Page<AccountProjection> search(UserId requester, AccountSearchFilters filters, OwnershipScope scope, PageRequest page) {
+        AccountFilter filter = AccountFilter.of(filters, requester, scope);
+        InMemoryAccountRepository.PageWindow window =
+                new InMemoryAccountRepository.PageWindow(page.getOffset(), page.getSize(), page.includesFacets());
+        boolean[] fuzzy = filters != null && filters.isCustomerNameFuzzy() ? fuzzyNames(filters) : null;
+        if (filters != null && filters.hasQuery()) {
+            rankedSearch(filters.getQuery(), filter, fuzzy, window);
+            return window.toPage(page);
+        }
+        boolean descending = page.getDirection() == SortDirection.DESC;
+        if (filter.isOwnedOnly()) {
+            // the owner's range of the owner grouping, in ordinal order
+            Integer owner = ownerByHandle.get(filter.ownerHandle());
+            if (owner != null && !page.isSorted()) {
+                int from = ownerStarts[owner];
+                int to = ownerStarts[owner + 1];
+                for (int i = 0; i < to - from; i++) {
+                    int pos = descending ? to - 1 - i : from + i;
+                    offer(permutation(AccountStoreFile.OWNER_PERMUTATION, pos), filter, fuzzy, window);
+                }
+                return window.toPage(page);
+            }
+            if (owner == null) {
+                return window.toPage(page);
+            }
+        }
+        int order = page.isSorted() ? page.getSortKey().ordinal() : -1;
+        for (int i = 0; i < rowCount; i++) {
+            int pos = descending ? rowCount - 1 - i : i;
+            offer(order < 0 ? pos : permutation(order, pos), filter, fuzzy, window);
+        }
+        return window.toPage(page);
+    }
+
+    /**
+     * Free text over a scan: each token is scored against every row as the
+     * token index would score it (names and places once per distinct value),
+     * and the best offset + size rows are kept with a bounded heap.
+     */
+    private void rankedSearch(String query, AccountFilter filter, boolean[] fuzzy, InMemoryAccountRepository.PageWindow window) {
+        String[] tokens = TokenIndex.split(query);
+        int[][] nameScores = new int[tokens.length][nameIds.length];
+        int[][] placeScores = new int[tokens.length][placeIds.length];
+        for (int t = 0; t < tokens.length; t++) {
+            for (int i = 0; i < nameIds.length; i++) {
+                nameScores[t][i] = TokenIndex.scoreWords(TokenIndex.Field.NAME, tokens[t],
+                        AccountDictionaries.customerNames().value(nameIds[i]));
+            }
+            for (int i = 0; i < placeIds.length; i++) {
+                placeScores[t][i] = TokenIndex.scoreWords(TokenIndex.Field.PLACE, tokens[t],
+                        AccountDictionaries.places().value(placeIds[i]));
+            }
+        }
+        int[] scores = new int[rowCount];
+        TopKSelector top = new TopKSelector(window.selectionSize(rowCount),
+                (a, b) -> scores[a] != scores[b] ? Integer.compare(scores[a], scores[b]) : Integer.compare(b, a));
+        for (int ordinal = 0; ordinal < rowCount && tokens.length > 0; ordinal++) {
+            MappedAccountProjection row = new MappedAccountProjection(this, ordinal);
+            int name = row.nameIndex();
+            int place = row.placeIndex();
+            if (fuzzy != null && !fuzzy[name]) {
+                continue;
+            }
+            String accountId = row.getAccountId();
+            String accountNumber = row.getAccountNumber();
+            int total = 0;
+            for (int t = 0; t < tokens.length; t++) {
+                int score = Math.max(Math.max(nameScores[t][name], placeScores[t][place]),
+                        TokenIndex.scoreAccount(tokens[t], accountId, accountNumber));
+                if (score == 0) {
+                    // every token has to match
+                    total = 0;
+                    break;
+                }
+                total += score;
+            }
+            if (total == 0) {
+                continue;
+            }
+            if (filter.test(row)) {
+                scores[ordinal] = total;
+                top.offer(ordinal);
+                window.total++;
+                if (window.facets != null) {
+                    window.facets.count(row.getAccountType(), row.placeOfBirthId());
+                }
+            }
+        }
+        int[] best = top.drainDescending();
+        for (int i = (int) Math.min(window.offset, best.length); i < best.length; i++) {
+            window.items.add(new MappedAccountProjection(this, best[i]));
+        }
+    }
+
+    @Override
+    public AccountProjection findById(String accountId) {
+        if (accountId == null) {
+            return null;
+        }
+        // binary search of the account id permutation, decoding ids from the heap
+        int order = SortKey.ACCOUNT_ID.ordinal();
+        int lo = 0;
+        int hi = rowCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (String.CASE_INSENSITIVE_ORDER.compare(accountIdAt(permutation(order, mid)), accountId) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        if (lo < rowCount) {
+            int ordinal = permutation(order, lo);
+            if (accountIdAt(ordinal).equalsIgnoreCase(accountId)) {
+                return new MappedAccountProjection(this, ordinal);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Walks the persisted balance permutation from the top and stops after k matches.
+     */
+    @Override
+    public List<AccountProjection> topByBalance(UserId requester, AccountSearchFilters filters, OwnershipScope scope, int k) {
+        List<AccountProjection> result = new ArrayList<>(Math.max(0, Math.min(k, rowCount)));
+        AccountFilter filter = AccountFilter.of(filters, requester, scope);
+        boolean[] fuzzy = filters != null && filters.isCustomerNameFuzzy() ? fuzzyNames(filters) : null;
+        int order = SortKey.BALANCE.ordinal();
+        for (int pos = rowCount - 1; pos >= 0 && result.size() < k; pos--) {
+            MappedAccountProjection row = new MappedAccountProjection(this, permutation(order, pos));
+            if ((fuzzy == null || fuzzy[row.nameIndex()]) && filter.test(row)) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Suggestion> suggest(SuggestField field, String prefix, int limit) {
+        return suggestIndexes.get(field).complete(prefix, limit);
+    }
+
+    /**
+     * The store is read-only, so this feed never publishes.
+     */
+    @Override
+    public ChangeFeed<AccountProjection> changes() {
+        return changes;
+    }
+
+    /**
+     * Built with one scan; the rows never change afterwards.
+     */
+    @Override
+    public AggregateView registerView(String name, AggregateGroup groupBy) {
+        MaterializedView view = new MaterializedView(name, groupBy);
+        for (int ordinal = 0; ordinal < rowCount; ordinal++) {
+            view.apply(null, new MappedAccountProjection(this, ordinal));
+        }
+        return view;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int size() {
+        return rowCount;
+    }
+
+    /**
+     * Recomputes the body CRC32 and compares it with the header.
+     */
+    public boolean verifyChecksum() {
+        CRC32 crc = new CRC32();
+        ByteBuffer body = data.duplicate();
+        body.position(AccountStoreFile.HEADER_BYTES).limit((int) data.getLong(AccountStoreFile.H_FILE_LENGTH));
+        crc.update(body);
+        return (int) crc.getValue() == data.getInt(AccountStoreFile.H_BODY_CRC);
+    }
+
+    /**
+     * Copies every record onto the heap as rows of an in-memory repository
+     * (checkpoint restore); ids are already resolved, nothing is re-interned.
+     */
+    List<InMemoryAccountRepository.SimpleAccountProjection> heapRows() {
+        List<InMemoryAccountRepository.SimpleAccountProjection> rows = new ArrayList<>(rowCount);
+        for (int ordinal = 0; ordinal < rowCount; ordinal++) {
+            MappedAccountProjection row = new MappedAccountProjection(this, ordinal);
+            rows.add(new InMemoryAccountRepository.SimpleAccountProjection(row.getAccountId(), row.packedAccountNumber(),
+                    row.getAccountType(), row.customerNameId(), row.getOwnerHandle(), row.placeOfBirthId(),
+                    row.getBalanceCents()));
+        }
+        return rows;
+    }
+
+    /**
+     * The persisted order of one sort key, copied onto the heap.
+     */
+    int[] sortOrder(SortKey key) {
+        int[] ordinals = new int[rowCount];
+        for (int pos = 0; pos < rowCount; pos++) {
+            ordinals[pos] = permutation(key.ordinal(), pos);
+        }
+        return ordinals;
+    }
+
+    private void checkHeader(long length) throws IOException {
+        if (data.getInt(AccountStoreFile.H_MAGIC) != AccountStoreFile.MAGIC) {
+            throw new IOException("Not an account store: " + file);
+        }
+        int version = data.getInt(AccountStoreFile.H_VERSION);
+        if (version != AccountStoreFile.FORMAT_VERSION) {
+            throw new IOException("Unsupported account store version " + version + " in " + file);
+        }
+        if (AccountStoreFile.headerCrc(data) != data.getInt(AccountStoreFile.H_HEADER_CRC)) {
+            throw new IOException("Account store header checksum mismatch: " + file);
+        }
+        if (data.getInt(AccountStoreFile.H_RECORD_BYTES) != AccountStoreFile.RECORD_BYTES
+                || data.getLong(AccountStoreFile.H_FILE_LENGTH) != length) {
+            throw new IOException("Truncated or inconsistent account store: " + file);
+        }
+    }
+
+    private void offer(int ordinal, AccountFilter filter, boolean[] fuzzy, InMemoryAccountRepository.PageWindow window) {
+        MappedAccountProjection row = new MappedAccountProjection(this, ordinal);
+        if ((fuzzy == null || fuzzy[row.nameIndex()]) && filter.test(row)) {
+            window.offer(row);
+        }
+    }
+
+    /**
+     * Name table indexes accepted by a fuzzy name filter; the name index
+     * over the distinct names is built on first use.
+     */
+    private boolean[] fuzzyNames(AccountSearchFilters filters) {
+        NameIndex index;
+        synchronized (this) {
+            if (nameIndex == null) {
+                nameIndex = new NameIndex();
+                for (int i = 0; i < nameIds.length; i++) {
+                    nameIndex.add(AccountDictionaries.customerNames().value(nameIds[i]), i);
+                }
+            }
+            index = nameIndex;
+        }
+        boolean[] accepted = new boolean[nameIds.length];
+        Set<String> names = index.fuzzyNames(filters.getCustomerName(), filters.getCustomerNameMaxEdits());
+        for (String name : names) {
+            IntList tableIndexes = index.rows(name);
+            for (int i = 0; i < tableIndexes.size(); i++) {
+                accepted[tableIndexes.get(i)] = true;
+            }
+        }
+        return accepted;
+    }
+
+    private int permutation(int which, int position) {
+        return data.getInt(permutationsOffset + (which * rowCount + position) * 4);
+    }
+
+    private static int base(int ordinal) {
+        return AccountStoreFile.HEADER_BYTES + ordinal * AccountStoreFile.RECORD_BYTES;
+    }
+
+    private String accountIdAt(int ordinal) {
+        return heapString(data.getInt(base(ordinal) + AccountStoreFile.R_ID));
+    }
+
+    private String heapString(int offset) {
+        int at = heapOffset + offset;
+        int length = data.getShort(at) & 0xFFFF;
+        byte[] bytes = new byte[length];
+        data.get(at + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Flyweight over one mapped record; holds only the store and the ordinal.
+     */
+    static final class MappedAccountProjection extends StoredAccount {
+        private final MappedAccountRepository store;
+        private final int base;
+
+        private MappedAccountProjection(MappedAccountRepository store, int ordinal) {
+            this.store = store;
+            this.base = base(ordinal);
+        }
+
+        private int nameIndex() {
+            return store.data.getInt(base + AccountStoreFile.R_NAME);
+        }
+
+        private int placeIndex() {
+            return store.data.getInt(base + AccountStoreFile.R_PLACE);
+        }
+
+        @Override
+        long packedAccountNumber() {
+            return store.data.getLong(base + AccountStoreFile.R_NUMBER);
+        }
+
+        @Override
+        int customerNameId() {
+            return store.nameIds[nameIndex()];
+        }
+
+        @Override
+        int placeOfBirthId() {
+            return store.placeIds[placeIndex()];
+        }
+
+        @Override
+        public String getAccountId() {
+            return store.heapString(store.data.getInt(base + AccountStoreFile.R_ID));
+        }
+
+        @Override
+        public String getAccountNumber() {
+            return AccountNumbers.format(packedAccountNumber());
+        }
+
+        @Override
+        public long getBalanceCents() {
+            return store.data.getLong(base + AccountStoreFile.R_BALANCE);
+        }
+
+        @Override
+        public AccountType getAccountType() {
+            return TYPES[store.data.getInt(base + AccountStoreFile.R_TYPE)];
+        }
+
+        @Override
+        public String getCustomerName() {
+            return AccountDictionaries.customerNames().value(customerNameId());
+        }
+
+        @Override
+        public String getOwnerUserId() {
+            return UserIdRegistry.global().byHandle(getOwnerHandle()).getValue();
+        }
+
+        @Override
+        public int getOwnerHandle() {
+            return store.ownerHandles[store.data.getInt(base + AccountStoreFile.R_OWNER)];
+        }
+
+        @Override
+        public String getPlaceOfBirth() {
+            return AccountDictionaries.places().value(placeOfBirthId());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package bank.repository;
+
+import bank.contracts.AccountProjection;
+import bank.contracts.AggregateView;
+import bank.dto.Aggregate;
+import bank.dto.AggregateGroup;
+import bank.dto.UserId;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Aggregate view maintained by an {@link InMemoryAccountRepository}: every
+ * committed write hands the row before and after the change to
+ * {@link #apply}, which moves one row's count and balance between groups.
+ */
+final class MaterializedView implements AggregateView {
+    private final String name;
+    private final AggregateGroup groupBy;
+    private final Map<String, Aggregate> groups = new ConcurrentHashMap<>();
+
+    MaterializedView(String name, AggregateGroup groupBy) {
+        this.name = name;
+        this.groupBy = groupBy;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public AggregateGroup getGroupBy() {
+        return groupBy;
+    }
+
+    @Override
+    public Aggregate get(String group) {
+        if (group == null) {
+            return Aggregate.EMPTY;
+        }
+        String key = groupBy == AggregateGroup.OWNER ? UserId.of(group).getValue() : group;
+        return groups.getOrDefault(key, Aggregate.EMPTY);
+    }
+
+    @Override
+    public Map<String, Aggregate> snapshot() {
+        return new HashMap<>(groups);
+    }
+
+    /**
+     * Applies one write; called under the repository's write lock, so updates
+     * of one view never race each other. Either side may be null.
+     */
+    void apply(AccountProjection before, AccountProjection after) {
+        if (before != null) {
+            add(keyOf(before), new Aggregate(-1, -before.getBalanceCents()));
+        }
+        if (after != null) {
+            add(keyOf(after), new Aggregate(1, after.getBalanceCents()));
+        }
+    }
+
+    private void add(String key, Aggregate delta) {
+        groups.compute(key, (k, current) -> {
+            Aggregate next = current == null ? delta : current.plus(delta);
+            return next.getCount() == 0 ? null : next;
+        });
+    }
+
+    private String keyOf(AccountProjection account) {
+        switch (groupBy) {
+            case OWNER:
+                return account.getOwnerUserId();
+            case ACCOUNT_TYPE:
+                return account.getAccountType().name();
+            default:
+                return account.getPlaceOfBirth();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package bank.repository;
+
+import bank.contracts.RoleRepository;
+import bank.dto.AccountType;
+import bank.dto.UserId;
+import bank.wal.WalRecord;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Payload encoding of the account and role mutations kept in the
+ * write-ahead log, and their replay.
+ */
+final class MutationRecords {
+    static final byte ACCOUNT_OPENED = 1;
+    static final byte BALANCE_CHANGED = 2;
+    static final byte ACCOUNT_REMOVED = 3;
+    static final byte ROLE_ASSIGNED = 4;
+    static final byte ROLE_REMOVED = 5;
+
+    private MutationRecords() {
+    }
+
+    static byte[] accountOpened(InMemoryAccountRepository.SimpleAccountProjection account) {
+        return encode(out -> {
+            out.writeUTF(account.getAccountId());
+            out.writeLong(account.persistedAccountNumber());
+            out.writeByte(account.getAccountType().ordinal());
+            out.writeUTF(account.getCustomerName());
+            out.writeUTF(account.getOwnerUserId());
+            out.writeUTF(account.getPlaceOfBirth());
+            out.writeLong(account.getBalanceCents());
+        });
+    }
+
+    static byte[] balanceChanged(String accountId, long balanceCents) {
+        return encode(out -> {
+            out.writeUTF(accountId);
+            out.writeLong(balanceCents);
+        });
+    }
+
+    static byte[] accountRemoved(String accountId) {
+        return encode(out -> out.writeUTF(accountId));
+    }
+
+    static byte[] role(UserId userId, String role) {
+        return encode(out -> {
+            out.writeUTF(userId.getValue());
+            out.writeUTF(role);
+        });
+    }
+
+    /**
+     * Re-applies one logged mutation to the in-memory repositories.
+     *
+     * @throws IllegalStateException for a record type this version does not know
+     */
+    static void apply(WalRecord record, InMemoryAccountRepository accounts, RoleRepository roles) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record.getPayload()))) {
+            switch (record.getType()) {
+                case ACCOUNT_OPENED:
+                    String accountId = in.readUTF();
+                    String accountNumber = AccountNumbers.format(in.readLong());
+                    AccountType type = AccountType.values()[in.readByte()];
+                    accounts.add(InMemoryAccountRepository.SimpleAccountProjection.ofCents(accountId, accountNumber, type,
+                            in.readUTF(), in.readUTF(), in.readUTF(), in.readLong()));
+                    break;
+                case BALANCE_CHANGED:
+                    accounts.updateBalance(in.readUTF(), in.readLong());
+                    break;
+                case ACCOUNT_REMOVED:
+                    accounts.remove(in.readUTF());
+                    break;
+                case ROLE_ASSIGNED:
+                    roles.assignRole(new UserId(in.readUTF()), in.readUTF());
+                    break;
+                case ROLE_REMOVED:
+                    roles.removeRole(new UserId(in.readUTF()), in.readUTF());
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown WAL record type " + record.getType() + " at LSN " + record.getLsn());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Malformed WAL record at LSN " + record.getLsn(), e);
+        }
+    }
+
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] encode(Writer writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        } catch (IOException e) {
+            // in-memory stream
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
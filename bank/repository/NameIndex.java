@@ -0,0 +1,70 @@
+package bank.repository;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Customer-name index: postings per distinct (lower-cased) name, a sorted
+ * word index (names per distinct word) and a BK-tree over the distinct name
+ * words for typo-tolerant lookups.
+ */
+final class NameIndex {
+    private final Map<String, IntList> rowsByName = new HashMap<>();
+    private final TreeMap<String, Set<String>> namesByWord = new TreeMap<>();
+    private final BkTree words = new BkTree();
+
+    void add(String customerName, int ordinal) {
+        String name = normalize(customerName);
+        IntList rows = rowsByName.get(name);
+        if (rows == null) {
+            rows = new IntList();
+            rowsByName.put(name, rows);
+            for (String word : words(name)) {
+                namesByWord.computeIfAbsent(word, k -> new HashSet<>()).add(name);
+                this.words.add(word);
+            }
+        }
+        rows.add(ordinal);
+    }
+
+    /**
+     * Distinct names where every query word starts, or is within maxEdits of,
+     * some word of the name ("john" and "jonson" both find "Alice Johnson").
+     * Prefix hits come from a range of the sorted word index, so a lookup
+     * never scans every distinct name.
+     */
+    Set<String> fuzzyNames(String query, int maxEdits) {
+        Set<String> result = null;
+        for (String queryWord : words(normalize(query))) {
+            Set<String> names = new HashSet<>();
+            for (String word : words.search(queryWord, maxEdits)) {
+                names.addAll(namesByWord.get(word));
+            }
+            for (Set<String> prefixed : namesByWord.subMap(queryWord, true, queryWord + Character.MAX_VALUE, false).values()) {
+                names.addAll(prefixed);
+            }
+            if (result == null) {
+                result = names;
+            } else {
+                result.retainAll(names);
+            }
+        }
+        return result == null ? new HashSet<>() : result;
+    }
+
+    IntList rows(String normalizedName) {
+        return rowsByName.get(normalizedName);
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String[] words(String normalized) {
+        return normalized.isEmpty() ? new String[0] : normalized.split("\\s+");
+    }
+}
@@ -0,0 +1,867 @@
+package bank.repository;
+
+import bank.cdc.ChangeEvent;
+import bank.cdc.ChangeFeed;
+import bank.contracts.AccountProjection;
+import bank.contracts.AccountRepository;
+import bank.contracts.AggregateView;
+import bank.dto.AccountNumberMatch;
+import bank.dto.AccountSearchFilters;
+import bank.dto.AccountType;
+import bank.dto.AggregateGroup;
+import bank.dto.Page;
+import bank.dto.PageRequest;
+import bank.dto.SortDirection;
+import bank.dto.SortKey;
+import bank.dto.SuggestField;
+import bank.dto.Suggestion;
+import bank.dto.UserId;
+import bank.dto.UserIdRegistry;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Account repository whose rows live outside the Java heap, so the garbage
+ * collector never traces them: with millions of accounts the heap holds a
+ * few primitive arrays instead of millions of row and String objects.
+ * <p>
+ * Rows are fixed 40-byte records in direct ByteBuffer chunks, read and
+ * written through VarHandle views. A java.lang.foreign MemorySegment layout
+ * would describe the same records, but that API is still a preview feature
+ * in Java 21, which this build targets:
+ * <pre>
+ * 0  packed account number   long
+ * 8  balance in cents        long (volatile access, updated in place)
+ * 16 account id reference    int  (chunk and offset in the id storage)
+ * 20 account id hash         int  (of the lower-cased id)
+ * 24 customer name id        int  (AccountDictionaries)
+ * 28 owner handle            int  (UserIdRegistry)
+ * 32 place of birth id       int  (AccountDictionaries)
+ * 36 account type ordinal    int
+ * </pre>
+ * Account ids are stored off-heap too (u16 length + UTF-8). The heap keeps
+ * only index metadata: the sort permutations and the account number index
+ * (int arrays), an open-addressing id table, the owner postings, the
+ * tombstone bitmap, and per distinct name/place value the suggest tries and
+ * the fuzzy name index. Free-text search scans the records, scoring names and
+ * places once per distinct value, since a per-row token index would put the
+ * rows back on the heap.
+ * <p>
+ * Projections are flyweights over a record. Rows never move (removal
+ * tombstones them), so a projection stays valid, but it reads the current
+ * balance rather than the one at search time; change events carry heap
+ * copies instead. The direct memory (bounded by -XX:MaxDirectMemorySize) is
+ * released when the repository becomes unreachable.
+ * <p>
+ * The class is final because the constructor loads the initial rows through
+ * {@link #addAll}, which a subclass could otherwise override before its own
+ * fields are set.
+ */
+public final class OffHeapAccountRepository implements AccountRepository {
+    static final int RECORD_BYTES = 40;
+    static final int R_NUMBER = 0;
+    static final int R_BALANCE = 8;
+    static final int R_ID = 16;
+    static final int R_ID_HASH = 20;
+    static final int R_NAME = 24;
+    static final int R_OWNER = 28;
+    static final int R_PLACE = 32;
+    static final int R_TYPE = 36;
+
+    // 32k records (1.25 MB) per record chunk, 4 MB per id chunk
+    private static final int CHUNK_SHIFT = 15;
+    private static final int CHUNK_RECORDS = 1 << CHUNK_SHIFT;
+    private static final int ID_CHUNK_SHIFT = 22;
+    private static final int ID_CHUNK_BYTES = 1 << ID_CHUNK_SHIFT;
+    private static final int MAX_ID_CHUNKS = 1 << (32 - ID_CHUNK_SHIFT);
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    private static final AccountType[] TYPES = AccountType.values();
+
+    // off-heap rows; the chunk array is guarded by lock, projections keep their own chunk
+    private ByteBuffer[] records = new ByteBuffer[16];
+    // read by projections outside the lock
+    private volatile ByteBuffer[] ids = new ByteBuffer[4];
+    private int idChunk = -1;
+    private int idPosition = ID_CHUNK_BYTES;
+    private int rowCount;
+
+    // open addressing over the id hash; ordinal + 1, 0 is empty
+    private int[] idSlots = new int[1024];
+    private int usedIdSlots;
+    private final Map<SortKey, SortedPermutation> sortIndexes = new EnumMap<>(SortKey.class);
+    private final AccountNumberIndex numberIndex = new AccountNumberIndex(this::packedNumberAt);
+    private IntList[] rowsByOwner = new IntList[64];
+    private final BitSet removed = new BitSet();
+    // distinct values seen, by dictionary id; the name index posts name ids, not rows
+    private final BitSet knownNames = new BitSet();
+    private final BitSet knownPlaces = new BitSet();
+    private final NameIndex nameIndex = new NameIndex();
+    private final FacetCounter tableFacets = new FacetCounter();
+    private final Map<SuggestField, PrefixTrie> suggestIndexes = new EnumMap<>(SuggestField.class);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ChangeFeed<AccountProjection> changes = new ChangeFeed<>();
+    private final List<MaterializedView> views = new CopyOnWriteArrayList<>();
+
+    public OffHeapAccountRepository() {
+        this(new ArrayList<>());
+    }
+
+    public OffHeapAccountRepository(List<InMemoryAccountRepository.SimpleAccountProjection> initial) {
+        suggestIndexes.put(SuggestField.CUSTOMER_NAME, new PrefixTrie());
+        suggestIndexes.put(SuggestField.PLACE_OF_BIRTH, new PrefixTrie());
+        sortIndexes.put(SortKey.BALANCE, new SortedPermutation(
+                (a, b) -> tieBreak(Long.compare(balanceAt(a), balanceAt(b)), a, b)));
+        sortIndexes.put(SortKey.CUSTOMER_NAME, new SortedPermutation(
+                (a, b) -> tieBreak(String.CASE_INSENSITIVE_ORDER.compare(
+                        AccountDictionaries.customerNames().value(intAt(a, R_NAME)),
+                        AccountDictionaries.customerNames().value(intAt(b, R_NAME))), a, b)));
+        sortIndexes.put(SortKey.ACCOUNT_ID, new SortedPermutation((a, b) -> tieBreak(compareIds(a, b), a, b)));
+        if (!initial.isEmpty()) {
+            addAll(initial);
+        }
+    }
+
+    @Override
+    public Page<AccountProjection> search(UserId requester, AccountSearchFilters filters, OwnershipScope scope, PageRequest page) {
+        AccountFilter filter = AccountFilter.of(filters, requester, scope);
+        lock.readLock().lock();
+        try {
+            int size = rowCount;
+            InMemoryAccountRepository.PageWindow window =
+                    new InMemoryAccountRepository.PageWindow(page.getOffset(), page.getSize(), page.includesFacets());
+            BitSet fuzzy = filters != null && filters.isCustomerNameFuzzy() ? fuzzyNameIds(filters) : null;
+            if (filters != null && filters.hasQuery()) {
+                rankedSearch(filters.getQuery(), filter, fuzzy, window);
+                return window.toPage(page);
+            }
+            BitSet candidates = withoutRemoved(candidatesFor(filters, filter));
+            SortedPermutation order = page.isSorted() ? sortIndexes.get(page.getSortKey()) : null;
+            boolean descending = page.getDirection() == SortDirection.DESC;
+
+            if (candidates == null && fuzzy == null && filter.isEmpty()) {
+                // every row matches: jump straight to the page window
+                for (long pos = window.offset; pos < size && !window.isFull(); pos++) {
+                    window.items.add(projection(ordinalAt(order, (int) pos, size, descending)));
+                }
+                window.total = size;
+                if (window.facets != null) {
+                    window.facets.addAll(tableFacets);
+                }
+                return window.toPage(page);
+            }
+
+            if (order == null && candidates != null) {
+                int ordinal = descending ? candidates.previousSetBit(size - 1) : candidates.nextSetBit(0);
+                while (ordinal >= 0) {
+                    offer(ordinal, filter, fuzzy, window);
+                    ordinal = descending ? candidates.previousSetBit(ordinal - 1) : candidates.nextSetBit(ordinal + 1);
+                }
+                return window.toPage(page);
+            }
+
+            for (int pos = 0; pos < size; pos++) {
+                int ordinal = ordinalAt(order, pos, size, descending);
+                if (candidates == null || candidates.get(ordinal)) {
+                    offer(ordinal, filter, fuzzy, window);
+                }
+            }
+            return window.toPage(page);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Free text over a scan, scored as the token index would score it; the
+     * best offset + size rows are kept with a bounded heap.
+     */
+    private void rankedSearch(String query, AccountFilter filter, BitSet fuzzy, InMemoryAccountRepository.PageWindow window) {
+        String[] tokens = TokenIndex.split(query);
+        int[][] nameScores = new int[tokens.length][];
+        int[][] placeScores = new int[tokens.length][];
+        for (int t = 0; t < tokens.length; t++) {
+            nameScores[t] = distinctScores(knownNames, AccountDictionaries.customerNames(), TokenIndex.Field.NAME, tokens[t]);
+            placeScores[t] = distinctScores(knownPlaces, AccountDictionaries.places(), TokenIndex.Field.PLACE, tokens[t]);
+        }
+        int[] scores = new int[rowCount];
+        TopKSelector top = new TopKSelector(window.selectionSize(rowCount),
+                (a, b) -> scores[a] != scores[b] ? Integer.compare(scores[a], scores[b]) : Integer.compare(b, a));
+        for (int ordinal = 0; ordinal < rowCount && tokens.length > 0; ordinal++) {
+            if (removed.get(ordinal)) {
+                continue;
+            }
+            OffHeapAccountProjection row = projection(ordinal);
+            int name = row.customerNameId();
+            int place = row.placeOfBirthId();
+            if (fuzzy != null && (name < 0 || !fuzzy.get(name))) {
+                continue;
+            }
+            String accountId = row.getAccountId();
+            String accountNumber = row.getAccountNumber();
+            int total = 0;
+            for (int t = 0; t < tokens.length; t++) {
+                int score = Math.max(Math.max(name < 0 ? 0 : nameScores[t][name], place < 0 ? 0 : placeScores[t][place]),
+                        TokenIndex.scoreAccount(tokens[t], accountId, accountNumber));
+                if (score == 0) {
+                    // every token has to match
+                    total = 0;
+                    break;
+                }
+                total += score;
+            }
+            if (total > 0 && filter.test(row)) {
+                scores[ordinal] = total;
+                top.offer(ordinal);
+                window.total++;
+                if (window.facets != null) {
+                    window.facets.count(row.getAccountType(), place);
+                }
+            }
+        }
+        int[] best = top.drainDescending();
+        for (int i = (int) Math.min(window.offset, best.length); i < best.length; i++) {
+            window.items.add(projection(best[i]));
+        }
+    }
+
+    @Override
+    public AccountProjection findById(String accountId) {
+        lock.readLock().lock();
+        try {
+            int ordinal = ordinalOf(accountId);
+            return ordinal < 0 ? null : projection(ordinal);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Walks the balance index from the top and stops after k matches.
+     */
+    @Override
+    public List<AccountProjection> topByBalance(UserId requester, AccountSearchFilters filters, OwnershipScope scope, int k) {
+        List<AccountProjection> result = new ArrayList<>();
+        if (k <= 0) {
+            return result;
+        }
+        AccountFilter filter = AccountFilter.of(filters, requester, scope);
+        lock.readLock().lock();
+        try {
+            BitSet fuzzy = filters != null && filters.isCustomerNameFuzzy() ? fuzzyNameIds(filters) : null;
+            BitSet candidates = withoutRemoved(candidatesFor(filters, filter));
+            SortedPermutation byBalance = sortIndexes.get(SortKey.BALANCE);
+            for (int pos = rowCount - 1; pos >= 0 && result.size() < k; pos--) {
+                int ordinal = byBalance.get(pos);
+                if (candidates != null && !candidates.get(ordinal)) {
+                    continue;
+                }
+                OffHeapAccountProjection row = projection(ordinal);
+                if (acceptsName(fuzzy, row) && filter.test(row)) {
+                    result.add(row);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Suggestion> suggest(SuggestField field, String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            return suggestIndexes.get(field).complete(prefix, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies one account into a new record and slots it into every index.
+     *
+     * @throws IllegalArgumentException when the account number is not exactly 16 digits
+     *                                  or a live account already has this id
+     */
+    public void add(InMemoryAccountRepository.SimpleAccountProjection account) {
+        // records hold the packed number only, so reject before anything is written
+        account.persistedAccountNumber();
+        lock.writeLock().lock();
+        try {
+            InMemoryAccountRepository.requireDistinctIds(List.of(account), id -> ordinalOf(id) >= 0);
+            int ordinal = append(account);
+            numberIndex.add(ordinal);
+            for (SortedPermutation index : sortIndexes.values()) {
+                index.insert(ordinal);
+            }
+            committed(ChangeEvent.Kind.INSERT, account.getAccountId(), null, account);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Copies a batch into new records; the sort indexes sort only the batch
+     * and merge it in, so a large table can be loaded batch by batch without
+     * the rows of every batch being on the heap at once.
+     *
+     * @throws IllegalArgumentException when an account number is not exactly 16
+     *                                  digits or an id repeats within the batch or
+     *                                  belongs to a live account; nothing from the
+     *                                  batch is added then
+     */
+    public void addAll(List<InMemoryAccountRepository.SimpleAccountProjection> batch) {
+        // records hold the packed number only, so reject before anything is written
+        for (InMemoryAccountRepository.SimpleAccountProjection account : batch) {
+            account.persistedAccountNumber();
+        }
+        lock.writeLock().lock();
+        try {
+            InMemoryAccountRepository.requireDistinctIds(batch, id -> ordinalOf(id) >= 0);
+            int first = rowCount;
+            for (InMemoryAccountRepository.SimpleAccountProjection account : batch) {
+                append(account);
+            }
+            numberIndex.addAll(first, rowCount);
+            for (SortedPermutation index : sortIndexes.values()) {
+                index.addAll(first, rowCount);
+            }
+            for (InMemoryAccountRepository.SimpleAccountProjection account : batch) {
+                committed(ChangeEvent.Kind.INSERT, account.getAccountId(), null, account);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the new balance into the record and moves it in the balance index.
+     *
+     * @return false when the account does not exist or was removed
+     */
+    public boolean updateBalance(String accountId, long balanceCents) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinalOf(accountId);
+            if (ordinal < 0) {
+                return false;
+            }
+            SortedPermutation byBalance = sortIndexes.get(SortKey.BALANCE);
+            InMemoryAccountRepository.SimpleAccountProjection before = detach(ordinal);
+            // take the row out while it still sorts by its old balance
+            byBalance.remove(ordinal);
+            LONGS.setVolatile(recordChunk(ordinal), base(ordinal) + R_BALANCE, balanceCents);
+            byBalance.insert(ordinal);
+            committed(ChangeEvent.Kind.UPDATE, before.getAccountId(), before, before.withBalanceCents(balanceCents));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Tombstones an account; its record and index entries stay in place.
+     *
+     * @return false when the account does not exist or was already removed
+     */
+    public boolean remove(String accountId) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinalOf(accountId);
+            if (ordinal < 0) {
+                return false;
+            }
+            InMemoryAccountRepository.SimpleAccountProjection account = detach(ordinal);
+            removed.set(ordinal);
+            tableFacets.adjust(account.getAccountType(), account.placeOfBirthId(), -1);
+            suggestIndexes.get(SuggestField.CUSTOMER_NAME).remove(account.getCustomerName());
+            suggestIndexes.get(SuggestField.PLACE_OF_BIRTH).remove(account.getPlaceOfBirth());
+            committed(ChangeEvent.Kind.DELETE, account.getAccountId(), account, null);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public ChangeFeed<AccountProjection> changes() {
+        return changes;
+    }
+
+    @Override
+    public AggregateView registerView(String name, AggregateGroup groupBy) {
+        lock.writeLock().lock();
+        try {
+            MaterializedView view = new MaterializedView(name, groupBy);
+            for (int ordinal = 0; ordinal < rowCount; ordinal++) {
+                if (!removed.get(ordinal)) {
+                    view.apply(null, projection(ordinal));
+                }
+            }
+            views.add(view);
+            return view;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Number of live (not removed) accounts.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rowCount - removed.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Direct memory held by the record and id chunks.
+     */
+    public long offHeapBytes() {
+        lock.readLock().lock();
+        try {
+            long records = (long) ((rowCount + CHUNK_RECORDS - 1) >>> CHUNK_SHIFT) * CHUNK_RECORDS * RECORD_BYTES;
+            return records + (long) (idChunk + 1) * ID_CHUNK_BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Publishes a write and folds it into every view; caller holds the write lock.
+     */
+    private void committed(ChangeEvent.Kind kind, String accountId, AccountProjection before, AccountProjection after) {
+        changes.publish(kind, accountId, before, after);
+        for (MaterializedView view : views) {
+            view.apply(before, after);
+        }
+    }
+
+    /**
+     * Writes the record and the id, and indexes everything except the
+     * sorted permutations; caller holds the write lock.
+     */
+    private int append(InMemoryAccountRepository.SimpleAccountProjection account) {
+        int ordinal = rowCount;
+        int chunkIndex = ordinal >>> CHUNK_SHIFT;
+        if (chunkIndex == records.length) {
+            records = Arrays.copyOf(records, records.length * 2);
+        }
+        if (records[chunkIndex] == null) {
+            records[chunkIndex] = allocate(CHUNK_RECORDS * RECORD_BYTES);
+        }
+        byte[] key = idKey(account.getAccountId());
+        int hash = idHash(key);
+        ByteBuffer chunk = records[chunkIndex];
+        int base = base(ordinal);
+        LONGS.set(chunk, base + R_NUMBER, account.packedAccountNumber());
+        LONGS.setVolatile(chunk, base + R_BALANCE, account.getBalanceCents());
+        INTS.set(chunk, base + R_ID, appendId(AccountStoreFile.utf8(account.getAccountId())));
+        INTS.set(chunk, base + R_ID_HASH, hash);
+        INTS.set(chunk, base + R_NAME, account.customerNameId());
+        INTS.set(chunk, base + R_OWNER, account.getOwnerHandle());
+        INTS.set(chunk, base + R_PLACE, account.placeOfBirthId());
+        INTS.set(chunk, base + R_TYPE, account.getAccountType().ordinal());
+        rowCount++;
+        putId(ordinal, hash, key);
+        indexRow(ordinal, account);
+        return ordinal;
+    }
+
+    private void indexRow(int ordinal, InMemoryAccountRepository.SimpleAccountProjection account) {
+        int owner = account.getOwnerHandle();
+        if (owner >= rowsByOwner.length) {
+            rowsByOwner = Arrays.copyOf(rowsByOwner, Math.max(owner + 1, rowsByOwner.length * 2));
+        }
+        if (rowsByOwner[owner] == null) {
+            rowsByOwner[owner] = new IntList();
+        }
+        rowsByOwner[owner].add(ordinal);
+        int name = account.customerNameId();
+        if (name >= 0 && !knownNames.get(name)) {
+            knownNames.set(name);
+            nameIndex.add(account.getCustomerName(), name);
+        }
+        if (account.placeOfBirthId() >= 0) {
+            knownPlaces.set(account.placeOfBirthId());
+        }
+        tableFacets.adjust(account.getAccountType(), account.placeOfBirthId(), 1);
+        suggestIndexes.get(SuggestField.CUSTOMER_NAME).add(account.getCustomerName());
+        suggestIndexes.get(SuggestField.PLACE_OF_BIRTH).add(account.getPlaceOfBirth());
+    }
+
+    private int appendId(byte[] utf8) {
+        if (idPosition + 2 + utf8.length > ID_CHUNK_BYTES) {
+            if (idChunk + 1 == MAX_ID_CHUNKS) {
+                throw new IllegalStateException("Off-heap account id storage is full");
+            }
+            ByteBuffer[] current = ids;
+            if (idChunk + 1 == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            current[idChunk + 1] = allocate(ID_CHUNK_BYTES);
+            ids = current;
+            idChunk++;
+            idPosition = 0;
+        }
+        ByteBuffer chunk = ids[idChunk];
+        chunk.putShort(idPosition, (short) utf8.length);
+        chunk.put(idPosition + 2, utf8);
+        int reference = idChunk << ID_CHUNK_SHIFT | idPosition;
+        idPosition += 2 + utf8.length;
+        return reference;
+    }
+
+    /**
+     * Ordinal of a live account, or -1.
+     */
+    private int ordinalOf(String accountId) {
+        if (accountId == null) {
+            return -1;
+        }
+        byte[] key = idKey(accountId);
+        int hash = idHash(key);
+        int mask = idSlots.length - 1;
+        for (int slot = hash & mask; idSlots[slot] != 0; slot = (slot + 1) & mask) {
+            int ordinal = idSlots[slot] - 1;
+            if (intAt(ordinal, R_ID_HASH) == hash && idMatches(ordinal, key)) {
+                return removed.get(ordinal) ? -1 : ordinal;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Points the id at the ordinal; a re-added id replaces the older row's entry.
+     */
+    private void putId(int ordinal, int hash, byte[] key) {
+        if ((usedIdSlots + 1) * 2 > idSlots.length) {
+            int[] previous = idSlots;
+            idSlots = new int[previous.length * 2];
+            for (int entry : previous) {
+                if (entry != 0) {
+                    idSlots[freeSlot(intAt(entry - 1, R_ID_HASH))] = entry;
+                }
+            }
+        }
+        int mask = idSlots.length - 1;
+        int slot = hash & mask;
+        for (; idSlots[slot] != 0; slot = (slot + 1) & mask) {
+            if (intAt(idSlots[slot] - 1, R_ID_HASH) == hash && idMatches(idSlots[slot] - 1, key)) {
+                idSlots[slot] = ordinal + 1;
+                return;
+            }
+        }
+        idSlots[slot] = ordinal + 1;
+        usedIdSlots++;
+    }
+
+    private int freeSlot(int hash) {
+        int mask = idSlots.length - 1;
+        int slot = hash & mask;
+        while (idSlots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Whether the stored id lower-cases to the key; ASCII ids are compared
+     * in place, others are decoded.
+     */
+    private boolean idMatches(int ordinal, byte[] key) {
+        int reference = intAt(ordinal, R_ID);
+        ByteBuffer chunk = ids[reference >>> ID_CHUNK_SHIFT];
+        int at = (reference & (ID_CHUNK_BYTES - 1)) + 2;
+        int length = chunk.getShort(at - 2) & 0xFFFF;
+        for (int i = 0; i < length; i++) {
+            if (chunk.get(at + i) < 0) {
+                return Arrays.equals(idKey(idString(reference)), key);
+            }
+        }
+        if (length != key.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (lowerAscii(chunk.get(at + i)) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * String.CASE_INSENSITIVE_ORDER over the stored ids, compared in place
+     * while both are ASCII.
+     */
+    private int compareIds(int left, int right) {
+        ByteBuffer[] chunks = ids;
+        int leftRef = intAt(left, R_ID);
+        int rightRef = intAt(right, R_ID);
+        ByteBuffer a = chunks[leftRef >>> ID_CHUNK_SHIFT];
+        ByteBuffer b = chunks[rightRef >>> ID_CHUNK_SHIFT];
+        int at = leftRef & (ID_CHUNK_BYTES - 1);
+        int bt = rightRef & (ID_CHUNK_BYTES - 1);
+        int aLength = a.getShort(at) & 0xFFFF;
+        int bLength = b.getShort(bt) & 0xFFFF;
+        for (int i = 0; i < Math.min(aLength, bLength); i++) {
+            byte x = a.get(at + 2 + i);
+            byte y = b.get(bt + 2 + i);
+            if (x == y) {
+                continue;
+            }
+            if (x < 0 || y < 0) {
+                return String.CASE_INSENSITIVE_ORDER.compare(idString(leftRef), idString(rightRef));
+            }
+            int cmp = lowerAscii(x) - lowerAscii(y);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return aLength - bLength;
+    }
+
+    private String idString(int reference) {
+        ByteBuffer chunk = ids[reference >>> ID_CHUNK_SHIFT];
+        int at = reference & (ID_CHUNK_BYTES - 1);
+        byte[] bytes = new byte[chunk.getShort(at) & 0xFFFF];
+        chunk.get(at + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] idKey(String accountId) {
+        return (accountId == null ? "" : accountId).toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int idHash(byte[] key) {
+        int hash = 0;
+        for (byte b : key) {
+            hash = 31 * hash + b;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int lowerAscii(byte b) {
+        return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b;
+    }
+
+    private BitSet candidatesFor(AccountSearchFilters filters, AccountFilter filter) {
+        BitSet candidates = filter.isOwnedOnly() ? ownedRows(filter.ownerHandle()) : null;
+        if (filters != null && filters.hasAccountNumber() && filters.getAccountNumberMatch() != AccountNumberMatch.CONTAINS) {
+            BitSet numberRows = numberIndex.rows(filters.getAccountNumberMatch(), filters.getAccountNumber(), rowCount);
+            if (candidates == null) {
+                candidates = numberRows;
+            } else {
+                candidates.and(numberRows);
+            }
+        }
+        return candidates;
+    }
+
+    private BitSet withoutRemoved(BitSet candidates) {
+        if (removed.isEmpty()) {
+            return candidates;
+        }
+        if (candidates == null) {
+            candidates = new BitSet(rowCount);
+            candidates.set(0, rowCount);
+        }
+        candidates.andNot(removed);
+        return candidates;
+    }
+
+    private BitSet ownedRows(int ownerHandle) {
+        BitSet rows = new BitSet(rowCount);
+        IntList owned = ownerHandle >= 0 && ownerHandle < rowsByOwner.length ? rowsByOwner[ownerHandle] : null;
+        for (int i = 0; owned != null && i < owned.size(); i++) {
+            rows.set(owned.get(i));
+        }
+        return rows;
+    }
+
+    /**
+     * Name dictionary ids accepted by a fuzzy name filter.
+     */
+    private BitSet fuzzyNameIds(AccountSearchFilters filters) {
+        BitSet accepted = new BitSet();
+        for (String name : nameIndex.fuzzyNames(filters.getCustomerName(), filters.getCustomerNameMaxEdits())) {
+            IntList nameIds = nameIndex.rows(name);
+            for (int i = 0; i < nameIds.size(); i++) {
+                accepted.set(nameIds.get(i));
+            }
+        }
+        return accepted;
+    }
+
+    private static int[] distinctScores(BitSet known, StringDictionary dictionary, TokenIndex.Field field, String token) {
+        int[] scores = new int[dictionary.size()];
+        for (int id = known.nextSetBit(0); id >= 0; id = known.nextSetBit(id + 1)) {
+            scores[id] = TokenIndex.scoreWords(field, token, dictionary.value(id));
+        }
+        return scores;
+    }
+
+    private void offer(int ordinal, AccountFilter filter, BitSet fuzzy, InMemoryAccountRepository.PageWindow window) {
+        OffHeapAccountProjection row = projection(ordinal);
+        if (acceptsName(fuzzy, row) && filter.test(row)) {
+            window.offer(row);
+        }
+    }
+
+    private static boolean acceptsName(BitSet fuzzy, OffHeapAccountProjection row) {
+        if (fuzzy == null) {
+            return true;
+        }
+        int name = row.customerNameId();
+        return name >= 0 && fuzzy.get(name);
+    }
+
+    /**
+     * Heap copy of a record, for change events whose rows must not change afterwards.
+     */
+    private InMemoryAccountRepository.SimpleAccountProjection detach(int ordinal) {
+        OffHeapAccountProjection row = projection(ordinal);
+        return new InMemoryAccountRepository.SimpleAccountProjection(row.getAccountId(), row.packedAccountNumber(),
+                row.getAccountType(), row.customerNameId(), row.getOwnerHandle(), row.placeOfBirthId(),
+                row.getBalanceCents());
+    }
+
+    private OffHeapAccountProjection projection(int ordinal) {
+        return new OffHeapAccountProjection(this, recordChunk(ordinal), base(ordinal));
+    }
+
+    private static int ordinalAt(SortedPermutation order, int position, int size, boolean descending) {
+        if (order == null) {
+            return descending ? size - 1 - position : position;
+        }
+        return order.get(descending ? size - 1 - position : position);
+    }
+
+    private ByteBuffer recordChunk(int ordinal) {
+        return records[ordinal >>> CHUNK_SHIFT];
+    }
+
+    private static int base(int ordinal) {
+        return (ordinal & (CHUNK_RECORDS - 1)) * RECORD_BYTES;
+    }
+
+    private long balanceAt(int ordinal) {
+        return (long) LONGS.getVolatile(recordChunk(ordinal), base(ordinal) + R_BALANCE);
+    }
+
+    private long packedNumberAt(int ordinal) {
+        return (long) LONGS.get(recordChunk(ordinal), base(ordinal) + R_NUMBER);
+    }
+
+    private int intAt(int ordinal, int field) {
+        return (int) INTS.get(recordChunk(ordinal), base(ordinal) + field);
+    }
+
+    private static int tieBreak(int cmp, int a, int b) {
+        return cmp != 0 ? cmp : Integer.compare(a, b);
+    }
+
+    /**
+     * Direct buffer for a chunk; the VarHandle views need 8-byte aligned
+     * longs for volatile access.
+     */
+    private static ByteBuffer allocate(int bytes) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        if (buffer.alignmentOffset(0, 8) != 0) {
+            throw new IllegalStateException("Direct buffer is not 8-byte aligned");
+        }
+        return buffer;
+    }
+
+    /**
+     * Flyweight over one off-heap record.
+     */
+    static final class OffHeapAccountProjection extends StoredAccount {
+        private final OffHeapAccountRepository store;
+        private final ByteBuffer chunk;
+        private final int base;
+
+        private OffHeapAccountProjection(OffHeapAccountRepository store, ByteBuffer chunk, int base) {
+            this.store = store;
+            this.chunk = chunk;
+            this.base = base;
+        }
+
+        private int intField(int field) {
+            return (int) INTS.get(chunk, base + field);
+        }
+
+        @Override
+        long packedAccountNumber() {
+            return (long) LONGS.get(chunk, base + R_NUMBER);
+        }
+
+        @Override
+        int customerNameId() {
+            return intField(R_NAME);
+        }
+
+        @Override
+        int placeOfBirthId() {
+            return intField(R_PLACE);
+        }
+
+        @Override
+        public String getAccountId() {
+            return store.idString(intField(R_ID));
+        }
+
+        @Override
+        public String getAccountNumber() {
+            return AccountNumbers.format(packedAccountNumber());
+        }
+
+        @Override
+        public long getBalanceCents() {
+            return (long) LONGS.getVolatile(chunk, base + R_BALANCE);
+        }
+
+        @Override
+        public AccountType getAccountType() {
+            return TYPES[intField(R_TYPE)];
+        }
+
+        @Override
+        public String getCustomerName() {
+            return AccountDictionaries.customerNames().value(customerNameId());
+        }
+
+        @Override
+        public String getOwnerUserId() {
+            return UserIdRegistry.global().byHandle(getOwnerHandle()).getValue();
+        }
+
+        @Override
+        public int getOwnerHandle() {
+            return intField(R_OWNER);
+        }
+
+        @Override
+        public String getPlaceOfBirth() {
+            return AccountDictionaries.places().value(placeOfBirthId());
+        }
+    }
+}
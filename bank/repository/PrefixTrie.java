@@ -0,0 +1,159 @@
+package bank.repository;
+
+import bank.dto.Suggestion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+/**
+ * Case-insensitive trie of distinct values with occurrence counts.
+ * Children are kept in sorted parallel arrays to stay compact, and every
+ * node caches the highest count below it so top-N completions are found
+ * best-first without visiting the whole subtree.
+ */
+final class PrefixTrie {
+    private final Node root = new Node();
+
+    /**
+     * Records one more occurrence of the value.
+     */
+    void add(String value) {
+        add(value, 1);
+    }
+
+    /**
+     * Records several occurrences at once (values loaded with a row count).
+     */
+    void add(String value, long occurrences) {
+        if (value == null || value.isBlank() || occurrences <= 0) {
+            return;
+        }
+        String key = value.trim().toLowerCase(Locale.ROOT);
+        Node[] path = new Node[key.length() + 1];
+        Node node = root;
+        path[0] = node;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childOrCreate(key.charAt(i));
+            path[i + 1] = node;
+        }
+        if (node.value == null) {
+            node.value = value.trim();
+        }
+        node.count += occurrences;
+        for (Node n : path) {
+            n.maxCount = Math.max(n.maxCount, node.count);
+        }
+    }
+
+    /**
+     * Records one occurrence fewer (the value's row was removed).
+     */
+    void remove(String value) {
+        if (value == null || value.isBlank()) {
+            return;
+        }
+        String key = value.trim().toLowerCase(Locale.ROOT);
+        Node[] path = new Node[key.length() + 1];
+        Node node = root;
+        path[0] = node;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+            path[i + 1] = node;
+        }
+        if (node == null || node.count == 0) {
+            return;
+        }
+        node.count--;
+        // the cached bounds can only shrink; recompute them bottom-up
+        for (int depth = path.length - 1; depth >= 0; depth--) {
+            Node n = path[depth];
+            long max = n.count;
+            for (int i = 0; i < n.size; i++) {
+                max = Math.max(max, n.children[i].maxCount);
+            }
+            n.maxCount = max;
+        }
+    }
+
+    /**
+     * Up to limit completions of the prefix, most frequent first.
+     */
+    List<Suggestion> complete(String prefix, int limit) {
+        List<Suggestion> result = new ArrayList<>(limit);
+        Node node = root;
+        String key = prefix == null ? "" : prefix.trim().toLowerCase(Locale.ROOT);
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null || limit <= 0) {
+            return result;
+        }
+        // entries are either subtrees (bounded by maxCount) or exact terminals
+        PriorityQueue<Entry> frontier = new PriorityQueue<>((a, b) -> Long.compare(b.bound, a.bound));
+        frontier.add(new Entry(node, node.maxCount, false));
+        while (!frontier.isEmpty() && result.size() < limit) {
+            Entry entry = frontier.poll();
+            if (entry.terminal) {
+                result.add(new Suggestion(entry.node.value, entry.node.count));
+                continue;
+            }
+            if (entry.node.count > 0) {
+                frontier.add(new Entry(entry.node, entry.node.count, true));
+            }
+            for (int i = 0; i < entry.node.size; i++) {
+                Node child = entry.node.children[i];
+                frontier.add(new Entry(child, child.maxCount, false));
+            }
+        }
+        return result;
+    }
+
+    private static final class Entry {
+        private final Node node;
+        private final long bound;
+        private final boolean terminal;
+
+        private Entry(Node node, long bound, boolean terminal) {
+            this.node = node;
+            this.bound = bound;
+            this.terminal = terminal;
+        }
+    }
+
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private int size;
+        private String value;
+        private long count;
+        private long maxCount;
+
+        private Node child(char c) {
+            int i = Arrays.binarySearch(keys, 0, size, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        private Node childOrCreate(char c) {
+            int i = Arrays.binarySearch(keys, 0, size, c);
+            if (i >= 0) {
+                return children[i];
+            }
+            int insertAt = -i - 1;
+            if (size == keys.length) {
+                int capacity = Math.max(2, size * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(keys, insertAt, keys, insertAt + 1, size - insertAt);
+            System.arraycopy(children, insertAt, children, insertAt + 1, size - insertAt);
+            Node created = new Node();
+            keys[insertAt] = c;
+            children[insertAt] = created;
+            size++;
+            return created;
+        }
+    }
+}
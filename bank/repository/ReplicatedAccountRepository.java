@@ -0,0 +1,281 @@
+package bank.repository;
+
+import bank.cdc.ChangeFeed;
+import bank.contracts.AccountProjection;
+import bank.contracts.AccountRepository;
+import bank.contracts.AggregateView;
+import bank.dto.AccountSearchFilters;
+import bank.dto.AggregateGroup;
+import bank.dto.Page;
+import bank.dto.PageRequest;
+import bank.dto.SuggestField;
+import bank.dto.Suggestion;
+import bank.dto.UserId;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Primary/replica arrangement: writes go to the primary and are appended to
+ * an {@link AccountChangeLog}; every replica applies that log on its own
+ * thread. Reads rotate over the replicas and use the first one that is
+ * within the staleness bound and has applied the requester's own latest
+ * write (read-your-writes per session); otherwise the primary answers.
+ * Staleness is read from the replica's last applied change, so choosing a
+ * replica never takes the log's monitor. Changes every replica has applied
+ * are dropped from the log.
+ */
+public class ReplicatedAccountRepository implements AccountRepository, AutoCloseable {
+    private static final int APPLY_BATCH = 512;
+
+    private final InMemoryAccountRepository primary;
+    private final Replica[] replicas;
+    private final AccountChangeLog log = new AccountChangeLog();
+    private final long maxStalenessNanos;
+    // session (UserId handle) -> sequence of its latest write
+    private final Map<Integer, Long> lastWriteBySession = new ConcurrentHashMap<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Object writeLock = new Object();
+
+    public ReplicatedAccountRepository(int replicaCount, long maxStalenessMillis) {
+        this(replicaCount, maxStalenessMillis, InMemoryAccountRepository.defaultAccounts());
+    }
+
+    /**
+     * @param initial rows every copy starts from (change log sequence 0)
+     */
+    public ReplicatedAccountRepository(int replicaCount, long maxStalenessMillis,
+                                       List<InMemoryAccountRepository.SimpleAccountProjection> initial) {
+        if (replicaCount < 0 || maxStalenessMillis < 0) {
+            throw new IllegalArgumentException("replicaCount and maxStalenessMillis must be >= 0");
+        }
+        this.primary = new InMemoryAccountRepository(initial);
+        this.maxStalenessNanos = TimeUnit.MILLISECONDS.toNanos(maxStalenessMillis);
+        this.replicas = new Replica[replicaCount];
+        for (int i = 0; i < replicaCount; i++) {
+            replicas[i] = new Replica(i, new InMemoryAccountRepository(initial));
+        }
+        // every replica exists before any of them reads the others' progress
+        for (Replica replica : replicas) {
+            replica.start();
+        }
+    }
+
+    @Override
+    public Page<AccountProjection> search(UserId requester, AccountSearchFilters filters, OwnershipScope scope, PageRequest page) {
+        return readFor(requester).search(requester, filters, scope, page);
+    }
+
+    @Override
+    public AccountProjection findById(String accountId) {
+        return readFor(null).findById(accountId);
+    }
+
+    @Override
+    public List<AccountProjection> topByBalance(UserId requester, AccountSearchFilters filters, OwnershipScope scope, int k) {
+        return readFor(requester).topByBalance(requester, filters, scope, k);
+    }
+
+    @Override
+    public List<Suggestion> suggest(SuggestField field, String prefix, int limit) {
+        return readFor(null).suggest(field, prefix, limit);
+    }
+
+    /**
+     * The primary's feed; replicas apply the same changes but do not publish them here.
+     */
+    @Override
+    public ChangeFeed<AccountProjection> changes() {
+        return primary.changes();
+    }
+
+    /**
+     * Views live on the primary, so they are never stale.
+     */
+    @Override
+    public AggregateView registerView(String name, AggregateGroup groupBy) {
+        return primary.registerView(name, groupBy);
+    }
+
+    /**
+     * @throws IllegalArgumentException when a live account already has this id
+     *                                  (the primary rejects it before anything is logged)
+     */
+    public void add(UserId session, InMemoryAccountRepository.SimpleAccountProjection account) {
+        synchronized (writeLock) {
+            primary.add(account);
+            committed(session, log.append(AccountChange.Kind.OPENED, account.getAccountId(), account, 0));
+        }
+    }
+
+    /**
+     * @return false when the account does not exist or was removed (nothing is logged)
+     */
+    public boolean updateBalance(UserId session, String accountId, long balanceCents) {
+        synchronized (writeLock) {
+            if (!primary.updateBalance(accountId, balanceCents)) {
+                return false;
+            }
+            committed(session, log.append(AccountChange.Kind.BALANCE_CHANGED, accountId, null, balanceCents));
+            return true;
+        }
+    }
+
+    /**
+     * @return false when the account does not exist or was already removed
+     */
+    public boolean remove(UserId session, String accountId) {
+        synchronized (writeLock) {
+            if (!primary.remove(accountId)) {
+                return false;
+            }
+            committed(session, log.append(AccountChange.Kind.REMOVED, accountId, null, 0));
+            return true;
+        }
+    }
+
+    /**
+     * The log replicas apply; changes every replica has applied are dropped
+     * from it, so it only reaches back to the slowest replica.
+     */
+    public AccountChangeLog changeLog() {
+        return log;
+    }
+
+    public int replicaCount() {
+        return replicas.length;
+    }
+
+    /**
+     * Changes each replica still has to apply.
+     */
+    public long[] replicaLag() {
+        long last = log.lastSequence();
+        long[] lag = new long[replicas.length];
+        for (int i = 0; i < replicas.length; i++) {
+            lag[i] = last - replicas[i].applied;
+        }
+        return lag;
+    }
+
+    /**
+     * Blocks until every replica has applied the whole log.
+     *
+     * @return false on timeout
+     */
+    public boolean awaitReplication(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        long target = log.lastSequence();
+        for (Replica replica : replicas) {
+            while (replica.applied < target) {
+                if (System.nanoTime() >= deadline) {
+                    return false;
+                }
+                Thread.sleep(1);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops the replica threads; reads keep working against the primary.
+     */
+    @Override
+    public void close() {
+        for (Replica replica : replicas) {
+            replica.running = false;
+            replica.thread.interrupt();
+        }
+    }
+
+    private void committed(UserId session, AccountChange change) {
+        if (session != null) {
+            lastWriteBySession.merge(session.getHandle(), change.getSequence(), Math::max);
+        }
+        if (replicas.length == 0) {
+            log.dropThrough(change.getSequence());
+        }
+    }
+
+    /**
+     * Drops the changes every replica has applied.
+     */
+    private void dropApplied() {
+        long slowest = Long.MAX_VALUE;
+        for (Replica replica : replicas) {
+            slowest = Math.min(slowest, replica.applied);
+        }
+        log.dropThrough(slowest);
+    }
+
+    /**
+     * Replica to read from, or the primary when none qualifies.
+     */
+    private InMemoryAccountRepository readFor(UserId session) {
+        if (replicas.length == 0) {
+            return primary;
+        }
+        long required = session == null ? 0 : lastWriteBySession.getOrDefault(session.getHandle(), 0L);
+        long now = System.nanoTime();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.length);
+        for (int i = 0; i < replicas.length; i++) {
+            Replica replica = replicas[(start + i) % replicas.length];
+            if (replica.applied >= required && replica.stalenessNanos(now) <= maxStalenessNanos) {
+                return replica.repository;
+            }
+        }
+        return primary;
+    }
+
+    private final class Replica implements Runnable {
+        private final InMemoryAccountRepository repository;
+        private final Thread thread;
+        private volatile long applied;
+        // its link shows whether anything newer is waiting
+        private volatile AccountChange lastApplied;
+        private volatile boolean running = true;
+
+        private Replica(int index, InMemoryAccountRepository repository) {
+            this.repository = repository;
+            this.lastApplied = log.newest();
+            this.thread = new Thread(this, "account-replica-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        private void start() {
+            thread.start();
+        }
+
+        /**
+         * Age of the oldest change this replica has not applied yet (0 when caught up).
+         */
+        private long stalenessNanos(long now) {
+            AccountChange oldestMissing = lastApplied.next();
+            return oldestMissing == null ? 0 : now - oldestMissing.getAppendedNanos();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    List<AccountChange> batch = log.readAfter(applied, APPLY_BATCH);
+                    if (batch.isEmpty()) {
+                        log.awaitAfter(applied, 100, TimeUnit.MILLISECONDS);
+                        continue;
+                    }
+                    for (AccountChange change : batch) {
+                        change.applyTo(repository);
+                        lastApplied = change;
+                        applied = change.getSequence();
+                    }
+                    dropApplied();
+                }
+            } catch (InterruptedException stopped) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package bank.repository;
+
+import bank.cdc.ChangeFeed;
+import bank.contracts.AccountProjection;
+import bank.contracts.AccountRepository;
+import bank.contracts.AggregateView;
+import bank.dto.Aggregate;
+import bank.dto.AggregateGroup;
+import bank.dto.AccountSearchFilters;
+import bank.dto.Page;
+import bank.dto.PageRequest;
+import bank.dto.SortDirection;
+import bank.dto.SuggestField;
+import bank.dto.Suggestion;
+import bank.dto.UserId;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Account repository partitioned by owner hash into independent
+ * {@link InMemoryAccountRepository} shards, each with its own indexes and
+ * lock, so a write only blocks searches on its own shard.
+ *
+ * Searches scatter to every shard in parallel and gather by summing totals
+ * and facets and k-way merging the per-shard windows in page order (ties go
+ * to the lower shard). OWNED_ONLY searches are pruned to the requester's
+ * shard, since every account of one owner lives there. All shards publish
+ * into one change feed, each under its own write lock.
+ *
+ * Account ids are unique across shards, but accounts are routed by owner,
+ * so two owners' accounts with the same id would land in different shards.
+ * Adds therefore check every shard under one add lock; searches and other
+ * writes never take it.
+ */
+public class ShardedAccountRepository implements AccountRepository {
+    private final InMemoryAccountRepository[] shards;
+    private final ChangeFeed<AccountProjection> changes = new ChangeFeed<>();
+    // field-wide completions need counts across all shards
+    private final Map<SuggestField, PrefixTrie> suggestIndexes = new EnumMap<>(SuggestField.class);
+    // held from the cross-shard id check until the rows are in their shards
+    private final Object addLock = new Object();
+
+    public ShardedAccountRepository(int shardCount) {
+        this(shardCount, InMemoryAccountRepository.defaultAccounts());
+    }
+
+    /**
+     * @throws IllegalArgumentException when shardCount is below 1 or an id repeats in the initial rows
+     */
+    public ShardedAccountRepository(int shardCount, List<InMemoryAccountRepository.SimpleAccountProjection> initial) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("shardCount must be >= 1");
+        }
+        InMemoryAccountRepository.requireDistinctIds(initial, id -> false);
+        suggestIndexes.put(SuggestField.CUSTOMER_NAME, new PrefixTrie());
+        suggestIndexes.put(SuggestField.PLACE_OF_BIRTH, new PrefixTrie());
+        List<List<InMemoryAccountRepository.SimpleAccountProjection>> parts = partition(shardCount, initial);
+        this.shards = new InMemoryAccountRepository[shardCount];
+        IntStream.range(0, shardCount).parallel()
+                .forEach(i -> shards[i] = new InMemoryAccountRepository(parts.get(i), changes));
+        indexSuggestions(initial);
+    }
+
+    @Override
+    public Page<AccountProjection> search(UserId requester, AccountSearchFilters filters, OwnershipScope scope, PageRequest page) {
+        if (scope == OwnershipScope.OWNED_ONLY) {
+            // one owner's accounts never span shards
+            return shardFor(requester).search(requester, filters, scope, page);
+        }
+        // no shard holds more than Integer.MAX_VALUE rows, so deeper windows are empty anyway
+        int windowEnd = (int) Math.min(page.getOffset() + page.getSize(), Integer.MAX_VALUE);
+        List<InMemoryAccountRepository.PageWindow> windows =
+                scatter(shard -> shards[shard].window(requester, filters, scope, page, 0, windowEnd));
+
+        long total = 0;
+        FacetCounter facets = page.includesFacets() ? new FacetCounter() : null;
+        for (InMemoryAccountRepository.PageWindow window : windows) {
+            total += window.total;
+            if (facets != null) {
+                facets.addAll(window.facets);
+            }
+        }
+        boolean ranked = filters != null && filters.hasQuery();
+        List<AccountProjection> merged = merge(windows, cursorOrder(page, ranked), windowEnd);
+        List<AccountProjection> items = new ArrayList<>(page.getSize());
+        for (long i = page.getOffset(); i < merged.size(); i++) {
+            items.add(merged.get((int) i));
+        }
+        return new Page<>(items, page.getPage(), page.getSize(), total, facets == null ? null : facets.toFacets());
+    }
+
+    @Override
+    public AccountProjection findById(String accountId) {
+        for (InMemoryAccountRepository shard : shards) {
+            AccountProjection found = shard.findById(accountId);
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Each shard selects its own top k; the gather keeps the best k of those.
+     */
+    @Override
+    public List<AccountProjection> topByBalance(UserId requester, AccountSearchFilters filters, OwnershipScope scope, int k) {
+        if (scope == OwnershipScope.OWNED_ONLY) {
+            return shardFor(requester).topByBalance(requester, filters, scope, k);
+        }
+        List<InMemoryAccountRepository.PageWindow> windows = scatter(shard -> {
+            InMemoryAccountRepository.PageWindow window = new InMemoryAccountRepository.PageWindow(0, k, false);
+            window.items.addAll(shards[shard].topByBalance(requester, filters, scope, k));
+            return window;
+        });
+        Comparator<Cursor> byBalance = Comparator.comparingLong((Cursor c) -> c.row().getBalanceCents()).reversed();
+        return merge(windows, byBalance.thenComparingInt(c -> c.shard), k);
+    }
+
+    @Override
+    public List<Suggestion> suggest(SuggestField field, String prefix, int limit) {
+        PrefixTrie trie = suggestIndexes.get(field);
+        synchronized (trie) {
+            return trie.complete(prefix, limit);
+        }
+    }
+
+    @Override
+    public ChangeFeed<AccountProjection> changes() {
+        return changes;
+    }
+
+    /**
+     * Registers the view on every shard. Owner groups live in exactly one
+     * shard; type and place groups are summed over the shards on read.
+     */
+    @Override
+    public AggregateView registerView(String name, AggregateGroup groupBy) {
+        AggregateView[] parts = new AggregateView[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            parts[i] = shards[i].registerView(name, groupBy);
+        }
+        return new AggregateView() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public AggregateGroup getGroupBy() {
+                return groupBy;
+            }
+
+            @Override
+            public Aggregate get(String group) {
+                if (groupBy == AggregateGroup.OWNER) {
+                    return group == null ? Aggregate.EMPTY : parts[shardIndex(group, parts.length)].get(group);
+                }
+                Aggregate total = Aggregate.EMPTY;
+                for (AggregateView part : parts) {
+                    total = total.plus(part.get(group));
+                }
+                return total;
+            }
+
+            @Override
+            public Map<String, Aggregate> snapshot() {
+                Map<String, Aggregate> merged = new HashMap<>();
+                for (AggregateView part : parts) {
+                    part.snapshot().forEach((group, value) -> merged.merge(group, value, Aggregate::plus));
+                }
+                return merged;
+            }
+        };
+    }
+
+    /**
+     * Routes the account to its owner's shard; only that shard is write-locked.
+     *
+     * @throws IllegalArgumentException when any shard holds a live account with this id
+     */
+    public void add(InMemoryAccountRepository.SimpleAccountProjection account) {
+        synchronized (addLock) {
+            InMemoryAccountRepository.requireDistinctIds(List.of(account), id -> findById(id) != null);
+            shards[shardIndex(account.getOwnerUserId(), shards.length)].add(account);
+        }
+        indexSuggestions(List.of(account));
+    }
+
+    /**
+     * @throws IllegalArgumentException when an id repeats within the batch or
+     *                                  any shard holds it; nothing is added then
+     */
+    public void addAll(List<InMemoryAccountRepository.SimpleAccountProjection> batch) {
+        List<List<InMemoryAccountRepository.SimpleAccountProjection>> parts = partition(shards.length, batch);
+        synchronized (addLock) {
+            InMemoryAccountRepository.requireDistinctIds(batch, id -> findById(id) != null);
+            IntStream.range(0, shards.length).parallel()
+                    .filter(i -> !parts.get(i).isEmpty())
+                    .forEach(i -> shards[i].addAll(parts.get(i)));
+        }
+        indexSuggestions(batch);
+    }
+
+    /**
+     * @return false when no shard holds a live account with this id
+     */
+    public boolean updateBalance(String accountId, long balanceCents) {
+        for (InMemoryAccountRepository shard : shards) {
+            if (shard.updateBalance(accountId, balanceCents)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return false when no shard holds a live account with this id
+     */
+    public boolean remove(String accountId) {
+        for (InMemoryAccountRepository shard : shards) {
+            AccountProjection account = shard.findById(accountId);
+            if (account != null && shard.remove(accountId)) {
+                PrefixTrie names = suggestIndexes.get(SuggestField.CUSTOMER_NAME);
+                PrefixTrie places = suggestIndexes.get(SuggestField.PLACE_OF_BIRTH);
+                synchronized (names) {
+                    names.remove(account.getCustomerName());
+                }
+                synchronized (places) {
+                    places.remove(account.getPlaceOfBirth());
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        int size = 0;
+        for (InMemoryAccountRepository shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Row count per shard, to check the owner hash spreads evenly.
+     */
+    public int[] shardSizes() {
+        return IntStream.range(0, shards.length).map(i -> shards[i].size()).toArray();
+    }
+
+    private InMemoryAccountRepository shardFor(UserId requester) {
+        // without a requester nothing is owned; any shard answers with an empty page
+        return shards[requester == null ? 0 : shardIndex(requester.getValue(), shards.length)];
+    }
+
+    private static int shardIndex(String ownerUserId, int shardCount) {
+        int hash = UserId.of(ownerUserId).getValue().hashCode();
+        // fold the high bits in so similar ids ("user1", "user2") spread out
+        return Math.floorMod(hash ^ (hash >>> 16), shardCount);
+    }
+
+    private List<List<InMemoryAccountRepository.SimpleAccountProjection>> partition(
+            int shardCount, List<InMemoryAccountRepository.SimpleAccountProjection> rows) {
+        List<List<InMemoryAccountRepository.SimpleAccountProjection>> parts = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            parts.add(new ArrayList<>());
+        }
+        for (InMemoryAccountRepository.SimpleAccountProjection row : rows) {
+            parts.get(shardIndex(row.getOwnerUserId(), shardCount)).add(row);
+        }
+        return parts;
+    }
+
+    private void indexSuggestions(List<InMemoryAccountRepository.SimpleAccountProjection> rows) {
+        PrefixTrie names = suggestIndexes.get(SuggestField.CUSTOMER_NAME);
+        PrefixTrie places = suggestIndexes.get(SuggestField.PLACE_OF_BIRTH);
+        synchronized (names) {
+            rows.forEach(row -> names.add(row.getCustomerName()));
+        }
+        synchronized (places) {
+            rows.forEach(row -> places.add(row.getPlaceOfBirth()));
+        }
+    }
+
+    private List<InMemoryAccountRepository.PageWindow> scatter(IntFunction<InMemoryAccountRepository.PageWindow> perShard) {
+        IntStream shardIds = IntStream.range(0, shards.length);
+        return (shards.length > 1 ? shardIds.parallel() : shardIds)
+                .mapToObj(perShard)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Order of the gathered rows: relevance for free-text searches, the sort
+     * key when there is one, otherwise shard by shard.
+     */
+    private static Comparator<Cursor> cursorOrder(PageRequest page, boolean ranked) {
+        Comparator<Cursor> order;
+        if (ranked) {
+            order = Comparator.comparingInt((Cursor c) -> c.score()).reversed();
+        } else if (!page.isSorted()) {
+            order = (a, b) -> 0;
+        } else {
+            switch (page.getSortKey()) {
+                case BALANCE:
+                    order = Comparator.comparingLong((Cursor c) -> c.row().getBalanceCents());
+                    break;
+                case CUSTOMER_NAME:
+                    order = Comparator.comparing((Cursor c) -> c.row().getCustomerName(), String.CASE_INSENSITIVE_ORDER);
+                    break;
+                default:
+                    order = Comparator.comparing((Cursor c) -> c.row().getAccountId(), String.CASE_INSENSITIVE_ORDER);
+                    break;
+            }
+            if (page.getDirection() == SortDirection.DESC) {
+                order = order.reversed();
+            }
+        }
+        return order.thenComparingInt(c -> c.shard);
+    }
+
+    /**
+     * K-way merge of windows that are each already in the given order.
+     */
+    private static List<AccountProjection> merge(List<InMemoryAccountRepository.PageWindow> windows,
+                                                 Comparator<Cursor> order, int limit) {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(Math.max(1, windows.size()), order);
+        for (int shard = 0; shard < windows.size(); shard++) {
+            if (!windows.get(shard).items.isEmpty()) {
+                heads.add(new Cursor(shard, windows.get(shard)));
+            }
+        }
+        List<AccountProjection> merged = new ArrayList<>(Math.min(limit, 64));
+        while (!heads.isEmpty() && merged.size() < limit) {
+            Cursor head = heads.poll();
+            merged.add(head.row());
+            if (++head.index < head.window.items.size()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    private static final class Cursor {
+        private final int shard;
+        private final InMemoryAccountRepository.PageWindow window;
+        private int index;
+
+        private Cursor(int shard, InMemoryAccountRepository.PageWindow window) {
+            this.shard = shard;
+            this.window = window;
+        }
+
+        private AccountProjection row() {
+            return window.items.get(index);
+        }
+
+        private int score() {
+            return window.scores.get(index);
+        }
+    }
+}
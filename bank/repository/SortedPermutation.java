@@ -0,0 +1,173 @@
+package bank.repository;
+
+import java.util.Arrays;
+
+/**
+ * Row ordinals kept sorted by one sort key. Sorted pages walk this
+ * permutation instead of sorting the filtered rows on every query.
+ */
+final class SortedPermutation {
+    /**
+     * Total order over row ordinals (ties must be broken by ordinal).
+     */
+    @FunctionalInterface
+    interface OrdinalComparator {
+        int compare(int left, int right);
+    }
+
+    private final OrdinalComparator comparator;
+    private int[] ordinals = new int[16];
+    private int size;
+
+    SortedPermutation(OrdinalComparator comparator) {
+        this.comparator = comparator;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Ordinal at the given position in ascending order.
+     */
+    int get(int position) {
+        return ordinals[position];
+    }
+
+    /**
+     * Inserts one ordinal at its sorted position (binary search + shift).
+     */
+    void insert(int ordinal) {
+        ensureCapacity(size + 1);
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (comparator.compare(ordinals[mid], ordinal) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        System.arraycopy(ordinals, lo, ordinals, lo + 1, size - lo);
+        ordinals[lo] = ordinal;
+        size++;
+    }
+
+    /**
+     * Removes one ordinal; must be called while the row still compares as it
+     * did when it was inserted (i.e. before its key changes).
+     */
+    void remove(int ordinal) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (comparator.compare(ordinals[mid], ordinal) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        if (lo >= size || ordinals[lo] != ordinal) {
+            throw new IllegalStateException("Ordinal " + ordinal + " is not at its sorted position");
+        }
+        System.arraycopy(ordinals, lo + 1, ordinals, lo, size - lo - 1);
+        size--;
+    }
+
+    /**
+     * Rebuilds the permutation over ordinals [0, count) with one merge sort,
+     * used after bulk loads where repeated inserts would be quadratic.
+     */
+    void rebuild(int count) {
+        int[] next = new int[Math.max(16, count)];
+        for (int i = 0; i < count; i++) {
+            next[i] = i;
+        }
+        int[] scratch = new int[count];
+        mergeSort(next, scratch, 0, count);
+        ordinals = next;
+        size = count;
+    }
+
+    /**
+     * Adds ordinals [from, to), which must follow every ordinal already
+     * present: sorts only the new ones and merges them in, galloping over
+     * the existing runs between them, so a batch of m rows costs about
+     * m log(n / m) comparisons instead of a full rebuild.
+     */
+    void addAll(int from, int to) {
+        int added = to - from;
+        int[] tail = new int[added];
+        for (int i = 0; i < added; i++) {
+            tail[i] = from + i;
+        }
+        mergeSort(tail, new int[added], 0, added);
+        int[] next = new int[Math.max(16, size + added)];
+        int i = 0;
+        int k = 0;
+        for (int ordinal : tail) {
+            // ordinals[i, lo) sort before the new one; widen by doubling steps
+            int lo = i;
+            int step = 1;
+            while (lo + step - 1 < size && comparator.compare(ordinals[lo + step - 1], ordinal) <= 0) {
+                lo += step;
+                step <<= 1;
+            }
+            int hi = Math.min(size, lo + step - 1);
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (comparator.compare(ordinals[mid], ordinal) <= 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            System.arraycopy(ordinals, i, next, k, lo - i);
+            k += lo - i;
+            next[k++] = ordinal;
+            i = lo;
+        }
+        System.arraycopy(ordinals, i, next, k, size - i);
+        ordinals = next;
+        size += added;
+    }
+
+    /**
+     * Takes over an order computed elsewhere (a persisted snapshot) for
+     * ordinals [0, sorted.length); it must match this comparator.
+     */
+    void load(int[] sorted) {
+        ordinals = sorted.length < 16 ? Arrays.copyOf(sorted, 16) : sorted;
+        size = sorted.length;
+    }
+
+    private void mergeSort(int[] a, int[] scratch, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(a, scratch, from, mid);
+        mergeSort(a, scratch, mid, to);
+        if (comparator.compare(a[mid - 1], a[mid]) <= 0) {
+            return;
+        }
+        System.arraycopy(a, from, scratch, from, to - from);
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && comparator.compare(scratch[i], scratch[j]) <= 0)) {
+                a[k] = scratch[i++];
+            } else {
+                a[k] = scratch[j++];
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > ordinals.length) {
+            ordinals = Arrays.copyOf(ordinals, Math.max(capacity, ordinals.length * 2));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package bank.repository;
+
+import bank.contracts.AccountRepository.OwnershipScope;
+import bank.dto.AccountSearchFilters;
+import bank.dto.AccountType;
+
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * A registered filter that is evaluated against every account change; see
+ * {@link StandingQueryRegistry}.
+ */
+public final class StandingQuery {
+    private final StandingQueryRegistry registry;
+    private final String name;
+    private final AccountFilter filter;
+    // index keys, copied out of the filters at registration
+    private final AccountType accountType;
+    private final String placeOfBirth;
+    private final Consumer<StandingQueryMatch> callback;
+    private volatile boolean active = true;
+
+    StandingQuery(StandingQueryRegistry registry, String name, AccountSearchFilters filters,
+                  Consumer<StandingQueryMatch> callback) {
+        this.registry = registry;
+        this.name = name;
+        this.filter = AccountFilter.of(filters, null, OwnershipScope.ANY);
+        this.accountType = filters.getAccountType();
+        this.placeOfBirth = filters.hasPlaceOfBirth() ? filters.getPlaceOfBirth().toLowerCase(Locale.ROOT) : null;
+        this.callback = callback;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Stops delivery; matches already handed to the executor may still arrive.
+     */
+    public void cancel() {
+        if (active) {
+            active = false;
+            registry.unregister(this);
+        }
+    }
+
+    AccountFilter filter() {
+        return filter;
+    }
+
+    Consumer<StandingQueryMatch> callback() {
+        return callback;
+    }
+
+    /**
+     * Index test on the account type and place only; the full filter still runs.
+     */
+    boolean mayMatch(AccountType type, String place) {
+        if (accountType != null && accountType != type) {
+            return false;
+        }
+        return placeOfBirth == null || (place != null && place.toLowerCase(Locale.ROOT).contains(placeOfBirth));
+    }
+}
@@ -0,0 +1,110 @@
+package bank.repository;
+
+import bank.contracts.AccountProjection;
+
+/**
+ * One account change that moved a row into, within or out of a standing
+ * query's result set, or a GAP notice when changes went unevaluated.
+ */
+public final class StandingQueryMatch {
+    public enum Transition {
+        /** The row did not match before the change (or is new) and matches now. */
+        ENTERED,
+        /** The row matched before and after the change. */
+        CHANGED,
+        /** The row matched before the change and no longer does (or was removed). */
+        LEFT,
+        /**
+         * The registry fell behind the change feed's retention; changes from
+         * getSkippedFromVersion() through getVersion() were not evaluated, so
+         * the caller has to re-run the query (e.g. as a search) to catch up.
+         * Carries no rows.
+         */
+        GAP
+    }
+
+    private final String queryName;
+    private final Transition transition;
+    private final long version;
+    private final AccountProjection before;
+    private final AccountProjection after;
+    private final long skippedFromVersion;
+
+    StandingQueryMatch(String queryName, Transition transition, long version,
+                       AccountProjection before, AccountProjection after) {
+        this.queryName = queryName;
+        this.transition = transition;
+        this.version = version;
+        this.before = before;
+        this.after = after;
+        this.skippedFromVersion = -1;
+    }
+
+    private StandingQueryMatch(String queryName, long skippedFromVersion, long skippedToVersion) {
+        this.queryName = queryName;
+        this.transition = Transition.GAP;
+        this.version = skippedToVersion;
+        this.before = null;
+        this.after = null;
+        this.skippedFromVersion = skippedFromVersion;
+    }
+
+    static StandingQueryMatch gap(String queryName, long skippedFromVersion, long skippedToVersion) {
+        return new StandingQueryMatch(queryName, skippedFromVersion, skippedToVersion);
+    }
+
+    public String getQueryName() {
+        return queryName;
+    }
+
+    public Transition getTransition() {
+        return transition;
+    }
+
+    /**
+     * Change feed version of the write that produced this match (for a GAP,
+     * the last skipped version).
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Row before the change (null for inserts).
+     */
+    public AccountProjection getBefore() {
+        return before;
+    }
+
+    /**
+     * Row after the change (null for removals).
+     */
+    public AccountProjection getAfter() {
+        return after;
+    }
+
+    /**
+     * First skipped change feed version of a GAP, -1 for every other transition.
+     */
+    public long getSkippedFromVersion() {
+        return skippedFromVersion;
+    }
+
+    /**
+     * Account the change touched, null for a GAP.
+     */
+    public String getAccountId() {
+        if (after != null) {
+            return after.getAccountId();
+        }
+        return before != null ? before.getAccountId() : null;
+    }
+
+    @Override
+    public String toString() {
+        if (transition == Transition.GAP) {
+            return queryName + " GAP @" + skippedFromVersion + "-" + version;
+        }
+        return queryName + " " + transition + " " + getAccountId() + " @" + version;
+    }
+}
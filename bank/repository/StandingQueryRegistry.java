@@ -0,0 +1,268 @@
+package bank.repository;
+
+import bank.cdc.ChangeEvent;
+import bank.cdc.ChangeFeed;
+import bank.cdc.ChangeSubscription;
+import bank.contracts.AccountProjection;
+import bank.contracts.AccountRepository;
+import bank.dto.AccountSearchFilters;
+import bank.dto.AccountType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Standing queries over an account repository's change feed. One
+ * dispatcher thread reads the feed and, for every change, looks up the
+ * queries that can match the row before and after it; matches are handed to
+ * the callbacks on a separate executor, so writers never wait for either.
+ *
+ * The lookup is a predicate index keyed by (account type, place of birth
+ * dictionary id): the first row with a given key runs the cheap type and
+ * place tests over all queries once and caches the survivors, sorted by
+ * their lower balance bound so a row stops at the first query it is below.
+ * Only those candidates run the full filter. The cache is rebuilt lazily
+ * whenever a query is registered or cancelled.
+ *
+ * If the dispatcher falls behind the feed's retention (for example after a
+ * bulk load larger than it), it resumes at the head of the feed and every
+ * active query receives a GAP match naming the versions it did not see.
+ */
+public final class StandingQueryRegistry implements AutoCloseable {
+    private static final int BUFFER = 4096;
+    private static final StandingQuery[] NONE = new StandingQuery[0];
+
+    private final ChangeFeed<AccountProjection> feed;
+    private final ExecutorService callbacks;
+    private final Thread dispatcher;
+    private ChangeSubscription<AccountProjection> subscription;
+    private volatile Index index = new Index(new ArrayList<>());
+    private volatile boolean running = true;
+    // written by the dispatcher thread only
+    private volatile long processedVersion;
+    private volatile long evaluations;
+    private volatile long resyncs;
+
+    public StandingQueryRegistry(AccountRepository repository) {
+        this.feed = repository.changes();
+        this.subscription = feed.subscribe("standing-queries", BUFFER);
+        this.processedVersion = subscription.lastDeliveredVersion();
+        this.callbacks = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "standing-query-callbacks");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dispatcher = new Thread(this::dispatch, "standing-query-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Registers a query for changes published from now on. Callbacks run on
+     * one shared thread, in feed order.
+     *
+     * @throws IllegalArgumentException for a free-text query or a fuzzy name,
+     *                                  which only the search indexes can answer
+     */
+    public StandingQuery register(String name, AccountSearchFilters filters, Consumer<StandingQueryMatch> callback) {
+        if (name == null || filters == null || callback == null) {
+            throw new IllegalArgumentException("name, filters and callback are required");
+        }
+        if (filters.hasQuery() || (filters.hasCustomerName() && filters.isCustomerNameFuzzy())) {
+            throw new IllegalArgumentException("Standing queries do not support free-text or fuzzy name filters");
+        }
+        StandingQuery query = new StandingQuery(this, name, filters, callback);
+        synchronized (this) {
+            List<StandingQuery> queries = new ArrayList<>(index.queries);
+            queries.add(query);
+            index = new Index(queries);
+        }
+        return query;
+    }
+
+    synchronized void unregister(StandingQuery query) {
+        List<StandingQuery> queries = new ArrayList<>(index.queries);
+        if (queries.remove(query)) {
+            index = new Index(queries);
+        }
+    }
+
+    public int size() {
+        return index.queries.size();
+    }
+
+    /**
+     * Feed version of the last change the dispatcher has evaluated.
+     */
+    public long processedVersion() {
+        return processedVersion;
+    }
+
+    /**
+     * Full filter evaluations so far (index candidates, not registered queries, per change).
+     */
+    public long evaluations() {
+        return evaluations;
+    }
+
+    /**
+     * Times the dispatcher fell behind the feed retention and skipped ahead;
+     * changes in the skipped range were not evaluated, and each query was
+     * sent a GAP match for it.
+     */
+    public long resyncs() {
+        return resyncs;
+    }
+
+    /**
+     * Blocks until every change published so far has been evaluated.
+     *
+     * @return false on timeout
+     */
+    public boolean awaitProcessed(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        long target = feed.latestVersion();
+        while (processedVersion < target) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        dispatcher.interrupt();
+        callbacks.shutdown();
+    }
+
+    private void dispatch() {
+        try {
+            while (running) {
+                ChangeEvent<AccountProjection> event;
+                try {
+                    event = subscription.poll(100, TimeUnit.MILLISECONDS);
+                } catch (IllegalStateException lost) {
+                    subscription.close();
+                    subscription = feed.subscribe("standing-queries", BUFFER);
+                    long skippedFrom = processedVersion + 1;
+                    long resumedAfter = subscription.lastDeliveredVersion();
+                    for (StandingQuery query : index.queries) {
+                        deliver(query, StandingQueryMatch.gap(query.getName(), skippedFrom, resumedAfter));
+                    }
+                    processedVersion = resumedAfter;
+                    resyncs++;
+                    continue;
+                }
+                if (event != null) {
+                    evaluate(event);
+                    processedVersion = event.getVersion();
+                }
+            }
+        } catch (InterruptedException stopped) {
+            Thread.currentThread().interrupt();
+        } finally {
+            subscription.close();
+        }
+    }
+
+    private void evaluate(ChangeEvent<AccountProjection> event) {
+        Index current = index;
+        if (current.queries.isEmpty()) {
+            return;
+        }
+        List<StandingQuery> before = matching(current, event.getBefore());
+        List<StandingQuery> after = matching(current, event.getAfter());
+        for (StandingQuery query : after) {
+            boolean wasMatching = before.remove(query);
+            deliver(query, new StandingQueryMatch(query.getName(),
+                    wasMatching ? StandingQueryMatch.Transition.CHANGED : StandingQueryMatch.Transition.ENTERED,
+                    event.getVersion(), event.getBefore(), event.getAfter()));
+        }
+        for (StandingQuery query : before) {
+            deliver(query, new StandingQueryMatch(query.getName(), StandingQueryMatch.Transition.LEFT,
+                    event.getVersion(), event.getBefore(), event.getAfter()));
+        }
+    }
+
+    private List<StandingQuery> matching(Index current, AccountProjection row) {
+        List<StandingQuery> hits = new ArrayList<>();
+        if (!(row instanceof StoredAccount)) {
+            return hits;
+        }
+        StoredAccount acc = (StoredAccount) row;
+        long balance = acc.getBalanceCents();
+        long evaluated = 0;
+        for (StandingQuery query : current.candidates(acc)) {
+            if (query.filter().minBalanceCents() > balance) {
+                // candidates are sorted by lower bound, none of the rest can match
+                break;
+            }
+            evaluated++;
+            if (query.filter().test(acc)) {
+                hits.add(query);
+            }
+        }
+        evaluations += evaluated;
+        return hits;
+    }
+
+    private void deliver(StandingQuery query, StandingQueryMatch match) {
+        if (!query.isActive()) {
+            return;
+        }
+        callbacks.execute(() -> {
+            if (query.isActive()) {
+                query.callback().accept(match);
+            }
+        });
+    }
+
+    /**
+     * Immutable query list plus the candidate cache derived from it; the
+     * cache is only touched by the dispatcher thread.
+     */
+    private static final class Index {
+        private final List<StandingQuery> queries;
+        private final Map<Long, StandingQuery[]> byTypeAndPlace = new HashMap<>();
+
+        private Index(List<StandingQuery> queries) {
+            this.queries = queries;
+        }
+
+        private StandingQuery[] candidates(StoredAccount acc) {
+            AccountType type = acc.getAccountType();
+            int placeId = acc.placeOfBirthId();
+            long key = ((long) (type == null ? 0 : type.ordinal() + 1) << 32) | (placeId & 0xffffffffL);
+            StandingQuery[] bucket = byTypeAndPlace.get(key);
+            if (bucket == null) {
+                bucket = build(type, AccountDictionaries.places().value(placeId));
+                byTypeAndPlace.put(key, bucket);
+            }
+            return bucket;
+        }
+
+        private StandingQuery[] build(AccountType type, String place) {
+            List<StandingQuery> bucket = new ArrayList<>();
+            for (StandingQuery query : queries) {
+                if (query.mayMatch(type, place)) {
+                    bucket.add(query);
+                }
+            }
+            if (bucket.isEmpty()) {
+                return NONE;
+            }
+            bucket.sort(Comparator.comparingLong(query -> query.filter().minBalanceCents()));
+            return bucket.toArray(NONE);
+        }
+    }
+}
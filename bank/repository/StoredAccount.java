@@ -0,0 +1,40 @@
+package bank.repository;
+
+import bank.contracts.AccountProjection;
+
+/**
+ * Account row as the repositories keep it: the projection plus the encoded
+ * columns that {@link AccountFilter} and the facet counters work on, so the
+ * heap rows and the rows of a mapped store file are filtered the same way.
+ */
+abstract class StoredAccount implements AccountProjection {
+    /**
+     * Account number digits, see AccountNumbers; INVALID for a heap row
+     * created with a number that is not exactly 16 digits.
+     */
+    abstract long packedAccountNumber();
+
+    /**
+     * The packed number, for stores that persist numbers only in that form.
+     *
+     * @throws IllegalArgumentException when the row's number is not exactly 16 digits
+     */
+    final long persistedAccountNumber() {
+        long packed = packedAccountNumber();
+        if (packed == AccountNumbers.INVALID) {
+            throw new IllegalArgumentException("Account " + getAccountId() + " cannot be stored: account number must have "
+                    + AccountNumbers.DIGITS + " digits: " + getAccountNumber());
+        }
+        return packed;
+    }
+
+    /**
+     * Id in AccountDictionaries#customerNames.
+     */
+    abstract int customerNameId();
+
+    /**
+     * Id in AccountDictionaries#places.
+     */
+    abstract int placeOfBirthId();
+}
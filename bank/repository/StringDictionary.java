@@ -0,0 +1,85 @@
+package bank.repository;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only id &lt;-&gt; string table for dictionary-encoded columns.
+ * Each distinct value is stored once and rows keep a dense int id.
+ * Lookups by id are lock-free; interning a new value takes a short lock.
+ */
+public final class StringDictionary {
+    /**
+     * Id used for null values.
+     */
+    public static final int NULL_ID = -1;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[64];
+    private volatile int size;
+
+    public int intern(String value) {
+        if (value == null) {
+            return NULL_ID;
+        }
+        Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(value);
+            if (id != null) {
+                return id;
+            }
+            int next = size;
+            String[] current = values;
+            if (next == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            current[next] = value;
+            values = current;
+            size = next + 1;
+            ids.put(value, next);
+            return next;
+        }
+    }
+
+    public String value(int id) {
+        return id == NULL_ID ? null : values[id];
+    }
+
+    /**
+     * Id of an already interned value, or NULL_ID.
+     */
+    public int idOf(String value) {
+        Integer id = value == null ? null : ids.get(value);
+        return id == null ? NULL_ID : id;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Rough heap footprint of the distinct strings (compact Latin-1 layout),
+     * ignoring the lookup map.
+     */
+    public long estimatedBytes() {
+        long bytes = (long) values.length * 4;
+        for (int i = 0; i < size; i++) {
+            bytes += estimatedStringBytes(values[i]);
+        }
+        return bytes;
+    }
+
+    /**
+     * 24-byte String header plus a 16-byte array header and one byte per
+     * Latin-1 character, rounded up to 8.
+     */
+    public static long estimatedStringBytes(String value) {
+        if (value == null) {
+            return 0;
+        }
+        return 24 + ((16 + value.length() + 7) & ~7L);
+    }
+}
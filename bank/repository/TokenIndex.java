@@ -0,0 +1,153 @@
+package bank.repository;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Inverted index for free-text queries: one sorted term dictionary per field
+ * with row postings. A query token is resolved against the dictionaries
+ * (exact, prefix range, and substring for the small name/place dictionaries),
+ * never against the rows themselves.
+ */
+final class TokenIndex {
+    static final int EXACT = 4;
+    static final int PREFIX = 2;
+    static final int SUBSTRING = 1;
+
+    enum Field {
+        ACCOUNT(3, false),
+        NAME(2, true),
+        PLACE(1, true);
+
+        private final int weight;
+        private final boolean substring;
+
+        Field(int weight, boolean substring) {
+            this.weight = weight;
+            this.substring = substring;
+        }
+    }
+
+    private final Map<Field, NavigableMap<String, IntList>> terms = new EnumMap<>(Field.class);
+
+    TokenIndex() {
+        for (Field field : Field.values()) {
+            terms.put(field, new TreeMap<>());
+        }
+    }
+
+    void add(int ordinal, String accountId, String accountNumber, String customerName, String placeOfBirth) {
+        if (accountId != null) {
+            post(Field.ACCOUNT, accountId, ordinal);
+        }
+        if (accountNumber != null) {
+            StringBuilder digits = new StringBuilder(16);
+            for (String group : split(accountNumber)) {
+                post(Field.ACCOUNT, group, ordinal);
+                digits.append(group);
+            }
+            post(Field.ACCOUNT, digits.toString(), ordinal);
+        }
+        for (String word : split(customerName)) {
+            post(Field.NAME, word, ordinal);
+        }
+        for (String word : split(placeOfBirth)) {
+            post(Field.PLACE, word, ordinal);
+        }
+    }
+
+    /**
+     * Scores every row hit by one query token. For each row the best
+     * weight * match-kind over all fields is kept in tokenScores; rows seen
+     * for the first time are appended to touched.
+     */
+    void score(String token, int[] tokenScores, IntList touched) {
+        String key = token.toLowerCase(Locale.ROOT);
+        for (Field field : Field.values()) {
+            NavigableMap<String, IntList> dictionary = terms.get(field);
+            for (Map.Entry<String, IntList> term : dictionary.tailMap(key, true).entrySet()) {
+                if (!term.getKey().startsWith(key)) {
+                    break;
+                }
+                int kind = term.getKey().length() == key.length() ? EXACT : PREFIX;
+                apply(term.getValue(), field.weight * kind, tokenScores, touched);
+            }
+            if (field.substring) {
+                for (Map.Entry<String, IntList> term : dictionary.entrySet()) {
+                    String word = term.getKey();
+                    if (!word.startsWith(key) && word.contains(key)) {
+                        apply(term.getValue(), field.weight * SUBSTRING, tokenScores, touched);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Score of a lower-cased query token against one row's account id and
+     * number, equal to what {@link #score} gives that row through the index.
+     * Used where rows are scanned instead of indexed (mapped store files).
+     */
+    static int scoreAccount(String key, String accountId, String accountNumber) {
+        int best = accountId == null ? 0 : termScore(Field.ACCOUNT, key, accountId.toLowerCase(Locale.ROOT));
+        if (accountNumber != null) {
+            StringBuilder digits = new StringBuilder(16);
+            for (String group : split(accountNumber)) {
+                best = Math.max(best, termScore(Field.ACCOUNT, key, group));
+                digits.append(group);
+            }
+            best = Math.max(best, termScore(Field.ACCOUNT, key, digits.toString()));
+        }
+        return best;
+    }
+
+    /**
+     * Score of a lower-cased query token against the words of one name or
+     * place value; see {@link #scoreAccount}.
+     */
+    static int scoreWords(Field field, String key, String text) {
+        int best = 0;
+        for (String word : split(text)) {
+            best = Math.max(best, termScore(field, key, word));
+        }
+        return best;
+    }
+
+    private static int termScore(Field field, String key, String term) {
+        if (term.startsWith(key)) {
+            return field.weight * (term.length() == key.length() ? EXACT : PREFIX);
+        }
+        return field.substring && term.contains(key) ? field.weight * SUBSTRING : 0;
+    }
+
+    static String[] split(String text) {
+        if (text == null || text.isBlank()) {
+            return new String[0];
+        }
+        return text.trim().toLowerCase(Locale.ROOT).split("\\s+");
+    }
+
+    private void post(Field field, String term, int ordinal) {
+        IntList rows = terms.get(field).computeIfAbsent(term.toLowerCase(Locale.ROOT), k -> new IntList());
+        // a row may repeat a term (e.g. "1111 1111"); keep postings distinct
+        if (rows.size() == 0 || rows.get(rows.size() - 1) != ordinal) {
+            rows.add(ordinal);
+        }
+    }
+
+    private static void apply(IntList rows, int score, int[] tokenScores, IntList touched) {
+        for (int i = 0; i < rows.size(); i++) {
+            int ordinal = rows.get(i);
+            int current = tokenScores[ordinal];
+            if (current == 0) {
+                touched.add(ordinal);
+            }
+            if (score > current) {
+                tokenScores[ordinal] = score;
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package bank.repository;
+
+/**
+ * Bounded min-heap of row ordinals: keeps the k largest ordinals under the
+ * comparator in O(k) memory, O(log k) per offer.
+ */
+final class TopKSelector {
+    private final SortedPermutation.OrdinalComparator comparator;
+    private final int[] heap;
+    private int size;
+
+    TopKSelector(int k, SortedPermutation.OrdinalComparator comparator) {
+        this.comparator = comparator;
+        this.heap = new int[k];
+    }
+
+    void offer(int ordinal) {
+        if (size < heap.length) {
+            heap[size] = ordinal;
+            siftUp(size++);
+        } else if (heap.length > 0 && comparator.compare(ordinal, heap[0]) > 0) {
+            heap[0] = ordinal;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Folds another selector into this one (used to combine per-chunk results).
+     */
+    TopKSelector merge(TopKSelector other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.heap[i]);
+        }
+        return this;
+    }
+
+    /**
+     * Drains the selector and returns the selected ordinals, largest first.
+     */
+    int[] drainDescending() {
+        int[] out = new int[size];
+        for (int i = out.length - 1; i >= 0; i--) {
+            out[i] = heap[0];
+            heap[0] = heap[--size];
+            if (size > 0) {
+                siftDown(0);
+            }
+        }
+        return out;
+    }
+
+    private void siftUp(int i) {
+        int v = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (comparator.compare(v, heap[parent]) >= 0) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = v;
+    }
+
+    private void siftDown(int i) {
+        int v = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && comparator.compare(heap[right], heap[child]) < 0) {
+                child = right;
+            }
+            if (comparator.compare(v, heap[child]) <= 0) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = v;
+    }
+}
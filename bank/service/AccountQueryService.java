@@ -55,14 +55,14 @@ public class AccountQueryService {
         Page<AccountProjection> projections = accountRepository.search(requester, new AccountSearchFilters(), scope, pageRequest);
         MaskingPolicy policy = authzService.maskingPolicyFor(requester);
         List<AccountRow> rows = projections.getItems().stream()
-                .map(p -> new AccountRow(
+                .map(p -> AccountRow.ofCents(
                         p.getAccountId(),
                         policy.maskAccountNumber(p.getAccountNumber()),
                         p.getAccountType(),
                         p.getCustomerName(),
-                        p.getBalance()))
+                        p.getBalanceCents()))
                 .collect(Collectors.toList());
 
-        return new Page<>(rows, projections.getPage(), projections.getSize(), projections.getTotalItems());
+        return new Page<>(rows, projections.getPage(), projections.getSize(), projections.getTotalItems(), projections.getFacets());
     }
 }
@@ -7,6 +7,7 @@ import bank.contracts.AuthzService;
 import bank.contracts.MaskingPolicy;
 import bank.contracts.RoleRepository;
 import bank.dto.UserId;
+import bank.dto.UserIdRegistry;
 import bank.service.policy.BasicMaskingPolicy;
 
 /**
@@ -64,7 +65,7 @@ public class DefaultAuthzService implements AuthzService {
         }
         if (hasRole(requester, ROLE_CUSTOMER)) {
             AccountProjection projection = accountRepository.findById(accountId);
-            boolean allowed = projection != null && requester.getValue().equalsIgnoreCase(projection.getOwnerUserId());
+            boolean allowed = projection != null && owns(requester, projection);
             if (!allowed) {
                 auditLogRepository.record("Denied account access for user " + requester + " on account " + accountId);
             }
@@ -74,6 +75,19 @@ public class DefaultAuthzService implements AuthzService {
         return false;
     }
 
+    /**
+     * Compares registry handles; the requester's is resolved again in case it
+     * was built before registration. An id that is still unregistered owns
+     * nothing, unless the projection's owner is the same unregistered id.
+     */
+    private static boolean owns(UserId requester, AccountProjection projection) {
+        int handle = requester.resolvedHandle();
+        if (handle != UserIdRegistry.UNREGISTERED) {
+            return handle == projection.getOwnerHandle();
+        }
+        return requester.getValue().equals(UserId.of(projection.getOwnerUserId()).getValue());
+    }
+
     private boolean hasRole(UserId requester, String role) {
         return requester != null && roleRepository.hasRole(requester, role);
     }
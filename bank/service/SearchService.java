@@ -67,7 +67,45 @@ public class SearchService {
         logPerformance(duration, filters, projections.getTotalItems());
 
         // We then return the paginated results with the same metadata
-        return new Page<>(rows, projections.getPage(), projections.getSize(), projections.getTotalItems());
+        return new Page<>(rows, projections.getPage(), projections.getSize(), projections.getTotalItems(), projections.getFacets());
+    }
+
+    /*
+     * The following returns the k highest-balance accounts matching the filters
+     * 
+     * Used by risk reporting ("top 100 by balance for place X / type Y").
+     * Ownership scope and masking follow the same rules as searchAccounts.
+     * 
+     * @param requester -> user performing the query
+     * @param filters -> search criteria
+     * @param k -> number of accounts to return
+     * @return up to k account rows, highest balance first
+     */
+    public List<AccountRow> topAccountsByBalance(UserId requester, AccountSearchFilters filters, int k) {
+        long startTime = System.currentTimeMillis();
+
+        AccountRepository.OwnershipScope scope = determineOwnershipScope(requester);
+        List<AccountProjection> projections = repository.topByBalance(requester, filters, scope, k);
+        List<AccountRow> rows = mapToRows(projections, authzService.maskingPolicyFor(requester));
+
+        long duration = System.currentTimeMillis() - startTime;
+        logPerformance(duration, filters, rows.size());
+        return rows;
+    }
+
+    /*
+     * The following returns autocomplete suggestions for the teller search bar
+     * 
+     * Served from a prefix index, so it is cheap enough to call per keystroke
+     * (no performance logging here on purpose).
+     * 
+     * @param field -> field being typed
+     * @param prefix -> text typed so far
+     * @param limit -> maximum number of suggestions
+     * @return suggestions, most frequent first
+     */
+    public List<Suggestion> suggest(SuggestField field, String prefix, int limit) {
+        return repository.suggest(field, prefix, limit);
     }
 
     /*
@@ -99,12 +137,12 @@ public class SearchService {
      * @return the list of account rows for display
      */
     private List<AccountRow> mapToRows(List<AccountProjection> projections, MaskingPolicy policy) {
-        return projections.stream().map(proj -> new AccountRow(
+        return projections.stream().map(proj -> AccountRow.ofCents(
             proj.getAccountId(), 
             policy.maskAccountNumber(proj.getAccountNumber()),
             proj.getAccountType(),
             proj.getCustomerName(),
-            proj.getBalance())).collect(Collectors.toList());
+            proj.getBalanceCents())).collect(Collectors.toList());
     }
 
     /*
@@ -139,12 +177,31 @@ public class SearchService {
         
         // Add account number filter if present
         if (filters.hasAccountNumber()) {
-            sb.append("accountNumber=").append(filters.getAccountNumber()).append(" ");
+            sb.append("accountNumber=").append(filters.getAccountNumber());
+            if (filters.getAccountNumberMatch() != AccountNumberMatch.CONTAINS) {
+                sb.append("/").append(filters.getAccountNumberMatch());
+            }
+            sb.append(" ");
         }
         
         // Add customer name filter if present
         if (filters.hasCustomerName()) {
-            sb.append("customerName=").append(filters.getCustomerName()).append(" ");
+            sb.append("customerName=").append(filters.getCustomerName());
+            if (filters.isCustomerNameFuzzy()) {
+                sb.append("~").append(filters.getCustomerNameMaxEdits());
+            }
+            sb.append(" ");
+        }
+        
+        // Add balance range if present
+        if (filters.hasBalanceRange()) {
+            sb.append("balanceCents=[").append(filters.getMinBalanceCents() == null ? "" : filters.getMinBalanceCents())
+                    .append("..").append(filters.getMaxBalanceCents() == null ? "" : filters.getMaxBalanceCents()).append("] ");
+        }
+
+        // Add free-text query if present
+        if (filters.hasQuery()) {
+            sb.append("query=\"").append(filters.getQuery()).append("\" ");
         }
         
         // Add account type filter if present
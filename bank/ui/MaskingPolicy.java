@@ -1,5 +1,7 @@
 package bank.ui;
 
+import bank.money.Money;
+
 public class MaskingPolicy {
 
     /**
@@ -8,9 +10,16 @@ public class MaskingPolicy {
      * - Teller/Admin: show full balance
      */
     public static String maskBalance(double balance, String role) {
+        return maskBalance(Money.toCents(balance), role);
+    }
+
+    /**
+     * Same rule on fixed-point cents, formatted without String.format.
+     */
+    public static String maskBalance(long balanceCents, String role) {
         if ("CUSTOMER".equalsIgnoreCase(role)) {
-            return "****" + String.format("%.2f", balance);
+            return Money.appendAmount(new StringBuilder(24).append("****"), balanceCents).toString();
         }
-        return String.format("%.2f", balance);
+        return Money.format(balanceCents);
     }
 }
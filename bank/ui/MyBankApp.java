@@ -10,6 +10,7 @@ import bank.dto.AccountType;
 import bank.dto.Page;
 import bank.dto.PageRequest;
 import bank.dto.UserId;
+import bank.money.Money;
 import javafx.application.Application;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -23,7 +24,6 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 
-import java.util.Locale;
 import java.util.stream.Collectors;
 
 /**
@@ -98,12 +98,12 @@ public class MyBankApp extends Application {
     }
 
     private void routeByUser(String userId, Stage stage, Label errorLabel) {
-        String id = userId == null ? "" : userId.trim().toLowerCase(Locale.ROOT);
-        if (id.isEmpty()) {
+        UserId id = UserId.of(userId);
+        if (id.getValue().isEmpty()) {
             errorLabel.setText("Please enter a user ID.");
             return;
         }
-        var roles = roleRepository.rolesFor(new UserId(id));
+        var roles = roleRepository.rolesFor(id);
         if (roles.isEmpty()) {
             errorLabel.setText("Unknown user ID. Please try again.");
             return;
@@ -196,14 +196,14 @@ public class MyBankApp extends Application {
         logView.setPrefHeight(180);
 
         assignBtn.setOnAction(e -> {
-            String userId = userIdField.getText().trim().toLowerCase(Locale.ROOT);
+            UserId userId = UserId.of(userIdField.getText());
             String role = roleBox.getValue();
-            if (userId.isEmpty()) {
+            if (userId.getValue().isEmpty()) {
                 logView.getItems().add("Please enter a user ID before assigning.");
                 return;
             }
             try {
-                roleAdminController.assignRole(new UserId(userContext.userId()), new UserId(userId), role);
+                roleAdminController.assignRole(userContext.userId(), userId, role);
                 logView.getItems().add("Assigned role " + role + " to user " + userId + ".");
                 refreshRoles(logView, userId);
             } catch (Exception ex) {
@@ -212,13 +212,13 @@ public class MyBankApp extends Application {
         });
 
         removeBtn.setOnAction(e -> {
-            String userId = userIdField.getText().trim().toLowerCase(Locale.ROOT);
-            if (userId.isEmpty()) {
+            UserId userId = UserId.of(userIdField.getText());
+            if (userId.getValue().isEmpty()) {
                 logView.getItems().add("Please enter a user ID before removing.");
                 return;
             }
             try {
-                roleAdminController.removeRole(new UserId(userContext.userId()), new UserId(userId), roleBox.getValue());
+                roleAdminController.removeRole(userContext.userId(), userId, roleBox.getValue());
                 logView.getItems().add("Removed role " + roleBox.getValue() + " from user " + userId + ".");
                 refreshRoles(logView, userId);
             } catch (Exception ex) {
@@ -275,7 +275,7 @@ public class MyBankApp extends Application {
     private ObservableList<AccountRow> loadCustomerAccounts() {
         try {
             Page<bank.dto.AccountRow> page = accountViewController.listAccounts(
-                    new UserId(userContext.userId()),
+                    userContext.userId(),
                     new PageRequest(0, 50));
             return mapRows(page);
         } catch (Exception ex) {
@@ -299,7 +299,7 @@ public class MyBankApp extends Application {
                 }
             }
             Page<bank.dto.AccountRow> page = searchController.search(
-                    new UserId(userContext.userId()),
+                    userContext.userId(),
                     filters,
                     new PageRequest(0, 50));
             return mapRows(page);
@@ -314,15 +314,15 @@ public class MyBankApp extends Application {
                         .map(r -> new AccountRow(
                                 r.getMaskedAccountNumber(),
                                 r.getAccountType().name(),
-                                String.format("$%.2f", r.getBalance()),
+                                Money.formatDollars(r.getBalanceCents()),
                                 r.getCustomerName()))
                         .collect(Collectors.toList())
         );
     }
 
-    private void refreshRoles(ListView<String> logView, String userId) {
+    private void refreshRoles(ListView<String> logView, UserId userId) {
         try {
-            var roles = roleAdminController.rolesFor(new UserId(userContext.userId()), new UserId(userId));
+            var roles = roleAdminController.rolesFor(userContext.userId(), userId);
             logView.getItems().add("Roles for " + userId + ": " + roles);
         } catch (Exception ex) {
             logView.getItems().add("Error: " + ex.getMessage());
@@ -1,11 +1,13 @@
 package bank.ui;
 
+import bank.dto.UserId;
+
 public class UserContext {
 
     private final String role;
-    private final String userId;
+    private final UserId userId;
 
-    public UserContext(String role, String userId) {
+    public UserContext(String role, UserId userId) {
         this.role = role;
         this.userId = userId;
     }
@@ -14,7 +16,7 @@ public class UserContext {
         return role;
     }
 
-    public String userId() {
+    public UserId userId() {
         return userId;
     }
 }
@@ -0,0 +1,32 @@
+package bank.wal;
+
+/**
+ * When {@link WriteAheadLog#append} returns relative to the fsync of the record.
+ * Measured with bank.perf.WalDurabilityBenchmark; fsync cost dominates, so the
+ * modes differ mostly in how many records share one fsync.
+ */
+public enum Durability {
+    /**
+     * Every record gets its own fsync before the caller returns. Nothing
+     * acknowledged is ever lost, but throughput is capped at one record per
+     * fsync (a few hundred to a few thousand per second on typical disks)
+     * however many writers there are.
+     */
+    PER_OP,
+
+    /**
+     * Group commit: the writer thread drains every record queued while the
+     * previous fsync was running, writes them together and fsyncs once. Callers
+     * still return only after their record is on disk, so the guarantee is the
+     * same as PER_OP; latency is about one to two fsyncs, and throughput grows
+     * with the number of concurrent writers.
+     */
+    BATCHED,
+
+    /**
+     * Callers return as soon as the record is queued; the writer fsyncs at
+     * most every flush interval. Highest throughput and lowest latency, but a
+     * crash loses the records acknowledged since the last fsync.
+     */
+    ASYNC
+}
@@ -0,0 +1,32 @@
+package bank.wal;
+
+/**
+ * One logged mutation. The type and payload encoding belong to the caller;
+ * the log only frames, checksums and orders them.
+ */
+public final class WalRecord {
+    private final long lsn;
+    private final byte type;
+    private final byte[] payload;
+
+    WalRecord(long lsn, byte type, byte[] payload) {
+        this.lsn = lsn;
+        this.type = type;
+        this.payload = payload;
+    }
+
+    /**
+     * Log sequence number: starts at 1 and has no gaps.
+     */
+    public long getLsn() {
+        return lsn;
+    }
+
+    public byte getType() {
+        return type;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+}
@@ -0,0 +1,507 @@
+package bank.wal;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of mutations, written by a single writer thread.
+ * <p>
+ * The log is a directory of segment files named after their first LSN
+ * ({@code wal-00000000000000000001.log}). A segment starts with a magic and
+ * format version, followed by records framed as
+ * {@code [int payload length][int CRC32][long lsn][byte type][payload]}, the
+ * CRC covering lsn, type and payload. Callers queue records; the writer
+ * drains everything queued, writes it with one channel write and fsyncs
+ * according to the {@link Durability} mode, so concurrent writers share
+ * fsyncs (group commit).
+ * <p>
+ * Opening the log replays it: every record is checked for its CRC and for
+ * consecutive LSNs. A torn or corrupt record at the end of the last segment
+ * is what a crash mid-write leaves behind, so the segment is truncated there;
+ * damage anywhere else fails the open.
+ * <p>
+ * After a checkpoint has captured everything up to some LSN, {@link #rollover}
+ * starts a fresh segment and {@link #truncateBefore} deletes the segments
+ * that only hold older records.
+ */
+public final class WriteAheadLog implements AutoCloseable {
+    public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+    public static final long DEFAULT_FLUSH_MILLIS = 10;
+    static final int SEGMENT_MAGIC = 0x4C41574B; // "KWAL"
+    static final int FORMAT_VERSION = 1;
+    static final int SEGMENT_HEADER_BYTES = 8;
+    // length, crc, lsn, type
+    static final int RECORD_HEADER_BYTES = 17;
+    static final int MAX_PAYLOAD_BYTES = 1 << 24;
+
+    private final Path directory;
+    private final Durability durability;
+    private final long segmentBytes;
+    private final long flushNanos;
+    private final Object lock = new Object();
+    // guarded by lock
+    private final ArrayDeque<WalRecord> queue = new ArrayDeque<>();
+    private long lastLsn;
+    private boolean closed;
+    private boolean rollRequested;
+    private long rolls;
+    private volatile IOException failure;
+    // written by the writer thread only
+    private FileChannel segment;
+    private long segmentSize;
+    private volatile long writtenLsn;
+    private volatile long durableLsn;
+    private volatile long syncs;
+    private final Thread writer;
+
+    /**
+     * Opens (or creates) the log in the directory with the default segment
+     * size and async flush interval.
+     *
+     * @param afterLsn records up to this LSN are only checked, not replayed
+     *                 (they are already in a checkpoint); an empty log
+     *                 continues numbering after it
+     * @param replay   receives every later record in LSN order; may be null
+     */
+    public WriteAheadLog(Path directory, Durability durability, long afterLsn, Consumer<WalRecord> replay) throws IOException {
+        this(directory, durability, DEFAULT_SEGMENT_BYTES, DEFAULT_FLUSH_MILLIS, afterLsn, replay);
+    }
+
+    public WriteAheadLog(Path directory, Durability durability, long segmentBytes, long flushMillis,
+                         long afterLsn, Consumer<WalRecord> replay) throws IOException {
+        if (durability == null || segmentBytes <= SEGMENT_HEADER_BYTES || flushMillis < 0) {
+            throw new IllegalArgumentException("durability is required, segmentBytes and flushMillis must be positive");
+        }
+        this.directory = directory;
+        this.durability = durability;
+        this.segmentBytes = segmentBytes;
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+        Files.createDirectories(directory);
+
+        List<Path> segments = segments(directory);
+        long last = segments.isEmpty() ? afterLsn : firstLsn(segments.get(0)) - 1;
+        for (int i = 0; i < segments.size(); i++) {
+            last = recover(segments.get(i), last, afterLsn, replay, i == segments.size() - 1);
+        }
+        this.lastLsn = last;
+        this.writtenLsn = last;
+        this.durableLsn = last;
+        if (segments.isEmpty()) {
+            createSegment(last + 1);
+        } else {
+            Path tail = segments.get(segments.size() - 1);
+            this.segment = FileChannel.open(tail, StandardOpenOption.WRITE);
+            this.segmentSize = segment.size();
+            segment.position(segmentSize);
+        }
+        this.writer = new Thread(this::run, "wal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Assigns the next LSN and queues the record without waiting. Callers that
+     * must log in the same order they apply changes do this under their own
+     * lock and {@link #commit} outside it.
+     */
+    public long enqueue(byte type, byte[] payload) {
+        if (payload.length > MAX_PAYLOAD_BYTES) {
+            throw new IllegalArgumentException("WAL payload too large: " + payload.length + " bytes");
+        }
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Write-ahead log is closed");
+            }
+            failIfBroken();
+            long lsn = ++lastLsn;
+            queue.add(new WalRecord(lsn, type, payload));
+            lock.notifyAll();
+            return lsn;
+        }
+    }
+
+    /**
+     * Waits as long as the durability mode requires for the record with this
+     * LSN: until it is fsynced for PER_OP and BATCHED, not at all for ASYNC.
+     */
+    public void commit(long lsn) {
+        if (durability != Durability.ASYNC) {
+            awaitDurable(lsn);
+        }
+    }
+
+    /**
+     * {@link #enqueue} followed by {@link #commit}.
+     */
+    public long append(byte type, byte[] payload) {
+        long lsn = enqueue(type, payload);
+        commit(lsn);
+        return lsn;
+    }
+
+    /**
+     * Blocks until the record with this LSN has been fsynced, whatever the mode.
+     *
+     * @throws IllegalStateException when the writer failed or the wait was interrupted
+     */
+    public void awaitDurable(long lsn) {
+        synchronized (lock) {
+            while (durableLsn < lsn) {
+                failIfBroken();
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the write-ahead log", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Makes the writer start a new segment (unless the current one is still
+     * empty) and waits until it has, so every record queued before the call
+     * sits in a closed segment.
+     */
+    public void rollover() {
+        synchronized (lock) {
+            long target = rolls + 1;
+            rollRequested = true;
+            lock.notifyAll();
+            while (rolls < target) {
+                failIfBroken();
+                if (closed) {
+                    return;
+                }
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the write-ahead log", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the closed segments whose records all have an LSN up to the
+     * given one; the segment being written is never deleted.
+     *
+     * @return number of segments deleted
+     */
+    public int truncateBefore(long lsn) throws IOException {
+        List<Path> segments = segments(directory);
+        int deleted = 0;
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            // a closed segment ends right before the next one starts
+            if (firstLsn(segments.get(i + 1)) - 1 > lsn) {
+                break;
+            }
+            Files.delete(segments.get(i));
+            deleted++;
+        }
+        return deleted;
+    }
+
+    /**
+     * LSN the oldest retained segment starts at (lastLsn() + 1 for an empty log).
+     */
+    public long oldestLsn() throws IOException {
+        List<Path> segments = segments(directory);
+        return segments.isEmpty() ? lastLsn() + 1 : firstLsn(segments.get(0));
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * LSN of the last queued record (0 for an empty log).
+     */
+    public long lastLsn() {
+        synchronized (lock) {
+            return lastLsn;
+        }
+    }
+
+    /**
+     * LSN up to which every record is on disk.
+     */
+    public long durableLsn() {
+        return durableLsn;
+    }
+
+    /**
+     * Number of fsyncs so far; appends / syncs is the group commit factor.
+     */
+    public long syncCount() {
+        return syncs;
+    }
+
+    /**
+     * Writes and fsyncs everything queued, then stops the writer.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        segment.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void run() {
+        List<WalRecord> batch = new ArrayList<>();
+        long lastSync = System.nanoTime();
+        try {
+            while (true) {
+                synchronized (lock) {
+                    if (queue.isEmpty() && !closed && !rollRequested) {
+                        if (writtenLsn > durableLsn) {
+                            // ASYNC: wake up in time for the next periodic fsync
+                            long waitNanos = flushNanos - (System.nanoTime() - lastSync);
+                            if (waitNanos > 0) {
+                                TimeUnit.NANOSECONDS.timedWait(lock, waitNanos);
+                            }
+                        } else {
+                            lock.wait();
+                        }
+                    }
+                    batch.addAll(queue);
+                    queue.clear();
+                    if (batch.isEmpty() && closed && writtenLsn == durableLsn) {
+                        return;
+                    }
+                }
+                if (durability == Durability.PER_OP) {
+                    for (WalRecord record : batch) {
+                        write(List.of(record));
+                        sync();
+                    }
+                } else {
+                    if (!batch.isEmpty()) {
+                        write(batch);
+                    }
+                    if (durability == Durability.BATCHED || closed() || System.nanoTime() - lastSync >= flushNanos) {
+                        sync();
+                        lastSync = System.nanoTime();
+                    }
+                }
+                batch.clear();
+                boolean requested;
+                synchronized (lock) {
+                    requested = rollRequested;
+                    rollRequested = false;
+                }
+                if (segmentSize >= segmentBytes || (requested && segmentSize > SEGMENT_HEADER_BYTES)) {
+                    roll();
+                }
+                if (requested) {
+                    synchronized (lock) {
+                        rolls++;
+                        lock.notifyAll();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            failure = new IOException("WAL writer interrupted", e);
+        } finally {
+            synchronized (lock) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private boolean closed() {
+        synchronized (lock) {
+            return closed;
+        }
+    }
+
+    private void write(List<WalRecord> records) throws IOException {
+        int bytes = 0;
+        for (WalRecord record : records) {
+            bytes += RECORD_HEADER_BYTES + record.getPayload().length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(bytes);
+        for (WalRecord record : records) {
+            buffer.putInt(record.getPayload().length);
+            buffer.putInt(crc(record.getLsn(), record.getType(), record.getPayload()));
+            buffer.putLong(record.getLsn());
+            buffer.put(record.getType());
+            buffer.put(record.getPayload());
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            segment.write(buffer);
+        }
+        segmentSize += bytes;
+        writtenLsn = records.get(records.size() - 1).getLsn();
+    }
+
+    private void sync() throws IOException {
+        long target = writtenLsn;
+        if (target == durableLsn) {
+            return;
+        }
+        segment.force(false);
+        syncs++;
+        synchronized (lock) {
+            durableLsn = target;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Closes the full segment and starts the next one at the following LSN.
+     */
+    private void roll() throws IOException {
+        sync();
+        segment.close();
+        createSegment(writtenLsn + 1);
+    }
+
+    private void createSegment(long firstLsn) throws IOException {
+        segment = FileChannel.open(directory.resolve(segmentName(firstLsn)),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_BYTES);
+        header.putInt(SEGMENT_MAGIC).putInt(FORMAT_VERSION).flip();
+        while (header.hasRemaining()) {
+            segment.write(header);
+        }
+        segment.force(true);
+        segmentSize = SEGMENT_HEADER_BYTES;
+    }
+
+    private void failIfBroken() {
+        if (failure != null) {
+            throw new IllegalStateException("Write-ahead log failed", failure);
+        }
+    }
+
+    /**
+     * Checks (and replays) one segment.
+     *
+     * @return LSN of its last valid record
+     */
+    private static long recover(Path file, long previousLsn, long afterLsn, Consumer<WalRecord> replay, boolean tail)
+            throws IOException {
+        long size = Files.size(file);
+        long valid = 0;
+        long last = previousLsn;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (size >= SEGMENT_HEADER_BYTES) {
+                if (in.readInt() != SEGMENT_MAGIC || in.readInt() != FORMAT_VERSION) {
+                    throw new IOException("Not a write-ahead log segment of version " + FORMAT_VERSION + ": " + file);
+                }
+                valid = SEGMENT_HEADER_BYTES;
+            }
+            while (valid > 0 && size - valid >= RECORD_HEADER_BYTES) {
+                int length = in.readInt();
+                int crc = in.readInt();
+                long lsn = in.readLong();
+                byte type = in.readByte();
+                if (length < 0 || length > MAX_PAYLOAD_BYTES || size - valid - RECORD_HEADER_BYTES < length) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                if (crc != crc(lsn, type, payload) || lsn != last + 1) {
+                    break;
+                }
+                if (lsn > afterLsn && replay != null) {
+                    replay.accept(new WalRecord(lsn, type, payload));
+                }
+                last = lsn;
+                valid += RECORD_HEADER_BYTES + length;
+            }
+        } catch (EOFException torn) {
+            // handled below: everything after the last valid record is dropped
+        }
+        if (valid < size || valid == 0) {
+            if (!tail) {
+                throw new IOException("Corrupt write-ahead log segment " + file + " after LSN " + last);
+            }
+            truncate(file, valid);
+        }
+        return last;
+    }
+
+    /**
+     * Cuts a torn tail off the last segment (or rewrites a torn header).
+     */
+    private static void truncate(Path file, long validBytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            if (validBytes == 0) {
+                ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_BYTES);
+                header.putInt(SEGMENT_MAGIC).putInt(FORMAT_VERSION).flip();
+                channel.truncate(0);
+                channel.write(header, 0);
+            } else {
+                channel.truncate(validBytes);
+            }
+            channel.force(true);
+        }
+    }
+
+    private static int crc(long lsn, byte type, byte[] payload) {
+        CRC32 crc = new CRC32();
+        ByteBuffer header = ByteBuffer.allocate(9);
+        header.putLong(lsn).put(type).flip();
+        crc.update(header);
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Segment files of the log directory, oldest first.
+     */
+    static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().matches("wal-\\d{20}\\.log"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    static long firstLsn(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(4, 24));
+    }
+
+    static String segmentName(long firstLsn) {
+        return String.format("wal-%020d.log", firstLsn);
+    }
+}
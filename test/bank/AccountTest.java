@@ -0,0 +1,201 @@
+package bank;
+
+import bank.dto.Page;
+import bank.dto.PageRequest;
+import bank.ledger.Ledger;
+import bank.ledger.PostingType;
+import bank.ledger.StatementLine;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountTest {
+    private final Ledger ledger = new Ledger();
+    private final Customer customer = new Customer("c1", "Ann Smith");
+
+    @Test
+    void paymentsAndReceiptsMoveTheBalanceAndPostToTheLedger() {
+        Saving account = new Saving("S1", customer, 0, ledger);
+        account.receipt(10_000);
+        account.pay(2_550);
+
+        assertEquals(7_450, account.getBalanceCents());
+        assertEquals(7_450, ledger.balanceOf("S1"));
+        List<Transaction> transactions = account.getTransactions();
+        assertEquals(2, transactions.size());
+        assertEquals(PostingType.PAYMENT, transactions.get(1).getType());
+        assertEquals(2_550, transactions.get(1).getAmountCents());
+    }
+
+    @Test
+    void theLedgerStartsFromTheOpeningBalanceAndFollowsResets() {
+        Saving account = new Saving("S1", customer, 12.34, ledger);
+        assertEquals(1_234, ledger.balanceOf("S1"));
+
+        account.receipt(66);
+        account.setBalance(50);
+
+        assertEquals(5_000, account.getBalanceCents());
+        assertEquals(account.getBalanceCents(), ledger.balanceOf("S1"));
+        assertEquals(PostingType.ADJUSTMENT, ledger.recent("S1", 1).get(0).getType());
+        assertThrows(IllegalStateException.class, () -> new Saving("S1", customer, 0, ledger));
+    }
+
+    @Test
+    void statementRunningBalancesMatchTheAccountBalance() {
+        AtomicLong clock = new AtomicLong();
+        Ledger timed = new Ledger(clock::incrementAndGet);
+        Saving account = new Saving("S1", customer, 100, timed);
+        Random random = new Random(11);
+        List<Long> balances = new ArrayList<>();
+        // several history blocks, so later blocks must carry the opening balance too
+        for (int i = 0; i < 500; i++) {
+            if (random.nextBoolean() && account.getBalanceCents() > 500) {
+                account.pay(1 + random.nextInt(500));
+            } else {
+                account.receipt(1 + random.nextInt(500));
+            }
+            balances.add(account.getBalanceCents());
+        }
+
+        List<StatementLine> lines = new ArrayList<>();
+        for (int page = 0; ; page++) {
+            Page<StatementLine> statement = account.statement(0, Long.MAX_VALUE, new PageRequest(page, 50));
+            lines.addAll(statement.getItems());
+            if (statement.getItems().size() < 50) {
+                break;
+            }
+        }
+        assertEquals(balances.size(), lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            assertEquals((long) balances.get(i), lines.get(i).getRunningBalanceCents());
+        }
+        assertEquals(account.getBalanceCents(), lines.get(lines.size() - 1).getRunningBalanceCents());
+
+        // a range starting mid-history continues from the balance at its start
+        long from = lines.get(300).getPosting().getTimestamp();
+        StatementLine first = account.statement(from, Long.MAX_VALUE, new PageRequest(0, 1)).getItems().get(0);
+        assertEquals((long) balances.get(300), first.getRunningBalanceCents());
+        assertEquals((long) balances.get(299), timed.balanceAt("S1", from));
+    }
+
+    @Test
+    void addedTransactionsTakeTheirDirectionFromTheType() {
+        Saving account = new Saving("S1", customer, 10, ledger);
+        account.addTransaction(new Transaction(PostingType.PAYMENT, 300));
+        account.addTransaction(new Transaction(PostingType.DEPOSIT, 50));
+
+        assertEquals(750, account.getBalanceCents());
+        assertEquals(750, ledger.balanceOf("S1"));
+        assertThrows(IllegalArgumentException.class, () -> account.addTransaction(new Transaction()));
+        assertThrows(IllegalArgumentException.class, () -> account.addTransaction(new Transaction(PostingType.RECEIPT, -5)));
+        assertThrows(IllegalArgumentException.class, () -> account.addTransaction(new Transaction(PostingType.ADJUSTMENT, 5)));
+        assertEquals(750, account.getBalanceCents());
+    }
+
+    @Test
+    void nonPositiveAmountsAreRejected() {
+        Saving account = new Saving("S1", customer, 0, ledger);
+        assertThrows(IllegalArgumentException.class, () -> account.pay(0));
+        assertThrows(IllegalArgumentException.class, () -> account.pay(-5));
+        assertThrows(IllegalArgumentException.class, () -> account.receipt(-5));
+        assertThrows(IllegalArgumentException.class, () -> account.credit(0));
+        assertEquals(0, ledger.size());
+    }
+
+    @Test
+    void debitBeyondTheBalanceChangesNothing() {
+        Saving account = new Saving("S1", customer, 0, ledger);
+        account.receipt(1_000);
+
+        assertFalse(account.tryDebit(1_001));
+        assertThrows(IllegalStateException.class, () -> account.pay(1_001));
+        assertEquals(1_000, account.getBalanceCents());
+        assertEquals(1, ledger.postingCount("S1"));
+    }
+
+    @Test
+    void transferMovesMoneyAndPostsBothLegs() {
+        Saving from = new Saving("A", customer, 0, ledger);
+        Saving to = new Saving("B", customer, 0, ledger);
+        from.receipt(5_000);
+
+        from.transferTo(to, 1_200);
+
+        assertEquals(3_800, from.getBalanceCents());
+        assertEquals(1_200, to.getBalanceCents());
+        assertEquals(PostingType.TRANSFER_OUT, ledger.recent("A", 1).get(0).getType());
+        assertEquals(PostingType.TRANSFER_IN, ledger.recent("B", 1).get(0).getType());
+        assertThrows(IllegalStateException.class, () -> from.transferTo(to, 3_801));
+        assertThrows(IllegalArgumentException.class, () -> from.transferTo(from, 1));
+    }
+
+    @Test
+    void concurrentTransfersAndPaymentsKeepBalancesInStepWithTheLedger() throws InterruptedException {
+        Saving a = new Saving("A", customer, 0, ledger);
+        Saving b = new Saving("B", customer, 0, ledger);
+        a.credit(1_000_000);
+        b.credit(1_000_000);
+        long[] torn = new long[1];
+        List<Thread> threads = new ArrayList<>();
+        threads.add(new Thread(() -> repeat(() -> a.transferTo(b, 7))));
+        threads.add(new Thread(() -> repeat(() -> b.transferTo(a, 5))));
+        threads.add(new Thread(() -> repeat(() -> {
+            // both monitors held: a transfer is either fully applied or not at all
+            synchronized (a) {
+                synchronized (b) {
+                    if (a.getBalanceCents() + b.getBalanceCents() != 2_000_000) {
+                        torn[0]++;
+                    }
+                }
+            }
+        })));
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, torn[0]);
+        assertEquals(2_000_000, a.getBalanceCents() + b.getBalanceCents());
+        assertEquals(a.getBalanceCents() - 1_000_000, ledger.balanceOf("A"));
+        assertEquals(b.getBalanceCents() - 1_000_000, ledger.balanceOf("B"));
+        assertTrue(ledger.postingCount("A") > 0);
+    }
+
+    @Test
+    void accountsSharingAnIdTransferBothWaysWithoutDeadlock() throws InterruptedException {
+        Saving a = new Saving("SAME", customer, 0, ledger);
+        Saving b = new Saving("SAME", customer, 0, new Ledger());
+        a.credit(100_000);
+        b.credit(100_000);
+        Thread forth = new Thread(() -> repeat(() -> a.transferTo(b, 3)));
+        Thread back = new Thread(() -> repeat(() -> b.transferTo(a, 3)));
+        forth.start();
+        back.start();
+        forth.join(10_000);
+        back.join(10_000);
+
+        assertFalse(forth.isAlive() || back.isAlive());
+        assertEquals(200_000, a.getBalanceCents() + b.getBalanceCents());
+    }
+
+    private static void repeat(Runnable action) {
+        for (int i = 0; i < 20_000; i++) {
+            try {
+                action.run();
+            } catch (IllegalStateException insufficient) {
+                // a drained account just skips this round
+            }
+        }
+    }
+}
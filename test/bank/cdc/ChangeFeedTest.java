@@ -0,0 +1,94 @@
+package bank.cdc;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ChangeFeedTest {
+    @Test
+    void replayStartsAtTheRequestedVersion() {
+        ChangeFeed<String> feed = new ChangeFeed<>();
+        for (int i = 1; i <= 10; i++) {
+            feed.publish(ChangeEvent.Kind.INSERT, "k" + i, null, "v" + i);
+        }
+
+        ChangeSubscription<String> subscription = feed.subscribe("replay", 7, 2);
+        List<Long> versions = new ArrayList<>();
+        for (ChangeEvent<String> event : subscription.drain(100)) {
+            versions.add(event.getVersion());
+        }
+
+        assertEquals(List.of(7L, 8L, 9L, 10L), versions);
+    }
+
+    @Test
+    void aFutureStartVersionSkipsEverythingBeforeIt() {
+        ChangeFeed<String> feed = new ChangeFeed<>();
+        feed.publish(ChangeEvent.Kind.INSERT, "a", null, "a");
+        ChangeSubscription<String> subscription = feed.subscribe("future", 4, 8);
+
+        feed.publish(ChangeEvent.Kind.INSERT, "b", null, "b");
+        feed.publish(ChangeEvent.Kind.INSERT, "c", null, "c");
+        assertNull(subscription.poll());
+        feed.publish(ChangeEvent.Kind.INSERT, "d", null, "d");
+
+        assertEquals(4, subscription.poll().getVersion());
+        assertNull(subscription.poll());
+    }
+
+    @Test
+    void concurrentPublishersProduceOneGapFreeOrderedStream() throws InterruptedException {
+        ChangeFeed<String> feed = new ChangeFeed<>();
+        ChangeSubscription<String> subscription = feed.subscribe("all", 64);
+        int threads = 4;
+        int perThread = 5_000;
+        List<Thread> publishers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String key = "shard-" + t;
+            Thread publisher = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    feed.publish(ChangeEvent.Kind.UPDATE, key, null, Integer.toString(i));
+                }
+            });
+            publishers.add(publisher);
+            publisher.start();
+        }
+
+        int[] lastPerKey = new int[threads];
+        Arrays.fill(lastPerKey, -1);
+        long expected = 1;
+        while (expected <= (long) threads * perThread) {
+            ChangeEvent<String> event = subscription.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event);
+            assertEquals(expected++, event.getVersion());
+            int shard = event.getKey().charAt(event.getKey().length() - 1) - '0';
+            // one publisher's events keep their publish order
+            assertEquals(lastPerKey[shard] + 1, Integer.parseInt(event.getAfter()));
+            lastPerKey[shard]++;
+        }
+        for (Thread publisher : publishers) {
+            publisher.join();
+        }
+        assertEquals(0, subscription.lag());
+    }
+
+    @Test
+    void aConsumerBehindTheRetentionIsLost() {
+        ChangeFeed<String> feed = new ChangeFeed<>(4);
+        ChangeSubscription<String> subscription = feed.subscribe("slow", 2);
+        for (int i = 0; i < 6; i++) {
+            feed.publish(ChangeEvent.Kind.INSERT, "k", null, "v");
+        }
+
+        assertThrows(IllegalStateException.class, subscription::poll);
+        assertThrows(IllegalArgumentException.class, () -> feed.subscribe("late", 1, 2));
+    }
+}
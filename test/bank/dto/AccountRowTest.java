@@ -0,0 +1,19 @@
+package bank.dto;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AccountRowTest {
+    @Test
+    void theConstructorTakesDollarsAndOfCentsTakesCents() {
+        AccountRow dollars = new AccountRow("A1", "****3333", AccountType.CHECK, "Ann", 1234.56);
+        AccountRow cents = AccountRow.ofCents("A1", "****3333", AccountType.CHECK, "Ann", 123_456);
+
+        assertEquals(123_456, dollars.getBalanceCents());
+        assertEquals(cents.getBalanceCents(), dollars.getBalanceCents());
+        assertEquals(1234.56, cents.getBalance());
+        // a whole-dollar long still means dollars, as it did before balances were held in cents
+        assertEquals(1_500_00, new AccountRow("A2", "****4444", AccountType.SAVING, "Bob", 1_500L).getBalanceCents());
+    }
+}
@@ -0,0 +1,59 @@
+package bank.ledger;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressedSegmentTest {
+    private static final int COUNT = 1_000;
+
+    @Test
+    void columnsRoundTripIncludingExtremeValues() {
+        long baseOffset = 5L << 20;
+        Random random = new Random(36L);
+        ChunkColumns columns = new ChunkColumns(COUNT);
+        long timestamp = 1_700_000_000_000L;
+        for (int i = 0; i < COUNT; i++) {
+            timestamp += random.nextInt(50);
+            columns.timestamps[i] = timestamp;
+            columns.amounts[i] = random.nextInt(2_000_000) - 1_000_000;
+            columns.accounts[i] = random.nextInt(300);
+            columns.types[i] = (byte) random.nextInt(PostingType.values().length);
+            columns.previous[i] = i == 0 || random.nextInt(4) == 0 ? -1 : baseOffset + random.nextInt(i);
+        }
+        columns.amounts[1] = Long.MAX_VALUE;
+        columns.amounts[2] = Long.MIN_VALUE;
+        columns.accounts[3] = Integer.MAX_VALUE;
+        columns.previous[4] = baseOffset - 1_000_000;
+
+        CompressedSegment segment = CompressedSegment.encode(columns, COUNT, baseOffset);
+        ChunkColumns decoded = segment.decode(COUNT);
+
+        assertArrayEquals(columns.timestamps, decoded.timestamps);
+        assertArrayEquals(columns.amounts, decoded.amounts);
+        assertArrayEquals(columns.accounts, decoded.accounts);
+        assertArrayEquals(columns.types, decoded.types);
+        assertArrayEquals(columns.previous, decoded.previous);
+    }
+
+    @Test
+    void typicalPostingsShrink() {
+        ChunkColumns columns = new ChunkColumns(COUNT);
+        for (int i = 0; i < COUNT; i++) {
+            columns.timestamps[i] = 1_700_000_000_000L + i;
+            columns.amounts[i] = 1_000 + i % 50;
+            columns.accounts[i] = i % 20;
+            columns.previous[i] = i < 20 ? -1 : i - 20;
+        }
+
+        CompressedSegment segment = CompressedSegment.encode(columns, COUNT, 0);
+
+        assertTrue(segment.encodedBytes() * 4L < ChunkColumns.rawBytes(COUNT),
+                segment.encodedBytes() + " of " + ChunkColumns.rawBytes(COUNT));
+        assertEquals(columns.previous[COUNT - 1], segment.decode(COUNT).previous[COUNT - 1]);
+    }
+}
@@ -0,0 +1,140 @@
+package bank.ledger;
+
+import bank.dto.Page;
+import bank.dto.PageRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LedgerTest {
+    private final AtomicLong clock = new AtomicLong(1_000);
+    private final Ledger ledger = new Ledger(clock::incrementAndGet);
+
+    @Test
+    void appendReturnsConsecutiveOffsetsReadableThroughGet() {
+        long first = ledger.append("A", PostingType.DEPOSIT, 500);
+        long second = ledger.append("B", PostingType.WITHDRAWAL, -200);
+
+        assertEquals(first + 1, second);
+        assertEquals(2, ledger.size());
+        Posting posting = ledger.get(second);
+        assertEquals("B", posting.getAccountId());
+        assertEquals(PostingType.WITHDRAWAL, posting.getType());
+        assertEquals(-200, posting.getAmountCents());
+    }
+
+    @Test
+    void statementPagesCarryTheRunningBalance() {
+        for (int i = 1; i <= 10; i++) {
+            ledger.append("A", PostingType.DEPOSIT, i * 100);
+            ledger.append("B", PostingType.DEPOSIT, 1);
+        }
+
+        Page<StatementLine> page = ledger.statement("A", 0, Long.MAX_VALUE, new PageRequest(1, 3));
+
+        assertEquals(10, page.getTotalItems());
+        assertEquals(3, page.getItems().size());
+        // lines 4..6 of deposits 100, 200, ... -> running balances 1000, 1500, 2100
+        assertEquals(1_000, page.getItems().get(0).getRunningBalanceCents());
+        assertEquals(2_100, page.getItems().get(2).getRunningBalanceCents());
+        assertEquals(5_500, ledger.balanceOf("A"));
+    }
+
+    @Test
+    void balanceAtOnlyCountsEarlierPostings() {
+        ledger.append("A", PostingType.DEPOSIT, 100);
+        long cutoff = clock.get() + 1;
+        ledger.append("A", PostingType.DEPOSIT, 50);
+
+        assertEquals(100, ledger.balanceAt("A", cutoff));
+        assertEquals(150, ledger.balanceOf("A"));
+    }
+
+    @Test
+    void sealedChunksReadBackUnchanged() {
+        Random random = new Random(7);
+        List<Long> amounts = new ArrayList<>();
+        int postings = Ledger.CHUNK_SIZE * (Ledger.HOT_CHUNKS + 3);
+        for (int i = 0; i < postings; i++) {
+            long amount = random.nextInt(10_000) - 5_000;
+            if (i % 3 == 0) {
+                amounts.add(amount);
+            }
+            ledger.append(i % 3 == 0 ? "A" : "B", PostingType.DEPOSIT, amount);
+        }
+
+        assertTrue(ledger.sealColdChunks() > 0);
+        assertTrue(ledger.verifySealedSegments() > 0);
+        List<Posting> history = ledger.history("A");
+        assertEquals(amounts.size(), history.size());
+        long sum = 0;
+        for (int i = 0; i < history.size(); i++) {
+            assertEquals((long) amounts.get(i), history.get(i).getAmountCents());
+            sum += amounts.get(i);
+        }
+        assertEquals(sum, ledger.balanceOf("A"));
+    }
+
+    @Test
+    void statementsReadThroughSealedChunksAndHistoryBlocks() {
+        Random random = new Random(36);
+        ledger.open("A", 10_000);
+        List<long[]> postings = new ArrayList<>();
+        long balance = 10_000;
+        // several full (varint-sealed) history blocks for A, spread over sealed ledger chunks
+        for (int i = 0; i < Ledger.CHUNK_SIZE * (Ledger.HOT_CHUNKS + 2); i++) {
+            long amount = random.nextInt(1_000) - 400;
+            if (i % 5 == 0) {
+                ledger.append("A", PostingType.DEPOSIT, amount);
+                balance += amount;
+                postings.add(new long[]{clock.get(), balance});
+            } else {
+                ledger.append("B", PostingType.DEPOSIT, amount);
+            }
+        }
+        ledger.sealColdChunks();
+        assertTrue(ledger.storageStats().getSealedChunks() > 0);
+        assertTrue(ledger.storageStats().getCompressionRatio() > 1);
+
+        long from = postings.get(150)[0];
+        long to = postings.get(700)[0];
+        Page<StatementLine> page = ledger.statement("A", from, to, new PageRequest(9, 50));
+        assertEquals(550, page.getTotalItems());
+        for (int i = 0; i < page.getItems().size(); i++) {
+            StatementLine line = page.getItems().get(i);
+            long[] expected = postings.get(150 + 450 + i);
+            assertEquals(expected[0], line.getPosting().getTimestamp());
+            assertEquals(expected[1], line.getRunningBalanceCents());
+        }
+        assertEquals(postings.get(149)[1], ledger.balanceAt("A", from));
+        assertEquals(balance, ledger.balanceOf("A"));
+    }
+
+    @Test
+    void concurrentAppendersLoseNothing() throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    ledger.append("A" + (i % 10), PostingType.DEPOSIT, 1);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(40_000, ledger.size());
+        assertEquals(4_000, ledger.balanceOf("A7"));
+        assertEquals(4_000, ledger.postingCount("A7"));
+    }
+}
@@ -0,0 +1,70 @@
+package bank.pipeline;
+
+import bank.Customer;
+import bank.Saving;
+import bank.ledger.Ledger;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PaymentPipelineTest {
+    private final Ledger ledger = new Ledger();
+    private final Customer customer = new Customer("c1", "Ann Smith");
+
+    @Test
+    void postingsReachTheAccountAndTheLedgerInOrder() {
+        Saving account = new Saving("S1", customer, 0, ledger);
+        try (PaymentPipeline pipeline = new PaymentPipeline(8, null)) {
+            for (int i = 0; i < 1_000; i++) {
+                pipeline.publish(account, PaymentKind.RECEIPT, 300);
+                pipeline.publish(account, PaymentKind.PAYMENT, 200);
+            }
+            // more than the balance: rejected, nothing posted
+            pipeline.publish(account, PaymentKind.PAYMENT, 1_000_000);
+            pipeline.publish(account, PaymentKind.PAYMENT, 0);
+            pipeline.drain();
+
+            PipelineStats stats = pipeline.stats();
+            assertEquals(2_002, stats.getPublished());
+            assertEquals(2_000, stats.getPosted());
+            assertEquals(2, stats.getRejected());
+        }
+        assertEquals(100_000, account.getBalanceCents());
+        assertEquals(100_000, ledger.balanceOf("S1"));
+        assertEquals(2_000, ledger.postingCount("S1"));
+    }
+
+    @Test
+    void aFullRingRefusesUntilTheAuditStageCatchesUp() throws InterruptedException {
+        Saving account = new Saving("S1", customer, 0, ledger);
+        CountDownLatch release = new CountDownLatch(1);
+        PaymentPipeline pipeline = new PaymentPipeline(4, message -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        int accepted = 0;
+        while (accepted < 100 && pipeline.tryPublish(account, PaymentKind.RECEIPT, 1)) {
+            accepted++;
+        }
+        // the audit stage holds its first batch, so at most one batch plus the ring fit
+        assertTrue(accepted < 100, "ring never filled");
+        assertFalse(pipeline.tryPublish(account, PaymentKind.RECEIPT, 1));
+
+        release.countDown();
+        pipeline.publish(account, PaymentKind.RECEIPT, 1);
+        pipeline.close();
+
+        assertEquals(accepted + 1, account.getBalanceCents());
+        assertThrows(IllegalStateException.class, () -> pipeline.tryPublish(account, PaymentKind.RECEIPT, 1));
+        assertThrows(IllegalStateException.class, () -> pipeline.publish(account, PaymentKind.RECEIPT, 1));
+    }
+}
@@ -0,0 +1,141 @@
+package bank.repository;
+
+import bank.dto.AccountType;
+import bank.dto.ImportReport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountCsvImporterTest {
+    @TempDir
+    Path directory;
+
+    private final List<InMemoryAccountRepository.SimpleAccountProjection> published = new ArrayList<>();
+
+    @Test
+    void validLinesArePublishedInFileOrder() throws IOException {
+        ImportReport report = importLines(
+                AccountCsvImporter.HEADER,
+                "ACC-1,5200 1111 2222 3333,SAVING,\"Smith, Alice\",alice,Toronto,1234.56",
+                "ACC-2,5200-1111-2222-4444,check,\"Bob \"\"B\"\" Jones\",BOB,,-7.5");
+
+        assertEquals(2, report.getRowsImported());
+        assertEquals(0, report.getLinesRejected());
+        assertEquals("ACC-1", published.get(0).getAccountId());
+        assertEquals("Smith, Alice", published.get(0).getCustomerName());
+        assertEquals(123_456, published.get(0).getBalanceCents());
+        assertEquals("Bob \"B\" Jones", published.get(1).getCustomerName());
+        assertEquals("bob", published.get(1).getOwnerUserId());
+        assertEquals(-750, published.get(1).getBalanceCents());
+    }
+
+    @Test
+    void malformedLinesAreRejectedWithTheirLineNumbers() throws IOException {
+        ImportReport report = importLines(
+                AccountCsvImporter.HEADER,
+                "ACC-1,5200 1111 2222 3333,SAVING,Alice,alice,Toronto,1.00",
+                "ACC-2,,SAVING,Bob,bob,Ottawa,1.00",
+                "ACC-3,5200 1111 2222 3333,FOO,Carol,carol,Ottawa,1.00",
+                "ACC-4,5200 1111 2222 3333,SAVING,Dan,dan,Ottawa,1.234",
+                "only,three,fields");
+
+        assertEquals(1, report.getRowsImported());
+        assertEquals(4, report.getLinesRejected());
+        assertEquals(List.of(3L, 4L, 5L, 6L), lineNumbers(report));
+    }
+
+    @Test
+    void accountNumbersFollowTheProjectionRules() throws IOException {
+        ImportReport report = importLines(
+                "ACC-1,5200-1111-2222-3333,SAVING,Alice,alice,Toronto,1.00",
+                "ACC-2,123,SAVING,Bob,bob,Ottawa,1.00",
+                "ACC-3,\"GB29 NWBK 6016\",CHECK,Carol,carol,Ottawa,1.00");
+
+        assertEquals(3, report.getRowsImported());
+        List<String> written = List.of("5200-1111-2222-3333", "123", "GB29 NWBK 6016");
+        for (int i = 0; i < written.size(); i++) {
+            InMemoryAccountRepository.SimpleAccountProjection direct = new InMemoryAccountRepository.SimpleAccountProjection(
+                    "X", written.get(i), AccountType.CHECK, "X", "x", "", 0);
+            assertEquals(direct.getAccountNumber(), published.get(i).getAccountNumber());
+            assertEquals(direct.packedAccountNumber(), published.get(i).packedAccountNumber());
+        }
+        assertEquals("5200 1111 2222 3333", published.get(0).getAccountNumber());
+        assertEquals("123", published.get(1).getAccountNumber());
+        assertEquals("GB29 NWBK 6016", published.get(2).getAccountNumber());
+    }
+
+    @Test
+    void duplicateIdsInTheFileKeepTheFirstLine() throws IOException {
+        ImportReport report = importLines(
+                "ACC-1,5200 1111 2222 3333,SAVING,Alice,alice,Toronto,1.00",
+                "ACC-2,5200 1111 2222 3334,SAVING,Bob,bob,Toronto,2.00",
+                "ACC-1,5200 1111 2222 3335,SAVING,Alice,alice,Toronto,3.00");
+
+        assertEquals(2, report.getRowsImported());
+        assertEquals(List.of(3L), lineNumbers(report));
+        assertEquals(100, published.get(0).getBalanceCents());
+    }
+
+    @Test
+    void idsTheTargetAlreadyHoldsAreRejected() throws IOException {
+        Path file = write(
+                "ACC-1,5200 1111 2222 3333,SAVING,Alice,alice,Toronto,1.00",
+                "ACC-2,5200 1111 2222 3334,SAVING,Bob,bob,Toronto,2.00");
+
+        ImportReport report = new AccountCsvImporter(2).importFile(file, Set.of("ACC-2")::contains, published::addAll);
+
+        assertEquals(1, report.getRowsImported());
+        assertEquals(List.of(2L), lineNumbers(report));
+        assertTrue(report.getErrors().get(0).getMessage().contains("already exists"));
+    }
+
+    @Test
+    void segmentsSplitAcrossWorkersAgreeWithASingleWorker() throws IOException {
+        String[] lines = new String[60_000];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = i % 997 == 0
+                    ? "BAD-" + i + ",not a number,SAVING,Name,owner,Place,1.00"
+                    : "ACC-" + i + ",5200 0000 0000 " + String.format("%04d", i % 10_000) + ",CHECK,Name " + (i % 13) + ",owner" + (i % 50) + ",Place,"
+                      + (i / 100) + "." + String.format("%02d", i % 100);
+        }
+        Path file = write(lines);
+
+        List<InMemoryAccountRepository.SimpleAccountProjection> single = new ArrayList<>();
+        ImportReport one = new AccountCsvImporter(1).importFile(file, single::addAll);
+        ImportReport four = new AccountCsvImporter(4).importFile(file, published::addAll);
+
+        assertEquals(one.getRowsImported(), four.getRowsImported());
+        assertEquals(lineNumbers(one), lineNumbers(four));
+        for (int i = 0; i < single.size(); i++) {
+            assertEquals(single.get(i).getAccountId(), published.get(i).getAccountId());
+            assertEquals(single.get(i).getBalanceCents(), published.get(i).getBalanceCents());
+        }
+    }
+
+    private ImportReport importLines(String... lines) throws IOException {
+        return new AccountCsvImporter(2).importFile(write(lines), published::addAll);
+    }
+
+    private Path write(String... lines) throws IOException {
+        Path file = Files.createTempFile(directory, "accounts", ".csv");
+        Files.write(file, List.of(lines));
+        return file;
+    }
+
+    private static List<Long> lineNumbers(ImportReport report) {
+        List<Long> lines = new ArrayList<>();
+        for (ImportReport.LineError error : report.getErrors()) {
+            lines.add(error.getLineNumber());
+        }
+        return lines;
+    }
+}
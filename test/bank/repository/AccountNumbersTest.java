@@ -0,0 +1,58 @@
+package bank.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountNumbersTest {
+    @Test
+    void packedNumbersFormatBackWithLeadingZeros() {
+        assertEquals("5200 1111 2222 3333", AccountNumbers.format(AccountNumbers.pack("5200111122223333")));
+        assertEquals("0000 0000 0000 0042", AccountNumbers.format(AccountNumbers.pack("0000-0000-0000-0042")));
+        assertEquals(9_999_999_999_999_999L, AccountNumbers.pack("9999 9999 9999 9999"));
+    }
+
+    @Test
+    void onlySixteenDigitNumbersPack() {
+        assertEquals(AccountNumbers.INVALID, AccountNumbers.tryPack(null));
+        assertEquals(AccountNumbers.INVALID, AccountNumbers.tryPack("5200 1111 2222 333"));
+        assertEquals(AccountNumbers.INVALID, AccountNumbers.tryPack("5200 1111 2222 33334"));
+        assertEquals(AccountNumbers.INVALID, AccountNumbers.tryPack("5200 1111 2222 333X"));
+        assertEquals(AccountNumbers.INVALID, AccountNumbers.tryPack(""));
+        assertThrows(IllegalArgumentException.class, () -> AccountNumbers.pack("ACC-1"));
+    }
+
+    @Test
+    void packingKeepsNumericOrderAndPrefixRanges() {
+        Random random = new Random(39L);
+        String[] numbers = new String[500];
+        long[] packed = new long[numbers.length];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = String.format("%04d %04d %04d %04d", random.nextInt(10), random.nextInt(10_000),
+                    random.nextInt(10_000), random.nextInt(10_000));
+            packed[i] = AccountNumbers.pack(numbers[i]);
+        }
+        String[] sortedText = numbers.clone();
+        Arrays.sort(sortedText);
+        long[] sortedPacked = packed.clone();
+        Arrays.sort(sortedPacked);
+        for (int i = 0; i < numbers.length; i++) {
+            assertEquals(sortedText[i], AccountNumbers.format(sortedPacked[i]));
+        }
+
+        long prefix = AccountNumbers.parseDigits("0003 12");
+        long from = AccountNumbers.rangeStart(prefix, 6);
+        long to = AccountNumbers.rangeEnd(prefix, 6);
+        for (int i = 0; i < numbers.length; i++) {
+            boolean inRange = packed[i] >= from && packed[i] < to;
+            assertEquals(numbers[i].startsWith("0003 12"), inRange, numbers[i]);
+            assertEquals(numbers[i].endsWith("7"), AccountNumbers.endsWith(packed[i], 7, 1), numbers[i]);
+        }
+        assertTrue(AccountNumbers.rangeEnd(AccountNumbers.parseDigits("9999999999999999"), 16) > 9_999_999_999_999_999L);
+    }
+}
@@ -0,0 +1,115 @@
+package bank.repository;
+
+import bank.dto.AccountType;
+import bank.dto.UserId;
+import bank.wal.Durability;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DurableStoreTest {
+    private static final List<InMemoryAccountRepository.SimpleAccountProjection> BASE =
+            new ArrayList<>(InMemoryAccountRepository.defaultAccounts().subList(0, 20));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesSurviveAReopenThroughTheLog() throws IOException {
+        String baseId = BASE.get(0).getAccountId();
+        try (DurableStore store = DurableStore.open(directory, Durability.PER_OP, BASE)) {
+            store.accounts().add(account("NEW-1", 1_500));
+            assertTrue(store.accounts().updateBalance(baseId, 42));
+            assertTrue(store.accounts().remove(BASE.get(1).getAccountId()));
+            store.roles().assignRole(UserId.of("walter"), "TELLER");
+        }
+
+        try (DurableStore store = DurableStore.open(directory, Durability.PER_OP, BASE)) {
+            assertEquals(1_500, store.accounts().findById("NEW-1").getBalanceCents());
+            assertEquals(42, store.accounts().findById(baseId).getBalanceCents());
+            assertNull(store.accounts().findById(BASE.get(1).getAccountId()));
+            assertTrue(store.roles().hasRole(UserId.of("walter"), "TELLER"));
+            assertEquals(BASE.size(), store.accounts().size());
+        }
+    }
+
+    @Test
+    void missingAccountsAreNotLogged() throws IOException {
+        try (DurableStore store = DurableStore.open(directory, Durability.PER_OP, BASE)) {
+            long lsn = store.log().lastLsn();
+            assertFalse(store.accounts().updateBalance("NO-SUCH", 1));
+            assertFalse(store.accounts().remove("NO-SUCH"));
+            assertEquals(lsn, store.log().lastLsn());
+        }
+    }
+
+    @Test
+    void aTornLastRecordIsDroppedOnReplay() throws IOException {
+        try (DurableStore store = DurableStore.open(directory, Durability.PER_OP, BASE)) {
+            store.accounts().add(account("KEPT", 1));
+            store.accounts().add(account("TORN", 2));
+        }
+        Path segment;
+        try (Stream<Path> segments = Files.list(directory.resolve("wal"))) {
+            segment = segments.sorted().reduce((first, second) -> second).orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        try (DurableStore store = DurableStore.open(directory, Durability.PER_OP, BASE)) {
+            assertEquals(1, store.accounts().findById("KEPT").getBalanceCents());
+            assertNull(store.accounts().findById("TORN"));
+        }
+    }
+
+    @Test
+    void checkpointTruncatesTheLogAndRestoresTheSameState() throws IOException {
+        try (DurableStore store = DurableStore.open(directory, Durability.BATCHED, BASE)) {
+            for (int i = 0; i < 100; i++) {
+                store.accounts().add(account("CK-" + i, i));
+            }
+            long checkpoint = store.checkpoint();
+            assertEquals(checkpoint, store.getCheckpointLsn());
+            assertTrue(store.log().oldestLsn() > 1);
+            store.accounts().updateBalance("CK-7", 700);
+        }
+
+        try (DurableStore store = DurableStore.open(directory, Durability.BATCHED, BASE)) {
+            assertEquals(BASE.size() + 100, store.accounts().size());
+            assertEquals(700, store.accounts().findById("CK-7").getBalanceCents());
+            assertEquals(99, store.accounts().findById("CK-99").getBalanceCents());
+        }
+    }
+
+    @Test
+    void aLogThatNoLongerReachesTheCheckpointIsRefused() throws IOException {
+        try (DurableStore store = DurableStore.open(directory, Durability.BATCHED, BASE)) {
+            store.accounts().add(account("A-1", 1));
+            store.checkpoint();
+            store.accounts().add(account("A-2", 2));
+        }
+        Files.delete(directory.resolve("checkpoint"));
+
+        assertThrows(IOException.class, () -> DurableStore.open(directory, Durability.BATCHED, BASE));
+    }
+
+    private static InMemoryAccountRepository.SimpleAccountProjection account(String id, long balanceCents) {
+        return InMemoryAccountRepository.SimpleAccountProjection.ofCents(id, "5200 0000 0000 0001", AccountType.CHECK,
+                "Zed Quinn", "zed", "Regina", balanceCents);
+    }
+}
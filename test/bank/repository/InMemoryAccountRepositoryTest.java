@@ -0,0 +1,390 @@
+package bank.repository;
+
+import bank.contracts.AccountProjection;
+import bank.contracts.AccountRepository.OwnershipScope;
+import bank.dto.AccountNumberMatch;
+import bank.dto.AccountSearchFilters;
+import bank.dto.AccountType;
+import bank.dto.Page;
+import bank.dto.PageRequest;
+import bank.dto.SortDirection;
+import bank.dto.SortKey;
+import bank.dto.SuggestField;
+import bank.dto.UserId;
+import bank.wal.Durability;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryAccountRepositoryTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void duplicateIdsAreRejectedCaseInsensitively() {
+        InMemoryAccountRepository repository = new InMemoryAccountRepository(List.of(account("ACC-1", "alice", 100)));
+
+        assertThrows(IllegalArgumentException.class, () -> repository.add(account("acc-1", "bob", 200)));
+        assertEquals(1, repository.size());
+        assertEquals(100, repository.findById("ACC-1").getBalanceCents());
+    }
+
+    @Test
+    void aBatchWithADuplicateAddsNothing() {
+        InMemoryAccountRepository repository = new InMemoryAccountRepository(List.of(account("ACC-1", "alice", 100)));
+
+        assertThrows(IllegalArgumentException.class, () -> repository.addAll(List.of(
+                account("ACC-2", "bob", 200), account("ACC-3", "carol", 300), account("ACC-2", "dan", 400))));
+        assertThrows(IllegalArgumentException.class, () -> repository.addAll(List.of(
+                account("ACC-4", "bob", 200), account("ACC-1", "carol", 300))));
+        assertEquals(1, repository.size());
+        assertNull(repository.findById("ACC-2"));
+        assertNull(repository.findById("ACC-4"));
+    }
+
+    @Test
+    void aRemovedIdCanBeAddedAgain() {
+        InMemoryAccountRepository repository = new InMemoryAccountRepository(List.of(account("ACC-1", "alice", 100)));
+
+        repository.remove("ACC-1");
+        repository.add(account("ACC-1", "alice", 700));
+
+        assertEquals(700, repository.findById("ACC-1").getBalanceCents());
+    }
+
+    @Test
+    void shardsRejectAnIdHeldByAnotherOwnersShard() {
+        ShardedAccountRepository repository = new ShardedAccountRepository(8, List.of());
+        repository.add(account("ACC-1", "alice", 100));
+
+        // a different owner routes to a different shard, so the check has to span shards
+        for (String owner : List.of("bob", "carol", "dan", "erin", "frank")) {
+            assertThrows(IllegalArgumentException.class, () -> repository.add(account("ACC-1", owner, 200)));
+        }
+        assertThrows(IllegalArgumentException.class, () -> repository.addAll(List.of(
+                account("ACC-2", "bob", 1), account("ACC-2", "carol", 2))));
+        assertThrows(IllegalArgumentException.class, () -> new ShardedAccountRepository(4, List.of(
+                account("ACC-1", "bob", 1), account("acc-1", "carol", 2))));
+        assertEquals(1, repository.size());
+    }
+
+    @Test
+    void offHeapRowsRejectDuplicateIds() {
+        OffHeapAccountRepository repository = new OffHeapAccountRepository(List.of(account("ACC-1", "alice", 100)));
+
+        assertThrows(IllegalArgumentException.class, () -> repository.add(account("ACC-1", "bob", 200)));
+        assertThrows(IllegalArgumentException.class, () -> repository.addAll(List.of(
+                account("ACC-2", "bob", 200), account("acc-2", "carol", 300))));
+        assertEquals(1, repository.size());
+        repository.remove("ACC-1");
+        repository.add(account("ACC-1", "bob", 200));
+        assertEquals(200, repository.findById("ACC-1").getBalanceCents());
+    }
+
+    @Test
+    void aRejectedDurableAddIsNotLogged() throws IOException {
+        List<InMemoryAccountRepository.SimpleAccountProjection> base = List.of(account("ACC-1", "alice", 100));
+        try (DurableStore store = DurableStore.open(directory, Durability.PER_OP, base)) {
+            assertThrows(IllegalArgumentException.class, () -> store.accounts().add(account("ACC-1", "bob", 200)));
+        }
+
+        // a logged duplicate would fail the replay or leave two rows
+        try (DurableStore store = DurableStore.open(directory, Durability.PER_OP, base)) {
+            assertEquals(1, store.accounts().size());
+            assertEquals(100, store.accounts().findById("ACC-1").getBalanceCents());
+        }
+    }
+
+    @Test
+    void sortedPagesFollowEveryWrite() {
+        Random random = new Random(26L);
+        Map<String, InMemoryAccountRepository.SimpleAccountProjection> expected = new LinkedHashMap<>();
+        for (int i = 0; i < 300; i++) {
+            expected.put("ACC-" + i, account("ACC-" + i, "Customer " + random.nextInt(1_000_000), "owner" + i, i * 7L));
+        }
+        InMemoryAccountRepository repository = new InMemoryAccountRepository(new ArrayList<>(expected.values()));
+        for (int i = 0; i < 60; i++) {
+            String updated = "ACC-" + random.nextInt(300);
+            if (repository.updateBalance(updated, 5_000 + i)) {
+                AccountProjection old = expected.get(updated);
+                expected.put(updated, account(updated, old.getCustomerName(), old.getOwnerUserId(), 5_000 + i));
+            }
+            String removed = "ACC-" + random.nextInt(300);
+            assertEquals(expected.remove(removed) != null, repository.remove(removed));
+            InMemoryAccountRepository.SimpleAccountProjection added =
+                    account("NEW-" + i, "Customer " + random.nextInt(1_000_000), "owner" + i, 9_000 + i * 3L);
+            repository.add(added);
+            expected.put(added.getAccountId(), added);
+        }
+
+        List<AccountProjection> live = new ArrayList<>(expected.values());
+        assertPagedInOrder(repository, live, SortKey.BALANCE, Comparator.comparingLong(AccountProjection::getBalanceCents));
+        assertPagedInOrder(repository, live, SortKey.CUSTOMER_NAME,
+                Comparator.comparing(AccountProjection::getCustomerName, String.CASE_INSENSITIVE_ORDER));
+        assertPagedInOrder(repository, live, SortKey.ACCOUNT_ID,
+                Comparator.comparing(AccountProjection::getAccountId, String.CASE_INSENSITIVE_ORDER));
+    }
+
+    @Test
+    void filteredSortedPagesCountEveryMatch() {
+        List<InMemoryAccountRepository.SimpleAccountProjection> rows = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            rows.add(account("ACC-" + i, "Customer " + i, "owner" + (i % 5), i * 10L));
+        }
+        InMemoryAccountRepository repository = new InMemoryAccountRepository(rows);
+
+        Page<AccountProjection> page = repository.search(UserId.of("owner3"), null, OwnershipScope.OWNED_ONLY,
+                new PageRequest(1, 4, SortKey.BALANCE, SortDirection.DESC));
+
+        assertEquals(10, page.getTotalItems());
+        assertEquals(List.of("ACC-28", "ACC-23", "ACC-18", "ACC-13"), ids(page.getItems()));
+    }
+
+    @Test
+    void topByBalanceMatchesAFullSort() {
+        Random random = new Random(27L);
+        AccountType[] types = AccountType.values();
+        List<InMemoryAccountRepository.SimpleAccountProjection> rows = new ArrayList<>();
+        // more than one selection chunk, so the parallel merge is exercised
+        for (int i = 0; i < 40_000; i++) {
+            rows.add(InMemoryAccountRepository.SimpleAccountProjection.ofCents("ACC-" + i, "5200 0000 0000 0001",
+                    types[random.nextInt(types.length)], "Customer " + i, "owner" + (i % 50),
+                    i % 2 == 0 ? "Regina" : "Halifax", random.nextInt(1_000_000_000)));
+        }
+        InMemoryAccountRepository repository = new InMemoryAccountRepository(rows);
+
+        AccountSearchFilters byType = new AccountSearchFilters();
+        byType.setAccountType(AccountType.SAVING);
+        AccountSearchFilters byPlaceAndRange = new AccountSearchFilters();
+        byPlaceAndRange.setPlaceOfBirth("Halifax");
+        byPlaceAndRange.setMaxBalanceCents(500_000_000L);
+
+        assertTop(rows, account -> true, 100, repository.topByBalance(UserId.of("admin"), null, OwnershipScope.ANY, 100));
+        assertTop(rows, account -> account.getAccountType() == AccountType.SAVING, 30,
+                repository.topByBalance(UserId.of("admin"), byType, OwnershipScope.ANY, 30));
+        assertTop(rows, account -> account.getPlaceOfBirth().equals("Halifax") && account.getBalanceCents() <= 500_000_000L, 30,
+                repository.topByBalance(UserId.of("admin"), byPlaceAndRange, OwnershipScope.ANY, 30));
+        assertTop(rows, account -> account.getOwnerUserId().equals("owner7"), 2_000,
+                repository.topByBalance(UserId.of("owner7"), null, OwnershipScope.OWNED_ONLY, 2_000));
+        assertEquals(List.of(), repository.topByBalance(UserId.of("admin"), null, OwnershipScope.ANY, 0));
+    }
+
+    @Test
+    void suggestionsFollowAddsAndRemoves() {
+        InMemoryAccountRepository repository = new InMemoryAccountRepository(List.of(
+                account("ACC-1", "Hana Ito", "alice", 1), account("ACC-2", "Hans Berg", "bob", 2)));
+        repository.add(account("ACC-3", "Hana Ito", "carol", 3));
+
+        assertEquals(List.of("Hana Ito=2", "Hans Berg=1"), suggestions(repository, "han"));
+        repository.remove("ACC-2");
+        assertEquals(List.of("Hana Ito=2"), suggestions(repository, "HAN"));
+        assertEquals(List.of(), suggestions(repository, "hanz"));
+    }
+
+    @Test
+    void freeTextResultsAreRankedByScore() {
+        InMemoryAccountRepository repository = new InMemoryAccountRepository(List.of(
+                account("ACC-1", "Maria Lopez", "alice", 1, "Lima"),
+                account("ACC-2", "Lima Santos", "bob", 2, "Toronto"),
+                account("ACC-3", "Limaye Rao", "carol", 3, "Lima"),
+                account("ACC-4", "Salima Khan", "dan", 4, "Regina"),
+                account("ACC-5", "Bob Stone", "erin", 5, "Oslo")));
+
+        // name exact 8, place exact 4, name prefix 4, name substring 2; ties keep insertion order
+        assertEquals(List.of("ACC-2", "ACC-1", "ACC-3", "ACC-4"), ids(query(repository, "lima", 0, 10).getItems()));
+        Page<AccountProjection> second = query(repository, "lima", 1, 2);
+        assertEquals(4, second.getTotalItems());
+        assertEquals(List.of("ACC-3", "ACC-4"), ids(second.getItems()));
+        // every token has to match the same row
+        assertEquals(List.of("ACC-2"), ids(query(repository, "LIMA santos", 0, 10).getItems()));
+
+        repository.remove("ACC-2");
+        assertEquals(List.of("ACC-1", "ACC-3", "ACC-4"), ids(query(repository, "lima", 0, 10).getItems()));
+    }
+
+    @Test
+    void facetsCountEveryMatchNotJustThePage() {
+        Random random = new Random(31L);
+        String[] places = {"Regina", "Halifax", "Oslo", "Lima"};
+        AccountType[] types = AccountType.values();
+        List<InMemoryAccountRepository.SimpleAccountProjection> rows = new ArrayList<>();
+        Map<String, AccountProjection> live = new LinkedHashMap<>();
+        for (int i = 0; i < 500; i++) {
+            rows.add(InMemoryAccountRepository.SimpleAccountProjection.ofCents("ACC-" + i, "5200 0000 0000 0001",
+                    types[random.nextInt(types.length)], "Customer " + i, "owner" + (i % 7),
+                    places[random.nextInt(places.length)], random.nextInt(100_000)));
+            live.put("ACC-" + i, rows.get(i));
+        }
+        InMemoryAccountRepository repository = new InMemoryAccountRepository(rows);
+        for (int i = 0; i < 100; i++) {
+            live.remove("ACC-" + (i * 5));
+            repository.remove("ACC-" + (i * 5));
+        }
+
+        AccountSearchFilters halifax = new AccountSearchFilters();
+        halifax.setPlaceOfBirth("Halifax");
+        AccountSearchFilters savingsOver = new AccountSearchFilters();
+        savingsOver.setAccountType(AccountType.SAVING);
+        savingsOver.setMinBalanceCents(40_000L);
+        AccountSearchFilters customers = new AccountSearchFilters();
+        customers.setQuery("customer");
+
+        assertFacets(repository, live, null, "admin", OwnershipScope.ANY, account -> true);
+        assertFacets(repository, live, halifax, "admin", OwnershipScope.ANY,
+                account -> account.getPlaceOfBirth().equals("Halifax"));
+        assertFacets(repository, live, savingsOver, "admin", OwnershipScope.ANY,
+                account -> account.getAccountType() == AccountType.SAVING && account.getBalanceCents() >= 40_000);
+        assertFacets(repository, live, null, "owner3", OwnershipScope.OWNED_ONLY,
+                account -> account.getOwnerUserId().equals("owner3"));
+        assertFacets(repository, live, customers, "admin", OwnershipScope.ANY, account -> true);
+    }
+
+    @Test
+    void accountNumberLookupsMatchTheDigits() {
+        Random random = new Random(39L);
+        List<InMemoryAccountRepository.SimpleAccountProjection> rows = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            String number = String.format("52%02d %04d %04d %04d", random.nextInt(3), random.nextInt(20),
+                    random.nextInt(10_000), random.nextInt(300));
+            rows.add(InMemoryAccountRepository.SimpleAccountProjection.ofCents("ACC-" + i, number, AccountType.CARD,
+                    "Customer " + i, "owner" + i, "Regina", i));
+        }
+        // not 16 digits: kept as given and never matched numerically
+        rows.add(InMemoryAccountRepository.SimpleAccountProjection.ofCents("ACC-LEGACY", "5201-0007", AccountType.CARD,
+                "Legacy Customer", "legacy", "Regina", 1));
+        InMemoryAccountRepository repository = new InMemoryAccountRepository(rows);
+        String target = rows.get(1_234).getAccountNumber();
+        String digits = target.replace(" ", "");
+
+        assertNumberMatches(repository, rows, AccountNumberMatch.EXACT, target, number -> number.equals(digits));
+        assertNumberMatches(repository, rows, AccountNumberMatch.EXACT, digits.substring(0, 15), number -> false);
+        assertNumberMatches(repository, rows, AccountNumberMatch.PREFIX, "5201 0007", number -> number.startsWith("52010007"));
+        assertNumberMatches(repository, rows, AccountNumberMatch.PREFIX, "52-0", number -> number.startsWith("520"));
+        assertNumberMatches(repository, rows, AccountNumberMatch.SUFFIX, "0042", number -> number.endsWith("0042"));
+        assertNumberMatches(repository, rows, AccountNumberMatch.SUFFIX, "17", number -> number.endsWith("17"));
+        assertNumberMatches(repository, rows, AccountNumberMatch.PREFIX, "52x", number -> false);
+        assertEquals("5201-0007", repository.findById("ACC-LEGACY").getAccountNumber());
+        assertEquals(List.of("ACC-LEGACY"), ids(numberSearch(repository, AccountNumberMatch.CONTAINS, "5201-0007").getItems()));
+    }
+
+    private static void assertNumberMatches(InMemoryAccountRepository repository,
+                                            List<InMemoryAccountRepository.SimpleAccountProjection> rows,
+                                            AccountNumberMatch mode, String query, Predicate<String> matchesDigits) {
+        List<String> expected = rows.stream()
+                .filter(row -> row.getAccountNumber().length() == 19)
+                .filter(row -> matchesDigits.test(row.getAccountNumber().replace(" ", "")))
+                .map(AccountProjection::getAccountId)
+                .toList();
+        Page<AccountProjection> page = numberSearch(repository, mode, query);
+        assertEquals(expected.size(), page.getTotalItems(), mode + " " + query);
+        assertEquals(expected.subList(0, Math.min(50, expected.size())), ids(page.getItems()), mode + " " + query);
+    }
+
+    private static Page<AccountProjection> numberSearch(InMemoryAccountRepository repository, AccountNumberMatch mode, String query) {
+        AccountSearchFilters filters = new AccountSearchFilters();
+        filters.setAccountNumber(query);
+        filters.setAccountNumberMatch(mode);
+        return repository.search(UserId.of("admin"), filters, OwnershipScope.ANY, new PageRequest(0, 50));
+    }
+
+    private static void assertFacets(InMemoryAccountRepository repository, Map<String, AccountProjection> live,
+                                     AccountSearchFilters filters, String requester, OwnershipScope scope,
+                                     Predicate<AccountProjection> matches) {
+        Map<AccountType, Long> types = new EnumMap<>(AccountType.class);
+        for (AccountType type : AccountType.values()) {
+            types.put(type, 0L);
+        }
+        Map<String, Long> places = new HashMap<>();
+        live.values().stream().filter(matches).forEach(account -> {
+            types.merge(account.getAccountType(), 1L, Long::sum);
+            places.merge(account.getPlaceOfBirth(), 1L, Long::sum);
+        });
+
+        for (PageRequest page : List.of(new PageRequest(0, 10).withFacets(),
+                new PageRequest(3, 10, SortKey.CUSTOMER_NAME, SortDirection.DESC, true))) {
+            Page<AccountProjection> result = repository.search(UserId.of(requester), filters, scope, page);
+            assertTrue(result.hasFacets());
+            assertEquals(types, result.getFacets().getAccountTypeCounts());
+            assertEquals(places, result.getFacets().getPlaceOfBirthCounts());
+            assertEquals(types.values().stream().mapToLong(Long::longValue).sum(), result.getTotalItems());
+        }
+        assertFalse(repository.search(UserId.of(requester), filters, scope, new PageRequest(0, 10)).hasFacets());
+    }
+
+    private static Page<AccountProjection> query(InMemoryAccountRepository repository, String query, int page, int size) {
+        AccountSearchFilters filters = new AccountSearchFilters();
+        filters.setQuery(query);
+        return repository.search(UserId.of("admin"), filters, OwnershipScope.ANY,
+                new PageRequest(page, size, SortKey.BALANCE, SortDirection.ASC));
+    }
+
+    private static List<String> suggestions(InMemoryAccountRepository repository, String prefix) {
+        return repository.suggest(SuggestField.CUSTOMER_NAME, prefix, 5).stream()
+                .map(suggestion -> suggestion.getValue() + "=" + suggestion.getCount())
+                .toList();
+    }
+
+    private static void assertTop(List<InMemoryAccountRepository.SimpleAccountProjection> rows,
+                                  Predicate<AccountProjection> matches, int k, List<AccountProjection> top) {
+        List<Long> expected = rows.stream()
+                .filter(matches)
+                .map(AccountProjection::getBalanceCents)
+                .sorted(Comparator.reverseOrder())
+                .limit(k)
+                .toList();
+        assertEquals(expected, top.stream().map(AccountProjection::getBalanceCents).toList());
+        assertTrue(top.stream().allMatch(matches));
+    }
+
+    private static void assertPagedInOrder(InMemoryAccountRepository repository, List<AccountProjection> live,
+                                           SortKey key, Comparator<AccountProjection> order) {
+        for (SortDirection direction : SortDirection.values()) {
+            List<AccountProjection> expected = new ArrayList<>(live);
+            expected.sort(direction == SortDirection.DESC ? order.reversed() : order);
+            List<AccountProjection> paged = new ArrayList<>();
+            for (int page = 0; paged.size() < expected.size(); page++) {
+                Page<AccountProjection> result = repository.search(UserId.of("admin"), new AccountSearchFilters(),
+                        OwnershipScope.ANY, new PageRequest(page, 7, key, direction));
+                assertEquals(expected.size(), result.getTotalItems());
+                paged.addAll(result.getItems());
+            }
+            assertEquals(ids(expected), ids(paged), key + " " + direction);
+        }
+    }
+
+    private static List<String> ids(List<AccountProjection> accounts) {
+        return accounts.stream().map(AccountProjection::getAccountId).toList();
+    }
+
+    private static InMemoryAccountRepository.SimpleAccountProjection account(String id, String customerName, String owner, long balanceCents) {
+        return account(id, customerName, owner, balanceCents, "Regina");
+    }
+
+    private static InMemoryAccountRepository.SimpleAccountProjection account(String id, String customerName, String owner,
+                                                                               long balanceCents, String placeOfBirth) {
+        return InMemoryAccountRepository.SimpleAccountProjection.ofCents(id, "5200 0000 0000 0001", AccountType.CHECK,
+                customerName, owner, placeOfBirth, balanceCents);
+    }
+
+    private static InMemoryAccountRepository.SimpleAccountProjection account(String id, String owner, long balanceCents) {
+        return InMemoryAccountRepository.SimpleAccountProjection.ofCents(id, "5200 0000 0000 0001", AccountType.CHECK,
+                "Zed Quinn", owner, "Regina", balanceCents);
+    }
+}
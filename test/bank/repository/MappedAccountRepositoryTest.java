@@ -0,0 +1,76 @@
+package bank.repository;
+
+import bank.contracts.AccountProjection;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedAccountRepositoryTest {
+    private static final List<InMemoryAccountRepository.SimpleAccountProjection> BASE =
+            InMemoryAccountRepository.defaultAccounts().subList(0, 20);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void accountStoreFileRoundTripsThroughTheMappedRepository() throws IOException {
+        Path file = directory.resolve("accounts.store");
+        AccountStoreFile.write(file, BASE);
+
+        MappedAccountRepository mapped = new MappedAccountRepository(file);
+        for (InMemoryAccountRepository.SimpleAccountProjection row : BASE) {
+            AccountProjection read = mapped.findById(row.getAccountId());
+            assertEquals(row.getBalanceCents(), read.getBalanceCents());
+            assertEquals(row.getAccountNumber(), read.getAccountNumber());
+            assertEquals(row.getCustomerName(), read.getCustomerName());
+            assertEquals(row.getOwnerUserId(), read.getOwnerUserId());
+        }
+    }
+
+    @Test
+    void storesAboveTheSizeCapAreRefusedBeforeMapping() throws IOException {
+        Path file = directory.resolve("huge.store");
+        try (RandomAccessFile sparse = new RandomAccessFile(file.toFile(), "rw")) {
+            sparse.setLength(AccountStoreFile.MAX_FILE_BYTES + 1);
+        }
+
+        IOException refused = assertThrows(IOException.class, () -> new MappedAccountRepository(file));
+        assertTrue(refused.getMessage().contains("above 2 GB"));
+    }
+
+    @Test
+    void aRewriteReplacesTheStoreWithoutLeavingTheTemporaryFile() throws IOException {
+        Path file = directory.resolve("accounts.store");
+        AccountStoreFile.write(file, BASE);
+        AccountStoreFile.write(file, BASE.subList(0, 5));
+
+        assertEquals(5, new MappedAccountRepository(file).size());
+        assertFalse(Files.exists(directory.resolve("accounts.store.tmp")));
+    }
+
+    @Test
+    void corruptStoreFilesAreDetected() throws IOException {
+        Path file = directory.resolve("accounts.store");
+        AccountStoreFile.write(file, BASE);
+        byte[] bytes = Files.readAllBytes(file);
+        assertTrue(new MappedAccountRepository(file).verifyChecksum());
+
+        bytes[AccountStoreFile.HEADER_BYTES + AccountStoreFile.R_BALANCE] ^= 0x55;
+        Files.write(file, bytes);
+        assertFalse(new MappedAccountRepository(file).verifyChecksum());
+
+        bytes[AccountStoreFile.H_ROWS] ^= 0x55;
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> new MappedAccountRepository(file));
+    }
+}
@@ -0,0 +1,126 @@
+package bank.repository;
+
+import bank.contracts.AccountProjection;
+import bank.contracts.AggregateView;
+import bank.dto.Aggregate;
+import bank.dto.AggregateGroup;
+import bank.dto.AccountType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class MaterializedViewTest {
+    private static final String[] PLACES = {"Regina", "Halifax", "Oslo", "Lima"};
+
+    private final Random random = new Random(44L);
+
+    @Test
+    void viewsMatchARecountAfterEveryKindOfWrite() {
+        Map<String, AccountProjection> live = new LinkedHashMap<>();
+        List<InMemoryAccountRepository.SimpleAccountProjection> rows = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            rows.add(account("ACC-" + i));
+            live.put("ACC-" + i, rows.get(i));
+        }
+        InMemoryAccountRepository repository = new InMemoryAccountRepository(rows);
+        // one view built from existing rows, the others before any write
+        AggregateView byOwner = repository.registerView("by-owner", AggregateGroup.OWNER);
+        AggregateView byType = repository.registerView("by-type", AggregateGroup.ACCOUNT_TYPE);
+
+        for (int i = 0; i < 2_000; i++) {
+            String id = "ACC-" + random.nextInt(1_000);
+            int op = random.nextInt(3);
+            if (op == 0 && repository.updateBalance(id, random.nextInt(1_000_000))) {
+                live.put(id, repository.findById(id));
+            } else if (op == 1 && repository.remove(id)) {
+                live.remove(id);
+            } else if (op == 2) {
+                InMemoryAccountRepository.SimpleAccountProjection added = account("NEW-" + i);
+                repository.add(added);
+                live.put(added.getAccountId(), added);
+            }
+        }
+        AggregateView byPlace = repository.registerView("by-place", AggregateGroup.PLACE_OF_BIRTH);
+
+        assertEquals(totals(recount(live, AccountProjection::getOwnerUserId)), totals(byOwner.snapshot()));
+        assertEquals(totals(recount(live, account -> account.getAccountType().name())), totals(byType.snapshot()));
+        assertEquals(totals(recount(live, AccountProjection::getPlaceOfBirth)), totals(byPlace.snapshot()));
+    }
+
+    @Test
+    void ownerGroupsIgnoreCaseAndEmptyGroupsDisappear() {
+        InMemoryAccountRepository repository = new InMemoryAccountRepository(List.of(
+                account("ACC-1", "Dana", 100), account("ACC-2", "dana", 250), account("ACC-3", "erin", 7)));
+        AggregateView byOwner = repository.registerView("by-owner", AggregateGroup.OWNER);
+
+        assertEquals(List.of(2L, 350L), totals(byOwner.get("DANA")));
+        repository.remove("ACC-3");
+        assertEquals(List.of(0L, 0L), totals(byOwner.get("erin")));
+        assertFalse(byOwner.snapshot().containsKey("erin"));
+        assertEquals(List.of(0L, 0L), totals(byOwner.get(null)));
+    }
+
+    @Test
+    void shardedViewsAddUpTheShards() {
+        List<InMemoryAccountRepository.SimpleAccountProjection> rows = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            rows.add(account("ACC-" + i));
+        }
+        InMemoryAccountRepository single = new InMemoryAccountRepository(rows);
+        ShardedAccountRepository sharded = new ShardedAccountRepository(4, rows);
+        AggregateView singleOwners = single.registerView("owners", AggregateGroup.OWNER);
+        AggregateView shardedOwners = sharded.registerView("owners", AggregateGroup.OWNER);
+        AggregateView singlePlaces = single.registerView("places", AggregateGroup.PLACE_OF_BIRTH);
+        AggregateView shardedPlaces = sharded.registerView("places", AggregateGroup.PLACE_OF_BIRTH);
+        for (int i = 0; i < 500; i++) {
+            single.updateBalance("ACC-" + i * 3, i);
+            sharded.updateBalance("ACC-" + i * 3, i);
+            single.remove("ACC-" + (i * 3 + 1));
+            sharded.remove("ACC-" + (i * 3 + 1));
+        }
+
+        assertEquals(totals(singleOwners.snapshot()), totals(shardedOwners.snapshot()));
+        assertEquals(totals(singlePlaces.snapshot()), totals(shardedPlaces.snapshot()));
+        assertEquals(totals(singleOwners.get("OWNER5")), totals(shardedOwners.get("owner5")));
+        assertEquals(totals(singlePlaces.get("Oslo")), totals(shardedPlaces.get("Oslo")));
+    }
+
+    private static Map<String, Aggregate> recount(Map<String, AccountProjection> live, Function<AccountProjection, String> groupOf) {
+        Map<String, Aggregate> totals = new HashMap<>();
+        for (AccountProjection account : live.values()) {
+            totals.merge(groupOf.apply(account), new Aggregate(1, account.getBalanceCents()), Aggregate::plus);
+        }
+        return totals;
+    }
+
+    private static Map<String, List<Long>> totals(Map<String, Aggregate> groups) {
+        Map<String, List<Long>> totals = new HashMap<>();
+        groups.forEach((group, aggregate) -> totals.put(group, totals(aggregate)));
+        return totals;
+    }
+
+    private static List<Long> totals(Aggregate aggregate) {
+        return List.of(aggregate.getCount(), aggregate.getSumCents());
+    }
+
+    private InMemoryAccountRepository.SimpleAccountProjection account(String id) {
+        AccountType[] types = AccountType.values();
+        return InMemoryAccountRepository.SimpleAccountProjection.ofCents(id, "5200 0000 0000 0001",
+                types[random.nextInt(types.length)], "Customer " + id, "owner" + random.nextInt(40),
+                PLACES[random.nextInt(PLACES.length)], random.nextInt(1_000_000));
+    }
+
+    private static InMemoryAccountRepository.SimpleAccountProjection account(String id, String owner, long balanceCents) {
+        return InMemoryAccountRepository.SimpleAccountProjection.ofCents(id, "5200 0000 0000 0001", AccountType.CHECK,
+                "Customer " + id, owner, "Regina", balanceCents);
+    }
+}
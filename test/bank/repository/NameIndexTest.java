@@ -0,0 +1,43 @@
+package bank.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NameIndexTest {
+    private final NameIndex index = new NameIndex();
+
+    NameIndexTest() {
+        index.add("Alice Johnson", 0);
+        index.add("Bob Jonsen", 1);
+        index.add("alice johnson", 2);
+        index.add("Carol Smith", 3);
+        index.add("Johnny Smithers", 4);
+    }
+
+    @Test
+    void typosWithinTheEditBudgetMatchAWord() {
+        assertEquals(Set.of("bob jonsen"), index.fuzzyNames("jansen", 1));
+        assertEquals(Set.of("alice johnson", "bob jonsen"), index.fuzzyNames("jonson", 1));
+    }
+
+    @Test
+    void wordPrefixesMatchLikeThePlainFilter() {
+        assertEquals(Set.of("alice johnson", "johnny smithers"), index.fuzzyNames("john", 1));
+        assertEquals(Set.of("carol smith", "johnny smithers"), index.fuzzyNames("SMITH", 1));
+    }
+
+    @Test
+    void everyQueryWordMustMatchTheSameName() {
+        assertEquals(Set.of("alice johnson"), index.fuzzyNames("alise john", 1));
+        assertEquals(Set.of(), index.fuzzyNames("carol johnson", 1));
+        assertEquals(Set.of(), index.fuzzyNames("  ", 1));
+    }
+
+    @Test
+    void rowsAreGroupedByNormalizedName() {
+        assertEquals(2, index.rows("alice johnson").size());
+    }
+}
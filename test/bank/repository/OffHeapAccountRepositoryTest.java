@@ -0,0 +1,89 @@
+package bank.repository;
+
+import bank.contracts.AccountProjection;
+import bank.contracts.AccountRepository.OwnershipScope;
+import bank.dto.AccountSearchFilters;
+import bank.dto.AccountType;
+import bank.dto.Page;
+import bank.dto.PageRequest;
+import bank.dto.SortDirection;
+import bank.dto.SortKey;
+import bank.dto.UserId;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapAccountRepositoryTest {
+    private static final List<InMemoryAccountRepository.SimpleAccountProjection> BASE =
+            InMemoryAccountRepository.defaultAccounts().subList(0, 500);
+
+    @Test
+    void recordsReadBackEveryColumn() {
+        OffHeapAccountRepository offHeap = new OffHeapAccountRepository(BASE);
+
+        assertEquals(BASE.size(), offHeap.size());
+        assertTrue(offHeap.offHeapBytes() >= (long) BASE.size() * OffHeapAccountRepository.RECORD_BYTES);
+        for (InMemoryAccountRepository.SimpleAccountProjection row : BASE) {
+            AccountProjection read = offHeap.findById(row.getAccountId().toLowerCase());
+            assertEquals(row.getAccountId(), read.getAccountId());
+            assertEquals(row.getAccountNumber(), read.getAccountNumber());
+            assertEquals(row.getAccountType(), read.getAccountType());
+            assertEquals(row.getCustomerName(), read.getCustomerName());
+            assertEquals(row.getOwnerUserId(), read.getOwnerUserId());
+            assertEquals(row.getPlaceOfBirth(), read.getPlaceOfBirth());
+            assertEquals(row.getBalanceCents(), read.getBalanceCents());
+        }
+    }
+
+    @Test
+    void searchesAgreeWithTheHeapRepository() {
+        InMemoryAccountRepository heap = new InMemoryAccountRepository(BASE);
+        OffHeapAccountRepository offHeap = new OffHeapAccountRepository(BASE);
+        AccountSearchFilters savings = new AccountSearchFilters();
+        savings.setAccountType(AccountType.SAVING);
+
+        for (SortKey key : SortKey.values()) {
+            for (SortDirection direction : SortDirection.values()) {
+                PageRequest page = new PageRequest(1, 25, key, direction);
+                assertEquals(ids(heap.search(null, savings, OwnershipScope.ANY, page)),
+                        ids(offHeap.search(null, savings, OwnershipScope.ANY, page)), key + " " + direction);
+            }
+        }
+        UserId owner = UserId.of(BASE.get(3).getOwnerUserId());
+        assertEquals(ids(heap.search(owner, null, OwnershipScope.OWNED_ONLY, new PageRequest(0, 50))),
+                ids(offHeap.search(owner, null, OwnershipScope.OWNED_ONLY, new PageRequest(0, 50))));
+    }
+
+    @Test
+    void updatesAreInPlaceAndRemovalsAreTombstones() {
+        OffHeapAccountRepository offHeap = new OffHeapAccountRepository(BASE);
+        String id = BASE.get(7).getAccountId();
+        AccountProjection flyweight = offHeap.findById(id);
+
+        assertTrue(offHeap.updateBalance(id, 1_000_000_000_00L));
+        // projections read the record, so they see the new balance
+        assertEquals(1_000_000_000_00L, flyweight.getBalanceCents());
+        // and the balance index was reordered
+        assertEquals(id, offHeap.topByBalance(null, null, OwnershipScope.ANY, 1).get(0).getAccountId());
+
+        assertTrue(offHeap.remove(id));
+        assertFalse(offHeap.remove(id));
+        assertNull(offHeap.findById(id));
+        assertEquals(BASE.size() - 1, offHeap.size());
+        assertFalse(ids(offHeap.search(null, null, OwnershipScope.ANY, new PageRequest(0, BASE.size()))).contains(id));
+    }
+
+    private static List<String> ids(Page<AccountProjection> page) {
+        List<String> ids = new ArrayList<>();
+        for (AccountProjection row : page.getItems()) {
+            ids.add(row.getAccountId());
+        }
+        return ids;
+    }
+}
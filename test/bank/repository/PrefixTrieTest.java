@@ -0,0 +1,73 @@
+package bank.repository;
+
+import bank.dto.Suggestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PrefixTrieTest {
+    private final PrefixTrie trie = new PrefixTrie();
+
+    @Test
+    void completionsAreCaseInsensitiveAndMostFrequentFirst() {
+        trie.add("Toronto", 5);
+        trie.add("toronto");
+        trie.add("Tokyo", 3);
+        trie.add("Ottawa", 9);
+        trie.add("Torino");
+
+        assertEquals(List.of("Toronto=6", "Tokyo=3", "Torino=1"), render(trie.complete("to", 10)));
+        assertEquals(List.of("Toronto=6"), render(trie.complete(" TOR ", 1)));
+        assertEquals(List.of("Ottawa=9", "Toronto=6"), render(trie.complete("", 2)));
+        assertEquals(List.of(), render(trie.complete("x", 10)));
+    }
+
+    @Test
+    void removalsLowerCountsAndDropValuesAtZero() {
+        trie.add("Regina", 2);
+        trie.add("Red Deer", 3);
+
+        trie.remove("red deer");
+        trie.remove("red deer");
+        assertEquals(List.of("Regina=2", "Red Deer=1"), render(trie.complete("re", 10)));
+
+        trie.remove("Red Deer");
+        trie.remove("Red Deer");
+        assertEquals(List.of("Regina=2"), render(trie.complete("re", 10)));
+    }
+
+    @Test
+    void bestFirstSearchAgreesWithCountingEveryValue() {
+        Random random = new Random(29L);
+        Map<String, Long> counts = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            String value = "v" + Integer.toString(random.nextInt(400), 3);
+            trie.add(value);
+            counts.merge(value, 1L, Long::sum);
+        }
+
+        for (String prefix : List.of("v", "v1", "v20", "v12", "v2101")) {
+            List<Long> expected = counts.entrySet().stream()
+                    .filter(entry -> entry.getKey().startsWith(prefix))
+                    .map(Map.Entry::getValue)
+                    .sorted(Comparator.reverseOrder())
+                    .limit(8)
+                    .toList();
+            List<Suggestion> completions = trie.complete(prefix, 8);
+            assertEquals(expected, completions.stream().map(Suggestion::getCount).toList(), prefix);
+            for (Suggestion suggestion : completions) {
+                assertEquals((long) counts.get(suggestion.getValue()), suggestion.getCount());
+            }
+        }
+    }
+
+    private static List<String> render(List<Suggestion> suggestions) {
+        return suggestions.stream().map(s -> s.getValue() + "=" + s.getCount()).toList();
+    }
+}
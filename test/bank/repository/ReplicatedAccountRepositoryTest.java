@@ -0,0 +1,127 @@
+package bank.repository;
+
+import bank.contracts.AccountProjection;
+import bank.contracts.AccountRepository.OwnershipScope;
+import bank.dto.AccountType;
+import bank.dto.Page;
+import bank.dto.PageRequest;
+import bank.dto.SortDirection;
+import bank.dto.SortKey;
+import bank.dto.UserId;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplicatedAccountRepositoryTest {
+    private static final UserId ADMIN = UserId.of("admin");
+
+    @Test
+    void replicasConvergeOnThePrimary() throws InterruptedException {
+        try (ReplicatedAccountRepository repository = new ReplicatedAccountRepository(3, 60_000, rows(500))) {
+            UserId session = UserId.of("writer");
+            for (int i = 0; i < 500; i++) {
+                repository.updateBalance(session, "ACC-" + i, 10_000 + i);
+                if (i % 10 == 0) {
+                    repository.remove(session, "ACC-" + i);
+                }
+            }
+            repository.add(session, account("ACC-NEW", "writer", 99_999));
+
+            assertTrue(repository.awaitReplication(10_000));
+            assertArrayEquals(new long[3], repository.replicaLag());
+            // reads rotate over the replicas; every one of them has to agree
+            for (int read = 0; read < 6; read++) {
+                assertNull(repository.findById("ACC-10"));
+                assertEquals(10_011, repository.findById("ACC-11").getBalanceCents());
+                Page<AccountProjection> top = repository.search(ADMIN, null, OwnershipScope.ANY,
+                        new PageRequest(0, 3, SortKey.BALANCE, SortDirection.DESC));
+                assertEquals(451, top.getTotalItems());
+                assertEquals(List.of("ACC-NEW", "ACC-499", "ACC-498"),
+                        top.getItems().stream().map(AccountProjection::getAccountId).toList());
+            }
+        }
+    }
+
+    @Test
+    void aSessionReadsItsOwnWrites() {
+        // a long staleness bound lets lagging replicas answer other sessions
+        try (ReplicatedAccountRepository repository = new ReplicatedAccountRepository(2, 60_000, rows(2_000))) {
+            UserId session = UserId.of("teller7");
+            for (int i = 0; i < 300; i++) {
+                repository.add(session, account("OWN-" + i, "teller7", i));
+                repository.updateBalance(session, "ACC-" + i, 1);
+                Page<AccountProjection> own = repository.search(session, null, OwnershipScope.OWNED_ONLY,
+                        new PageRequest(0, 1, SortKey.BALANCE, SortDirection.DESC));
+                assertEquals(i + 1, own.getTotalItems());
+                assertEquals("OWN-" + i, own.getItems().get(0).getAccountId());
+            }
+        }
+    }
+
+    @Test
+    void aZeroStalenessBoundNeverServesOldData() {
+        try (ReplicatedAccountRepository repository = new ReplicatedAccountRepository(2, 0, rows(100))) {
+            for (int i = 0; i < 300; i++) {
+                repository.updateBalance(UserId.of("writer"), "ACC-" + (i % 100), 1_000 + i);
+                List<AccountProjection> top = repository.topByBalance(UserId.of("reader"), null, OwnershipScope.ANY, 1);
+                assertEquals(1_000 + i, top.get(0).getBalanceCents());
+            }
+        }
+    }
+
+    @Test
+    void rejectedWritesAreNotLogged() {
+        try (ReplicatedAccountRepository repository = new ReplicatedAccountRepository(1, 0, rows(10))) {
+            UserId session = UserId.of("writer");
+
+            assertFalse(repository.updateBalance(session, "MISSING", 5));
+            assertFalse(repository.remove(session, "MISSING"));
+            assertThrows(IllegalArgumentException.class, () -> repository.add(session, account("ACC-1", "writer", 5)));
+
+            assertEquals(0, repository.changeLog().lastSequence());
+        }
+    }
+
+    @Test
+    void appliedChangesAreDroppedFromTheLog() throws InterruptedException {
+        try (ReplicatedAccountRepository repository = new ReplicatedAccountRepository(2, 60_000, rows(100))) {
+            for (int i = 0; i < 5_000; i++) {
+                repository.updateBalance(null, "ACC-" + (i % 100), i);
+            }
+            assertTrue(repository.awaitReplication(10_000));
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            boolean dropped = false;
+            while (!dropped && System.currentTimeMillis() < deadline) {
+                try {
+                    repository.changeLog().readAfter(0, 1);
+                    Thread.sleep(1);
+                } catch (IllegalStateException expected) {
+                    dropped = true;
+                }
+            }
+            assertTrue(dropped);
+        }
+    }
+
+    private static List<InMemoryAccountRepository.SimpleAccountProjection> rows(int count) {
+        List<InMemoryAccountRepository.SimpleAccountProjection> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(account("ACC-" + i, "owner" + (i % 20), i));
+        }
+        return rows;
+    }
+
+    private static InMemoryAccountRepository.SimpleAccountProjection account(String id, String owner, long balanceCents) {
+        return InMemoryAccountRepository.SimpleAccountProjection.ofCents(id, "5200 0000 0000 0001", AccountType.SAVING,
+                "Customer " + id, owner, "Regina", balanceCents);
+    }
+}
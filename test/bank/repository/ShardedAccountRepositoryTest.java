@@ -0,0 +1,130 @@
+package bank.repository;
+
+import bank.contracts.AccountProjection;
+import bank.contracts.AccountRepository;
+import bank.contracts.AccountRepository.OwnershipScope;
+import bank.dto.AccountSearchFilters;
+import bank.dto.AccountType;
+import bank.dto.Page;
+import bank.dto.PageRequest;
+import bank.dto.SortDirection;
+import bank.dto.SortKey;
+import bank.dto.SuggestField;
+import bank.dto.Suggestion;
+import bank.dto.UserId;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardedAccountRepositoryTest {
+    private static final UserId ADMIN = UserId.of("admin");
+    private static final String[] PLACES = {"Regina", "Halifax", "Oslo", "Lima", "Toronto"};
+
+    private final Random random = new Random(41L);
+    private final InMemoryAccountRepository single;
+    private final ShardedAccountRepository sharded;
+
+    ShardedAccountRepositoryTest() {
+        List<InMemoryAccountRepository.SimpleAccountProjection> rows = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            rows.add(account("ACC-" + i, i * 11L));
+        }
+        single = new InMemoryAccountRepository(rows);
+        sharded = new ShardedAccountRepository(6, rows);
+        // the same writes on both, spread over every shard
+        for (int i = 0; i < 300; i++) {
+            String updated = "ACC-" + random.nextInt(3_000);
+            assertEquals(single.updateBalance(updated, 50_000 + i), sharded.updateBalance(updated, 50_000 + i));
+            String removed = "ACC-" + random.nextInt(3_000);
+            assertEquals(single.remove(removed), sharded.remove(removed));
+            InMemoryAccountRepository.SimpleAccountProjection added = account("NEW-" + i, 60_000 + i);
+            single.add(added);
+            sharded.add(added);
+        }
+    }
+
+    @Test
+    void rowsSpreadOverEveryShard() {
+        assertEquals(single.size(), sharded.size());
+        assertEquals(single.size(), Arrays.stream(sharded.shardSizes()).sum());
+        assertTrue(Arrays.stream(sharded.shardSizes()).allMatch(size -> size > single.size() / 12));
+        assertEquals(single.findById("NEW-7").getBalanceCents(), sharded.findById("NEW-7").getBalanceCents());
+    }
+
+    @Test
+    void gatheredPagesMatchOneRepository() {
+        AccountSearchFilters halifax = new AccountSearchFilters();
+        halifax.setPlaceOfBirth("Halifax");
+        AccountSearchFilters cards = new AccountSearchFilters();
+        cards.setAccountType(AccountType.CARD);
+        cards.setMinBalanceCents(10_000L);
+
+        for (AccountSearchFilters filters : Arrays.asList(null, halifax, cards)) {
+            for (SortKey key : SortKey.values()) {
+                for (int page : new int[]{0, 1, 7}) {
+                    PageRequest request = new PageRequest(page, 20, key, SortDirection.DESC, true);
+                    Page<AccountProjection> expected = single.search(ADMIN, filters, OwnershipScope.ANY, request);
+                    Page<AccountProjection> actual = sharded.search(ADMIN, filters, OwnershipScope.ANY, request);
+                    assertEquals(expected.getTotalItems(), actual.getTotalItems());
+                    assertEquals(ids(expected.getItems()), ids(actual.getItems()), key + " page " + page);
+                    assertEquals(expected.getFacets().getAccountTypeCounts(), actual.getFacets().getAccountTypeCounts());
+                    assertEquals(expected.getFacets().getPlaceOfBirthCounts(), actual.getFacets().getPlaceOfBirthCounts());
+                }
+            }
+        }
+
+        AccountSearchFilters query = new AccountSearchFilters();
+        query.setQuery("lim");
+        assertEquals(single.search(ADMIN, query, OwnershipScope.ANY, new PageRequest(2, 20)).getTotalItems(),
+                sharded.search(ADMIN, query, OwnershipScope.ANY, new PageRequest(2, 20)).getTotalItems());
+    }
+
+    @Test
+    void ownedSearchesAnswerFromTheOwnersShard() {
+        UserId owner = UserId.of("Owner17");
+        PageRequest request = new PageRequest(0, 50, SortKey.BALANCE, SortDirection.ASC);
+
+        Page<AccountProjection> expected = single.search(owner, null, OwnershipScope.OWNED_ONLY, request);
+        Page<AccountProjection> actual = sharded.search(owner, null, OwnershipScope.OWNED_ONLY, request);
+
+        assertTrue(expected.getTotalItems() > 0);
+        assertEquals(expected.getTotalItems(), actual.getTotalItems());
+        assertEquals(ids(expected.getItems()), ids(actual.getItems()));
+        assertEquals(ids(single.topByBalance(owner, null, OwnershipScope.OWNED_ONLY, 5)),
+                ids(sharded.topByBalance(owner, null, OwnershipScope.OWNED_ONLY, 5)));
+    }
+
+    @Test
+    void topByBalanceAndSuggestionsSpanShards() {
+        AccountSearchFilters oslo = new AccountSearchFilters();
+        oslo.setPlaceOfBirth("Oslo");
+
+        assertEquals(ids(single.topByBalance(ADMIN, null, OwnershipScope.ANY, 40)),
+                ids(sharded.topByBalance(ADMIN, null, OwnershipScope.ANY, 40)));
+        assertEquals(ids(single.topByBalance(ADMIN, oslo, OwnershipScope.ANY, 40)),
+                ids(sharded.topByBalance(ADMIN, oslo, OwnershipScope.ANY, 40)));
+        assertEquals(counts(single, "o"), counts(sharded, "o"));
+        assertEquals(counts(single, "lim"), counts(sharded, "lim"));
+    }
+
+    private static List<Long> counts(AccountRepository repository, String prefix) {
+        return repository.suggest(SuggestField.PLACE_OF_BIRTH, prefix, 5).stream().map(Suggestion::getCount).toList();
+    }
+
+    private static List<String> ids(List<AccountProjection> accounts) {
+        return accounts.stream().map(AccountProjection::getAccountId).toList();
+    }
+
+    private InMemoryAccountRepository.SimpleAccountProjection account(String id, long balanceCents) {
+        AccountType[] types = AccountType.values();
+        return InMemoryAccountRepository.SimpleAccountProjection.ofCents(id, "5200 0000 0000 0001",
+                types[random.nextInt(types.length)], "Customer " + id, "owner" + random.nextInt(200),
+                PLACES[random.nextInt(PLACES.length)], balanceCents);
+    }
+}
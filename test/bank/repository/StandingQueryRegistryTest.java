@@ -0,0 +1,77 @@
+package bank.repository;
+
+import bank.dto.AccountSearchFilters;
+import bank.dto.AccountType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StandingQueryRegistryTest {
+    @Test
+    void matchesReportEnteringChangingAndLeaving() throws InterruptedException {
+        InMemoryAccountRepository repository = new InMemoryAccountRepository(List.of(
+                account("ACC-1", AccountType.CHECK, "Toronto", 500)));
+        List<String> seen = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(4);
+        try (StandingQueryRegistry registry = new StandingQueryRegistry(repository)) {
+            registry.register("big-toronto-checks", filters(AccountType.CHECK, "toronto", 1_000L), match -> {
+                synchronized (seen) {
+                    seen.add(match.getTransition() + " " + match.getAccountId());
+                }
+                done.countDown();
+            });
+
+            repository.updateBalance("ACC-1", 2_000);
+            repository.updateBalance("ACC-1", 3_000);
+            repository.add(account("ACC-2", AccountType.CHECK, "Toronto", 5_000));
+            // other type, other place, below the bound: never reported
+            repository.add(account("ACC-3", AccountType.SAVING, "Toronto", 5_000));
+            repository.add(account("ACC-4", AccountType.CHECK, "Ottawa", 5_000));
+            repository.add(account("ACC-5", AccountType.CHECK, "Toronto", 10));
+            repository.updateBalance("ACC-1", 100);
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertTrue(registry.awaitProcessed(10_000));
+        }
+        synchronized (seen) {
+            assertEquals(List.of("ENTERED ACC-1", "CHANGED ACC-1", "ENTERED ACC-2", "LEFT ACC-1"), seen);
+        }
+    }
+
+    @Test
+    void onlyIndexCandidatesAreEvaluated() throws InterruptedException {
+        InMemoryAccountRepository repository = new InMemoryAccountRepository(List.of());
+        try (StandingQueryRegistry registry = new StandingQueryRegistry(repository)) {
+            for (int i = 0; i < 50; i++) {
+                registry.register("ottawa-" + i, filters(null, "ottawa", null), match -> { });
+                registry.register("rich-" + i, filters(AccountType.SAVING, null, 1_000_000L), match -> { });
+            }
+            registry.register("toronto", filters(null, "toronto", null), match -> { });
+
+            repository.add(account("ACC-1", AccountType.CHECK, "Toronto", 10));
+            assertTrue(registry.awaitProcessed(10_000));
+
+            // a naive registry would have run all 101 filters
+            assertEquals(1, registry.evaluations());
+        }
+    }
+
+    private static AccountSearchFilters filters(AccountType type, String place, Long minBalanceCents) {
+        AccountSearchFilters filters = new AccountSearchFilters();
+        filters.setAccountType(type);
+        filters.setPlaceOfBirth(place);
+        filters.setMinBalanceCents(minBalanceCents);
+        return filters;
+    }
+
+    private static InMemoryAccountRepository.SimpleAccountProjection account(String id, AccountType type, String place, long balanceCents) {
+        return InMemoryAccountRepository.SimpleAccountProjection.ofCents(id, "5200 0000 0000 0001", type,
+                "Zed Quinn", "zed", place, balanceCents);
+    }
+}
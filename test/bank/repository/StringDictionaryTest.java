@@ -0,0 +1,87 @@
+package bank.repository;
+
+import bank.dto.AccountType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StringDictionaryTest {
+    private final StringDictionary dictionary = new StringDictionary();
+
+    @Test
+    void equalValuesShareOneDenseId() {
+        int toronto = dictionary.intern("Toronto");
+        int ottawa = dictionary.intern("Ottawa");
+
+        assertEquals(0, toronto);
+        assertEquals(1, ottawa);
+        assertEquals(toronto, dictionary.intern(new String("Toronto")));
+        assertEquals(2, dictionary.intern("toronto"));
+        assertEquals("Ottawa", dictionary.value(ottawa));
+        assertEquals(3, dictionary.size());
+    }
+
+    @Test
+    void nullAndUnknownValuesMapToNullId() {
+        assertEquals(StringDictionary.NULL_ID, dictionary.intern(null));
+        assertNull(dictionary.value(StringDictionary.NULL_ID));
+        assertEquals(StringDictionary.NULL_ID, dictionary.idOf("Regina"));
+        assertEquals(0, dictionary.size());
+        // idOf never interns
+        assertEquals(StringDictionary.NULL_ID, dictionary.idOf("Regina"));
+    }
+
+    @Test
+    void concurrentInternsHandOutOneIdPerValue() throws InterruptedException {
+        ConcurrentHashMap<String, Set<Integer>> seen = new ConcurrentHashMap<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int offset = t * 250;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    String value = "place-" + ((offset + i) % 1_000);
+                    seen.computeIfAbsent(value, k -> ConcurrentHashMap.newKeySet()).add(dictionary.intern(value));
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1_000, dictionary.size());
+        Set<Integer> ids = new HashSet<>();
+        seen.forEach((value, valueIds) -> {
+            assertEquals(1, valueIds.size(), value);
+            int id = valueIds.iterator().next();
+            assertEquals(value, dictionary.value(id));
+            ids.add(id);
+        });
+        assertEquals(1_000, ids.size());
+        assertTrue(ids.stream().allMatch(id -> id >= 0 && id < 1_000));
+    }
+
+    @Test
+    void rowsWithTheSameStringsShareDictionaryIds() {
+        InMemoryAccountRepository.SimpleAccountProjection first = InMemoryAccountRepository.SimpleAccountProjection.ofCents(
+                "ACC-1", "5200 0000 0000 0001", AccountType.CHECK, "Dana Kerr", "dana", "Gander", 1);
+        InMemoryAccountRepository.SimpleAccountProjection second = InMemoryAccountRepository.SimpleAccountProjection.ofCents(
+                "ACC-2", "5200 0000 0000 0002", AccountType.CARD, new String("Dana Kerr"), "dana", new String("Gander"), 2);
+
+        assertEquals(first.customerNameId(), second.customerNameId());
+        assertEquals(first.placeOfBirthId(), second.placeOfBirthId());
+        assertEquals("Dana Kerr", second.getCustomerName());
+        assertEquals("Gander", second.getPlaceOfBirth());
+        assertEquals(first.customerNameId(), AccountDictionaries.customerNames().idOf("Dana Kerr"));
+    }
+}
@@ -0,0 +1,58 @@
+package bank.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TokenIndexTest {
+    @Test
+    void matchKindAndFieldSetTheScore() {
+        TokenIndex index = new TokenIndex();
+        index.add(0, "ACC-1", "5200 1111 2222 3333", "Maria Lopez", "Lima");
+        index.add(1, "ACC-2", "5200 4444 5555 6666", "Lima Santos", "Toronto");
+        index.add(2, "ACC-3", "5200 7777 8888 9999", "Salima Khan", "Regina");
+
+        assertEquals(List.of(4, 8, 2), scores(index, "LIMA", 3));
+        assertEquals(List.of(6, 0, 0), scores(index, "111", 3));
+        assertEquals(List.of(12, 0, 0), scores(index, "1111", 3));
+        assertEquals(List.of(0, 12, 0), scores(index, "acc-2", 3));
+        assertEquals(List.of(0, 0, 6), scores(index, "52007777", 3));
+    }
+
+    @Test
+    void scanScoresAgreeWithTheIndex() {
+        String[] words = {"ann", "anna", "hanna", "lee", "leeds", "kale", "oslo", "los"};
+        Random random = new Random(30L);
+        TokenIndex index = new TokenIndex();
+        String[][] rows = new String[200][];
+        for (int ordinal = 0; ordinal < rows.length; ordinal++) {
+            String number = String.format("52%02d %04d %04d %04d", random.nextInt(100), random.nextInt(10_000),
+                    random.nextInt(10_000), random.nextInt(10_000));
+            rows[ordinal] = new String[]{"ACC-" + ordinal, number,
+                    words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)],
+                    words[random.nextInt(words.length)]};
+            index.add(ordinal, rows[ordinal][0], rows[ordinal][1], rows[ordinal][2], rows[ordinal][3]);
+        }
+
+        for (String token : List.of("ann", "an", "lee", "os", "52", "acc-1", "acc-17", "e")) {
+            List<Integer> indexed = scores(index, token, rows.length);
+            for (int ordinal = 0; ordinal < rows.length; ordinal++) {
+                String[] row = rows[ordinal];
+                int scanned = Math.max(TokenIndex.scoreAccount(token, row[0], row[1]),
+                        Math.max(TokenIndex.scoreWords(TokenIndex.Field.NAME, token, row[2]),
+                                TokenIndex.scoreWords(TokenIndex.Field.PLACE, token, row[3])));
+                assertEquals(scanned, (int) indexed.get(ordinal), token + " row " + ordinal);
+            }
+        }
+    }
+
+    private static List<Integer> scores(TokenIndex index, String token, int rowCount) {
+        int[] tokenScores = new int[rowCount];
+        index.score(token, tokenScores, new IntList());
+        return Arrays.stream(tokenScores).boxed().toList();
+    }
+}
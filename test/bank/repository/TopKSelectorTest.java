@@ -0,0 +1,59 @@
+package bank.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TopKSelectorTest {
+    private final long[] values = new Random(27L).longs(5_000, 0, 1_000).toArray();
+    private final SortedPermutation.OrdinalComparator byValue =
+            (a, b) -> values[a] != values[b] ? Long.compare(values[a], values[b]) : Integer.compare(a, b);
+
+    @Test
+    void keepsTheLargestOrdinalsLargestFirst() {
+        TopKSelector top = new TopKSelector(25, byValue);
+        for (int ordinal = 0; ordinal < values.length; ordinal++) {
+            top.offer(ordinal);
+        }
+
+        assertArrayEquals(fullSortTop(25), top.drainDescending());
+    }
+
+    @Test
+    void mergedChunksSelectTheSameRows() {
+        TopKSelector merged = IntStream.range(0, 7)
+                .mapToObj(chunk -> {
+                    TopKSelector local = new TopKSelector(40, byValue);
+                    for (int ordinal = chunk; ordinal < values.length; ordinal += 7) {
+                        local.offer(ordinal);
+                    }
+                    return local;
+                })
+                .reduce(TopKSelector::merge)
+                .orElseThrow();
+
+        assertArrayEquals(fullSortTop(40), merged.drainDescending());
+    }
+
+    @Test
+    void fewerRowsThanKAreAllReturned() {
+        TopKSelector top = new TopKSelector(10, byValue);
+        top.offer(3);
+        top.offer(1);
+        top.offer(2);
+
+        assertEquals(3, top.drainDescending().length);
+        assertEquals(0, new TopKSelector(0, byValue).drainDescending().length);
+    }
+
+    private int[] fullSortTop(int k) {
+        Integer[] ordinals = IntStream.range(0, values.length).boxed().toArray(Integer[]::new);
+        Arrays.sort(ordinals, (a, b) -> byValue.compare(b, a));
+        return Arrays.stream(ordinals, 0, k).mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,84 @@
+package bank.service;
+
+import bank.contracts.AccountProjection;
+import bank.contracts.AccountRepository.OwnershipScope;
+import bank.dto.AccountType;
+import bank.dto.PageRequest;
+import bank.dto.UserId;
+import bank.dto.UserIdRegistry;
+import bank.repository.ConsoleAuditLogRepository;
+import bank.repository.InMemoryAccountRepository;
+import bank.repository.InMemoryRoleRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DefaultAuthzServiceTest {
+    @Test
+    void aRequesterBuiltBeforeRegistrationStillOwnsItsAccounts() {
+        UserId early = new UserId("authz-late-owner");
+        assertFalse(early.isRegistered());
+
+        InMemoryAccountRepository accounts = new InMemoryAccountRepository(List.of(
+                InMemoryAccountRepository.SimpleAccountProjection.ofCents("AUTHZ-1", "5200 0000 0000 0001",
+                        AccountType.CHECK, "Late Owner", "Authz-Late-Owner", "Regina", 100)));
+        InMemoryRoleRepository roles = new InMemoryRoleRepository();
+        roles.assignRole(UserId.of("authz-late-owner"), DefaultAuthzService.ROLE_CUSTOMER);
+        DefaultAuthzService authz = new DefaultAuthzService(roles, new ConsoleAuditLogRepository(), accounts);
+
+        assertTrue(authz.canViewAccount(early, "AUTHZ-1"));
+        assertEquals(1, accounts.search(early, null, OwnershipScope.OWNED_ONLY, new PageRequest(0, 10)).getTotalItems());
+    }
+
+    @Test
+    void anUnregisteredRequesterOwnsNothing() {
+        InMemoryAccountRepository accounts = new InMemoryAccountRepository(List.of(
+                InMemoryAccountRepository.SimpleAccountProjection.ofCents("AUTHZ-2", "5200 0000 0000 0002",
+                        AccountType.CHECK, "Someone", "authz-someone", "Regina", 100)));
+
+        UserId stranger = UserId.of("authz-stranger");
+        assertEquals(0, accounts.search(stranger, null, OwnershipScope.OWNED_ONLY, new PageRequest(0, 10)).getTotalItems());
+    }
+
+    @Test
+    void readingTheDefaultOwnerHandleDoesNotRegister() {
+        AccountProjection projection = new AccountProjection() {
+            @Override
+            public String getAccountId() {
+                return "AUTHZ-3";
+            }
+
+            @Override
+            public String getAccountNumber() {
+                return "5200 0000 0000 0003";
+            }
+
+            @Override
+            public long getBalanceCents() {
+                return 0;
+            }
+
+            @Override
+            public AccountType getAccountType() {
+                return AccountType.CHECK;
+            }
+
+            @Override
+            public String getCustomerName() {
+                return "Nobody";
+            }
+
+            @Override
+            public String getOwnerUserId() {
+                return "authz-never-registered";
+            }
+        };
+
+        assertEquals(UserIdRegistry.UNREGISTERED, projection.getOwnerHandle());
+        assertFalse(UserId.of("authz-never-registered").isRegistered());
+    }
+}